@@ -0,0 +1,78 @@
+package com.banka1.banking.benchmark;
+
+import com.banka1.banking.dto.ExchangeQuote;
+import com.banka1.banking.models.helper.CurrencyType;
+import com.banka1.banking.services.ExchangeRateHistoryStore;
+import com.banka1.banking.services.ExchangeRateMatrix;
+import com.banka1.banking.services.ExchangeService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Poredi stari obracun (Map.of sa boxovanim Double vrednostima i castovanjem nazad)
+ * sa {@link ExchangeQuote}. Pokrenuti sa gc profilerom da bi se video gc.alloc.rate.norm.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ExchangeQuoteBenchmark {
+
+    private ExchangeRateMatrix matrix;
+    private ExchangeService exchangeService;
+
+    @Param({"1000.0"})
+    private double amount;
+
+    @Setup
+    public void setUp() {
+        matrix = new ExchangeRateMatrix();
+        double[][] rates = ExchangeRateMatrix.newTable();
+        rates[CurrencyType.EUR.ordinal()][CurrencyType.RSD.ordinal()] = 117.2;
+        rates[CurrencyType.USD.ordinal()][CurrencyType.RSD.ordinal()] = 108.4;
+        rates[CurrencyType.RSD.ordinal()][CurrencyType.EUR.ordinal()] = 1 / 117.2;
+        rates[CurrencyType.RSD.ordinal()][CurrencyType.USD.ordinal()] = 1 / 108.4;
+        matrix.publish(rates);
+
+        exchangeService = new ExchangeService(null, null, null, null, null, null, null, null, matrix, new ExchangeRateHistoryStore());
+    }
+
+    @Benchmark
+    public void legacyMapQuote(Blackhole bh) {
+        Map<String, Object> quote = legacyForeign(amount);
+        bh.consume((Double) quote.get("finalAmount"));
+        bh.consume((Double) quote.get("fee"));
+    }
+
+    @Benchmark
+    public void exchangeQuote(Blackhole bh) {
+        ExchangeQuote quote = exchangeService.quote(CurrencyType.EUR, CurrencyType.USD, amount);
+        bh.consume(quote.getFinalAmount());
+        bh.consume(quote.getFee());
+    }
+
+    // Kopija ranijeg calculatePreviewExchangeForeign, bez pristupa bazi
+    private Map<String, Object> legacyForeign(Double amount) {
+        double firstExchangeRate = matrix.getRate(CurrencyType.EUR, CurrencyType.RSD);
+        double amountInRSD = amount * firstExchangeRate;
+        double firstFee = amountInRSD * 0.01;
+        double remainingRSD = amountInRSD - firstFee;
+
+        double secondExchangeRate = matrix.getRate(CurrencyType.RSD, CurrencyType.USD);
+        double amountInTargetCurrency = remainingRSD * secondExchangeRate;
+        double secondFee = amountInTargetCurrency * 0.01;
+        double finalAmount = amountInTargetCurrency - secondFee;
+        double totalFee = firstFee * secondExchangeRate + secondFee;
+
+        return Map.of(
+                "firstExchangeRate", firstExchangeRate,
+                "secondExchangeRate", 1 / secondExchangeRate,
+                "totalFee", totalFee,
+                "provision", totalFee,
+                "fee", totalFee,
+                "finalAmount", finalAmount
+        );
+    }
+}
@@ -0,0 +1,145 @@
+package com.banka1.banking.benchmark;
+
+import com.banka1.banking.dto.interbank.InterbankMessageDTO;
+import com.banka1.banking.dto.interbank.InterbankMessageType;
+import com.banka1.banking.models.Event;
+import com.banka1.banking.models.helper.IdempotenceKey;
+import com.banka1.banking.repository.EventRepository;
+import com.banka1.banking.services.EventService;
+import com.banka1.banking.services.RecentIdempotenceKeys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.lang.reflect.Proxy;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Prijem poruka na /interbank kada partner ponavlja slanje (duplicateRatio poruka je ponovljena,
+ * nedavno primljena poruka). Poredi raniji prijem (existsByIdempotenceKey pa save, dva upita)
+ * sa {@link EventService#receiveEvent}: jedan insert na unique_key, a ponovljene poruke odbija
+ * {@link RecentIdempotenceKeys} bez upita.
+ * <p>
+ * Baza je zamenjena mapom po unique_key, a svaki upit traje roundTripMicros (parkNanos), pa
+ * rezultat pokazuje broj upita po poruci, ne trosak PostgreSQL-a. Throughput daje poruke u
+ * sekundi, SampleTime raspodelu latencije pri 8 niti.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(8)
+public class IncomingEventDedupBenchmark {
+
+    private static final int RECENT_WINDOW = 1000;
+
+    @Param({"0.0", "0.5", "0.9"})
+    public double duplicateRatio;
+
+    @Param({"200"})
+    public long roundTripMicros;
+
+    private final AtomicLong nextKey = new AtomicLong();
+    private final AtomicLong nextId = new AtomicLong();
+    // Tabela event po unique_key
+    private ConcurrentHashMap<String, Event> table;
+    private EventRepository eventRepository;
+    private EventService eventService;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        table = new ConcurrentHashMap<>();
+        eventRepository = fakeRepository();
+        eventService = new EventService(eventRepository, null, null, new RecentIdempotenceKeys(10000, new SimpleMeterRegistry()));
+        // Prethodno primljene poruke, da ponovljene poruke od pocetka imaju sta da ponove
+        for (int i = 0; i < RECENT_WINDOW; i++) {
+            eventService.receiveEvent(message(nextKey.getAndIncrement()), "{}", "127.0.0.1");
+        }
+    }
+
+    @Benchmark
+    public Object existsThenSave() {
+        InterbankMessageDTO<?> dto = nextMessage();
+        try {
+            if (eventRepository.existsByIdempotenceKey(dto.getIdempotenceKey())) {
+                return Boolean.FALSE;
+            }
+            Event event = new Event();
+            event.setMessageType(dto.getMessageType());
+            event.setPayload("{}");
+            event.setIdempotenceKey(dto.getIdempotenceKey());
+            return eventRepository.save(event);
+        } catch (DataIntegrityViolationException e) {
+            // Dve iste poruke u isto vreme: obe prodju proveru, druga padne na insertu
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object insertFirst() {
+        try {
+            return eventService.receiveEvent(nextMessage(), "{}", "127.0.0.1");
+        } catch (EventService.DuplicateEventException e) {
+            return Boolean.FALSE;
+        }
+    }
+
+    private InterbankMessageDTO<?> nextMessage() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long last = nextKey.get();
+        if (random.nextDouble() < duplicateRatio) {
+            return message(last - 1 - random.nextInt(RECENT_WINDOW));
+        }
+        return message(nextKey.getAndIncrement());
+    }
+
+    private static InterbankMessageDTO<?> message(long key) {
+        InterbankMessageDTO<String> dto = new InterbankMessageDTO<>();
+        dto.setMessageType(InterbankMessageType.NEW_TX);
+        dto.setIdempotenceKey(new IdempotenceKey("444", "tx-" + key));
+        return dto;
+    }
+
+    private EventRepository fakeRepository() {
+        return (EventRepository) Proxy.newProxyInstance(EventRepository.class.getClassLoader(), new Class<?>[]{EventRepository.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "existsByIdempotenceKey" -> {
+                            roundTrip();
+                            return table.containsKey(Event.uniqueKeyOf((IdempotenceKey) args[0]));
+                        }
+                        case "findByUniqueKey" -> {
+                            roundTrip();
+                            return Optional.ofNullable(table.get((String) args[0]));
+                        }
+                        case "save" -> {
+                            roundTrip();
+                            Event event = (Event) args[0];
+                            event.setId(nextId.incrementAndGet());
+                            if (table.putIfAbsent(Event.uniqueKeyOf(event.getIdempotenceKey()), event) != null) {
+                                throw new DataIntegrityViolationException("duplicate key value violates unique constraint");
+                            }
+                            return event;
+                        }
+                        case "hashCode" -> {
+                            return System.identityHashCode(proxy);
+                        }
+                        case "equals" -> {
+                            return proxy == args[0];
+                        }
+                        case "toString" -> {
+                            return "FakeEventRepository";
+                        }
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private void roundTrip() {
+        LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(roundTripMicros));
+    }
+}
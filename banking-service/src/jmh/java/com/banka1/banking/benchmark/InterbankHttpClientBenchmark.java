@@ -0,0 +1,85 @@
+package com.banka1.banking.benchmark;
+
+import com.banka1.banking.services.requests.RequestService;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Poredi slanje NEW_TX poruke drugoj banci sa novim RestTemplate-om za svaki pokusaj (kao ranije
+ * u EventExecutorService.getTemplate) i preko deljenog klijenta iz {@link RequestService} sa
+ * pool-om konekcija. Druga banka je lokalni stub koji odmah vraca glas, pa se meri samo trosak
+ * klijenta (uspostavljanje konekcije, zaglavlja, citanje odgovora).
+ * <p>
+ * Throughput daje poruke u sekundi, SampleTime raspodelu latencije (p50/p99) pri 8 niti.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(8)
+public class InterbankHttpClientBenchmark {
+
+    private static final byte[] VOTE = "{\"vote\":\"YES\",\"reasons\":[]}".getBytes(StandardCharsets.UTF_8);
+
+    private HttpServer stubBank;
+    private ExecutorService stubWorkers;
+    private RequestService requestService;
+    private String url;
+    private HttpEntity<String> request;
+
+    @Setup
+    public void setUp() throws IOException {
+        stubWorkers = Executors.newFixedThreadPool(16);
+        stubBank = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 256);
+        stubBank.createContext("/interbank", exchange -> {
+            try (InputStream body = exchange.getRequestBody()) {
+                body.readAllBytes();
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, VOTE.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(VOTE);
+            }
+        });
+        stubBank.setExecutor(stubWorkers);
+        stubBank.start();
+        url = "http://127.0.0.1:" + stubBank.getAddress().getPort() + "/interbank";
+
+        requestService = new RequestService(new SimpleMeterRegistry(), 50, 20, 2000, 10000, 2000, 30000);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("X-Api-Key", "benchmark");
+        request = new HttpEntity<>("{\"messageType\":\"NEW_TX\",\"message\":{\"postings\":[]}}", headers);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        requestService.close();
+        stubBank.stop(0);
+        stubWorkers.shutdownNow();
+    }
+
+    @Benchmark
+    public String templatePerAttempt() {
+        return new RestTemplate().postForEntity(url, request, String.class).getBody();
+    }
+
+    @Benchmark
+    public String pooledClient() {
+        return requestService.getRestTemplate().postForEntity(url, request, String.class).getBody();
+    }
+}
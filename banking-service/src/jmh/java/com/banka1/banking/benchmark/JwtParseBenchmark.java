@@ -0,0 +1,67 @@
+package com.banka1.banking.benchmark;
+
+import com.banka1.common.model.Department;
+import com.banka1.common.model.Permission;
+import com.banka1.common.model.Position;
+import com.banka1.common.service.implementation.GenericAuthService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Propusnost GenericAuthService.parseToken: ranije (novi kljuc i parser za svaki token),
+ * parser napravljen jednom bez kesa claim-ova, i sa kesom claim-ova kada isti token
+ * stize vise puta, kao kod AuthAspect-a.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class JwtParseBenchmark {
+
+    private static final String SECRET = "dGVzdDEyMzR0ZXN0MTIzNHRlc3QxMjM0dGVzdDEyMzR0ZXN0MTIzNA==";
+
+    static class BenchmarkAuthService extends GenericAuthService {
+        BenchmarkAuthService(int claimsCacheSize) {
+            this.secret = SECRET;
+            this.jwtExpiration = 1800000;
+            this.claimsCacheSize = claimsCacheSize;
+        }
+    }
+
+    private GenericAuthService withoutCache;
+    private GenericAuthService withCache;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        withoutCache = new BenchmarkAuthService(0);
+        withCache = new BenchmarkAuthService(2048);
+        token = withCache.generateToken(1L, Position.WORKER,
+                List.of(Permission.READ_EMPLOYEE, Permission.LIST_EMPLOYEE), true, false, Department.IT);
+    }
+
+    @Benchmark
+    public Claims parseLegacy() {
+        // Ranija implementacija GenericAuthService.parseToken
+        return Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(Base64.getDecoder().decode(SECRET)))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+
+    @Benchmark
+    public Claims parseCachedVerifier() {
+        return withoutCache.parseToken(token);
+    }
+
+    @Benchmark
+    public Claims parseCachedClaims() {
+        return withCache.parseToken(token);
+    }
+}
@@ -0,0 +1,131 @@
+package com.banka1.banking.benchmark;
+
+import com.banka1.banking.dto.CustomerDTO;
+import com.banka1.common.listener.MessageCodec;
+import com.banka1.common.listener.MessageHelper;
+import com.banka1.common.listener.SmileMessageCodec;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.jms.BytesMessage;
+import jakarta.jms.Message;
+import jakarta.jms.Session;
+import jakarta.jms.TextMessage;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Poredi citanje odgovora na get-customer: ranije (tekst, readValue i Bean Validation za svaku
+ * poruku), JSON sa kesiranim ObjectReader-om i bez validacije za {@code @TrustedMessage} DTO,
+ * i Smile u BytesMessage. JMS poruke su minimalni proxy-ji, pa se meri samo kodiranje.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MessageCodecBenchmark {
+
+    private ObjectMapper objectMapper;
+    private Validator validator;
+    private MessageHelper jsonHelper;
+    private MessageHelper smileHelper;
+    private Session session;
+    private CustomerDTO customer;
+
+    private TextMessage jsonMessage;
+    private BytesMessage smileMessage;
+
+    @Setup
+    public void setUp() throws Exception {
+        objectMapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        validator = Validation.buildDefaultValidatorFactory().getValidator();
+        jsonHelper = new MessageHelper(validator, objectMapper);
+        smileHelper = new MessageHelper(validator, objectMapper, new SmileMessageCodec(objectMapper));
+
+        customer = new CustomerDTO();
+        customer.setId(42L);
+        customer.setFirstName("Petar");
+        customer.setLastName("Petrovic");
+        customer.setBirthDate("1990-05-12");
+        customer.setEmail("petar.petrovic@example.com");
+        customer.setPhoneNumber("+381641234567");
+        customer.setAddress("Bulevar kralja Aleksandra 73, Beograd");
+        customer.setPermissions(List.of("user.customer.view", "user.customer.edit"));
+
+        session = (Session) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Session.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "createTextMessage" -> textMessage((String) args[0]);
+                    case "createBytesMessage" -> bytesMessage(new ByteArrayOutputStream());
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+
+        jsonMessage = textMessage(objectMapper.writeValueAsString(customer));
+        smileMessage = (BytesMessage) smileHelper.createMessage(session, customer);
+    }
+
+    private static TextMessage textMessage(String text) {
+        return (TextMessage) Proxy.newProxyInstance(MessageCodecBenchmark.class.getClassLoader(), new Class<?>[]{TextMessage.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getText" -> text;
+                    case "getStringProperty", "setStringProperty" -> null;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static BytesMessage bytesMessage(ByteArrayOutputStream body) {
+        String[] contentType = new String[1];
+        return (BytesMessage) Proxy.newProxyInstance(MessageCodecBenchmark.class.getClassLoader(), new Class<?>[]{BytesMessage.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "writeBytes" -> {
+                        body.write((byte[]) args[0]);
+                        yield null;
+                    }
+                    case "getBody" -> body.toByteArray();
+                    case "setStringProperty" -> {
+                        contentType[0] = (String) args[1];
+                        yield null;
+                    }
+                    case "getStringProperty" -> MessageCodec.CONTENT_TYPE_PROPERTY.equals(args[0]) ? contentType[0] : null;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    @Benchmark
+    public CustomerDTO decodeLegacyJson() throws Exception {
+        // Ranija implementacija MessageHelper.getMessage
+        CustomerDTO data = objectMapper.readValue(jsonMessage.getText(), CustomerDTO.class);
+        if (!validator.validate(data).isEmpty()) {
+            throw new IllegalStateException();
+        }
+        return data;
+    }
+
+    @Benchmark
+    public CustomerDTO decodeJson() throws Exception {
+        return jsonHelper.getMessage(jsonMessage, CustomerDTO.class);
+    }
+
+    @Benchmark
+    public CustomerDTO decodeSmile() throws Exception {
+        return smileHelper.getMessage(smileMessage, CustomerDTO.class);
+    }
+
+    @Benchmark
+    public String encodeLegacyJson() throws Exception {
+        return objectMapper.writeValueAsString(customer);
+    }
+
+    @Benchmark
+    public Message encodeJson() throws Exception {
+        return jsonHelper.createMessage(session, customer);
+    }
+
+    @Benchmark
+    public Message encodeSmile() throws Exception {
+        return smileHelper.createMessage(session, customer);
+    }
+}
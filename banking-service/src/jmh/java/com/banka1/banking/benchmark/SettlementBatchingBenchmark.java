@@ -0,0 +1,102 @@
+package com.banka1.banking.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Poredi izvrsavanje transfera jedan po jedan (kao ranije iz HTTP niti: posebne naredbe i commit
+ * po transferu) sa grupama iz TransferSettlementQueue (JDBC batch i jedan commit po grupi).
+ * Rezultat je u transferima po sekundi. Koristi se H2 u memoriji, pa je ovo donja granica
+ * dobitka: na PostgreSQL-u commit ukljucuje i upis WAL-a na disk.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SettlementBatchingBenchmark {
+
+    private static final int ACCOUNTS = 1000;
+    private static final int BATCH_SIZE = 200;
+
+    private Connection connection;
+    private PreparedStatement debit;
+    private PreparedStatement credit;
+    private PreparedStatement insertTransaction;
+    private PreparedStatement completeTransfer;
+    private long nextTransfer;
+
+    @Setup
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:settlement-benchmark;DB_CLOSE_DELAY=-1");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+            statement.execute("CREATE TABLE account (id BIGINT PRIMARY KEY, balance DOUBLE PRECISION NOT NULL)");
+            statement.execute("CREATE TABLE transfer (id BIGINT PRIMARY KEY, status VARCHAR(16) NOT NULL)");
+            statement.execute("CREATE TABLE transaction_log (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                    + "from_account_id BIGINT, to_account_id BIGINT, amount DOUBLE PRECISION, transfer_id BIGINT)");
+            statement.execute("INSERT INTO account SELECT X, 1000000000 FROM SYSTEM_RANGE(1, " + ACCOUNTS + ")");
+        }
+        connection.setAutoCommit(false);
+
+        debit = connection.prepareStatement("UPDATE account SET balance = balance - ? WHERE id = ?");
+        credit = connection.prepareStatement("UPDATE account SET balance = balance + ? WHERE id = ?");
+        insertTransaction = connection.prepareStatement(
+                "INSERT INTO transaction_log (from_account_id, to_account_id, amount, transfer_id) VALUES (?, ?, ?, ?)");
+        completeTransfer = connection.prepareStatement("MERGE INTO transfer KEY (id) VALUES (?, 'COMPLETED')");
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    private void bind(long transferId) throws SQLException {
+        long from = transferId % ACCOUNTS + 1;
+        long to = (transferId * 7 + 3) % ACCOUNTS + 1;
+
+        debit.setDouble(1, 10.0);
+        debit.setLong(2, from);
+        credit.setDouble(1, 10.0);
+        credit.setLong(2, to);
+        insertTransaction.setLong(1, from);
+        insertTransaction.setLong(2, to);
+        insertTransaction.setDouble(3, 10.0);
+        insertTransaction.setLong(4, transferId);
+        completeTransfer.setLong(1, transferId);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void perTransferCommit() throws SQLException {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            bind(nextTransfer++);
+            debit.executeUpdate();
+            credit.executeUpdate();
+            insertTransaction.executeUpdate();
+            completeTransfer.executeUpdate();
+            connection.commit();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void microBatchedCommit() throws SQLException {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            bind(nextTransfer++);
+            debit.addBatch();
+            credit.addBatch();
+            insertTransaction.addBatch();
+            completeTransfer.addBatch();
+        }
+        debit.executeBatch();
+        credit.executeBatch();
+        insertTransaction.executeBatch();
+        completeTransfer.executeBatch();
+        connection.commit();
+    }
+}
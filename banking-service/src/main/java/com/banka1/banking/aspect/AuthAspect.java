@@ -1,9 +1,10 @@
 package com.banka1.banking.aspect;
 
+import com.banka1.banking.aspect.AuthorizationMetadata.OwnerCheck;
+import com.banka1.banking.aspect.AuthorizationMetadata.OwnerResolver;
 import com.banka1.banking.dto.*;
 import com.banka1.banking.dto.request.CreateAccountDTO;
 import com.banka1.banking.dto.request.CreateLoanDTO;
-import com.banka1.banking.models.Account;
 import com.banka1.banking.models.Card;
 import com.banka1.banking.models.Loan;
 import com.banka1.banking.models.Receiver;
@@ -12,56 +13,118 @@ import com.banka1.banking.services.implementation.AuthService;
 import com.banka1.banking.utils.ResponseMessage;
 import com.banka1.banking.utils.ResponseTemplate;
 import com.banka1.banking.utils.ThrowingFunction;
-import com.banka1.common.model.Position;
 import io.jsonwebtoken.Claims;
 import jakarta.servlet.http.HttpServletRequest;
-import org.aspectj.lang.JoinPoint;
+import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.reflect.MethodSignature;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
 
+import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.OptionalInt;
-import java.util.stream.IntStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
 
+@Slf4j
 @Aspect
 @Configuration
 @EnableAspectJAutoProxy
 public class AuthAspect {
+    private static final List<Class<? extends Annotation>> AUTHORIZATION_ANNOTATIONS = List.of(
+            Authorization.class, AccountAuthorization.class, CardAuthorization.class,
+            LoanAuthorization.class, ReceiverAuthorization.class);
+    private static final ParameterNameDiscoverer PARAMETER_NAMES = new DefaultParameterNameDiscoverer();
+
     private final AuthService authService;
-    private final AccountService accountService;
     private final LoanService loanService;
     private final CardService cardService;
-    private final TransferService transferService;
     private final ReceiverService receiverService;
+    private final AccountOwnerCache accountOwnerCache;
+
+    // DTO-ovi iz kojih se odredjuje vlasnik racuna nad kojim se radi operacija
+    private final Map<Class<?>, OwnerResolver> ownerResolvers;
+    private final Map<Method, AuthorizationMetadata> metadata = new ConcurrentHashMap<>();
 
-    public AuthAspect(AuthService authService, AccountService accountService, LoanService loanService, CardService cardService, TransferService transferService, ReceiverService receiverService) {
+    public AuthAspect(AuthService authService, LoanService loanService, CardService cardService, ReceiverService receiverService, AccountOwnerCache accountOwnerCache) {
         this.authService = authService;
-        this.accountService = accountService;
         this.loanService = loanService;
         this.cardService = cardService;
-        this.transferService = transferService;
         this.receiverService = receiverService;
+        this.accountOwnerCache = accountOwnerCache;
+        this.ownerResolvers = Map.of(
+                CreateAccountDTO.class, dto -> ((CreateAccountDTO) dto).getOwnerID(),
+                ExchangeMoneyTransferDTO.class, dto -> accountOwnerCache.getOwnerId(((ExchangeMoneyTransferDTO) dto).getAccountFrom()),
+                OtpTokenDTO.class, dto -> accountOwnerCache.getOwnerIdByTransferId(((OtpTokenDTO) dto).getTransferId()),
+                ReceiverDTO.class, dto -> ((ReceiverDTO) dto).getCustomerId(),
+                InternalTransferDTO.class, dto -> accountOwnerCache.getOwnerId(((InternalTransferDTO) dto).getFromAccountId()),
+                MoneyTransferDTO.class, dto -> accountOwnerCache.getOwnerIdByAccountNumber(((MoneyTransferDTO) dto).getFromAccountNumber()),
+                CreateCardDTO.class, dto -> accountOwnerCache.getOwnerId(((CreateCardDTO) dto).getAccountID()),
+                CreateLoanDTO.class, dto -> accountOwnerCache.getOwnerId(((CreateLoanDTO) dto).getAccountId()));
     }
 
-    // Izvlači token iz prosledjenog autorizacionog parametra
-    private String parseAuthToken(String[] parameterNames, Object[] args) {
-        for (int i = 0; i < parameterNames.length; i++) {
-            if (parameterNames[i].equals("authorization") && args[i] != null) {
-                return authService.getToken(args[i].toString());
+    /**
+     * Priprema podatke za sve anotirane kontroler metode pri pokretanju, da prvi zahtevi
+     * ne bi cekali na refleksiju. Metode koje ovde nisu obradjene se obradjuju pri prvom pozivu.
+     */
+    @EventListener
+    public void precomputeMetadata(ContextRefreshedEvent event) {
+        for (RequestMappingHandlerMapping mapping : event.getApplicationContext().getBeansOfType(RequestMappingHandlerMapping.class).values()) {
+            for (HandlerMethod handlerMethod : mapping.getHandlerMethods().values()) {
+                Method method = handlerMethod.getMethod();
+                String[] parameterNames = PARAMETER_NAMES.getParameterNames(method);
+                Annotation annotation = authorizationAnnotation(method);
+                if (annotation != null && parameterNames != null) {
+                    metadata.computeIfAbsent(method, m -> AuthorizationMetadata.of(annotation, parameterNames, m.getParameterTypes(), ownerResolvers));
+                }
+            }
+        }
+        log.info("Autorizacioni podaci pripremljeni za {} kontroler metoda", metadata.size());
+    }
+
+    private static Annotation authorizationAnnotation(Method method) {
+        for (Class<? extends Annotation> type : AUTHORIZATION_ANNOTATIONS) {
+            Annotation annotation = method.getAnnotation(type);
+            if (annotation != null) {
+                return annotation;
             }
         }
         return null;
     }
 
+    private AuthorizationMetadata metadataFor(ProceedingJoinPoint joinPoint, Class<? extends Annotation> annotationType) {
+        MethodSignature methodSignature = (MethodSignature) joinPoint.getSignature();
+        return metadata.computeIfAbsent(methodSignature.getMethod(), method -> AuthorizationMetadata.of(
+                method.getAnnotation(annotationType),
+                methodSignature.getParameterNames(),
+                methodSignature.getParameterTypes(),
+                ownerResolvers));
+    }
+
+    private static Long longArgument(Object[] args, int index) {
+        return Long.valueOf(args[index].toString());
+    }
+
+    private static boolean isOwner(Long ownerId, Long userId) {
+        return ownerId != null && ownerId.equals(userId);
+    }
+
     private String getAuthTokenFromRequest() {
         ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
         if (attributes != null) {
@@ -72,93 +135,57 @@ public class AuthAspect {
         return null;
     }
 
-    private Object doAuth(MethodSignature methodSignature, ProceedingJoinPoint joinPoint, ThrowingFunction<Claims, Object> callback) throws Throwable {
-        String token = parseAuthToken(methodSignature.getParameterNames(), joinPoint.getArgs());
+    private Object doAuth(AuthorizationMetadata metadata, ProceedingJoinPoint joinPoint, ThrowingFunction<Claims, Object> callback) throws Throwable {
+        String token = null;
+        Object[] args = joinPoint.getArgs();
+        if(metadata.authorizationIndex() >= 0 && args[metadata.authorizationIndex()] != null)
+            token = authService.getToken(args[metadata.authorizationIndex()].toString());
         if(token == null)
             token = getAuthTokenFromRequest();
 
         if(token == null) {
             // Token ne postoji, tj. korisnik nije ulogovan
-            return ResponseTemplate.create(ResponseEntity.status(HttpStatus.UNAUTHORIZED), false, null, ResponseMessage.INVALID_LOGIN.toString());
+            return asReturnType(joinPoint, ResponseTemplate.create(ResponseEntity.status(HttpStatus.UNAUTHORIZED), false, null, ResponseMessage.INVALID_LOGIN.toString()));
         }
 
-        // Token je blacklist-ovan
-        // Trenutno nemoguće proveriti
-
         Claims claims = authService.parseToken(token);
         if(claims == null) {
-            // Token postoji ali nije autentičan, verovatno je pokušaj neodobrenog pristupa
-            return ResponseTemplate.create(ResponseEntity.status(HttpStatus.UNAUTHORIZED), false, null, ResponseMessage.INVALID_LOGIN.toString());
+            // Token postoji ali nije autentičan ili je opozvan (crna lista se proverava u parseToken)
+            return asReturnType(joinPoint, ResponseTemplate.create(ResponseEntity.status(HttpStatus.UNAUTHORIZED), false, null, ResponseMessage.INVALID_LOGIN.toString()));
         }
 
-        return callback.apply(claims);
+        Object result = callback.apply(claims);
+        return result instanceof ResponseEntity<?> response ? asReturnType(joinPoint, response) : result;
     }
 
-    private boolean accountDataOk(MethodSignature methodSignature, JoinPoint joinPoint, Long userId) {
-        OptionalInt maybeAccountIdIndex = IntStream.range(0, methodSignature.getParameterNames().length).filter(i -> methodSignature.getParameterNames()[i].compareTo("accountId") == 0).findFirst();
-        if (maybeAccountIdIndex.isPresent()) {
-            Account account = accountService.findById(Long.valueOf(joinPoint.getArgs()[maybeAccountIdIndex.getAsInt()].toString()));
-            if (account != null) {
-                return Objects.equals(userId, account.getOwnerID());
-            }
-        } else {
-            Class<?>[] types = methodSignature.getParameterTypes();
-            Object[] values = joinPoint.getArgs();
-
-            boolean encounteredDto = false;
-
-            for (int i = 0; i < types.length; i++) {
-                if(types[i] == CreateAccountDTO.class) {
-                    if(!Objects.equals(((CreateAccountDTO) values[i]).getOwnerID(), userId))
-                        return false;
-                    encounteredDto = true;
-                } else if(types[i] == ExchangeMoneyTransferDTO.class) {
-                    if(!Objects.equals(accountService.findById(((ExchangeMoneyTransferDTO) values[i]).getAccountFrom()).getOwnerID(), userId))
-                        return false;
-                    encounteredDto = true;
-                } else if(types[i] == OtpTokenDTO.class) {
-                    if(!Objects.equals(transferService.findById(((OtpTokenDTO) values[i]).getTransferId()).getFromAccountId().getOwnerID(), userId))
-                        return false;
-                    encounteredDto = true;
-                } else if(types[i] == ReceiverDTO.class) {
-//                   // if(!Objects.equals(accountService.findById(((ReceiverDTO) values[i]).getCustomerId()), userId))
-                    Long customerId = ((ReceiverDTO) values[i]).getCustomerId();
-                    if (!Objects.equals(customerId, userId))
-                        return false;
-                    encounteredDto = true;
-                } else if(types[i] == InternalTransferDTO.class) {
-                    if(!Objects.equals(accountService.findById(((InternalTransferDTO) values[i]).getFromAccountId()).getOwnerID(), userId))
-                        return false;
-                    encounteredDto = true;
-                } else if(types[i] == MoneyTransferDTO.class) {
-                    if(!Objects.equals(accountService.findByAccountNumber(((MoneyTransferDTO) values[i]).getFromAccountNumber()).getOwnerID(), userId))
-                        return false;
-                    encounteredDto = true;
-                } else if(types[i] == CreateCardDTO.class) {
-                    if(!Objects.equals(accountService.findById(((CreateCardDTO) values[i]).getAccountID()).getOwnerID(), userId))
-                        return false;
-                    encounteredDto = true;
-                } else if(types[i] == CreateLoanDTO.class) {
-                    if(!Objects.equals(accountService.findById(((CreateLoanDTO) values[i]).getAccountId()).getOwnerID(), userId))
-                        return false;
-                    encounteredDto = true;
-                }
-            }
-            return encounteredDto;
+    /**
+     * Odbijen zahtev se vraca u tipu koji metoda ocekuje: asinhrone kontroler metode
+     * vracaju CompletableFuture, pa se odgovor pakuje u vec zavrsen future.
+     */
+    private static Object asReturnType(ProceedingJoinPoint joinPoint, ResponseEntity<?> response) {
+        Class<?> returnType = ((MethodSignature) joinPoint.getSignature()).getReturnType();
+        return CompletionStage.class.isAssignableFrom(returnType) ? CompletableFuture.completedFuture(response) : response;
+    }
+
+    private boolean accountDataOk(AuthorizationMetadata metadata, Object[] args, Long userId) {
+        if (metadata.accountIdIndex() >= 0) {
+            return isOwner(accountOwnerCache.getOwnerId(longArgument(args, metadata.accountIdIndex())), userId);
         }
-        return false;
+
+        List<OwnerCheck> ownerChecks = metadata.ownerChecks();
+        for (OwnerCheck check : ownerChecks) {
+            Object argument = args[check.index()];
+            if (argument == null || !isOwner(check.resolver().ownerOf(argument), userId))
+                return false;
+        }
+        return !ownerChecks.isEmpty();
     }
 
     @Around("@annotation(com.banka1.banking.aspect.Authorization)")
     public Object authorizeAction(ProceedingJoinPoint joinPoint) throws Throwable {
-        MethodSignature methodSignature = (MethodSignature) joinPoint.getSignature();
-        Method method = methodSignature.getMethod();
-        System.out.println("Autorizing 1");
-
-        return doAuth(methodSignature, joinPoint, (claims) -> {
-            System.out.println("Autorizing 2");
-            Authorization authorization = method.getAnnotation(Authorization.class);
+        AuthorizationMetadata authorization = metadataFor(joinPoint, Authorization.class);
 
+        return doAuth(authorization, joinPoint, (claims) -> {
             if(!authorization.customerOnlyOperation()) {
                 if(claims.get("isEmployed", Boolean.class)) {
                     // Zaposleni
@@ -166,34 +193,24 @@ public class AuthAspect {
                 }
             }
 
-            System.out.println("Autorizing 3");
-
             if(!authorization.employeeOnlyOperation()) {
-                System.out.println("Autorizing 3.1");
                 return joinPoint.proceed();
             }
 
-            System.out.println("Autorizing 4");
-
             // ako je admin
             if(!authorization.disallowAdminFallback() && Objects.equals(claims.get("isAdmin", Boolean.class), true)) {
                 return joinPoint.proceed();
             }
 
-            System.out.println("Autorizing 5");
-
             return ResponseTemplate.create(ResponseEntity.status(HttpStatus.FORBIDDEN), false, null, ResponseMessage.FORBIDDEN.toString());
         });
     }
 
     @Around("@annotation(com.banka1.banking.aspect.AccountAuthorization)")
     public Object authorizeAccountAction(ProceedingJoinPoint joinPoint) throws Throwable {
-        MethodSignature methodSignature = (MethodSignature) joinPoint.getSignature();
-        Method method = methodSignature.getMethod();
-
-        return doAuth(methodSignature, joinPoint, (claims) -> {
-            AccountAuthorization authorization = method.getAnnotation(AccountAuthorization.class);
+        AuthorizationMetadata authorization = metadataFor(joinPoint, AccountAuthorization.class);
 
+        return doAuth(authorization, joinPoint, (claims) -> {
             if(!authorization.customerOnlyOperation()) {
                 if(claims.get("isEmployed", Boolean.class)) {
                     // Zaposleni
@@ -202,14 +219,14 @@ public class AuthAspect {
             }
 
             if(!authorization.employeeOnlyOperation()) {
-                OptionalInt maybeUserIdIndex = IntStream.range(0, methodSignature.getParameterNames().length).filter(i -> methodSignature.getParameterNames()[i].compareTo("userId") == 0).findFirst();
-                if (maybeUserIdIndex.isPresent()) {
-                    Long givenId = Long.parseLong(joinPoint.getArgs()[maybeUserIdIndex.getAsInt()].toString());
+                Object[] args = joinPoint.getArgs();
+                if (authorization.userIdIndex() >= 0) {
+                    Long givenId = longArgument(args, authorization.userIdIndex());
                     if (Objects.equals(claims.get("id", Long.class), givenId))
                         return joinPoint.proceed();
                 }
 
-                if(accountDataOk(methodSignature, joinPoint, claims.get("id", Long.class)))
+                if(accountDataOk(authorization, args, claims.get("id", Long.class)))
                     return joinPoint.proceed();
             }
 
@@ -224,12 +241,9 @@ public class AuthAspect {
 
     @Around("@annotation(com.banka1.banking.aspect.CardAuthorization)")
     public Object authorizeCardAction(ProceedingJoinPoint joinPoint) throws Throwable {
-        MethodSignature methodSignature = (MethodSignature) joinPoint.getSignature();
-        Method method = methodSignature.getMethod();
-
-        return doAuth(methodSignature, joinPoint, (claims) -> {
-            CardAuthorization authorization = method.getAnnotation(CardAuthorization.class);
+        AuthorizationMetadata authorization = metadataFor(joinPoint, CardAuthorization.class);
 
+        return doAuth(authorization, joinPoint, (claims) -> {
             if(!authorization.customerOnlyOperation()) {
                 if(claims.get("isEmployed", Boolean.class)) {
                     // Zaposleni
@@ -238,12 +252,12 @@ public class AuthAspect {
             }
 
             if(!authorization.employeeOnlyOperation()) {
-                if(accountDataOk(methodSignature, joinPoint, claims.get("id", Long.class)))
+                Object[] args = joinPoint.getArgs();
+                if(accountDataOk(authorization, args, claims.get("id", Long.class)))
                     return joinPoint.proceed();
 
-                OptionalInt maybeCardIdIndex = IntStream.range(0, methodSignature.getParameterNames().length).filter(i -> methodSignature.getParameterNames()[i].compareTo("cardId") == 0).findFirst();
-                if (maybeCardIdIndex.isPresent()) {
-                    Card card = cardService.findById(Long.valueOf(joinPoint.getArgs()[maybeCardIdIndex.getAsInt()].toString()));
+                if (authorization.cardIdIndex() >= 0) {
+                    Card card = cardService.findById(longArgument(args, authorization.cardIdIndex()));
                     if (Objects.equals(claims.get("id", Long.class), card.getAccount().getOwnerID()))
                         return joinPoint.proceed();
                 }
@@ -260,12 +274,9 @@ public class AuthAspect {
 
     @Around("@annotation(com.banka1.banking.aspect.LoanAuthorization)")
     public Object authorizeLoanAction(ProceedingJoinPoint joinPoint) throws Throwable {
-        MethodSignature methodSignature = (MethodSignature) joinPoint.getSignature();
-        Method method = methodSignature.getMethod();
-
-        return doAuth(methodSignature, joinPoint, (claims) -> {
-            LoanAuthorization authorization = method.getAnnotation(LoanAuthorization.class);
+        AuthorizationMetadata authorization = metadataFor(joinPoint, LoanAuthorization.class);
 
+        return doAuth(authorization, joinPoint, (claims) -> {
             if(!authorization.customerOnlyOperation()) {
                 if(claims.get("isEmployed", Boolean.class)) {
                     // Zaposleni
@@ -274,12 +285,12 @@ public class AuthAspect {
             }
 
             if(!authorization.employeeOnlyOperation()) {
-                if(accountDataOk(methodSignature, joinPoint, claims.get("id", Long.class)))
+                Object[] args = joinPoint.getArgs();
+                if(accountDataOk(authorization, args, claims.get("id", Long.class)))
                     return joinPoint.proceed();
 
-                OptionalInt maybeLoanIdIndex = IntStream.range(0, methodSignature.getParameterNames().length).filter(i -> methodSignature.getParameterNames()[i].compareTo("loanId") == 0).findFirst();
-                if(maybeLoanIdIndex.isPresent()) {
-                    Loan loan = loanService.getLoanDetails(Long.valueOf(joinPoint.getArgs()[maybeLoanIdIndex.getAsInt()].toString()));
+                if(authorization.loanIdIndex() >= 0) {
+                    Loan loan = loanService.getLoanDetails(longArgument(args, authorization.loanIdIndex()));
                     if(loan != null) {
                         if (Objects.equals(claims.get("id", Long.class), loan.getAccount().getOwnerID()))
                             return joinPoint.proceed();
@@ -298,12 +309,9 @@ public class AuthAspect {
 
     @Around("@annotation(com.banka1.banking.aspect.ReceiverAuthorization)")
     public Object authorizeReceiverAction(ProceedingJoinPoint joinPoint) throws Throwable {
-        MethodSignature methodSignature = (MethodSignature) joinPoint.getSignature();
-        Method method = methodSignature.getMethod();
-
-        return doAuth(methodSignature, joinPoint, (claims) -> {
-            ReceiverAuthorization authorization = method.getAnnotation(ReceiverAuthorization.class);
+        AuthorizationMetadata authorization = metadataFor(joinPoint, ReceiverAuthorization.class);
 
+        return doAuth(authorization, joinPoint, (claims) -> {
             if(!authorization.customerOnlyOperation()) {
                 if(claims.get("isEmployed", Boolean.class)) {
                     return joinPoint.proceed();
@@ -311,20 +319,19 @@ public class AuthAspect {
             }
 
             if(!authorization.employeeOnlyOperation()) {
-                if(accountDataOk(methodSignature, joinPoint, claims.get("id", Long.class)))
+                Object[] args = joinPoint.getArgs();
+                if(accountDataOk(authorization, args, claims.get("id", Long.class)))
                     return joinPoint.proceed();
 
-                OptionalInt maybeReceiverIdIndex = IntStream.range(0, methodSignature.getParameterNames().length).filter(i -> methodSignature.getParameterNames()[i].compareTo("receiverId") == 0).findFirst();
-                if (maybeReceiverIdIndex.isPresent()) {
-                    Receiver receiver = receiverService.findById(Long.valueOf(joinPoint.getArgs()[maybeReceiverIdIndex.getAsInt()].toString()));
+                if (authorization.receiverIdIndex() >= 0) {
+                    Receiver receiver = receiverService.findById(longArgument(args, authorization.receiverIdIndex()));
 //                    if (Objects.equals(claims.get("id", Long.class), accountService.findById(receiver.getCustomerId())))
                     if (Objects.equals(claims.get("id", Long.class), receiver.getCustomerId()))
                         return joinPoint.proceed();
                 }
 
-                OptionalInt maybeCustomerIdIndex = IntStream.range(0, methodSignature.getParameterNames().length).filter(i -> methodSignature.getParameterNames()[i].compareTo("customerId") == 0).findFirst();
-                if (maybeCustomerIdIndex.isPresent()) {
-                    if (Objects.equals(claims.get("id", Long.class), Long.valueOf(joinPoint.getArgs()[maybeCustomerIdIndex.getAsInt()].toString())))
+                if (authorization.customerIdIndex() >= 0) {
+                    if (Objects.equals(claims.get("id", Long.class), longArgument(args, authorization.customerIdIndex())))
                         return joinPoint.proceed();
                 }
             }
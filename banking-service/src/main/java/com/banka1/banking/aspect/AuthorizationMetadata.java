@@ -0,0 +1,101 @@
+package com.banka1.banking.aspect;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ono sto AuthAspect treba da zna o anotiranoj kontroler metodi: zastavice iz anotacije,
+ * pozicije argumenata po imenu (-1 ako ih nema) i koji DTO argumenti odredjuju vlasnika.
+ * Racuna se jednom po metodi, pa se na zahtevu ne prolazi kroz imena i tipove parametara.
+ */
+record AuthorizationMetadata(boolean customerOnlyOperation,
+                             boolean employeeOnlyOperation,
+                             boolean disallowAdminFallback,
+                             int authorizationIndex,
+                             int userIdIndex,
+                             int accountIdIndex,
+                             int cardIdIndex,
+                             int loanIdIndex,
+                             int receiverIdIndex,
+                             int customerIdIndex,
+                             List<OwnerCheck> ownerChecks) {
+
+    /**
+     * Odredjuje vlasnika iz argumenta metode; null ako vlasnik nije poznat.
+     */
+    @FunctionalInterface
+    interface OwnerResolver {
+        Long ownerOf(Object argument);
+    }
+
+    record OwnerCheck(int index, OwnerResolver resolver) {
+    }
+
+    /**
+     * @param annotation      jedna od autorizacionih anotacija metode, ili null
+     * @param parameterNames  imena parametara, null ako nisu dostupna
+     * @param parameterTypes  tipovi parametara, null ako nisu dostupni
+     * @param ownerResolvers  za koje tipove DTO-a se proverava vlasnik (tacan tip, bez podtipova)
+     */
+    static AuthorizationMetadata of(Annotation annotation, String[] parameterNames, Class<?>[] parameterTypes,
+                                    Map<Class<?>, OwnerResolver> ownerResolvers) {
+        boolean customerOnly = false;
+        boolean employeeOnly = false;
+        boolean disallowAdminFallback = false;
+        if (annotation instanceof Authorization a) {
+            customerOnly = a.customerOnlyOperation();
+            employeeOnly = a.employeeOnlyOperation();
+            disallowAdminFallback = a.disallowAdminFallback();
+        } else if (annotation instanceof AccountAuthorization a) {
+            customerOnly = a.customerOnlyOperation();
+            employeeOnly = a.employeeOnlyOperation();
+            disallowAdminFallback = a.disallowAdminFallback();
+        } else if (annotation instanceof CardAuthorization a) {
+            customerOnly = a.customerOnlyOperation();
+            employeeOnly = a.employeeOnlyOperation();
+            disallowAdminFallback = a.disallowAdminFallback();
+        } else if (annotation instanceof LoanAuthorization a) {
+            customerOnly = a.customerOnlyOperation();
+            employeeOnly = a.employeeOnlyOperation();
+            disallowAdminFallback = a.disallowAdminFallback();
+        } else if (annotation instanceof ReceiverAuthorization a) {
+            customerOnly = a.customerOnlyOperation();
+            employeeOnly = a.employeeOnlyOperation();
+            disallowAdminFallback = a.disallowAdminFallback();
+        }
+
+        List<OwnerCheck> ownerChecks = new ArrayList<>();
+        if (parameterTypes != null) {
+            for (int i = 0; i < parameterTypes.length; i++) {
+                OwnerResolver resolver = ownerResolvers.get(parameterTypes[i]);
+                if (resolver != null) {
+                    ownerChecks.add(new OwnerCheck(i, resolver));
+                }
+            }
+        }
+
+        return new AuthorizationMetadata(customerOnly, employeeOnly, disallowAdminFallback,
+                indexOf(parameterNames, "authorization"),
+                indexOf(parameterNames, "userId"),
+                indexOf(parameterNames, "accountId"),
+                indexOf(parameterNames, "cardId"),
+                indexOf(parameterNames, "loanId"),
+                indexOf(parameterNames, "receiverId"),
+                indexOf(parameterNames, "customerId"),
+                List.copyOf(ownerChecks));
+    }
+
+    private static int indexOf(String[] parameterNames, String name) {
+        if (parameterNames == null) {
+            return -1;
+        }
+        for (int i = 0; i < parameterNames.length; i++) {
+            if (name.equals(parameterNames[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
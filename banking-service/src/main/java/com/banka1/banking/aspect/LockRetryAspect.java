@@ -0,0 +1,59 @@
+package com.banka1.banking.aspect;
+
+import jakarta.persistence.LockTimeoutException;
+import jakarta.persistence.PessimisticLockException;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Ponavlja metode oznacene sa {@link RetryOnLockFailure}. Mora biti ispred transakcionog interceptora,
+ * tako da svaki pokusaj dobije novu transakciju.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@Slf4j
+public class LockRetryAspect {
+
+    @Around("@annotation(retry)")
+    public Object retryOnLockFailure(ProceedingJoinPoint joinPoint, RetryOnLockFailure retry) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return joinPoint.proceed();
+            } catch (Throwable e) {
+                if (attempt >= retry.maxAttempts() || !isTransient(e)) {
+                    throw e;
+                }
+                long backoff = retry.backoffMillis() * attempt + ThreadLocalRandom.current().nextLong(retry.backoffMillis() + 1);
+                log.warn("Prolazna greska zakljucavanja u {} (pokusaj {}/{}), ponavljanje za {} ms: {}",
+                        joinPoint.getSignature().toShortString(), attempt, retry.maxAttempts(), backoff, e.getMessage());
+                Thread.sleep(backoff);
+            }
+        }
+    }
+
+    // Servisi cesto umotavaju gresku u RuntimeException, pa se proverava ceo lanac uzroka
+    static boolean isTransient(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause() == cause ? null : cause.getCause()) {
+            if (cause instanceof TransientDataAccessException
+                    || cause instanceof PessimisticLockException
+                    || cause instanceof LockTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
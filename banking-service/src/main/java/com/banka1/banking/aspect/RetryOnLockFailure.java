@@ -0,0 +1,21 @@
+package com.banka1.banking.aspect;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Anotacija za transakcione metode servisa koje menjaju stanje racuna.
+ * Ako transakcija padne zbog prolazne greske zakljucavanja (deadlock, istek cekanja na lock,
+ * serijalizacioni konflikt), cela transakcija se ponavlja do <code>maxAttempts</code> puta.
+ * <p></p>
+ * Ponavlja se samo kada metoda sama zapocinje transakciju. Ako je pozvana unutar postojece transakcije,
+ * greska se prosledjuje pozivaocu jer je spoljasnja transakcija vec oznacena za rollback.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryOnLockFailure {
+    int maxAttempts() default 3;
+    long backoffMillis() default 50;
+}
@@ -16,12 +16,14 @@ import com.banka1.banking.services.CurrencyService;
 import com.banka1.banking.services.EventExecutorService;
 import com.banka1.banking.services.EventService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
 import java.util.UUID;
 
+@Slf4j
 @Component
 public class BootstrapExchangeRateLoader implements CommandLineRunner {
 
@@ -39,9 +41,19 @@ public class BootstrapExchangeRateLoader implements CommandLineRunner {
 
     @Override
     public void run(String... args) throws Exception {
-        System.out.println("=== Fetching exchange rates on startup ===");
-        currencyService.fetchExchangeRates();
-        System.out.println("=== Exchange rates fetched successfully ===");
+        // Poslednja sacuvana kursna lista je odmah dostupna, a osvezavanje ne blokira podizanje servisa
+        currencyService.loadCurrentExchangeRates();
+        currencyService.loadExchangeRateHistory();
+
+        log.info("Fetching exchange rates on startup");
+        currencyService.fetchExchangeRatesAsync()
+                .whenComplete((result, e) -> {
+                    if (e != null) {
+                        log.warn("Exchange rate refresh on startup failed", e);
+                    } else {
+                        log.info("Exchange rates fetched successfully");
+                    }
+                });
 
 
 //         test events
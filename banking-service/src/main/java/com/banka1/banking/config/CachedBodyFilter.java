@@ -1,47 +1,89 @@
 package com.banka1.banking.config;
 
 import jakarta.servlet.*;
-import jakarta.servlet.annotation.WebFilter;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletRequestWrapper;
-import lombok.SneakyThrows;
-import org.springframework.core.Ordered;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
 
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
-import java.util.stream.Collectors;
 
+/**
+ * Cuva telo zahteva za /interbank rute, da bi ga procitali i {@link InterbankInterceptor} i
+ * kontroler. Telo se cuva kao niz bajtova, tacno kako je stiglo, i oba citanja dobijaju iste
+ * bajtove bez kopiranja. Ostale rute se ne kopiraju.
+ */
 @Component
 @Order(1)
-@WebFilter(urlPatterns = "/*")
-public class CachedBodyFilter implements Filter {
+public class CachedBodyFilter extends OncePerRequestFilter {
+
+    static final String INTERBANK_PATH = "/interbank";
 
     @Override
-    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
-        CachedBodyHttpServletRequest wrappedRequest = new CachedBodyHttpServletRequest((HttpServletRequest) request);
-        chain.doFilter(wrappedRequest, response);
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !(path.equals(INTERBANK_PATH) || path.startsWith(INTERBANK_PATH + "/"));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain) throws ServletException, IOException {
+        chain.doFilter(new CachedBodyHttpServletRequest(request), response);
+    }
+
+    /**
+     * Sacuvano telo zahteva. Ako zahtev nije prosao kroz filter, telo se cita iz zahteva (samo jednom).
+     */
+    public static CachedBodyHttpServletRequest cached(HttpServletRequest request) throws IOException {
+        CachedBodyHttpServletRequest cached = WebUtils.getNativeRequest(request, CachedBodyHttpServletRequest.class);
+        return cached != null ? cached : new CachedBodyHttpServletRequest(request);
     }
 
     public static class CachedBodyHttpServletRequest extends HttpServletRequestWrapper {
 
-        private final String cachedBody;
+        private final byte[] body;
+        private String text;
 
         public CachedBodyHttpServletRequest(HttpServletRequest request) throws IOException {
             super(request);
-            this.cachedBody = request.getReader().lines().collect(Collectors.joining(System.lineSeparator()));
+            int length = request.getContentLength();
+            this.body = length >= 0
+                    ? request.getInputStream().readNBytes(length)
+                    : StreamUtils.copyToByteArray(request.getInputStream());
+        }
+
+        /**
+         * Telo zahteva; niz se deli sa svim citanjima i ne sme se menjati.
+         */
+        public byte[] getBody() {
+            return body;
+        }
+
+        /**
+         * Telo kao tekst, dekodirano samo pri prvom pozivu.
+         */
+        public String getBodyAsString() {
+            if (text == null) {
+                text = new String(body, charset());
+            }
+            return text;
         }
 
         @Override
         public ServletInputStream getInputStream() {
-            ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(cachedBody.getBytes(StandardCharsets.UTF_8));
+            ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(body);
 
             return new ServletInputStream() {
                 @Override public int read() { return byteArrayInputStream.read(); }
+                @Override public int read(byte[] b, int off, int len) { return byteArrayInputStream.read(b, off, len); }
                 @Override public boolean isFinished() { return byteArrayInputStream.available() == 0; }
                 @Override public boolean isReady() { return true; }
                 @Override public void setReadListener(ReadListener readListener) {}
@@ -50,7 +92,22 @@ public class CachedBodyFilter implements Filter {
 
         @Override
         public BufferedReader getReader() {
-            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset()));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+
+        private Charset charset() {
+            String encoding = getCharacterEncoding();
+            return encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
         }
     }
-}
\ No newline at end of file
+}
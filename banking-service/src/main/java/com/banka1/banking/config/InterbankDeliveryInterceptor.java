@@ -4,6 +4,7 @@ import com.banka1.banking.dto.CreateEventDeliveryDTO;
 import com.banka1.banking.models.Event;
 import com.banka1.banking.models.helper.DeliveryStatus;
 import com.banka1.banking.services.EventService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Hidden;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
@@ -22,6 +23,7 @@ import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
 public class InterbankDeliveryInterceptor implements ResponseBodyAdvice<Object> {
 
     private final EventService eventService;
+    private final ObjectMapper objectMapper;
 
     @Override
     public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
@@ -52,7 +54,8 @@ public class InterbankDeliveryInterceptor implements ResponseBodyAdvice<Object>
                 dto.setHttpStatus(response.getHeaders().getFirst("status") != null
                         ? Integer.parseInt(response.getHeaders().getFirst("status"))
                         : 200);
-                dto.setResponseBody(body != null ? body.toString() : "");
+                // JSON kao sto je poslat, da bi se isti odgovor vratio na ponovljenu poruku
+                dto.setResponseBody(body == null ? "" : body instanceof String text ? text : objectMapper.writeValueAsString(body));
                 dto.setDurationMs(durationMs);
 
                 eventService.createEventDelivery(dto);
@@ -12,11 +12,14 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerInterceptor;
 import java.io.IOException;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Optional;
 
 @Component
 public class InterbankInterceptor implements HandlerInterceptor {
 
+    // Poruka procitana u interceptoru, da je kontroler ne bi ponovo parsirao
+    public static final String MESSAGE_ATTRIBUTE = "interbankMessage";
+
     private final ObjectMapper objectMapper;
     private final EventService eventService;
     private final InterbankConfig interbankConfig;
@@ -51,19 +54,34 @@ public class InterbankInterceptor implements HandlerInterceptor {
                 return false;
             }
 
-            String rawPayload = request.getReader().lines().collect(Collectors.joining(System.lineSeparator()));
+            // Isti bajtovi koje ce procitati i kontroler (CachedBodyFilter)
+            CachedBodyFilter.CachedBodyHttpServletRequest body = CachedBodyFilter.cached(request);
 
             Event event;
 
             try {
-                if (rawPayload == null || rawPayload.isEmpty()) {
+                if (body.getBody().length == 0) {
                     event = eventService.receiveEvent(new InterbankMessageDTO<>(), "", request.getRemoteAddr());
                     request.setAttribute("event", event);
                     request.setAttribute("startTime", System.currentTimeMillis());
                 } else {
-                    InterbankMessageDTO<?> dto = objectMapper.readValue(rawPayload, InterbankMessageDTO.class);
-                    event = eventService.receiveEvent(dto, rawPayload, request.getRemoteAddr());
+                    InterbankMessageDTO<?> dto = objectMapper.readValue(body.getBody(), InterbankMessageDTO.class);
+                    request.setAttribute(MESSAGE_ATTRIBUTE, dto);
+                    event = eventService.receiveEvent(dto, body.getBodyAsString(), request.getRemoteAddr());
+                }
+            } catch (EventService.DuplicateEventException e) {
+                // Ponovljena poruka se ne obradjuje ponovo; partner dobija isti odgovor (npr. glas) kao za prvo slanje
+                Optional<String> stored = eventService.storedResponse(e.getEventId());
+                response.setContentType("application/json");
+                if (stored.isPresent()) {
+                    response.setStatus(HttpServletResponse.SC_OK);
+                    response.getWriter().write(stored.get());
+                    return false;
                 }
+                // Prva poruka se jos obradjuje, pa odgovor jos ne postoji; partner ponavlja slanje kasnije
+                response.setStatus(HttpServletResponse.SC_CONFLICT);
+                response.getWriter().write("{\"success\": false, \"error\": \"" + e.getMessage() + "\"}");
+                return false;
             } catch (IOException e) {
                 response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
                 response.setContentType("application/json");
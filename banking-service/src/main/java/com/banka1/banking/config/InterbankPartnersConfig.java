@@ -0,0 +1,33 @@
+package com.banka1.banking.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Banke sa kojima razmenjujemo poruke (interbank.partners[i].*). Ako lista nije zadata, koristi se
+ * jedna banka iz FOREIGN_BANK_ROUTING_NUMBER, INTERBANK_TARGET_URL i FOREIGN_BANK_API_KEY.
+ */
+@Component
+@ConfigurationProperties(prefix = "interbank")
+@Getter
+@Setter
+public class InterbankPartnersConfig {
+
+    private List<Partner> partners = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Partner {
+        // Prefiks brojeva racuna te banke
+        private String routingNumber;
+        private String url;
+        private String apiKey;
+        // Najvise istovremenih slanja toj banci; ostala slanja cekaju sledeci pokusaj
+        private int maxConcurrent = 4;
+    }
+}
@@ -0,0 +1,23 @@
+package com.banka1.banking.config;
+
+import jakarta.jms.ConnectionFactory;
+import org.springframework.boot.autoconfigure.jms.DefaultJmsListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jms.config.DefaultJmsListenerContainerFactory;
+
+@Configuration
+public class JmsTopicConfig {
+    /**
+     * Fabrika za listener-e na topic-ima (svaka instanca dobija svaku poruku).
+     * Podrazumevana jmsListenerContainerFactory i dalje slusa redove.
+     */
+    @Bean
+    public DefaultJmsListenerContainerFactory topicListenerFactory(ConnectionFactory connectionFactory,
+                                                                   DefaultJmsListenerContainerFactoryConfigurer configurer) {
+        DefaultJmsListenerContainerFactory factory = new DefaultJmsListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setPubSubDomain(true);
+        return factory;
+    }
+}
@@ -26,6 +26,6 @@ public class WebConfig implements WebMvcConfigurer {
 
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
-        registry.addInterceptor(interbankInterceptor);
+        registry.addInterceptor(interbankInterceptor).addPathPatterns("/interbank", "/interbank/**");
     }
 }
@@ -1,12 +1,15 @@
 package com.banka1.banking.controllers;
 
 import com.banka1.banking.aspect.AccountAuthorization;
+import com.banka1.banking.dto.TransactionHistoryPageDTO;
 import com.banka1.banking.dto.TransactionResponseDTO;
 import com.banka1.banking.dto.request.CreateAccountDTO;
 import com.banka1.banking.dto.request.UpdateAccountDTO;
 import com.banka1.banking.dto.request.UserUpdateAccountDTO;
 import com.banka1.banking.models.Account;
+import com.banka1.banking.models.helper.TransactionDirection;
 import com.banka1.banking.services.AccountService;
+import com.banka1.banking.services.TransactionService;
 import com.banka1.banking.services.implementation.AuthService;
 import com.banka1.banking.utils.ResponseTemplate;
 import com.banka1.banking.utils.ResponseMessage;
@@ -21,6 +24,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -31,6 +35,7 @@ import java.util.Map;
 @Tag(name = "Account API", description = "API za upravljanje racunima")
 public class AccountController {
     private final AccountService accountService;
+    private final TransactionService transactionService;
     private final AuthService authService;
 
     /// pristup imaju samo zaposleni
@@ -404,4 +409,63 @@ public class AccountController {
         return ResponseTemplate.create(ResponseEntity.status(HttpStatus.OK), true, response, null);
     }
 
+    @GetMapping("/{accountId}/transactions/history")
+    @Operation(summary = "Istorija transakcija računa po stranama",
+        description = "Vraća transakcije računa od najnovijih, uz opcioni vremenski opseg i smer. Sledeća strana se dobija slanjem nextCursor vrednosti kao cursor parametra.")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Transakcije uspešno dohvaćene", content = @Content(mediaType = "application/json",
+            examples = @ExampleObject(value = """
+                {
+                   "success": true,
+                   "data": {
+                     "transactions": [
+                       {
+                         "id": 42,
+                         "fromAccountId": 1,
+                         "fromAccountNumber": "111000100000000110",
+                         "senderName": "Marko Markovic",
+                         "toAccountId": 2,
+                         "toAccountNumber": "111000100000000220",
+                         "receiverName": "Jovan Jovanovic",
+                         "amount": 1000,
+                         "finalAmount": 1000,
+                         "fee": 0,
+                         "currencyCode": "RSD",
+                         "timestamp": 1741219200000,
+                         "description": "Opis transakcije",
+                         "transferId": 7
+                       }
+                     ],
+                     "nextCursor": "1741219200000_42"
+                   }
+                }
+            """))
+        ),
+        @ApiResponse(responseCode = "404", description = "Račun nije pronađen", content = @Content(mediaType = "application/json",
+            examples = @ExampleObject(value = """
+                {
+                   "success": false,
+                   "error": "Račun sa ID-jem 1 nije pronađen"
+                }
+            """))
+        )
+    })
+    @AccountAuthorization
+    public ResponseEntity<?> getTransactionHistoryForAccount(@PathVariable Long accountId,
+                                                             @RequestParam(required = false) String cursor,
+                                                             @RequestParam(required = false) Long from,
+                                                             @RequestParam(required = false) Long to,
+                                                             @RequestParam(required = false) TransactionDirection direction,
+                                                             @RequestParam(required = false) Integer limit) {
+        try {
+            TransactionHistoryPageDTO page = transactionService.getAccountHistory(accountId, cursor, from, to, direction, limit);
+            Map<String, Object> response = new HashMap<>();
+            response.put("transactions", page.getTransactions());
+            response.put("nextCursor", page.getNextCursor());
+            return ResponseTemplate.create(ResponseEntity.status(HttpStatus.OK), true, response, null);
+        } catch (ResponseStatusException e) {
+            return ResponseTemplate.create(ResponseEntity.status(e.getStatusCode()), false, null, e.getReason());
+        }
+    }
+
 }
@@ -6,6 +6,7 @@ import com.banka1.banking.services.CurrencyService;
 import com.banka1.banking.utils.ResponseTemplate;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.ExampleObject;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -14,6 +15,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
@@ -142,4 +144,44 @@ public class CurrencyController {
         }
         return ResponseTemplate.create(ResponseEntity.status(HttpStatus.OK), true, Map.of("rates", rates), null);
     }
+
+    @GetMapping("/exchange-rates/{currency}/history")
+    @Operation(summary = "Istorija kursne liste za odabranu baznu valutu", description = "Vraća kurseve odabrane bazne valute u zadatom opsegu datuma. Bez parametara vraća poslednjih 30 dana.")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Istorija kursnih parova za odabranu baznu valutu", content = @Content(mediaType = "application/json",
+            examples = @ExampleObject(value = """
+                {
+                  "data": {
+                    "rates": [
+                      {
+                        "baseCurrency": "EUR",
+                        "targetCurrency": "RSD",
+                        "exchangeRate": 117.2,
+                        "date": "2025-03-01"
+                      }
+                    ]
+                  },
+                  "success": true
+                }
+            """))
+        ),
+        @ApiResponse(responseCode = "400", description = "Neispravan opseg datuma", content = @Content(mediaType = "application/json",
+            examples = @ExampleObject(value = """
+                {
+                  "success": false,
+                  "error": "Pocetni datum mora biti pre krajnjeg datuma."
+                }
+            """))
+        )
+    })
+    public ResponseEntity<?> getExchangeRateHistory(@PathVariable CurrencyType currency,
+                                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            List<ExchangePairDTO> rates = currencyService.getExchangeRateHistory(currency, from, to);
+            return ResponseTemplate.create(ResponseEntity.status(HttpStatus.OK), true, Map.of("rates", rates), null);
+        } catch (IllegalArgumentException e) {
+            return ResponseTemplate.create(ResponseEntity.status(HttpStatus.BAD_REQUEST), false, null, e.getMessage());
+        }
+    }
 }
@@ -3,6 +3,7 @@ package com.banka1.banking.controllers;
 import com.banka1.banking.aspect.AccountAuthorization;
 import com.banka1.banking.dto.ExchangeMoneyTransferDTO;
 import com.banka1.banking.dto.ExchangePreviewDTO;
+import com.banka1.banking.dto.ExchangeQuote;
 import com.banka1.banking.services.ExchangeService;
 import com.banka1.banking.utils.ResponseTemplate;
 import io.swagger.v3.oas.annotations.Operation;
@@ -18,6 +19,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.Map;
@@ -79,7 +81,7 @@ public class ExchangeController {
 
     }
 
-    @Operation(summary = "Pregled kursa pre razmene", description = "Vraća kurs, iznos nakon konverzije, proviziju i krajnji iznos pre nego što korisnik potvrdi transfer.")
+    @Operation(summary = "Pregled kursa pre razmene", description = "Vraća kurs, iznos nakon konverzije, proviziju i krajnji iznos pre nego što korisnik potvrdi transfer. Opcioni parametar asOf (epoch millis) računa po kursu koji je tada važio.")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Uspešno izračunata konverzija", content = @Content(mediaType = "application/json",
             examples = @ExampleObject(value = """
@@ -117,14 +119,14 @@ public class ExchangeController {
         )
     })
     @PostMapping("/preview")
-    public ResponseEntity<?> previewExchange(@RequestBody ExchangePreviewDTO exchangePreviewDTO) {
+    public ResponseEntity<?> previewExchange(@RequestBody ExchangePreviewDTO exchangePreviewDTO,
+                                             @RequestParam(required = false) Long asOf) {
         try {
-            Map<String, Object> previewData = exchangeService.calculatePreviewExchangeAutomatic(
-                    exchangePreviewDTO.getFromCurrency(),
-                    exchangePreviewDTO.getToCurrency(),
-                    exchangePreviewDTO.getAmount()
-            );
-            return ResponseEntity.ok(previewData);
+            // asOf (epoch millis) racuna po kursevima koji su tada vazili
+            ExchangeQuote quote = asOf == null
+                    ? exchangeService.quote(exchangePreviewDTO.getFromCurrency(), exchangePreviewDTO.getToCurrency(), exchangePreviewDTO.getAmount())
+                    : exchangeService.quoteAsOf(exchangePreviewDTO.getFromCurrency(), exchangePreviewDTO.getToCurrency(), exchangePreviewDTO.getAmount(), asOf);
+            return ResponseEntity.ok(quote.toPreview());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(Map.of("error", e.getMessage()));
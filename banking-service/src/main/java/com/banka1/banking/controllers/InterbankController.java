@@ -1,5 +1,7 @@
 package com.banka1.banking.controllers;
 
+import com.banka1.banking.config.CachedBodyFilter;
+import com.banka1.banking.config.InterbankInterceptor;
 import com.banka1.banking.dto.interbank.InterbankMessageDTO;
 import com.banka1.banking.dto.interbank.InterbankMessageType;
 import com.banka1.banking.dto.interbank.VoteDTO;
@@ -14,7 +16,6 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.io.IOException;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/interbank")
@@ -22,16 +23,19 @@ import java.util.stream.Collectors;
 public class InterbankController {
 
     private final InterbankService interbankService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     public ResponseEntity<?> receiveWebhook(HttpServletRequest request) throws IOException {
         System.out.println("Received webhook request");
-        String rawPayload = request.getReader().lines().collect(Collectors.joining(System.lineSeparator()));
+        CachedBodyFilter.CachedBodyHttpServletRequest body = CachedBodyFilter.cached(request);
 
-        ObjectMapper mapper = new ObjectMapper();
-        InterbankMessageDTO<?> message = mapper.readValue(rawPayload, InterbankMessageDTO.class);
+        InterbankMessageDTO<?> message = (InterbankMessageDTO<?>) request.getAttribute(InterbankInterceptor.MESSAGE_ATTRIBUTE);
+        if (message == null) {
+            message = objectMapper.readValue(body.getBody(), InterbankMessageDTO.class);
+        }
 
-        VoteDTO response =  interbankService.webhook(message, rawPayload, request.getRemoteAddr());
+        VoteDTO response =  interbankService.webhook(message, body.getBodyAsString(), request.getRemoteAddr());
 
         return ResponseEntity.ok(response);
     }
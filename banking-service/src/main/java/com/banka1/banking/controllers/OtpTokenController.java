@@ -4,9 +4,11 @@ import com.banka1.banking.aspect.AccountAuthorization;
 import com.banka1.banking.dto.OtpTokenDTO;
 import com.banka1.banking.models.Transfer;
 import com.banka1.banking.models.helper.TransferStatus;
+import com.banka1.banking.models.helper.TransferType;
 import com.banka1.banking.repository.TransferRepository;
 import com.banka1.banking.services.OtpTokenService;
 import com.banka1.banking.services.TransferService;
+import com.banka1.banking.services.TransferSettlementQueue;
 import com.banka1.banking.utils.ResponseTemplate;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -23,6 +25,9 @@ import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/otp")
@@ -34,6 +39,9 @@ public class OtpTokenController {
     private final OtpTokenService otpTokenService;
     private final TransferRepository transferRepository;
     private final TransferService transferService;
+    private final TransferSettlementQueue transferSettlementQueue;
+
+    private static final long SETTLEMENT_TIMEOUT_SECONDS = 30;
 
     @Operation(
             summary = "Verifikacija OTP koda",
@@ -44,6 +52,10 @@ public class OtpTokenController {
                     content = @Content(mediaType = "application/json",
                             examples = @ExampleObject(value = "{ \"success\": true, \"data\": { \"message\": \"OTP validan, transakcija izvršena.\" } }"))
             ),
+            @ApiResponse(responseCode = "202", description = "OTP validan, transakcija je još u obradi.",
+                    content = @Content(mediaType = "application/json",
+                            examples = @ExampleObject(value = "{ \"success\": true, \"data\": { \"message\": \"OTP validan, transakcija je u obradi.\", \"transferId\": 1 } }"))
+            ),
             @ApiResponse(responseCode = "401", description = "Nevalidan OTP kod ili je već iskorišćen.",
                     content = @Content(mediaType = "application/json",
                             examples = @ExampleObject(value = "{ \"success\": false, \"error\": \"Nevalidan OTP kod ili je već iskorišćen.\" }"))
@@ -55,7 +67,7 @@ public class OtpTokenController {
     })
     @PostMapping("/verification")
     @AccountAuthorization(customerOnlyOperation = true)
-    public ResponseEntity<?> verifyOtp(@RequestBody @io.swagger.v3.oas.annotations.parameters.RequestBody(
+    public CompletableFuture<ResponseEntity<?>> verifyOtp(@RequestBody @io.swagger.v3.oas.annotations.parameters.RequestBody(
             description = "Podaci za verifikaciju OTP koda",
             required = true,
             content = @Content(schema = @Schema(implementation = OtpTokenDTO.class),
@@ -68,14 +80,14 @@ public class OtpTokenController {
 
             if (otpTokenService.isOtpExpired(transferId)) {
                 log.info("ERROR: OTP kod je istekao.");
-                return ResponseTemplate.create(ResponseEntity.status(HttpStatus.REQUEST_TIMEOUT),
-                        false, null, "OTP kod je istekao.");
+                return CompletableFuture.completedFuture(ResponseTemplate.create(ResponseEntity.status(HttpStatus.REQUEST_TIMEOUT),
+                        false, null, "OTP kod je istekao."));
             }
 
             if (!otpTokenService.isOtpValid(transferId, otpCode)) {
                 log.info("ERROR: Nevalidan OTP kod ili je već iskorišćen.");
-                return ResponseTemplate.create(ResponseEntity.status(HttpStatus.UNAUTHORIZED),
-                        false, null, "Nevalidan OTP kod ili je već iskorišćen.");
+                return CompletableFuture.completedFuture(ResponseTemplate.create(ResponseEntity.status(HttpStatus.UNAUTHORIZED),
+                        false, null, "Nevalidan OTP kod ili je već iskorišćen."));
             }
 
 
@@ -84,30 +96,50 @@ public class OtpTokenController {
             if(optionalTransfer.isPresent()){
                 Transfer transfer = optionalTransfer.get();
                 if(transfer.getStatus().equals(TransferStatus.CANCELLED)){
-                    return ResponseTemplate.create(ResponseEntity.status(HttpStatus.BAD_REQUEST),
-                            false,null,"Transfer je otkazan.");
+                    return CompletableFuture.completedFuture(ResponseTemplate.create(ResponseEntity.status(HttpStatus.BAD_REQUEST),
+                            false,null,"Transfer je otkazan."));
                 }
                 otpTokenService.markOtpAsUsed(transferId, otpCode);
 
+                if (transfer.getType() != TransferType.FOREIGN_BANK) {
+                    // Nit zahteva se ne blokira dok se ceka obrada grupe; odgovor se salje kad se transfer obradi,
+                    // a ako obrada traje duze od SETTLEMENT_TIMEOUT_SECONDS, vraca se 202 sa id-jem transfera
+                    return transferSettlementQueue.submit(transferId)
+                            .<ResponseEntity<?>>thenApply(result -> completed())
+                            .exceptionally(OtpTokenController::failed)
+                            .completeOnTimeout(inProgress(transferId), SETTLEMENT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                }
 
                 try {
+                    // Slanje drugoj banci se ne moze ponistiti zajedno sa grupom, pa ide pojedinacno
                     transferService.processTransfer(transferId);
-                } catch (Exception e){
-                    System.out.println(e);
-                    return ResponseTemplate.create(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR),
-                            false, null, "Transakcija nije uspela: " + e.getMessage());
+                } catch (Exception e) {
+                    return CompletableFuture.completedFuture(failed(e));
                 }
-
-
             }
 
-
-            return ResponseTemplate.create(ResponseEntity.status(HttpStatus.OK),
-                    true, Map.of("message", "OTP validan, transakcija izvršena."), null);
+            return CompletableFuture.completedFuture(completed());
 
         } catch (Exception e) {
-            return ResponseTemplate.create(ResponseEntity.status(HttpStatus.BAD_REQUEST), false, null, e.getMessage());
+            return CompletableFuture.completedFuture(ResponseTemplate.create(ResponseEntity.status(HttpStatus.BAD_REQUEST), false, null, e.getMessage()));
         }
     }
+
+    private static ResponseEntity<?> completed() {
+        return ResponseTemplate.create(ResponseEntity.status(HttpStatus.OK),
+                true, Map.of("message", "OTP validan, transakcija izvršena."), null);
+    }
+
+    private static ResponseEntity<?> inProgress(Long transferId) {
+        return ResponseTemplate.create(ResponseEntity.status(HttpStatus.ACCEPTED),
+                true, Map.of("message", "OTP validan, transakcija je u obradi.", "transferId", transferId), null);
+    }
+
+    private static ResponseEntity<?> failed(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        log.error("Transakcija nije uspela", cause);
+        return ResponseTemplate.create(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR),
+                false, null, "Transakcija nije uspela: " + cause.getMessage());
+    }
 }
 
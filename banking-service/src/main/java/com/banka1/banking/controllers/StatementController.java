@@ -0,0 +1,124 @@
+package com.banka1.banking.controllers;
+
+import com.banka1.banking.aspect.AccountAuthorization;
+import com.banka1.banking.models.helper.StatementFormat;
+import com.banka1.banking.services.StatementService;
+import com.banka1.banking.services.StatementService.StatementScope;
+import com.banka1.banking.utils.ResponseTemplate;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.function.Supplier;
+
+@Slf4j
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("/statements")
+@Tag(name = "Statement API", description = "API za izvode transakcija")
+public class StatementController {
+
+    private final StatementService statementService;
+
+    @GetMapping("/accounts/{accountId}")
+    @Operation(summary = "Izvod transakcija računa", description = "Vraća sve transakcije računa u periodu [from, to) kao CSV ili NDJSON, od najstarije.")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Izvod se šalje kao tok podataka", content = @Content(mediaType = "text/csv",
+            examples = @ExampleObject(value = """
+                id,timestamp,time,fromAccountNumber,toAccountNumber,amount,finalAmount,fee,currency,description,transferId
+                42,1741219200000,2025-03-06T01:00:00+01:00,111000100000000110,111000100000000220,1000,1000,0,RSD,Uplata,7
+            """))
+        ),
+        @ApiResponse(responseCode = "404", description = "Račun nije pronađen", content = @Content(mediaType = "application/json",
+            examples = @ExampleObject(value = """
+                {
+                   "success": false,
+                   "error": "Račun sa ID-jem 1 nije pronađen"
+                }
+            """))
+        )
+    })
+    @AccountAuthorization
+    public ResponseEntity<?> getAccountStatement(@PathVariable Long accountId,
+                                                 @RequestParam(required = false) Long from,
+                                                 @RequestParam(required = false) Long to,
+                                                 @RequestParam(defaultValue = "CSV") StatementFormat format) {
+        return statement("account-" + accountId, () -> statementService.accountScope(accountId), from, to, format);
+    }
+
+    @GetMapping("/customers/{userId}")
+    @Operation(summary = "Izvod transakcija svih računa korisnika", description = "Vraća transakcije sa svih računa korisnika u periodu [from, to) kao CSV ili NDJSON, od najstarije.")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Izvod se šalje kao tok podataka", content = @Content(mediaType = "application/x-ndjson",
+            examples = @ExampleObject(value = """
+                {"id":42,"timestamp":1741219200000,"time":"2025-03-06T01:00:00+01:00","fromAccountNumber":"111000100000000110","toAccountNumber":"111000100000000220","amount":1000.0,"finalAmount":1000.0,"fee":0.0,"currency":"RSD","description":"Uplata","transferId":7}
+            """))
+        )
+    })
+    @AccountAuthorization
+    public ResponseEntity<?> getCustomerStatement(@PathVariable Long userId,
+                                                  @RequestParam(required = false) Long from,
+                                                  @RequestParam(required = false) Long to,
+                                                  @RequestParam(defaultValue = "CSV") StatementFormat format) {
+        return statement("customer-" + userId, () -> statementService.customerScope(userId), from, to, format);
+    }
+
+    @GetMapping("/companies/{companyId}")
+    @Operation(summary = "Izvod transakcija svih računa kompanije", description = "Vraća transakcije sa svih računa kompanije u periodu [from, to) kao CSV ili NDJSON, od najstarije.")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Izvod se šalje kao tok podataka", content = @Content(mediaType = "text/csv")),
+        @ApiResponse(responseCode = "404", description = "Nema računa kompanije.", content = @Content(mediaType = "application/json",
+            examples = @ExampleObject(value = """
+                {
+                  "success": false,
+                  "error": "Nema racuna kompanije."
+                }
+            """))
+        )
+    })
+    @AccountAuthorization(employeeOnlyOperation = true)
+    public ResponseEntity<?> getCompanyStatement(@PathVariable Long companyId,
+                                                 @RequestParam(required = false) Long from,
+                                                 @RequestParam(required = false) Long to,
+                                                 @RequestParam(defaultValue = "CSV") StatementFormat format) {
+        return statement("company-" + companyId, () -> statementService.companyScope(companyId), from, to, format);
+    }
+
+    private ResponseEntity<?> statement(String name, Supplier<StatementScope> scopeSupplier, Long from, Long to, StatementFormat format) {
+        // Racuni se odredjuju pre slanja, da bi greska mogla da se vrati kao obican JSON odgovor
+        StatementScope scope;
+        try {
+            scope = scopeSupplier.get();
+        } catch (ResponseStatusException e) {
+            return ResponseTemplate.create(ResponseEntity.status(e.getStatusCode()), false, null, e.getReason());
+        }
+
+        StreamingResponseBody body = out -> {
+            try {
+                statementService.writeStatement(scope, from, to, format, out);
+            } catch (RuntimeException e) {
+                // Status je vec poslat, klijent dobija skraceni izvod
+                log.error("Greška prilikom slanja izvoda {}: ", name, e);
+                throw e;
+            }
+        };
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("statement-" + name + "." + format.getExtension()).build().toString())
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .body(body);
+    }
+}
@@ -1,7 +1,9 @@
 package com.banka1.banking.controllers;
 
 import com.banka1.banking.aspect.AccountAuthorization;
+import com.banka1.banking.dto.TransactionHistoryPageDTO;
 import com.banka1.banking.models.Transaction;
+import com.banka1.banking.models.helper.TransactionDirection;
 import com.banka1.banking.services.TransactionService;
 import com.banka1.banking.utils.ResponseTemplate;
 import io.swagger.v3.oas.annotations.Operation;
@@ -14,6 +16,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.HashMap;
 import java.util.List;
@@ -157,4 +160,65 @@ public class TransactionController {
             return ResponseTemplate.create(ResponseEntity.status(HttpStatus.BAD_REQUEST), false, null, e.getMessage());
         }
     }
+
+    @GetMapping("/{userId}/history")
+    @Operation(summary = "Istorija transakcija korisnika po stranama",
+        description = "Vraća transakcije sa svih računa korisnika, od najnovijih. Sledeća strana se dobija slanjem nextCursor vrednosti kao cursor parametra.")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Uspešno dobavljanje transakcija", content = @Content(mediaType = "application/json",
+            examples = @ExampleObject(value = """
+                {
+                  "data": {
+                    "transactions": [
+                      {
+                        "id": 42,
+                        "fromAccountId": 1,
+                        "fromAccountNumber": "111000100000000110",
+                        "senderName": "Marko Markovic",
+                        "toAccountId": 2,
+                        "toAccountNumber": "111000100000000220",
+                        "receiverName": "Jovan Jovanovic",
+                        "amount": 1000,
+                        "finalAmount": 1000,
+                        "fee": 0,
+                        "currencyCode": "RSD",
+                        "timestamp": 1741219200000,
+                        "description": "Opis transakcije",
+                        "transferId": 7
+                      }
+                    ],
+                    "nextCursor": "1741219200000_42"
+                  },
+                  "success": true
+                }
+            """))
+        ),
+        @ApiResponse(responseCode = "400", description = "Neispravan kursor ili parametri", content = @Content(mediaType = "application/json",
+            examples = @ExampleObject(value = """
+                {
+                  "success": false,
+                  "error": "Neispravan kursor za istoriju transakcija."
+                }
+            """))
+        )
+    })
+    @AccountAuthorization
+    public ResponseEntity<?> getTransactionHistory(@PathVariable Long userId,
+                                                   @RequestParam(required = false) String cursor,
+                                                   @RequestParam(required = false) Long from,
+                                                   @RequestParam(required = false) Long to,
+                                                   @RequestParam(required = false) TransactionDirection direction,
+                                                   @RequestParam(required = false) Integer limit) {
+        try {
+            TransactionHistoryPageDTO page = transactionService.getUserHistory(userId, cursor, from, to, direction, limit);
+            Map<String, Object> response = new HashMap<>();
+            response.put("transactions", page.getTransactions());
+            response.put("nextCursor", page.getNextCursor());
+            return ResponseTemplate.create(ResponseEntity.status(HttpStatus.OK), true, response, null);
+        } catch (ResponseStatusException e) {
+            return ResponseTemplate.create(ResponseEntity.status(e.getStatusCode()), false, null, e.getReason());
+        } catch (Exception e) {
+            return ResponseTemplate.create(ResponseEntity.status(HttpStatus.BAD_REQUEST), false, null, e.getMessage());
+        }
+    }
 }
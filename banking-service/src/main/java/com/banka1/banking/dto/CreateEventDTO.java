@@ -18,4 +18,7 @@ public class CreateEventDTO {
     private String payload;
 
     private String url;
+
+    // Routing broj banke kojoj se event salje
+    private String partnerRoutingNumber;
 }
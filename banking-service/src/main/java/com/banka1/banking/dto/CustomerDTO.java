@@ -1,5 +1,6 @@
 package com.banka1.banking.dto;
 
+import com.banka1.common.listener.TrustedMessage;
 import lombok.*;
 
 import java.util.List;
@@ -7,6 +8,7 @@ import java.util.List;
 @NoArgsConstructor
 @RequiredArgsConstructor
 @Data
+@TrustedMessage
 public class CustomerDTO {
     @NonNull
     private Long id;
@@ -0,0 +1,7 @@
+package com.banka1.banking.dto;
+
+/**
+ * Dospela rata i racun sa kog se naplacuje, bez ucitavanja rate i kredita.
+ */
+public record DueInstallmentRef(Long installmentId, Long accountId) {
+}
@@ -1,5 +1,6 @@
 package com.banka1.banking.dto;
 
+import com.banka1.common.listener.TrustedMessage;
 import com.banka1.common.model.Department;
 import com.banka1.common.model.Permission;
 import com.banka1.common.model.Position;
@@ -13,6 +14,7 @@ import java.util.List;
 @Data
 @NoArgsConstructor
 @RequiredArgsConstructor
+@TrustedMessage
 public class EmployeeDTO {
     @NonNull
     private Long id;
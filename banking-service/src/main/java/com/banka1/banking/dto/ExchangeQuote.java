@@ -0,0 +1,118 @@
+package com.banka1.banking.dto;
+
+import com.banka1.banking.models.helper.CurrencyType;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Map;
+
+/**
+ * Rezultat obracuna menjacnice sa primitivnim poljima.
+ * Jedna noga (RSD <-> strana valuta) ili dve noge preko RSD (strana -> strana valuta).
+ * Kursevi su sirovi (from -> to), a prikazni kurs za klijenta se racuna tek u {@link #toPreview()}.
+ */
+@Getter
+@ToString
+public final class ExchangeQuote {
+
+    public static final double FEE_RATE = 0.01;
+
+    private final CurrencyType fromCurrency;
+    private final CurrencyType toCurrency;
+    private final double amount;
+
+    // Kurs prve noge: from -> to za jednu nogu, from -> RSD za dve noge
+    private final double firstRate;
+    // Kurs druge noge RSD -> to, NaN ako postoji samo jedna noga
+    private final double secondRate;
+
+    // Iznos posle prve noge i provizije (u RSD), NaN ako postoji samo jedna noga
+    private final double intermediateAmount;
+    // Konvertovan iznos u ciljnoj valuti pre poslednje provizije
+    private final double convertedAmount;
+
+    // Provizija prve noge, u valuti prve noge (RSD za dve noge)
+    private final double firstFee;
+    // Provizija druge noge u ciljnoj valuti, 0 za jednu nogu
+    private final double secondFee;
+    // Ukupna provizija izrazena u ciljnoj valuti
+    private final double fee;
+
+    private final double finalAmount;
+
+    public ExchangeQuote(CurrencyType fromCurrency, CurrencyType toCurrency, double amount,
+                         double firstRate, double secondRate, double intermediateAmount, double convertedAmount,
+                         double firstFee, double secondFee, double fee, double finalAmount) {
+        this.fromCurrency = fromCurrency;
+        this.toCurrency = toCurrency;
+        this.amount = amount;
+        this.firstRate = firstRate;
+        this.secondRate = secondRate;
+        this.intermediateAmount = intermediateAmount;
+        this.convertedAmount = convertedAmount;
+        this.firstFee = firstFee;
+        this.secondFee = secondFee;
+        this.fee = fee;
+        this.finalAmount = finalAmount;
+    }
+
+    /**
+     * Konverzija izmedju RSD i strane valute (jedna noga).
+     */
+    public static ExchangeQuote single(CurrencyType from, CurrencyType to, double amount, double rate) {
+        double convertedAmount = amount * rate;
+        double fee = from == to ? 0.0 : convertedAmount * FEE_RATE;
+        return new ExchangeQuote(from, to, amount, rate, Double.NaN, Double.NaN, convertedAmount,
+                fee, 0.0, fee, convertedAmount - fee);
+    }
+
+    /**
+     * Konverzija strane valute u stranu valutu preko RSD, provizija se naplacuje na obe noge.
+     */
+    public static ExchangeQuote cross(CurrencyType from, CurrencyType to, double amount, double firstRate, double secondRate) {
+        double amountInRsd = amount * firstRate;
+        double firstFee = amountInRsd * FEE_RATE;
+        double remainingRsd = amountInRsd - firstFee;
+
+        double convertedAmount = remainingRsd * secondRate;
+        double secondFee = convertedAmount * FEE_RATE;
+        double totalFee = firstFee * secondRate + secondFee;
+
+        return new ExchangeQuote(from, to, amount, firstRate, secondRate, remainingRsd, convertedAmount,
+                firstFee, secondFee, totalFee, convertedAmount - secondFee);
+    }
+
+    public boolean isCross() {
+        return !Double.isNaN(secondRate);
+    }
+
+    /**
+     * Kurs koji se prikazuje klijentu: za prodaju RSD prikazuje se koliko RSD vredi jedna jedinica strane valute.
+     */
+    public double getExchangeRate() {
+        return fromCurrency == CurrencyType.RSD ? 1 / firstRate : firstRate;
+    }
+
+    /**
+     * Format odgovora za /exchange-transfer/preview, isti kao ranije.
+     */
+    public Map<String, Object> toPreview() {
+        if (isCross()) {
+            return Map.of(
+                    "firstExchangeRate", firstRate,
+                    "secondExchangeRate", 1 / secondRate,
+                    "totalFee", fee,
+                    "provision", fee,
+                    "fee", fee,
+                    "finalAmount", finalAmount
+            );
+        }
+        return Map.of(
+                "exchangeRate", getExchangeRate(),
+                "convertedAmount", convertedAmount,
+                "fee", fee,
+                "provision", fee,
+                "finalAmount", finalAmount
+        );
+    }
+}
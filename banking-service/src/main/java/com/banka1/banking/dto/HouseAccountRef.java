@@ -0,0 +1,17 @@
+package com.banka1.banking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Nepromenljivi podaci racuna banke ili drzave koji su dovoljni kada nije potreban ceo entitet.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class HouseAccountRef {
+    private final Long id;
+    private final Long ownerId;
+    private final String accountNumber;
+}
@@ -0,0 +1,34 @@
+package com.banka1.banking.dto;
+
+import lombok.Data;
+
+@Data
+public class TransactionHistoryDTO {
+
+    private Long id;
+
+    private Long fromAccountId;
+
+    private String fromAccountNumber;
+
+    private Long toAccountId;
+
+    private String toAccountNumber;
+
+    private Double amount;
+
+    private Double finalAmount;
+
+    private Double fee;
+
+    private String currencyCode;
+
+    private Long timestamp;
+
+    private String description;
+
+    private Long transferId;
+
+    private String senderName; //osoba koja salje pare
+    private String receiverName; //osoba koja ce dobiti pare
+}
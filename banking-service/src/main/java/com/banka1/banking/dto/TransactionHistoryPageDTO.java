@@ -0,0 +1,17 @@
+package com.banka1.banking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Jedna strana istorije transakcija, od najnovije ka starijim. nextCursor se salje kao
+ * parametar cursor za sledecu stranu; null znaci da je ovo poslednja strana.
+ */
+@Data
+@AllArgsConstructor
+public class TransactionHistoryPageDTO {
+    private List<TransactionHistoryDTO> transactions;
+    private String nextCursor;
+}
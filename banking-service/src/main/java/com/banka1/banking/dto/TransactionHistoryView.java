@@ -0,0 +1,37 @@
+package com.banka1.banking.dto;
+
+/**
+ * Red istorije transakcija kako ga vraca TransactionRepository.findHistory, bez ucitavanja
+ * entity-ja. Racuni su null za transakcije sa racunima u drugim bankama.
+ */
+public interface TransactionHistoryView {
+    Long getId();
+
+    Long getFromAccountId();
+
+    String getFromAccountNumber();
+
+    Long getFromOwnerId();
+
+    Long getToAccountId();
+
+    String getToAccountNumber();
+
+    Long getToOwnerId();
+
+    Double getAmount();
+
+    Double getFinalAmount();
+
+    Double getFee();
+
+    String getCurrencyCode();
+
+    Long getTimestamp();
+
+    String getDescription();
+
+    Long getTransferId();
+
+    String getTransferNote();
+}
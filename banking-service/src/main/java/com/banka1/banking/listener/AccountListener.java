@@ -34,10 +34,10 @@ public class AccountListener {
                 accountService.createAccount(dto.getCreateAccountDTO(), dto.getEmployeeId());
         } catch (Exception e) {
             log.error("AccountListener: ", e);
-            jmsTemplate.convertAndSend(message.getJMSReplyTo(), messageHelper.createTextMessage(e.getMessage()));
+            jmsTemplate.send(message.getJMSReplyTo(), messageHelper.createReply(message, e.getMessage()));
             return;
         }
-        jmsTemplate.convertAndSend(message.getJMSReplyTo(), messageHelper.createTextMessage("null"));
+        jmsTemplate.send(message.getJMSReplyTo(), messageHelper.createReply(message, "null"));
     }
 
     @JmsListener(destination = "${destination.account.by-user}", concurrency = "5-10")
@@ -48,10 +48,10 @@ public class AccountListener {
             List<Account> accounts = accountService.getAccountsByOwnerId(request.getUserId());
             UserAccountsResponse response = new UserAccountsResponse(accounts);
 
-            jmsTemplate.convertAndSend(message.getJMSReplyTo(), messageHelper.createTextMessage(response));
+            jmsTemplate.send(message.getJMSReplyTo(), messageHelper.createReply(message, response));
         } catch (Exception e) {
             log.error("AccountListener - Error fetching accounts for user {}: {}", request.getUserId(), e.getMessage());
-            jmsTemplate.convertAndSend(message.getJMSReplyTo(), messageHelper.createTextMessage(e.getMessage()));
+            jmsTemplate.send(message.getJMSReplyTo(), messageHelper.createReply(message, e.getMessage()));
         }
     }
 
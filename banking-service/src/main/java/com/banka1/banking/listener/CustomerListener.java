@@ -0,0 +1,30 @@
+package com.banka1.banking.listener;
+
+import com.banka1.banking.services.CustomerCache;
+import com.banka1.common.listener.MessageHelper;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jms.annotation.JmsListener;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CustomerListener {
+    private final CustomerCache customerCache;
+    private final MessageHelper messageHelper;
+
+    @JmsListener(destination = "${destination.customer.updated}", containerFactory = "topicListenerFactory")
+    public void onCustomerUpdated(Message message) throws JMSException {
+        var customerId = messageHelper.getMessage(message, Long.class);
+        if (customerId == null) {
+            // Nepoznat format poruke, bezbednije je isprazniti ceo kes
+            log.warn("CustomerListener: poruka bez id-a korisnika, kes se prazni");
+            customerCache.invalidateAll();
+            return;
+        }
+        customerCache.invalidate(customerId);
+    }
+}
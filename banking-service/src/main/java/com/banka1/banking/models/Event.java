@@ -15,6 +15,7 @@ import java.util.List;
 @Setter
 @Getter
 @Entity
+@Table(indexes = @Index(name = "event_status_next_attempt_idx", columnList = "status, next_attempt_at"))
 public class Event {
 
     @Id
@@ -29,6 +30,9 @@ public class Event {
 
     private String url;
 
+    // Partnerska banka kojoj se event salje (InterbankRoutingTable)
+    private String partnerRoutingNumber;
+
     private Instant createdAt = Instant.now();
 
     @OneToMany(mappedBy = "event", cascade = CascadeType.ALL)
@@ -46,10 +50,23 @@ public class Event {
     @Enumerated(EnumType.STRING)
     private EventDirection direction = EventDirection.OUTGOING;
 
+    // Kada je sledeci pokusaj slanja; dok slanje traje, do kada ga je preuzela jedna nit
+    private Instant nextAttemptAt;
+
+    @Column(nullable = false)
+    private int attemptCount = 0;
+
     @PostLoad @PrePersist
     private void setUniqueKey() {
         if (idempotenceKey != null) {
-            this.uniqueKey = idempotenceKey.getRoutingNumber() + "-" + idempotenceKey.getLocallyGeneratedKey();
+            this.uniqueKey = uniqueKeyOf(idempotenceKey);
         }
     }
+
+    /**
+     * Vrednost kolone unique_key za dati kljuc idempotentnosti.
+     */
+    public static String uniqueKeyOf(IdempotenceKey idempotenceKey) {
+        return idempotenceKey.getRoutingNumber() + "-" + idempotenceKey.getLocallyGeneratedKey();
+    }
 }
\ No newline at end of file
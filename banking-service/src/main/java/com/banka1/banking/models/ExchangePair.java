@@ -7,6 +7,7 @@ import lombok.Setter;
 import java.time.LocalDate;
 
 @Entity
+@Table(indexes = @Index(name = "exchange_pair_version_base_idx", columnList = "version, base_currency_id, target_currency_id", unique = true))
 @Getter
 @Setter
 public class ExchangePair {
@@ -28,4 +29,8 @@ public class ExchangePair {
 
     @Column(nullable = false)
     private LocalDate date;
+
+    // Verzija kursne liste, citaoci vide samo najnoviju objavljenu verziju
+    @Column(nullable = false)
+    private Long version;
 }
@@ -0,0 +1,37 @@
+package com.banka1.banking.models;
+
+import com.banka1.banking.models.helper.CurrencyType;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+/**
+ * Append-only istorija kurseva, jedan red po (base, target, date).
+ */
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "exchange_rate_history_pair_date_key",
+        columnNames = {"base_currency", "target_currency", "date"}))
+@Getter
+@Setter
+public class ExchangeRateHistory {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private CurrencyType baseCurrency;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private CurrencyType targetCurrency;
+
+    @Column(nullable = false)
+    private LocalDate date;
+
+    @Column(nullable = false)
+    private double rate;
+}
@@ -0,0 +1,45 @@
+package com.banka1.banking.models;
+
+import com.banka1.banking.models.helper.CurrencyType;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Jedno knjizenje u glavnoj knjizi. Iznos je u najmanjoj jedinici valute,
+ * pozitivan za uplatu na racun i negativan za isplatu. Sva knjizenja jednog naloga
+ * (isti journalId) u svakoj valuti se sabiraju u nulu.
+ */
+@Entity
+@Table(name = "ledger_posting", indexes = {
+        @Index(name = "ledger_posting_account_idx", columnList = "account_id, id"),
+        @Index(name = "ledger_posting_journal_idx", columnList = "journal_id")
+})
+@Getter
+@Setter
+public class LedgerPosting {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long journalId;
+
+    @Column(nullable = false)
+    private Long accountId;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private CurrencyType currencyType;
+
+    @Column(nullable = false)
+    private Long amountMinor;
+
+    private Long transferId;
+
+    private String description;
+
+    @Column(nullable = false)
+    private Long createdAt;
+}
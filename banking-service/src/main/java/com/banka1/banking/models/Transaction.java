@@ -9,11 +9,17 @@ import java.time.LocalDate;
 import java.time.LocalTime;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "transaction_from_account_ts_idx", columnList = "from_account_id, timestamp, id"),
+        @Index(name = "transaction_to_account_ts_idx", columnList = "to_account_id, timestamp, id")
+})
 @Getter
 @Setter
 public class Transaction {
+    // Sekvenca umesto IDENTITY da bi Hibernate mogao da grupise insert-e u JDBC batch
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transaction_id_seq")
+    @SequenceGenerator(name = "transaction_id_seq", sequenceName = "transaction_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -7,6 +7,7 @@ import lombok.Getter;
 import lombok.Setter;
 
 @Entity
+@Table(indexes = @Index(name = "transfer_status_created_at_idx", columnList = "status, created_at"))
 @Getter
 @Setter
 public class Transfer {
@@ -0,0 +1,7 @@
+package com.banka1.banking.models.helper;
+
+public enum TransactionDirection {
+    ALL,
+    INCOMING,
+    OUTGOING
+}
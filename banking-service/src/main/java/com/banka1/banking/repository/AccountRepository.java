@@ -6,12 +6,15 @@ import com.banka1.banking.models.helper.CurrencyType;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.Optional;
 import java.util.List;
 
 @Repository
-public interface AccountRepository extends JpaRepository<Account, Long> {
+public interface AccountRepository extends JpaRepository<Account, Long>, AccountRepositoryCustom {
     List<Account> findByOwnerID(Long ownerId);
     List<Account> findByOwnerIDAndStatusNot(Long ownerId, AccountStatus status);
     Optional<Account> findById(Long accountId);
@@ -23,4 +26,37 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
     Optional<Account> findByAccountNumber(String accountNumber);
     Account findByOwnerIDAndCurrencyType(Long ownerId, CurrencyType currencyType);
     List<Account> findByCompanyId(Long companyId);
+
+    /**
+     * Samo vlasnik racuna, bez ucitavanja cele Account entity-je (za proveru pristupa).
+     */
+    @Query("SELECT a.ownerID FROM Account a WHERE a.id = :id")
+    Optional<Long> findOwnerIdById(@Param("id") Long id);
+
+    @Query("SELECT a.id FROM Account a WHERE a.ownerID = :ownerId")
+    List<Long> findIdsByOwnerID(@Param("ownerId") Long ownerId);
+
+    @Query("SELECT a.id FROM Account a WHERE a.company.id = :companyId")
+    List<Long> findIdsByCompanyId(@Param("companyId") Long companyId);
+
+    boolean existsByCompanyIdAndOwnerID(Long companyId, Long ownerId);
+
+    @Query("SELECT a.ownerID FROM Account a WHERE a.accountNumber = :accountNumber")
+    Optional<Long> findOwnerIdByAccountNumber(@Param("accountNumber") String accountNumber);
+
+    /**
+     * Atomicno dodaje delta na stanje racuna, bez citanja reda u memoriju.
+     * Vraca broj izmenjenih redova (0 ako racun ne postoji).
+     */
+    @Modifying
+    @Query("UPDATE Account a SET a.balance = a.balance + :delta WHERE a.id = :id")
+    int addToBalance(@Param("id") Long id, @Param("delta") double delta);
+
+    /**
+     * Kao {@link #addToBalance(Long, double)}, ali samo ako je trenutno stanje najmanje minBalance.
+     * Vraca 0 ako uslov nije ispunjen, pa se provera i izmena desavaju u jednoj naredbi.
+     */
+    @Modifying
+    @Query("UPDATE Account a SET a.balance = a.balance + :delta WHERE a.id = :id AND a.balance >= :minBalance")
+    int addToBalanceIfAtLeast(@Param("id") Long id, @Param("delta") double delta, @Param("minBalance") double minBalance);
 }
@@ -0,0 +1,19 @@
+package com.banka1.banking.repository;
+
+import com.banka1.banking.models.Account;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface AccountRepositoryCustom {
+
+    /**
+     * Zakljucava racune (SELECT ... FOR UPDATE) rastucim redom po id-ju i osvezava njihovo stanje iz baze.
+     * Svaka izmena stanja racuna mora prvo proci kroz ovu metodu, u istoj transakciji u kojoj se stanje menja,
+     * pa transakcije nad istim racunima cekaju jedna drugu, a nad razlicitim racunima rade paralelno.
+     * Posto svi zakljucavaju istim redom, ne moze doci do medjusobnog blokiranja (deadlock).
+     *
+     * @return zakljucani racuni, rastuce po id-ju
+     */
+    List<Account> lockAllById(Collection<Long> ids);
+}
@@ -0,0 +1,46 @@
+package com.banka1.banking.repository;
+
+import com.banka1.banking.models.Account;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Hibernate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+public class AccountRepositoryCustomImpl implements AccountRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Account> lockAllById(Collection<Long> ids) {
+        List<Long> ordered = ids.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .sorted()
+                .toList();
+
+        List<Account> locked = new ArrayList<>(ordered.size());
+        for (Long id : ordered) {
+            // getReference vraca instancu koja je vec u persistence contextu (npr. ucitanu kroz Transfer),
+            // a refresh je zakljucava i ucitava sveze stanje, pa provera stanja ne radi nad zastarelim podacima
+            Account account = entityManager.getReference(Account.class, id);
+            if (!isLockedInTransaction(account)) {
+                entityManager.refresh(account, LockModeType.PESSIMISTIC_WRITE);
+            }
+            locked.add(account);
+        }
+        return locked;
+    }
+
+    // Racun vec zakljucan u ovoj transakciji (npr. cela grupa u TransferSettlementQueue) ima najsvezije stanje
+    // u persistence contextu, a refresh bi odbacio izmene prethodnih transfera koje jos nisu flush-ovane
+    private boolean isLockedInTransaction(Account account) {
+        return Hibernate.isInitialized(account)
+                && entityManager.getLockMode(account) == LockModeType.PESSIMISTIC_WRITE;
+    }
+}
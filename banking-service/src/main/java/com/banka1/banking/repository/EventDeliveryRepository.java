@@ -13,4 +13,6 @@ import java.util.Optional;
 @Repository
 public interface EventDeliveryRepository extends JpaRepository<EventDelivery, Long> {
     List<EventDelivery> findByEvent(Event event);
+
+    Optional<EventDelivery> findFirstByEventIdOrderByIdDesc(Long eventId);
 }
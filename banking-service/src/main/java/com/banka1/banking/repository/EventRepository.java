@@ -1,16 +1,56 @@
 package com.banka1.banking.repository;
 
-import com.banka1.banking.models.Currency;
 import com.banka1.banking.models.Event;
-import com.banka1.banking.models.helper.CurrencyType;
+import com.banka1.banking.models.helper.DeliveryStatus;
 import com.banka1.banking.models.helper.IdempotenceKey;
+import com.banka1.banking.models.interbank.EventDirection;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface EventRepository extends JpaRepository<Event, Long> {
     boolean existsByIdempotenceKey(IdempotenceKey idempotenceKey);
     Optional<Event> findByIdempotenceKey(IdempotenceKey idempotenceKey);
+    Optional<Event> findByUniqueKey(String uniqueKey);
+
+    /**
+     * Id-jevi poslatih eventa ciji je pokusaj slanja na redu, od najstarijeg (indeks event_status_next_attempt_idx).
+     */
+    @Query("SELECT e.id FROM Event e WHERE e.direction = :direction AND e.status IN :statuses " +
+            "AND e.nextAttemptAt <= :now ORDER BY e.nextAttemptAt")
+    List<Long> findDueIds(@Param("direction") EventDirection direction,
+                          @Param("statuses") Collection<DeliveryStatus> statuses,
+                          @Param("now") Instant now,
+                          Limit limit);
+
+    /**
+     * Preuzima slanje eventa do leaseUntil ako je na redu i uvecava broj pokusaja. Vraca 1 samo
+     * jednom pozivaocu, i kada vise niti ili instanci pokusa da preuzme isti event.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Event e SET e.nextAttemptAt = :leaseUntil, e.attemptCount = e.attemptCount + 1 " +
+            "WHERE e.id = :id AND e.status IN :statuses AND e.nextAttemptAt <= :now")
+    int claim(@Param("id") Long id,
+              @Param("statuses") Collection<DeliveryStatus> statuses,
+              @Param("now") Instant now,
+              @Param("leaseUntil") Instant leaseUntil);
+
+    @Query("SELECT e FROM Event e WHERE e.direction = :direction AND e.status IN :statuses AND e.id > :afterId ORDER BY e.id")
+    List<Event> findUnfinishedAfter(@Param("direction") EventDirection direction,
+                                    @Param("statuses") Collection<DeliveryStatus> statuses,
+                                    @Param("afterId") long afterId,
+                                    Limit limit);
+
+    long countByDirectionAndStatusIn(EventDirection direction, Collection<DeliveryStatus> statuses);
 }
@@ -3,14 +3,27 @@ package com.banka1.banking.repository;
 import com.banka1.banking.models.ExchangePair;
 import com.banka1.banking.models.helper.CurrencyType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.time.LocalDate;
 import java.util.List;
-import java.util.Optional;
 
 @Repository
-public interface ExchangePairRepository extends JpaRepository<ExchangePair, Long> {
-    List<ExchangePair> findByBaseCurrencyCode(CurrencyType baseCurrency);
-    Optional<ExchangePair> findByBaseCurrencyCodeAndTargetCurrencyCode(CurrencyType baseCurrency, CurrencyType targetCurrency);
+public interface ExchangePairRepository extends JpaRepository<ExchangePair, Long>, ExchangePairRepositoryCustom {
+
+    /**
+     * Sledeca verzija kursne liste iz sekvence, jedinstvena i kada vise instanci osvezava istovremeno.
+     */
+    @Query(value = "SELECT nextval('exchange_pair_version_seq')", nativeQuery = true)
+    long nextVersion();
+
+    @Query("SELECT p FROM ExchangePair p " +
+            "WHERE p.version = (SELECT MAX(v.version) FROM ExchangePair v)")
+    List<ExchangePair> findCurrent();
+
+    @Query("SELECT p FROM ExchangePair p " +
+            "WHERE p.baseCurrency.code = :baseCurrency " +
+            "AND p.version = (SELECT MAX(v.version) FROM ExchangePair v)")
+    List<ExchangePair> findCurrentByBaseCurrencyCode(@Param("baseCurrency") CurrencyType baseCurrency);
 }
@@ -0,0 +1,15 @@
+package com.banka1.banking.repository;
+
+import com.banka1.banking.models.ExchangePair;
+
+import java.util.List;
+
+public interface ExchangePairRepositoryCustom {
+
+    /**
+     * Upisuje novu verziju kursne liste jednim batch insertom i brise starije verzije.
+     * Sve se desava u jednoj transakciji, pa je commit ujedno i prelazak na novu verziju.
+     * Kursevi se u istoj transakciji dodaju i u exchange_rate_history, gde se nikad ne brisu.
+     */
+    void publishVersion(long version, List<ExchangePair> pairs);
+}
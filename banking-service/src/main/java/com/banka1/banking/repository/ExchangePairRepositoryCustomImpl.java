@@ -0,0 +1,42 @@
+package com.banka1.banking.repository;
+
+import com.banka1.banking.models.ExchangePair;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class ExchangePairRepositoryCustomImpl implements ExchangePairRepositoryCustom {
+
+    private static final String INSERT_PAIR =
+            "INSERT INTO exchange_pair (base_currency_id, target_currency_id, exchange_rate, date, version) VALUES (?, ?, ?, ?, ?)";
+
+    // Za isti dan ostaje prvi upisan kurs, istorija je append-only
+    private static final String INSERT_HISTORY =
+            "INSERT INTO exchange_rate_history (base_currency, target_currency, date, rate) VALUES (?, ?, ?, ?) " +
+            "ON CONFLICT (base_currency, target_currency, date) DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional
+    public void publishVersion(long version, List<ExchangePair> pairs) {
+        jdbcTemplate.batchUpdate(INSERT_PAIR, pairs, pairs.size(), (ps, pair) -> {
+            ps.setLong(1, pair.getBaseCurrency().getId());
+            ps.setLong(2, pair.getTargetCurrency().getId());
+            ps.setDouble(3, pair.getExchangeRate());
+            ps.setDate(4, Date.valueOf(pair.getDate()));
+            ps.setLong(5, version);
+        });
+        jdbcTemplate.batchUpdate(INSERT_HISTORY, pairs, pairs.size(), (ps, pair) -> {
+            ps.setString(1, pair.getBaseCurrency().getCode().name());
+            ps.setString(2, pair.getTargetCurrency().getCode().name());
+            ps.setDate(3, Date.valueOf(pair.getDate()));
+            ps.setDouble(4, pair.getExchangeRate());
+        });
+        jdbcTemplate.update("DELETE FROM exchange_pair WHERE version < ?", version);
+    }
+}
@@ -0,0 +1,12 @@
+package com.banka1.banking.repository;
+
+import com.banka1.banking.models.ExchangeRateHistory;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ExchangeRateHistoryRepository extends JpaRepository<ExchangeRateHistory, Long> {
+    List<ExchangeRateHistory> findAllByOrderByDateAsc();
+}
@@ -1,7 +1,9 @@
 package com.banka1.banking.repository;
 
+import com.banka1.banking.dto.DueInstallmentRef;
 import com.banka1.banking.models.Installment;
 import com.banka1.banking.models.Loan;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -19,4 +21,20 @@ public interface InstallmentsRepository extends JpaRepository<Installment, Long>
             "OR (i.retryDate IS NOT NULL AND i.retryDate <= :today AND i.isPaid = false AND i.lawsuit = false)")
     List<Installment> getDueInstallments(@Param("today") LocalDate today);
 
+    /**
+     * Sledecih limit dospelih rata posle afterId (keyset), najvise do maxId, poredjano po id-u.
+     * Rata koja nije naplacena ceka retryDate, pa ponovno pokretanje istog dana ne naplacuje je dvaput.
+     */
+    @Query("SELECT new com.banka1.banking.dto.DueInstallmentRef(i.id, i.loan.account.id) FROM Installment i " +
+            "WHERE i.id > :afterId AND i.id <= :maxId AND i.isPaid = false AND i.lawsuit = false " +
+            "AND ((i.retryDate IS NULL AND i.expectedDueDate <= :today) OR i.retryDate <= :today) " +
+            "ORDER BY i.id")
+    List<DueInstallmentRef> findDueInstallmentRefs(@Param("today") LocalDate today,
+                                                   @Param("afterId") long afterId,
+                                                   @Param("maxId") long maxId,
+                                                   Limit limit);
+
+    @Query("SELECT COALESCE(MAX(i.id), 0) FROM Installment i")
+    long findMaxId();
+
 }
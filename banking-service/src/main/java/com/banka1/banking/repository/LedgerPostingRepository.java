@@ -0,0 +1,13 @@
+package com.banka1.banking.repository;
+
+import com.banka1.banking.models.LedgerPosting;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface LedgerPostingRepository extends JpaRepository<LedgerPosting, Long> {
+
+    List<LedgerPosting> findByJournalIdOrderByIdAsc(Long journalId);
+}
@@ -1,12 +1,16 @@
 package com.banka1.banking.repository;
 
 import com.banka1.banking.models.OTCTransaction;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
 
 @Repository
 public interface OTCTransactionRepository extends JpaRepository<OTCTransaction, Long> {
+    // Koraci iste OTC transakcije se izvrsavaju jedan po jedan; red se zakljucava pre racuna
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
     Optional<OTCTransaction> findByUid(String uid);
 }
@@ -1,12 +1,20 @@
 package com.banka1.banking.repository;
 
+import com.banka1.banking.dto.TransactionHistoryView;
 import com.banka1.banking.models.Account;
 import com.banka1.banking.models.Transaction;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
@@ -14,4 +22,105 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
     List<Transaction> findByToAccountId(Account toAccountId);
     Optional<Transaction> findByTransferId(Long transferId);
     List<Transaction> findByFromAccountIdInOrToAccountIdIn(List<Account> fromAccounts, List<Account> toAccounts);
+
+    /**
+     * Strana istorije transakcija za date racune, od najnovije ka starijim, sa keyset kursorom
+     * (sve strogo pre para cursorTimestamp, cursorId). Odlazne i dolazne transakcije se citaju
+     * posebno, svaka grana redom iz indeksa transaction_from_account_ts_idx odnosno
+     * transaction_to_account_ts_idx i staje posle limit redova, pa cena ne zavisi od duzine istorije.
+     * UNION uklanja duplikate kada su oba racuna u listi (prenos izmedju racuna istog korisnika).
+     * Tek za izabrane id-jeve se spajaju racuni, valuta i transfer.
+     */
+    @Query(value = """
+            SELECT t.id AS "id",
+                   t.from_account_id AS "fromAccountId",
+                   fa.account_number AS "fromAccountNumber",
+                   fa.ownerid AS "fromOwnerId",
+                   t.to_account_id AS "toAccountId",
+                   ta.account_number AS "toAccountNumber",
+                   ta.ownerid AS "toOwnerId",
+                   t.amount AS "amount",
+                   t.final_amount AS "finalAmount",
+                   t.fee AS "fee",
+                   c.code AS "currencyCode",
+                   t.timestamp AS "timestamp",
+                   t.description AS "description",
+                   t.transfer_id AS "transferId",
+                   tr.note AS "transferNote"
+            FROM (
+                (SELECT o.id, o.timestamp FROM transaction o
+                 WHERE :includeOutgoing = true
+                   AND o.from_account_id IN (:accountIds)
+                   AND o.timestamp >= :fromTimestamp AND o.timestamp < :toTimestamp
+                   AND (o.timestamp < :cursorTimestamp OR (o.timestamp = :cursorTimestamp AND o.id < :cursorId))
+                   AND (:includeBankOnly = true OR o.bank_only = false)
+                 ORDER BY o.timestamp DESC, o.id DESC
+                 LIMIT :limit)
+                UNION
+                (SELECT i.id, i.timestamp FROM transaction i
+                 WHERE :includeIncoming = true
+                   AND i.to_account_id IN (:accountIds)
+                   AND i.timestamp >= :fromTimestamp AND i.timestamp < :toTimestamp
+                   AND (i.timestamp < :cursorTimestamp OR (i.timestamp = :cursorTimestamp AND i.id < :cursorId))
+                   AND (:includeBankOnly = true OR i.bank_only = false)
+                 ORDER BY i.timestamp DESC, i.id DESC
+                 LIMIT :limit)
+            ) page
+            JOIN transaction t ON t.id = page.id
+            LEFT JOIN account fa ON fa.id = t.from_account_id
+            LEFT JOIN account ta ON ta.id = t.to_account_id
+            JOIN currency c ON c.id = t.currency_id
+            JOIN transfer tr ON tr.id = t.transfer_id
+            ORDER BY page.timestamp DESC, page.id DESC
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<TransactionHistoryView> findHistory(@Param("accountIds") Collection<Long> accountIds,
+                                             @Param("includeOutgoing") boolean includeOutgoing,
+                                             @Param("includeIncoming") boolean includeIncoming,
+                                             @Param("includeBankOnly") boolean includeBankOnly,
+                                             @Param("fromTimestamp") long fromTimestamp,
+                                             @Param("toTimestamp") long toTimestamp,
+                                             @Param("cursorTimestamp") long cursorTimestamp,
+                                             @Param("cursorId") long cursorId,
+                                             @Param("limit") int limit);
+
+    /**
+     * Sve transakcije datih racuna u vremenskom opsegu, od najstarije, za izvod. Rezultat se
+     * cita kursorom u delovima od po 500 redova (PostgreSQL koristi kursor samo
+     * unutar transakcije), pa stream mora da se zatvori u istoj transakciji u kojoj je otvoren.
+     */
+    @Query(value = """
+            SELECT t.id AS "id",
+                   t.from_account_id AS "fromAccountId",
+                   fa.account_number AS "fromAccountNumber",
+                   fa.ownerid AS "fromOwnerId",
+                   t.to_account_id AS "toAccountId",
+                   ta.account_number AS "toAccountNumber",
+                   ta.ownerid AS "toOwnerId",
+                   t.amount AS "amount",
+                   t.final_amount AS "finalAmount",
+                   t.fee AS "fee",
+                   c.code AS "currencyCode",
+                   t.timestamp AS "timestamp",
+                   t.description AS "description",
+                   t.transfer_id AS "transferId",
+                   tr.note AS "transferNote"
+            FROM transaction t
+            LEFT JOIN account fa ON fa.id = t.from_account_id
+            LEFT JOIN account ta ON ta.id = t.to_account_id
+            JOIN currency c ON c.id = t.currency_id
+            JOIN transfer tr ON tr.id = t.transfer_id
+            WHERE (t.from_account_id IN (:accountIds) OR t.to_account_id IN (:accountIds))
+              AND t.timestamp >= :fromTimestamp AND t.timestamp < :toTimestamp
+              AND (:includeBankOnly = true OR t.bank_only = false)
+            ORDER BY t.timestamp, t.id
+            """, nativeQuery = true)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<TransactionHistoryView> streamStatement(@Param("accountIds") Collection<Long> accountIds,
+                                                   @Param("includeBankOnly") boolean includeBankOnly,
+                                                   @Param("fromTimestamp") long fromTimestamp,
+                                                   @Param("toTimestamp") long toTimestamp);
 }
@@ -3,16 +3,40 @@ package com.banka1.banking.repository;
 import com.banka1.banking.models.Transfer;
 import com.banka1.banking.models.helper.TransferStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface TransferRepository extends JpaRepository<Transfer, Long> {
 
-    List<Transfer> findAllByStatusAndCreatedAtBefore(TransferStatus status,Long createdAt);
-
     List<Transfer> findAllByFromAccountId_OwnerID(Long ownerId);
 
+    @Query("SELECT t.fromAccountId.id FROM Transfer t WHERE t.id = :id")
+    Optional<Long> findFromAccountIdById(@Param("id") Long id);
+
+    /**
+     * Menja status svim transferima u datom statusu kreiranim pre createdBefore, jednom naredbom.
+     * Oslanja se na indeks transfer_status_created_at_idx.
+     */
+    @Modifying
+    @Query("UPDATE Transfer t SET t.status = :newStatus WHERE t.status = :status AND t.createdAt < :createdBefore")
+    int updateStatusByStatusAndCreatedAtBefore(@Param("status") TransferStatus status,
+                                               @Param("newStatus") TransferStatus newStatus,
+                                               @Param("createdBefore") Long createdBefore);
+
+    /**
+     * Menja status samo onim transferima iz liste koji su jos uvek u datom statusu.
+     */
+    @Modifying
+    @Query("UPDATE Transfer t SET t.status = :newStatus WHERE t.id IN :ids AND t.status = :status")
+    int updateStatusByIdInAndStatus(@Param("ids") Collection<Long> ids,
+                                    @Param("status") TransferStatus status,
+                                    @Param("newStatus") TransferStatus newStatus);
 
 }
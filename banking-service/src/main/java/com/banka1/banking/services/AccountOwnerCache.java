@@ -0,0 +1,97 @@
+package com.banka1.banking.services;
+
+import com.banka1.banking.repository.AccountRepository;
+import com.banka1.banking.repository.TransferRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Kes vlasnika racuna za proveru pristupa u AuthAspect-u. Vlasnik i broj racuna se ne menjaju
+ * posle otvaranja racuna, pa unosi ne zastarevaju; velicina je ogranicena (najstariji po pristupu
+ * se izbacuju). Promasaj cita samo owner_id kolonu, bez ucitavanja cele Account entity-je.
+ * <p>
+ * Pogoci i promasaji se vide na /actuator/metrics/account.owner.cache.
+ */
+@Component
+public class AccountOwnerCache {
+
+    private final AccountRepository accountRepository;
+    private final TransferRepository transferRepository;
+
+    private final Map<Long, Long> ownerById;
+    private final Map<String, Long> ownerByAccountNumber;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public AccountOwnerCache(AccountRepository accountRepository, TransferRepository transferRepository,
+                             MeterRegistry meterRegistry,
+                             @Value("${account.owner-cache.max-size:50000}") int maxSize) {
+        this.accountRepository = accountRepository;
+        this.transferRepository = transferRepository;
+        this.ownerById = lru(maxSize);
+        this.ownerByAccountNumber = lru(maxSize);
+
+        this.hits = Counter.builder("account.owner.cache").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("account.owner.cache").tag("result", "miss").register(meterRegistry);
+    }
+
+    private static <K> Map<K, Long> lru(int maxSize) {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Long> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Vraca id vlasnika racuna, ili null ako racun ne postoji (nepostojeci racuni se ne kesiraju).
+     */
+    public Long getOwnerId(Long accountId) {
+        return accountId == null ? null : get(ownerById, accountId, accountRepository::findOwnerIdById);
+    }
+
+    public Long getOwnerIdByAccountNumber(String accountNumber) {
+        return accountNumber == null ? null
+                : get(ownerByAccountNumber, accountNumber, accountRepository::findOwnerIdByAccountNumber);
+    }
+
+    /**
+     * Vlasnik racuna sa kog je transfer poslat. Sam transfer se ne kesira, cita se samo id racuna.
+     */
+    public Long getOwnerIdByTransferId(Long transferId) {
+        return transferId == null ? null
+                : transferRepository.findFromAccountIdById(transferId).map(this::getOwnerId).orElse(null);
+    }
+
+    private <K> Long get(Map<K, Long> cache, K key, Function<K, Optional<Long>> loader) {
+        synchronized (this) {
+            Long ownerId = cache.get(key);
+            if (ownerId != null) {
+                hits.increment();
+                return ownerId;
+            }
+        }
+        misses.increment();
+
+        Long ownerId = loader.apply(key).orElse(null);
+        if (ownerId != null) {
+            synchronized (this) {
+                cache.put(key, ownerId);
+            }
+        }
+        return ownerId;
+    }
+
+    public synchronized int size() {
+        return ownerById.size() + ownerByAccountNumber.size();
+    }
+}
@@ -123,6 +123,7 @@ public class AccountService {
         account.setEmployeeID(employeeId);
 
         account = accountRepository.save(account);
+        bankAccountUtils.invalidate(account);
 
         if (createAccountDTO.getCreateCard()) {
             CreateCardDTO createCardDTO = new CreateCardDTO();
@@ -141,7 +142,7 @@ public class AccountService {
         emailDTO.setLastName(owner.getLastName());
         emailDTO.setType("email");
 
-        jmsTemplate.convertAndSend(destinationEmail, messageHelper.createTextMessage(emailDTO));
+        jmsTemplate.send(destinationEmail, messageHelper.messageCreator(emailDTO));
 
         return account;
     }
@@ -172,7 +173,11 @@ public class AccountService {
         Optional.ofNullable(updateAccountDTO.getMonthlyLimit()).ifPresent(account::setMonthlyLimit);
         Optional.ofNullable(updateAccountDTO.getStatus()).ifPresent(account::setStatus);
 
-        return accountRepository.save(account);
+        account = accountRepository.save(account);
+        if (updateAccountDTO.getStatus() != null) {
+            bankAccountUtils.invalidate(account);
+        }
+        return account;
     }
 
     public Account userUpdateAccount(Long userId, Long accountId, UserUpdateAccountDTO updateAccountDTO) {
@@ -216,33 +221,49 @@ public class AccountService {
             }
         }
 
-        if (!Objects.equals(bankAccountUtils.getBankAccountForCurrency(CurrencyType.RSD).getOwnerID(), account.getOwnerID()))
+        if (!Objects.equals(bankAccountUtils.getBankOwnerId(), account.getOwnerID()))
             allTransactions.removeIf(Transaction::getBankOnly);
 
         List<TransactionResponseDTO> responseDTOs = new ArrayList<>();
         for (Transaction transaction : allTransactions) {
-            TransactionResponseDTO dto = modelMapper.map(transaction, TransactionResponseDTO.class);
+            responseDTOs.add(modelMapper.map(transaction, TransactionResponseDTO.class));
+        }
 
+        // Imena svih vlasnika se dohvataju jednim zahtevom ka user-service-u
+        Set<Long> ownerIds = new LinkedHashSet<>();
+        for (TransactionResponseDTO dto : responseDTOs) {
+            if (dto.getFromAccountId() != null && dto.getFromAccountId().getOwnerID() != null)
+                ownerIds.add(dto.getFromAccountId().getOwnerID());
+            if (dto.getToAccountId() != null && dto.getToAccountId().getOwnerID() != null)
+                ownerIds.add(dto.getToAccountId().getOwnerID());
+        }
+        Map<Long, CustomerDTO> owners = userServiceCustomer.getCustomersByIds(ownerIds);
+
+        for (TransactionResponseDTO dto : responseDTOs) {
             if (dto.getFromAccountId() != null && dto.getFromAccountId().getOwnerID() != null) {
-                CustomerDTO sender = userServiceCustomer.getCustomerById(dto.getFromAccountId().getOwnerID());
-                dto.setSenderName(sender.getFirstName() + " " + sender.getLastName());
+                dto.setSenderName(customerName(owners, dto.getFromAccountId().getOwnerID()));
             } else {
                 dto.setSenderName("Strana banka");
             }
 
             if (dto.getToAccountId() != null && dto.getToAccountId().getOwnerID() != null) {
-                CustomerDTO receiver = userServiceCustomer.getCustomerById(dto.getToAccountId().getOwnerID());
-                dto.setReceiverName(receiver.getFirstName() + " " + receiver.getLastName());
+                dto.setReceiverName(customerName(owners, dto.getToAccountId().getOwnerID()));
             } else {
                 dto.setReceiverName("Strana banka");
             }
-
-            responseDTOs.add(dto);
         }
 
         return responseDTOs;
     }
 
+    private static String customerName(Map<Long, CustomerDTO> customers, Long customerId) {
+        CustomerDTO customer = customers.get(customerId);
+        if (customer == null) {
+            throw new IllegalArgumentException("Korisnik nije pronađen ili API nije vratio očekivani format.");
+        }
+        return customer.getFirstName() + " " + customer.getLastName();
+    }
+
 
     public static String generateAccountNumber(Account account, String routingNumber) {
         StringBuilder sb = new StringBuilder();
@@ -1,5 +1,6 @@
 package com.banka1.banking.services;
 
+import com.banka1.banking.dto.HouseAccountRef;
 import com.banka1.banking.models.Account;
 import com.banka1.banking.models.helper.AccountType;
 import com.banka1.banking.models.helper.CurrencyType;
@@ -7,22 +8,109 @@ import com.banka1.banking.repository.AccountRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Racuni banke i drzave po valuti. Id, vlasnik i broj racuna se ne menjaju, pa se kesiraju
+ * u EnumMap koji se zamenjuje u celosti (copy-on-write), a citanje ne ide u bazu.
+ * Stanje racuna se i dalje cita iz baze, ali po primarnom kljucu.
+ */
 @RequiredArgsConstructor
 @Component
 public class BankAccountUtils {
 
     private final AccountRepository accountRepository;
 
+    private volatile Map<CurrencyType, HouseAccountRef> bankAccounts = new EnumMap<>(CurrencyType.class);
+    private volatile Map<CurrencyType, HouseAccountRef> countryAccounts = new EnumMap<>(CurrencyType.class);
+
     public Account getBankAccountForCurrency(CurrencyType currencyType){
-        return accountRepository
-                .findByTypeAndCurrencyType(AccountType.BANK,currencyType)
-                .orElseThrow(() -> new RuntimeException("Račun banke za valutu " + currencyType + " nije pronađen."));
+        return load(AccountType.BANK, currencyType);
     }
 
     public Account getCountryAccountForCurrency(CurrencyType currencyType){
-        return accountRepository
-                .findByTypeAndCurrencyType(AccountType.COUNTRY,currencyType)
-                .orElseThrow(() -> new RuntimeException("Račun drzave za valutu " + currencyType + " nije pronađen."));
+        return load(AccountType.COUNTRY, currencyType);
+    }
+
+    public HouseAccountRef getBankAccountRef(CurrencyType currencyType) {
+        return resolve(AccountType.BANK, currencyType);
+    }
+
+    public HouseAccountRef getCountryAccountRef(CurrencyType currencyType) {
+        return resolve(AccountType.COUNTRY, currencyType);
+    }
+
+    /**
+     * Vlasnik racuna banke, za proveru da li je korisnik banka.
+     */
+    public Long getBankOwnerId() {
+        return getBankAccountRef(CurrencyType.RSD).getOwnerId();
+    }
+
+    /**
+     * Poziva se kada se racun banke ili drzave kreira, zatvori ili mu se promeni status.
+     */
+    public synchronized void invalidate(Account account) {
+        if (account.getType() == AccountType.BANK) {
+            bankAccounts = without(bankAccounts, account.getCurrencyType());
+        } else if (account.getType() == AccountType.COUNTRY) {
+            countryAccounts = without(countryAccounts, account.getCurrencyType());
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        bankAccounts = new EnumMap<>(CurrencyType.class);
+        countryAccounts = new EnumMap<>(CurrencyType.class);
     }
 
+    private Account load(AccountType type, CurrencyType currencyType) {
+        HouseAccountRef ref = resolve(type, currencyType);
+        return accountRepository.findById(ref.getId()).orElseThrow(() -> {
+            // Racun je obrisan mimo servisa, sledeci poziv ponovo trazi racun po tipu i valuti
+            invalidateAll();
+            return notFound(type, currencyType);
+        });
+    }
+
+    private HouseAccountRef resolve(AccountType type, CurrencyType currencyType) {
+        HouseAccountRef ref = cache(type).get(currencyType);
+        if (ref != null) {
+            return ref;
+        }
+
+        Account account = accountRepository.findByTypeAndCurrencyType(type, currencyType)
+                .orElseThrow(() -> notFound(type, currencyType));
+        ref = new HouseAccountRef(account.getId(), account.getOwnerID(), account.getAccountNumber());
+        put(type, currencyType, ref);
+        return ref;
+    }
+
+    private Map<CurrencyType, HouseAccountRef> cache(AccountType type) {
+        return type == AccountType.BANK ? bankAccounts : countryAccounts;
+    }
+
+    private synchronized void put(AccountType type, CurrencyType currencyType, HouseAccountRef ref) {
+        Map<CurrencyType, HouseAccountRef> next = new EnumMap<>(CurrencyType.class);
+        next.putAll(cache(type));
+        next.put(currencyType, ref);
+        if (type == AccountType.BANK) {
+            bankAccounts = next;
+        } else {
+            countryAccounts = next;
+        }
+    }
+
+    private static Map<CurrencyType, HouseAccountRef> without(Map<CurrencyType, HouseAccountRef> current, CurrencyType currencyType) {
+        Map<CurrencyType, HouseAccountRef> next = new EnumMap<>(CurrencyType.class);
+        next.putAll(current);
+        next.remove(currencyType);
+        return next;
+    }
+
+    private static RuntimeException notFound(AccountType type, CurrencyType currencyType) {
+        return type == AccountType.BANK
+                ? new RuntimeException("Račun banke za valutu " + currencyType + " nije pronađen.")
+                : new RuntimeException("Račun drzave za valutu " + currencyType + " nije pronađen.");
+    }
 }
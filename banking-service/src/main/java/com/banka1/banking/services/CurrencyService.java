@@ -6,80 +6,185 @@ import com.banka1.banking.models.ExchangePair;
 import com.banka1.banking.models.helper.CurrencyType;
 import com.banka1.banking.repository.CurrencyRepository;
 import com.banka1.banking.repository.ExchangePairRepository;
+import com.banka1.banking.repository.ExchangeRateHistoryRepository;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 public class CurrencyService {
     private final ExchangePairRepository exchangePairRepository;
     private final RestTemplate restTemplate;
     private final CurrencyRepository currencyRepository;
+    private final ExchangeRateMatrix exchangeRateMatrix;
+    private final ExchangeRateHistoryStore exchangeRateHistoryStore;
+    private final ExchangeRateHistoryRepository exchangeRateHistoryRepository;
+    private final String exchangeRatesUrl;
     private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ExecutorService fetchExecutor = Executors.newFixedThreadPool(4);
+    // Osvezavanje pokrenuto van scheduler-a (pri podizanju), da ne zauzima zajednicki ForkJoin pool
+    private final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "exchange-rate-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean refreshInProgress = new AtomicBoolean(false);
     private static final List<CurrencyType> SUPPORTED_CURRENCIES = Arrays.asList(CurrencyType.values());
+    private static final int DEFAULT_HISTORY_DAYS = 30;
 
-    public CurrencyService(ExchangePairRepository exchangePairRepository, RestTemplate restTemplate, CurrencyRepository currencyRepository) {
+    public CurrencyService(ExchangePairRepository exchangePairRepository, RestTemplate restTemplate, CurrencyRepository currencyRepository, ExchangeRateMatrix exchangeRateMatrix, ExchangeRateHistoryStore exchangeRateHistoryStore, ExchangeRateHistoryRepository exchangeRateHistoryRepository, @Value("${exchange.rates.url}") String exchangeRatesUrl) {
         this.exchangePairRepository = exchangePairRepository;
         this.restTemplate = restTemplate;
         this.currencyRepository = currencyRepository;
+        this.exchangeRateMatrix = exchangeRateMatrix;
+        this.exchangeRateHistoryStore = exchangeRateHistoryStore;
+        this.exchangeRateHistoryRepository = exchangeRateHistoryRepository;
+        this.exchangeRatesUrl = exchangeRatesUrl;
     }
 
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+        fetchExecutor.shutdownNow();
+    }
+
+    /**
+     * Pokrece osvezavanje kursne liste u pozadini, na posebnoj niti.
+     */
+    public CompletableFuture<Void> fetchExchangeRatesAsync() {
+        return CompletableFuture.runAsync(this::fetchExchangeRates, refreshExecutor);
+    }
+
+    /**
+     * Ucitava poslednju objavljenu verziju kursne liste iz baze u memoriju.
+     */
+    public void loadCurrentExchangeRates() {
+        double[][] rates = ExchangeRateMatrix.newTable();
+        for (ExchangePair pair : exchangePairRepository.findCurrent()) {
+            rates[pair.getBaseCurrency().getCode().ordinal()][pair.getTargetCurrency().getCode().ordinal()] = pair.getExchangeRate();
+        }
+        exchangeRateMatrix.publish(rates);
+    }
+
+    /**
+     * Ucitava celu istoriju kurseva u memoriju.
+     */
+    public void loadExchangeRateHistory() {
+        exchangeRateHistoryStore.load(exchangeRateHistoryRepository.findAllByOrderByDateAsc());
+    }
+
+    /**
+     * Osvezava kursnu listu. Bazne valute se dohvataju paralelno, nova verzija se upisuje
+     * jednim batch insertom i postaje vidljiva tek commitom, tako da citaoci do tada vide prethodnu verziju.
+     */
     @Scheduled(cron = "0 0 0 * * ?")// Svakog dana u ponoc
     public void fetchExchangeRates() {
-        exchangePairRepository.deleteAll(); // Brisemo stare podatke
+        if (!refreshInProgress.compareAndSet(false, true)) {
+            log.info("Osvezavanje kursne liste je vec u toku");
+            return;
+        }
 
-        for (CurrencyType baseCurrencyCode : SUPPORTED_CURRENCIES) {
-            String url = "https://cdn.jsdelivr.net/npm/@fawazahmed0/currency-api@latest/v1/currencies/"
-                    + baseCurrencyCode.name().toLowerCase() + ".json";
+        try {
+            Map<CurrencyType, Currency> currencies = new EnumMap<>(CurrencyType.class);
+            for (Currency currency : currencyRepository.findAll()) {
+                currencies.put(currency.getCode(), currency);
+            }
 
-            try {
-                String jsonResponse = restTemplate.getForObject(url, String.class);
-                JsonNode root = objectMapper.readTree(jsonResponse);
-                JsonNode ratesNode = root.get(baseCurrencyCode.name().toLowerCase());
+            List<CompletableFuture<JsonNode>> responses = SUPPORTED_CURRENCIES.stream()
+                    .map(base -> CompletableFuture.supplyAsync(() -> fetchRatesForBase(base), fetchExecutor))
+                    .toList();
 
-                if (ratesNode != null) {
-                    Currency baseCurrency = currencyRepository.findByCode(baseCurrencyCode)
-                            .orElseThrow(() -> new RuntimeException("Base currency " + baseCurrencyCode + " not found"));
+            double[][] rates = ExchangeRateMatrix.newTable();
+            List<ExchangePair> pairs = new ArrayList<>();
+            LocalDate today = LocalDate.now();
 
-                    for (CurrencyType targetCurrencyCode : SUPPORTED_CURRENCIES) {
-                        if (!baseCurrencyCode.equals(targetCurrencyCode) &&
-                                ratesNode.has(targetCurrencyCode.name().toLowerCase())) {
+            for (int i = 0; i < SUPPORTED_CURRENCIES.size(); i++) {
+                CurrencyType baseCurrencyCode = SUPPORTED_CURRENCIES.get(i);
+                JsonNode ratesNode = responses.get(i).join();
+                Currency baseCurrency = currencies.get(baseCurrencyCode);
 
-                            double rate = ratesNode.get(targetCurrencyCode.name().toLowerCase()).asDouble();
+                if (ratesNode == null) {
+                    continue;
+                }
+                if (baseCurrency == null) {
+                    log.error("Base currency {} not found", baseCurrencyCode);
+                    continue;
+                }
 
-                            Currency targetCurrency = currencyRepository.findByCode(targetCurrencyCode)
-                                    .orElseThrow(() -> new RuntimeException("Target currency " + targetCurrencyCode + " not found"));
+                for (CurrencyType targetCurrencyCode : SUPPORTED_CURRENCIES) {
+                    Currency targetCurrency = currencies.get(targetCurrencyCode);
+                    if (baseCurrencyCode.equals(targetCurrencyCode) || targetCurrency == null ||
+                            !ratesNode.has(targetCurrencyCode.name().toLowerCase())) {
+                        continue;
+                    }
 
-                            ExchangePair pair = new ExchangePair();
-                            pair.setBaseCurrency(baseCurrency);
-                            pair.setTargetCurrency(targetCurrency);
-                            pair.setExchangeRate(rate);
-                            pair.setDate(LocalDate.now());
+                    double rate = ratesNode.get(targetCurrencyCode.name().toLowerCase()).asDouble();
 
-                            exchangePairRepository.save(pair);
-                        }
-                    }
+                    ExchangePair pair = new ExchangePair();
+                    pair.setBaseCurrency(baseCurrency);
+                    pair.setTargetCurrency(targetCurrency);
+                    pair.setExchangeRate(rate);
+                    pair.setDate(today);
+                    pairs.add(pair);
+
+                    rates[baseCurrencyCode.ordinal()][targetCurrencyCode.ordinal()] = rate;
                 }
-            } catch (Exception e) {
-                System.err.println("Failed to fetch rates for base currency: " + baseCurrencyCode + ", " + e.getMessage());
             }
+
+            if (pairs.isEmpty()) {
+                log.warn("Nijedan kurs nije dohvacen, zadrzava se prethodna kursna lista");
+                return;
+            }
+
+            long version = exchangePairRepository.nextVersion();
+            pairs.forEach(pair -> pair.setVersion(version));
+            exchangePairRepository.publishVersion(version, pairs);
+
+            // Kursevi se objavljuju u memoriji tek kada je nova verzija upisana
+            exchangeRateMatrix.publish(rates);
+            for (ExchangePair pair : pairs) {
+                exchangeRateHistoryStore.append(pair.getBaseCurrency().getCode(), pair.getTargetCurrency().getCode(), today, pair.getExchangeRate());
+            }
+            log.info("Objavljena kursna lista verzije {} ({} parova)", version, pairs.size());
+        } finally {
+            refreshInProgress.set(false);
+        }
+    }
+
+    private JsonNode fetchRatesForBase(CurrencyType baseCurrencyCode) {
+        String url = exchangeRatesUrl + baseCurrencyCode.name().toLowerCase() + ".json";
+        try {
+            String jsonResponse = restTemplate.getForObject(url, String.class);
+            JsonNode root = objectMapper.readTree(jsonResponse);
+            return root.get(baseCurrencyCode.name().toLowerCase());
+        } catch (Exception e) {
+            log.error("Failed to fetch rates for base currency: {}, {}", baseCurrencyCode, e.getMessage());
+            return null;
         }
     }
 
     public List<ExchangePairDTO> getAllExchangeRates() {
-        return exchangePairRepository.findAll().stream()
+        return exchangePairRepository.findCurrent().stream()
                 .map(this::mapToDTO)
                 .collect(Collectors.toList());
     }
 
     public List<ExchangePairDTO> getExchangeRatesForBaseCurrency(CurrencyType baseCurrency) {
-        List<ExchangePair> pairs = exchangePairRepository.findByBaseCurrencyCode(baseCurrency);
+        List<ExchangePair> pairs = exchangePairRepository.findCurrentByBaseCurrencyCode(baseCurrency);
 
         if (pairs.isEmpty()) {
             throw new RuntimeException("Nema dostupnih kurseva za baznu valutu: " + baseCurrency);
@@ -90,6 +195,28 @@ public class CurrencyService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Istorija kurseva bazne valute u zatvorenom opsegu [from, to].
+     * Bez "to" uzima se danasnji dan, a bez "from" poslednjih 30 dana.
+     */
+    public List<ExchangePairDTO> getExchangeRateHistory(CurrencyType baseCurrency, LocalDate from, LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(DEFAULT_HISTORY_DAYS);
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("Pocetni datum mora biti pre krajnjeg datuma.");
+        }
+
+        List<ExchangePairDTO> history = new ArrayList<>();
+        for (CurrencyType targetCurrency : SUPPORTED_CURRENCIES) {
+            if (targetCurrency == baseCurrency) {
+                continue;
+            }
+            exchangeRateHistoryStore.forEachInRange(baseCurrency, targetCurrency, start, end, (date, rate) ->
+                    history.add(new ExchangePairDTO(baseCurrency.name(), targetCurrency.name(), rate, date)));
+        }
+        return history;
+    }
+
     private ExchangePairDTO mapToDTO(ExchangePair pair) {
         return new ExchangePairDTO(
                 pair.getBaseCurrency().getCode().name(),
@@ -0,0 +1,170 @@
+package com.banka1.banking.services;
+
+import com.banka1.banking.dto.CustomerDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Lokalni kes profila korisnika koje vraca user-service preko JMS-a. Velicina je ogranicena
+ * (najstariji po pristupu se izbacuju), a svaki unos vazi najvise ttl-ms, pa i propustena
+ * invalidacija zastareva ogranicen period. user-service salje id korisnika na topic
+ * destination.customer.updated posle izmene ili brisanja, i taj unos se odmah izbacuje.
+ * <p>
+ * Pogoci, promasaji i izbacivanja se vide na /actuator/metrics/customer.cache.
+ */
+@Slf4j
+@Component
+public class CustomerCache {
+
+    private record Entry(CustomerDTO customer, long expiresAtNanos) {
+    }
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+    private final Map<Long, Entry> entries;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    // Povecava se pri svakoj invalidaciji; ucitavanje zapoceto pre nje ne upisuje rezultat u kes
+    private long invalidations;
+
+    public CustomerCache(MeterRegistry meterRegistry,
+                         @Value("${customer.cache.max-size:10000}") int maxSize,
+                         @Value("${customer.cache.ttl-ms:300000}") long ttlMillis) {
+        this(meterRegistry, maxSize, ttlMillis, System::nanoTime);
+    }
+
+    CustomerCache(MeterRegistry meterRegistry, int maxSize, long ttlMillis, LongSupplier clock) {
+        this.maxSize = maxSize;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                if (size() > CustomerCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        this.hits = Counter.builder("customer.cache").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("customer.cache").tag("result", "miss").register(meterRegistry);
+        this.evictions = Counter.builder("customer.cache.evictions").register(meterRegistry);
+        Gauge.builder("customer.cache.size", this, CustomerCache::size).register(meterRegistry);
+    }
+
+    /**
+     * Vraca korisnika iz kesa ili ga ucitava preko loader-a. Loader se poziva van zakljucavanja,
+     * pa spor JMS odgovor ne blokira ostale citaoce; greska iz loader-a se ne kesira.
+     */
+    public CustomerDTO get(Long customerId, Function<Long, CustomerDTO> loader) {
+        long generation;
+        synchronized (this) {
+            Entry entry = entries.get(customerId);
+            if (entry != null && entry.expiresAtNanos() - clock.getAsLong() > 0) {
+                hits.increment();
+                return entry.customer();
+            }
+            if (entry != null) {
+                entries.remove(customerId);
+            }
+            misses.increment();
+            generation = invalidations;
+        }
+
+        CustomerDTO customer = loader.apply(customerId);
+
+        synchronized (this) {
+            if (generation == invalidations) {
+                entries.put(customerId, new Entry(customer, clock.getAsLong() + ttlNanos));
+            }
+        }
+        return customer;
+    }
+
+    /**
+     * Kao {@link #get(Long, Function)}, ali za vise korisnika: svi koji nisu u kesu se ucitavaju
+     * jednim pozivom loader-a. Korisnici koje loader ne vrati nisu u rezultatu.
+     */
+    public Map<Long, CustomerDTO> getAll(Collection<Long> customerIds,
+                                         Function<Collection<Long>, Map<Long, CustomerDTO>> loader) {
+        Map<Long, CustomerDTO> result = new HashMap<>();
+        Set<Long> missing = new LinkedHashSet<>();
+        long generation;
+        synchronized (this) {
+            long now = clock.getAsLong();
+            for (Long customerId : customerIds) {
+                if (result.containsKey(customerId) || missing.contains(customerId)) {
+                    continue;
+                }
+                Entry entry = entries.get(customerId);
+                if (entry != null && entry.expiresAtNanos() - now > 0) {
+                    hits.increment();
+                    result.put(customerId, entry.customer());
+                    continue;
+                }
+                if (entry != null) {
+                    entries.remove(customerId);
+                }
+                misses.increment();
+                missing.add(customerId);
+            }
+            generation = invalidations;
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        Map<Long, CustomerDTO> loaded = loader.apply(missing);
+
+        synchronized (this) {
+            long expiresAt = clock.getAsLong() + ttlNanos;
+            for (Long customerId : missing) {
+                CustomerDTO customer = loaded.get(customerId);
+                if (customer == null) {
+                    continue;
+                }
+                result.put(customerId, customer);
+                if (generation == invalidations) {
+                    entries.put(customerId, new Entry(customer, expiresAt));
+                }
+            }
+        }
+        return result;
+    }
+
+    public synchronized void invalidate(Long customerId) {
+        invalidations++;
+        if (entries.remove(customerId) != null) {
+            log.debug("Korisnik {} izbacen iz kesa", customerId);
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        invalidations++;
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
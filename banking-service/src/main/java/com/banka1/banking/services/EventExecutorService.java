@@ -11,6 +11,7 @@ import com.banka1.banking.dto.interbank.rollbacktx.RollbackTransactionDTO;
 import com.banka1.banking.models.Event;
 import com.banka1.banking.models.EventDelivery;
 import com.banka1.banking.models.helper.DeliveryStatus;
+import com.banka1.banking.services.requests.RequestService;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
@@ -18,18 +19,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.ClientHttpResponse;
-import org.springframework.scheduling.TaskScheduler;
-import org.springframework.scheduling.annotation.Async;
-import org.springframework.scheduling.concurrent.ConcurrentTaskScheduler;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.ResponseErrorHandler;
 import org.springframework.web.client.RestTemplate;
 
-import java.io.IOException;
-import java.net.URI;
 import java.time.Duration;
 import java.time.Instant;
 
@@ -39,48 +32,67 @@ public class EventExecutorService {
     private final EventService eventService;
     private final InterbankOperationService interbankService;
     private final InterbankConfig config;
-
-    private final TaskScheduler taskScheduler = new ConcurrentTaskScheduler();
+    private final InterbankDeliveryQueue deliveryQueue;
+    private final RequestService requestService;
+    private final InterbankRoutingTable routingTable;
 
     private static final int MAX_RETRIES = 5;
-    private static final Duration RETRY_DELAY = Duration.ofSeconds(20);
+    // ObjectMapper je thread-safe, pa se ne pravi nov za svaki odgovor
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
 
     public EventExecutorService(EventService eventService, @Lazy InterbankOperationService interbankService,
-                                 InterbankConfig config) {
+                                 InterbankConfig config, @Lazy InterbankDeliveryQueue deliveryQueue,
+                                 RequestService requestService, InterbankRoutingTable routingTable) {
         this.eventService = eventService;
         this.interbankService = interbankService;
         this.config = config;
+        this.deliveryQueue = deliveryQueue;
+        this.requestService = requestService;
+        this.routingTable = routingTable;
     }
 
-    @Async
+    /**
+     * Zakazuje slanje sacuvanog eventa u trenutku event.nextAttemptAt, bez zauzimanja niti pozivaoca.
+     */
     public void attemptEventAsync(Event event) {
-        attemptDelivery(event, 1);
+        deliveryQueue.schedule(event);
     }
 
+    /**
+     * Deljeni klijent sa pool-om konekcija; odgovor sa greskom se ne baca kao izuzetak.
+     */
     private RestTemplate getTemplate() {
-        RestTemplate restTemplate = new RestTemplate();
-
-        restTemplate.setErrorHandler(new ResponseErrorHandler() {
-            @Override
-            public boolean hasError(ClientHttpResponse response) throws IOException {
-                return false;
-            }
-
-            @Override
-            public void handleError(URI url, HttpMethod method, ClientHttpResponse response) throws IOException {
-
-            }
-        });
-
-        return restTemplate;
+        return requestService.getRestTemplate();
     }
 
-    private void attemptDelivery(Event event, int attempt) {
+    /**
+     * Jedan pokusaj slanja eventa koji je preuzeo {@link InterbankDeliveryQueue}; attemptCount vec
+     * ukljucuje ovaj pokusaj. Neuspeo pokusaj se ponavlja posle {@link InterbankDeliveryQueue#retryDelay(int)},
+     * najvise MAX_RETRIES puta.
+     * <p>
+     * Ako partnerska banka vec ima maxConcurrent slanja u toku ili je njen breaker otvoren, event
+     * se ne salje i pokusaj se ne racuna; ceka novi termin, a nit za slanje odmah prelazi na druge banke.
+     */
+    void attemptDelivery(Event event) {
+        InterbankPartner partner = routingTable.forEvent(event);
+        if (partner != null && !partner.tryAcquire()) {
+            Duration wait = partner.retryAfter();
+            Duration retryDelay = deliveryQueue.retryDelay(1);
+            // Preuzimanje je vec uvecalo broj pokusaja, a event nije poslat
+            event.setAttemptCount(event.getAttemptCount() - 1);
+            event.setNextAttemptAt(Instant.now().plus(wait.compareTo(retryDelay) > 0 ? wait : retryDelay));
+            eventService.changeEventStatus(event, event.getStatus());
+            deliveryQueue.schedule(event);
+            return;
+        }
+
+        // Pokusaj je vec zabelezen u bazi kada je event preuzet (EventRepository#claim)
+        int attempt = event.getAttemptCount();
         System.out.println("Attempting delivery for event: " + event.getId() + ", attempt: " + attempt);
         Instant start = Instant.now();
         HttpHeaders headers = new HttpHeaders();
         headers.set("Content-Type", "application/json");
-        headers.set("X-Api-Key", config.getForeignBankApiKey());
+        headers.set("X-Api-Key", partner != null ? partner.getApiKey() : config.getForeignBankApiKey());
 
         HttpEntity<String> entity = new HttpEntity<>(event.getPayload(), headers);
 
@@ -88,13 +100,13 @@ public class EventExecutorService {
 
         String responseBody = null;
         int httpStatus = 0;
-        DeliveryStatus status;
+        DeliveryStatus status = DeliveryStatus.FAILED;
 
         try {
             System.out.println("Sending request to: " + event.getUrl());
             ResponseEntity<String> response = getTemplate().postForEntity(event.getUrl(), entity, String.class);
             System.out.println("Response: " + response.getBody());
-            responseBody = response.getBody() != null ? new ObjectMapper().writeValueAsString(response.getBody()) : "";
+            responseBody = response.getBody() != null ? OBJECT_MAPPER.writeValueAsString(response.getBody()) : "";
 
             httpStatus = response.getStatusCodeValue();
 
@@ -105,18 +117,28 @@ public class EventExecutorService {
             status = DeliveryStatus.FAILED;
             httpStatus = -1;
             responseBody = ex.getMessage();
+        } finally {
+            if (partner != null) {
+                partner.release(status == DeliveryStatus.SUCCESS, Duration.between(start, Instant.now()));
+            }
         }
 
         if (status == DeliveryStatus.FAILED && attempt < MAX_RETRIES) {
+            event.setNextAttemptAt(Instant.now().plus(deliveryQueue.retryDelay(attempt)));
             eventService.changeEventStatus(event, DeliveryStatus.RETRYING);
-            taskScheduler.schedule(() -> attemptDelivery(event, attempt + 1), Instant.now().plus(RETRY_DELAY));
+            deliveryQueue.recordAttempt(DeliveryStatus.RETRYING);
+            deliveryQueue.schedule(event);
         } else if (status == DeliveryStatus.SUCCESS) {
+            event.setNextAttemptAt(null);
             eventService.changeEventStatus(event, DeliveryStatus.SUCCESS);
+            deliveryQueue.recordAttempt(DeliveryStatus.SUCCESS);
             if (event.getMessageType() == InterbankMessageType.NEW_TX) {
                 handleNewTxSuccess(event, responseBody);
             }
         } else if (attempt >= MAX_RETRIES) {
+            event.setNextAttemptAt(null);
             eventService.changeEventStatus(event, DeliveryStatus.CANCELED);
+            deliveryQueue.recordAttempt(DeliveryStatus.CANCELED);
             rollbackTransaction(event);
         }
 
@@ -137,8 +159,8 @@ public class EventExecutorService {
         System.out.println("Handling new transaction success for event: " + event.getId());
         try {
             System.out.println("Handling new transaction success for event: " + event.getId());
-            String actualJson = new ObjectMapper().readValue(responseBody, String.class);
-            VoteDTO vote = new ObjectMapper().readValue(actualJson, VoteDTO.class);
+            String actualJson = OBJECT_MAPPER.readValue(responseBody, String.class);
+            VoteDTO vote = OBJECT_MAPPER.readValue(actualJson, VoteDTO.class);
 
             if (vote.getVote().equalsIgnoreCase("yes")) {
                 interbankService.sendCommit(event);
@@ -11,7 +11,9 @@ import com.banka1.banking.models.helper.IdempotenceKey;
 import com.banka1.banking.models.interbank.EventDirection;
 import com.banka1.banking.repository.EventDeliveryRepository;
 import com.banka1.banking.repository.EventRepository;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
@@ -22,6 +24,7 @@ import org.springframework.web.client.RestTemplate;
 import java.time.Instant;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
 @Service
@@ -31,6 +34,7 @@ public class EventService {
     private final EventRepository eventRepository;
     private final EventDeliveryRepository eventDeliveryRepository;
     private final InterbankConfig config;
+    private final RecentIdempotenceKeys recentKeys;
 
     public int attemptCount(Event event) {
         return event.getDeliveries().size();
@@ -41,6 +45,11 @@ public class EventService {
         eventRepository.save(event);
     }
 
+    /**
+     * Cuva primljenu poruku. Ponovljena poruka (isti kljuc idempotentnosti) se odbija sa
+     * {@link DuplicateEventException}: nedavno primljeni kljucevi se prepoznaju u memoriji
+     * ({@link RecentIdempotenceKeys}), a ostale odbija unique_key ogranicenje pri jedinom insertu.
+     */
     public Event receiveEvent(InterbankMessageDTO<?> dto, String rawPayload, String sourceUrl) {
 
         Event event = new Event();
@@ -49,8 +58,9 @@ public class EventService {
             return null;
         }
 
-        if (eventRepository.existsByIdempotenceKey(dto.getIdempotenceKey())) {
-            throw new RuntimeException("Event already exists");
+        String uniqueKey = dto.getIdempotenceKey() != null ? Event.uniqueKeyOf(dto.getIdempotenceKey()) : null;
+        if (uniqueKey != null && recentKeys.isKnownDuplicate(uniqueKey)) {
+            throw new DuplicateEventException(recentKeys.eventId(uniqueKey));
         }
 
         try {
@@ -80,15 +90,41 @@ public class EventService {
         }
 
 
-        System.out.println("Saving event with idempotence key: " + event.getIdempotenceKey().getRoutingNumber() + " - " + event.getIdempotenceKey().getLocallyGeneratedKey());
-        return eventRepository.save(event);
+        Event saved;
+        try {
+            // IDENTITY id, pa se insert izvrsava odmah i ovde vidi konflikt na unique_key
+            saved = eventRepository.save(event);
+        } catch (DataIntegrityViolationException e) {
+            // Konflikt je redak (kljuc nije bio u memoriji), pa se proverava da ga nije izazvala druga kolona
+            Event existing = uniqueKey != null ? eventRepository.findByUniqueKey(uniqueKey).orElse(null) : null;
+            if (existing == null) {
+                throw e;
+            }
+            recentKeys.recordDatabaseDuplicate(uniqueKey, existing.getId());
+            throw new DuplicateEventException(existing.getId());
+        }
+        if (uniqueKey != null) {
+            recentKeys.remember(uniqueKey, saved.getId());
+        }
+        return saved;
     }
 
     @Transactional
     public Event createEvent(CreateEventDTO createEventDTO) {
+        return createEvent(createEventDTO, Instant.now());
+    }
+
+    /**
+     * Cuva poslati event, koji ce biti poslat najranije u firstAttemptAt. Slanje preuzima
+     * {@link InterbankDeliveryQueue}, pa event ne moze da se izgubi ni posle restarta.
+     */
+    @Transactional
+    public Event createEvent(CreateEventDTO createEventDTO, Instant firstAttemptAt) {
         Event event = new Event();
+        event.setNextAttemptAt(firstAttemptAt);
         event.setPayload(createEventDTO.getPayload());
         event.setUrl(createEventDTO.getUrl());
+        event.setPartnerRoutingNumber(createEventDTO.getPartnerRoutingNumber());
         event.setMessageType(createEventDTO.getMessage().getMessageType());
         event.setDirection(EventDirection.OUTGOING);
 
@@ -121,9 +157,41 @@ public class EventService {
         return eventDeliveryRepository.findByEvent(event);
     }
 
+    /**
+     * Event sa ovim kljucem, po primarnom kljucu ako je poruka nedavno primljena, inace po unique_key indeksu.
+     */
     public Event findEventByIdempotenceKey(IdempotenceKey idempotenceKey) {
-        return eventRepository.findByIdempotenceKey(idempotenceKey)
+        String uniqueKey = Event.uniqueKeyOf(idempotenceKey);
+        Long eventId = recentKeys.eventId(uniqueKey);
+        Optional<Event> event = eventId != null ? eventRepository.findById(eventId) : Optional.empty();
+        return event.or(() -> eventRepository.findByUniqueKey(uniqueKey))
                 .orElseThrow(() -> new RuntimeException("Event not found"));
     }
 
+    /**
+     * Odgovor poslat na prvo prijemno slanje eventa (zapisuje ga InterbankDeliveryInterceptor).
+     * Prazno ako odgovor jos nije sacuvan, npr. dok se prva poruka jos obradjuje.
+     */
+    public Optional<String> storedResponse(Long eventId) {
+        if (eventId == null) {
+            return Optional.empty();
+        }
+        return eventDeliveryRepository.findFirstByEventIdOrderByIdDesc(eventId)
+                .map(EventDelivery::getResponseBody);
+    }
+
+    /**
+     * Poruka sa ovim kljucem idempotentnosti je vec primljena. Bez stack trace-a, jer je ocekivana
+     * i moze je biti mnogo kada partner ponavlja slanje. eventId je id vec sacuvanog eventa, ako je poznat.
+     */
+    @Getter
+    public static class DuplicateEventException extends RuntimeException {
+        private final Long eventId;
+
+        public DuplicateEventException(Long eventId) {
+            super("Event already exists", null, false, false);
+            this.eventId = eventId;
+        }
+    }
+
 }
@@ -0,0 +1,143 @@
+package com.banka1.banking.services;
+
+import com.banka1.banking.models.ExchangeRateHistory;
+import com.banka1.banking.models.helper.CurrencyType;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Istorija kurseva u memoriji. Za svaki par (base, target) cuvaju se dva primitivna niza
+ * sortirana po danu (epoch day), pa se opseg i kurs "na dan" nalaze binarnom pretragom.
+ * Niz se ne menja u mestu: dodavanje pravi novu seriju i objavljuje je atomicno.
+ */
+@Component
+public class ExchangeRateHistoryStore {
+
+    private static final int SIZE = CurrencyType.values().length;
+
+    private final AtomicReferenceArray<Series> series = new AtomicReferenceArray<>(SIZE * SIZE);
+
+    @FunctionalInterface
+    public interface RateConsumer {
+        void accept(LocalDate date, double rate);
+    }
+
+    private record Series(int[] days, double[] rates) {
+
+        static final Series EMPTY = new Series(new int[0], new double[0]);
+
+        /**
+         * Indeks poslednjeg dana koji je <= day, ili -1.
+         */
+        int floor(int day) {
+            int index = Arrays.binarySearch(days, day);
+            return index >= 0 ? index : -index - 2;
+        }
+
+        Series with(int day, double rate) {
+            int index = Arrays.binarySearch(days, day);
+            if (index >= 0) {
+                // Istorija je append-only, prvi upisan kurs za dan ostaje
+                return this;
+            }
+            int insertAt = -index - 1;
+            int[] nextDays = new int[days.length + 1];
+            double[] nextRates = new double[rates.length + 1];
+            System.arraycopy(days, 0, nextDays, 0, insertAt);
+            System.arraycopy(rates, 0, nextRates, 0, insertAt);
+            nextDays[insertAt] = day;
+            nextRates[insertAt] = rate;
+            System.arraycopy(days, insertAt, nextDays, insertAt + 1, days.length - insertAt);
+            System.arraycopy(rates, insertAt, nextRates, insertAt + 1, rates.length - insertAt);
+            return new Series(nextDays, nextRates);
+        }
+    }
+
+    private static int slot(CurrencyType base, CurrencyType target) {
+        return base.ordinal() * SIZE + target.ordinal();
+    }
+
+    private Series get(CurrencyType base, CurrencyType target) {
+        Series current = series.get(slot(base, target));
+        return current == null ? Series.EMPTY : current;
+    }
+
+    public synchronized void append(CurrencyType base, CurrencyType target, LocalDate date, double rate) {
+        int slot = slot(base, target);
+        Series current = series.get(slot);
+        series.set(slot, (current == null ? Series.EMPTY : current).with((int) date.toEpochDay(), rate));
+    }
+
+    /**
+     * Zamenjuje celu istoriju. Ulaz mora biti sortiran po datumu, kao iz
+     * {@link com.banka1.banking.repository.ExchangeRateHistoryRepository#findAllByOrderByDateAsc()}.
+     */
+    public synchronized void load(List<ExchangeRateHistory> entries) {
+        int[] counts = new int[SIZE * SIZE];
+        for (ExchangeRateHistory entry : entries) {
+            counts[slot(entry.getBaseCurrency(), entry.getTargetCurrency())]++;
+        }
+
+        int[][] days = new int[SIZE * SIZE][];
+        double[][] rates = new double[SIZE * SIZE][];
+        int[] sizes = new int[SIZE * SIZE];
+        for (int i = 0; i < SIZE * SIZE; i++) {
+            days[i] = new int[counts[i]];
+            rates[i] = new double[counts[i]];
+        }
+
+        for (ExchangeRateHistory entry : entries) {
+            int slot = slot(entry.getBaseCurrency(), entry.getTargetCurrency());
+            int day = (int) entry.getDate().toEpochDay();
+            if (sizes[slot] > 0 && days[slot][sizes[slot] - 1] >= day) {
+                continue;
+            }
+            days[slot][sizes[slot]] = day;
+            rates[slot][sizes[slot]] = entry.getRate();
+            sizes[slot]++;
+        }
+
+        for (int i = 0; i < SIZE * SIZE; i++) {
+            series.set(i, counts[i] == 0 ? null
+                    : new Series(Arrays.copyOf(days[i], sizes[i]), Arrays.copyOf(rates[i], sizes[i])));
+        }
+    }
+
+    /**
+     * Kurs base -> target vazeci na dati dan (poslednji poznat kurs do tog dana).
+     * Ako direktan par ne postoji koristi se reciprocna vrednost obrnutog para, inace {@link Double#NaN}.
+     */
+    public double getRateAsOf(CurrencyType base, CurrencyType target, LocalDate date) {
+        int day = (int) date.toEpochDay();
+
+        Series direct = get(base, target);
+        int index = direct.floor(day);
+        if (index >= 0) {
+            return direct.rates()[index];
+        }
+
+        Series reverse = get(target, base);
+        index = reverse.floor(day);
+        return index >= 0 ? 1 / reverse.rates()[index] : Double.NaN;
+    }
+
+    public ExchangeRates asOf(LocalDate date) {
+        return (base, target) -> getRateAsOf(base, target, date);
+    }
+
+    /**
+     * Prolazi kroz sve kurseve para u zatvorenom opsegu [from, to], hronoloski.
+     */
+    public void forEachInRange(CurrencyType base, CurrencyType target, LocalDate from, LocalDate to, RateConsumer consumer) {
+        Series pair = get(base, target);
+        int toDay = (int) to.toEpochDay();
+        int index = pair.floor((int) from.toEpochDay() - 1) + 1;
+        for (; index < pair.days().length && pair.days()[index] <= toDay; index++) {
+            consumer.accept(LocalDate.ofEpochDay(pair.days()[index]), pair.rates()[index]);
+        }
+    }
+}
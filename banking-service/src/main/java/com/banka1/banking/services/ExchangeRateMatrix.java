@@ -0,0 +1,49 @@
+package com.banka1.banking.services;
+
+import com.banka1.banking.models.helper.CurrencyType;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+/**
+ * Kursna lista u memoriji, indeksirana po {@link CurrencyType#ordinal()}.
+ * Matrica se gradi u celosti i objavljuje jednim upisom volatile reference,
+ * tako da citaoci uvek vide ili staru ili novu kursnu listu, nikad mesavinu.
+ */
+@Component
+public class ExchangeRateMatrix implements ExchangeRates {
+
+    private static final int SIZE = CurrencyType.values().length;
+
+    private volatile double[][] rates = newTable();
+
+    public static double[][] newTable() {
+        double[][] table = new double[SIZE][SIZE];
+        for (double[] row : table) {
+            Arrays.fill(row, Double.NaN);
+        }
+        return table;
+    }
+
+    public void publish(double[][] table) {
+        if (table.length != SIZE) {
+            throw new IllegalArgumentException("Neispravna dimenzija kursne liste: " + table.length);
+        }
+        this.rates = table;
+    }
+
+    /**
+     * Vraca kurs base -> target. Ako direktan par ne postoji koristi se reciprocna vrednost
+     * obrnutog para, a ako ni on ne postoji vraca se {@link Double#NaN}.
+     */
+    @Override
+    public double getRate(CurrencyType base, CurrencyType target) {
+        double[][] snapshot = rates;
+        double direct = snapshot[base.ordinal()][target.ordinal()];
+        if (!Double.isNaN(direct)) {
+            return direct;
+        }
+        double reverse = snapshot[target.ordinal()][base.ordinal()];
+        return Double.isNaN(reverse) ? Double.NaN : 1 / reverse;
+    }
+}
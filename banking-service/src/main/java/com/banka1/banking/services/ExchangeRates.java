@@ -0,0 +1,11 @@
+package com.banka1.banking.services;
+
+import com.banka1.banking.models.helper.CurrencyType;
+
+/**
+ * Izvor kurseva za obracun menjacnice. Vraca {@link Double#NaN} ako kurs ne postoji.
+ */
+@FunctionalInterface
+public interface ExchangeRates {
+    double getRate(CurrencyType base, CurrencyType target);
+}
@@ -2,17 +2,15 @@ package com.banka1.banking.services;
 
 import com.banka1.banking.dto.CustomerDTO;
 import com.banka1.banking.dto.ExchangeMoneyTransferDTO;
+import com.banka1.banking.dto.ExchangeQuote;
 import com.banka1.banking.dto.NotificationDTO;
 import com.banka1.banking.models.Account;
 import com.banka1.banking.models.Currency;
-import com.banka1.banking.models.ExchangePair;
 import com.banka1.banking.models.Transfer;
 import com.banka1.banking.models.helper.*;
 import com.banka1.banking.repository.AccountRepository;
 import com.banka1.banking.repository.CurrencyRepository;
-import com.banka1.banking.repository.ExchangePairRepository;
 import com.banka1.banking.repository.TransferRepository;
-import com.banka1.banking.utils.ExcludeFromGeneratedJacocoReport;
 import com.banka1.common.listener.MessageHelper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -20,6 +18,9 @@ import org.springframework.jms.core.JmsTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.Map;
 import java.util.Optional;
 
@@ -43,9 +44,11 @@ public class ExchangeService {
 
     private final OtpTokenService otpTokenService;
 
-    private final ExchangePairRepository exchangePairRepository;
+    private final ExchangeRateMatrix exchangeRateMatrix;
 
-    public ExchangeService(AccountRepository accountRepository, CurrencyRepository currencyRepository, TransferRepository transferRepository, JmsTemplate jmsTemplate, MessageHelper messageHelper, @Value("send-email") String destinationEmail, UserServiceCustomer userServiceCustomer, OtpTokenService otpTokenService, ExchangePairRepository exchangePairRepository) {
+    private final ExchangeRateHistoryStore exchangeRateHistoryStore;
+
+    public ExchangeService(AccountRepository accountRepository, CurrencyRepository currencyRepository, TransferRepository transferRepository, JmsTemplate jmsTemplate, MessageHelper messageHelper, @Value("send-email") String destinationEmail, UserServiceCustomer userServiceCustomer, OtpTokenService otpTokenService, ExchangeRateMatrix exchangeRateMatrix, ExchangeRateHistoryStore exchangeRateHistoryStore) {
         this.accountRepository = accountRepository;
         this.currencyRepository = currencyRepository;
         this.transferRepository = transferRepository;
@@ -54,7 +57,8 @@ public class ExchangeService {
         this.destinationEmail = destinationEmail;
         this.userServiceCustomer = userServiceCustomer;
         this.otpTokenService = otpTokenService;
-        this.exchangePairRepository = exchangePairRepository;
+        this.exchangeRateMatrix = exchangeRateMatrix;
+        this.exchangeRateHistoryStore = exchangeRateHistoryStore;
     }
 
     public boolean validateExchangeTransfer(ExchangeMoneyTransferDTO exchangeMoneyTransferDTO){
@@ -142,8 +146,8 @@ public class ExchangeService {
                     "otp", otpCode
             ));
 
-            jmsTemplate.convertAndSend(destinationEmail, messageHelper.createTextMessage(emailDto));
-            jmsTemplate.convertAndSend(destinationEmail, messageHelper.createTextMessage(pushNotification));
+            jmsTemplate.send(destinationEmail, messageHelper.messageCreator(emailDto));
+            jmsTemplate.send(destinationEmail, messageHelper.messageCreator(pushNotification));
 
             return transfer.getId();
         } catch (Exception e) {
@@ -160,122 +164,71 @@ public class ExchangeService {
         }
     }
 
-    @ExcludeFromGeneratedJacocoReport("Wrapper method")
-    public Map<String, Object> calculatePreviewExchangeAutomatic(String fromCurrency, String toCurrency, Double amount) {
-        if(fromCurrency.equals("RSD") || toCurrency.equals("RSD")){
-            return calculatePreviewExchange(fromCurrency, toCurrency, amount);
-            }
-        else
-            return calculatePreviewExchangeForeign(fromCurrency, toCurrency, amount);
+    public ExchangeQuote quote(String fromCurrency, String toCurrency, double amount) {
+        return quote(parseCurrency(fromCurrency), parseCurrency(toCurrency), amount);
     }
 
-    public Map<String, Object> calculatePreviewExchange(String fromCurrency, String toCurrency, Double amount) {
-        boolean isToRSD = toCurrency.equalsIgnoreCase("RSD");
-        boolean isFromRSD = fromCurrency.equalsIgnoreCase("RSD");
-
-        if (!isToRSD && !isFromRSD) {
-            throw new RuntimeException("Ova funkcija podržava samo konverzije između RSD i druge valute.");
-        }
-
-        CurrencyType base = parseCurrency(isToRSD ? fromCurrency : "RSD");
-        CurrencyType target = parseCurrency(isToRSD ? "RSD" : toCurrency);
+    public ExchangeQuote quote(CurrencyType fromCurrency, CurrencyType toCurrency, double amount) {
+        return quote(exchangeRateMatrix, fromCurrency, toCurrency, amount);
+    }
 
-        Optional<ExchangePair> exchangePairOpt = exchangePairRepository
-                .findByBaseCurrencyCodeAndTargetCurrencyCode(base, target);
+    /**
+     * Obracun po kursevima koji su vazili na dan datog trenutka (epoch millis, sistemska vremenska zona),
+     * npr. za ponovno racunanje starog transfera.
+     */
+    public ExchangeQuote quoteAsOf(CurrencyType fromCurrency, CurrencyType toCurrency, double amount, long timestampMillis) {
+        LocalDate date = Instant.ofEpochMilli(timestampMillis).atZone(ZoneId.systemDefault()).toLocalDate();
+        return quote(exchangeRateHistoryStore.asOf(date), fromCurrency, toCurrency, amount);
+    }
 
-        double exchangeRate;
-        if (exchangePairOpt.isPresent()) {
-            exchangeRate = exchangePairOpt.get().getExchangeRate();
-        } else {
-            Optional<ExchangePair> reverseOpt = exchangePairRepository
-                    .findByBaseCurrencyCodeAndTargetCurrencyCode(target, base);
+    public ExchangeQuote quoteAsOf(String fromCurrency, String toCurrency, double amount, long timestampMillis) {
+        return quoteAsOf(parseCurrency(fromCurrency), parseCurrency(toCurrency), amount, timestampMillis);
+    }
 
-            if (reverseOpt.isEmpty()) {
-                throw new RuntimeException("Kurs nije pronađen za traženu konverziju.");
-            }
-            exchangeRate = 1 / reverseOpt.get().getExchangeRate();
+    private ExchangeQuote quote(ExchangeRates rates, CurrencyType fromCurrency, CurrencyType toCurrency, double amount) {
+        if (fromCurrency == CurrencyType.RSD || toCurrency == CurrencyType.RSD) {
+            return quoteRsd(rates, fromCurrency, toCurrency, amount);
         }
+        return quoteForeign(rates, fromCurrency, toCurrency, amount);
+    }
 
-        double convertedAmount = amount * exchangeRate;
-        double fee = (fromCurrency.equalsIgnoreCase("RSD") && toCurrency.equalsIgnoreCase("RSD")) ? 0.0 : convertedAmount * 0.01;
-        double finalAmount = convertedAmount - fee;
+    public ExchangeQuote quoteRsd(CurrencyType fromCurrency, CurrencyType toCurrency, double amount) {
+        return quoteRsd(exchangeRateMatrix, fromCurrency, toCurrency, amount);
+    }
 
+    public ExchangeQuote quoteForeign(CurrencyType fromCurrency, CurrencyType toCurrency, double amount) {
+        return quoteForeign(exchangeRateMatrix, fromCurrency, toCurrency, amount);
+    }
 
-        if (fromCurrency.equalsIgnoreCase("RSD")) {
-            exchangeRate = 1 / exchangeRate;
+    private ExchangeQuote quoteRsd(ExchangeRates rates, CurrencyType fromCurrency, CurrencyType toCurrency, double amount) {
+        if (fromCurrency != CurrencyType.RSD && toCurrency != CurrencyType.RSD) {
+            throw new RuntimeException("Ova funkcija podržava samo konverzije između RSD i druge valute.");
         }
 
-        return Map.of(
-                "exchangeRate", exchangeRate,
-                "convertedAmount", convertedAmount,
-                "fee", fee,
-                "provision", fee,
-                "finalAmount", finalAmount
-        );
-    }
+        double exchangeRate = rates.getRate(fromCurrency, toCurrency);
+        if (Double.isNaN(exchangeRate)) {
+            throw new RuntimeException("Kurs nije pronađen za traženu konverziju.");
+        }
 
+        return ExchangeQuote.single(fromCurrency, toCurrency, amount, exchangeRate);
+    }
 
-    public Map<String, Object> calculatePreviewExchangeForeign(String fromCurrency, String toCurrency, Double amount) {
-        log.warn("Ova funkcija ne radi kako treba");
-        if (fromCurrency.equalsIgnoreCase("RSD") || toCurrency.equalsIgnoreCase("RSD")) {
+    private ExchangeQuote quoteForeign(ExchangeRates rates, CurrencyType fromCurrency, CurrencyType toCurrency, double amount) {
+        if (fromCurrency == CurrencyType.RSD || toCurrency == CurrencyType.RSD) {
             throw new RuntimeException("Ova metoda je samo za konverziju strane valute u stranu valutu.");
         }
-        CurrencyType from = parseCurrency(fromCurrency);
-        CurrencyType to = parseCurrency(toCurrency);
-        CurrencyType rsd = CurrencyType.RSD;
-
-        Optional<ExchangePair> firstExchangeOpt = exchangePairRepository
-                .findByBaseCurrencyCodeAndTargetCurrencyCode(from, rsd);
-
-        double firstExchangeRate;
-        if (firstExchangeOpt.isPresent()) {
-            firstExchangeRate = firstExchangeOpt.get().getExchangeRate();
-        } else {
-            Optional<ExchangePair> reverseFirstOpt = exchangePairRepository
-                    .findByBaseCurrencyCodeAndTargetCurrencyCode(rsd, from);
-
-            if (reverseFirstOpt.isEmpty()) {
-                throw new RuntimeException("Kurs za " + fromCurrency + " prema RSD nije pronađen.");
-            }
-            firstExchangeRate = 1 / reverseFirstOpt.get().getExchangeRate();
-        }
-
-        double amountInRSD = amount * firstExchangeRate;
-        double firstFee = amountInRSD * 0.01;
-        double remainingRSD = amountInRSD - firstFee;
 
-        Optional<ExchangePair> secondExchangeOpt = exchangePairRepository
-                .findByBaseCurrencyCodeAndTargetCurrencyCode(rsd, to);
-
-        double secondExchangeRate;
-        if (secondExchangeOpt.isPresent()) {
-            secondExchangeRate = secondExchangeOpt.get().getExchangeRate();
-        } else {
-            Optional<ExchangePair> reverseSecondOpt = exchangePairRepository
-                    .findByBaseCurrencyCodeAndTargetCurrencyCode(to, rsd);
+        double firstExchangeRate = rates.getRate(fromCurrency, CurrencyType.RSD);
+        if (Double.isNaN(firstExchangeRate)) {
+            throw new RuntimeException("Kurs za " + fromCurrency + " prema RSD nije pronađen.");
+        }
 
-            if (reverseSecondOpt.isEmpty()) {
-                throw new RuntimeException("Kurs za RSD prema " + toCurrency + " nije pronađen.");
-            }
-            secondExchangeRate = 1 / reverseSecondOpt.get().getExchangeRate();
+        double secondExchangeRate = rates.getRate(CurrencyType.RSD, toCurrency);
+        if (Double.isNaN(secondExchangeRate)) {
+            throw new RuntimeException("Kurs za RSD prema " + toCurrency + " nije pronađen.");
         }
 
-        double amountInTargetCurrency = remainingRSD * secondExchangeRate;
-        double secondFee = amountInTargetCurrency * 0.01;
-        double finalAmount = amountInTargetCurrency - secondFee;
-        double totalFee = firstFee * secondExchangeRate + secondFee;
-
-        // Prikazujemo obrnut kurs za prikaz klijentu
-        double displayedSecondExchangeRate = 1 / secondExchangeRate;
-
-        return Map.of(
-                "firstExchangeRate", firstExchangeRate,
-                "secondExchangeRate", displayedSecondExchangeRate,
-                "totalFee", totalFee,
-                "provision", totalFee,
-                "fee", totalFee,
-                "finalAmount", finalAmount
-        );
+        return ExchangeQuote.cross(fromCurrency, toCurrency, amount, firstExchangeRate, secondExchangeRate);
     }
 
 }
@@ -0,0 +1,142 @@
+package com.banka1.banking.services;
+
+import com.banka1.banking.repository.AccountRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Izmene stanja racuna banke (house account) bez citanja i cuvanja celog entiteta.
+ * Svaki transfer sa konverzijom ili provizijom menja isti red racuna banke, pa se
+ * uplate rasporedjuju na vise redova u house_account_credit i periodicno prebacuju na racun.
+ * Isplate idu direktno na racun uslovnim UPDATE-om, tako da stanje nikad ne ode u minus.
+ * <p>
+ * SQL za trake je specifican za PostgreSQL (INSERT ... ON CONFLICT, DELETE ... RETURNING u WITH),
+ * pa ne radi na H2 i u testovima se JdbcTemplate mock-uje.
+ */
+@Slf4j
+@Component
+public class HouseAccountLedger {
+
+    private static final String CREDIT_STRIPE_SQL = """
+            INSERT INTO house_account_credit (account_id, stripe, amount) VALUES (?, ?, ?)
+            ON CONFLICT (account_id, stripe) DO UPDATE SET amount = house_account_credit.amount + EXCLUDED.amount
+            """;
+
+    private static final String CONSOLIDATE_ALL_SQL = """
+            WITH moved AS (DELETE FROM house_account_credit RETURNING account_id, amount)
+            UPDATE account SET balance = account.balance + totals.amount
+            FROM (SELECT account_id, SUM(amount) AS amount FROM moved GROUP BY account_id) totals
+            WHERE account.id = totals.account_id
+            """;
+
+    private static final String CONSOLIDATE_ACCOUNT_SQL = """
+            WITH moved AS (DELETE FROM house_account_credit WHERE account_id = ? RETURNING amount)
+            UPDATE account SET balance = account.balance + totals.amount
+            FROM (SELECT SUM(amount) AS amount FROM moved) totals
+            WHERE account.id = ? AND totals.amount IS NOT NULL
+            """;
+
+    private static final String AVAILABLE_BALANCE_SQL = """
+            SELECT a.balance + COALESCE((SELECT SUM(c.amount) FROM house_account_credit c WHERE c.account_id = a.id), 0)
+            FROM account a WHERE a.id = ?
+            """;
+
+    private final AccountRepository accountRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final int stripes;
+
+    public HouseAccountLedger(AccountRepository accountRepository, JdbcTemplate jdbcTemplate,
+                              @Value("${house-account.stripes:8}") int stripes) {
+        this.accountRepository = accountRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.stripes = stripes;
+    }
+
+    /**
+     * Uplata na racun banke. Sa vise traka iznos se upisuje u nasumicnu traku i
+     * postaje vidljiv na racunu posle sledeceg {@link #consolidate()}.
+     */
+    @Transactional
+    public void credit(Long accountId, double amount) {
+        if (amount == 0) {
+            return;
+        }
+        if (amount < 0) {
+            throw new IllegalArgumentException("Iznos uplate ne moze biti negativan.");
+        }
+        if (stripes <= 1) {
+            requireUpdated(accountRepository.addToBalance(accountId, amount), accountId);
+            return;
+        }
+        jdbcTemplate.update(CREDIT_STRIPE_SQL, accountId, ThreadLocalRandom.current().nextInt(stripes), amount);
+    }
+
+    /**
+     * Isplata sa racuna banke. Ako stanje nije dovoljno, prvo se prebacuju uplate iz traka
+     * za taj racun pa se isplata pokusava jos jednom.
+     */
+    @Transactional
+    public void debit(Long accountId, double amount) {
+        if (amount < 0) {
+            throw new IllegalArgumentException("Iznos isplate ne moze biti negativan.");
+        }
+        if (accountRepository.addToBalanceIfAtLeast(accountId, -amount, amount) == 1) {
+            return;
+        }
+        if (stripes > 1) {
+            consolidate(accountId);
+            if (accountRepository.addToBalanceIfAtLeast(accountId, -amount, amount) == 1) {
+                return;
+            }
+        }
+        throw new RuntimeException("Nedovoljno sredstava na racunu banke.");
+    }
+
+    @Scheduled(fixedDelayString = "${house-account.consolidation-interval-ms:5000}")
+    @Transactional
+    public void consolidate() {
+        int updated = jdbcTemplate.update(CONSOLIDATE_ALL_SQL);
+        if (updated > 0) {
+            log.debug("Prebacene uplate na {} racuna banke", updated);
+        }
+    }
+
+    @Transactional
+    public void consolidate(Long accountId) {
+        jdbcTemplate.update(CONSOLIDATE_ACCOUNT_SQL, accountId, accountId);
+    }
+
+    /**
+     * Zbir uplata koje jos nisu prebacene na racun.
+     */
+    public double getPendingCredits(Long accountId) {
+        Double pending = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(amount), 0) FROM house_account_credit WHERE account_id = ?",
+                Double.class, accountId);
+        return pending == null ? 0.0 : pending;
+    }
+
+    /**
+     * Stanje racuna zajedno sa uplatama koje jos nisu prebacene na racun, tj. iznos koji
+     * {@link #debit(Long, double)} moze da isplati.
+     */
+    public double availableBalance(Long accountId) {
+        Double balance = jdbcTemplate.queryForObject(AVAILABLE_BALANCE_SQL, Double.class, accountId);
+        if (balance == null) {
+            throw new RuntimeException("Racun banke nije pronadjen: " + accountId);
+        }
+        return balance;
+    }
+
+    private static void requireUpdated(int updated, Long accountId) {
+        if (updated != 1) {
+            throw new RuntimeException("Racun banke nije pronadjen: " + accountId);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.banka1.banking.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Niti za slanje poruka drugoj banci. Slanje ne zauzima nit zahteva (Tomcat), a broj
+ * istovremenih slanja i poruka koje cekaju je ogranicen; kada je red pun, poruka se odbija.
+ * <p>
+ * Odlozena slanja (prvi pokusaj i ponovni pokusaji) ceka jedna nit tajmera i tek tada ih
+ * predaje radnim nitima, pa nijedna nit ne spava dok ceka. Metrike: interbank.delivery.queue
+ * (poruke koje cekaju, ukljucujuci odlozene), interbank.delivery.in_flight i
+ * interbank.delivery.rejected.
+ */
+@Slf4j
+@Component
+public class InterbankDeliveryExecutor {
+
+    private final ThreadPoolExecutor workers;
+    private final ScheduledThreadPoolExecutor timer;
+    private final Counter rejected;
+
+    public InterbankDeliveryExecutor(MeterRegistry meterRegistry,
+                                     @Value("${interbank.delivery.workers:8}") int workerCount,
+                                     @Value("${interbank.delivery.queue-capacity:1000}") int queueCapacity) {
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory("interbank-delivery-"));
+        this.workers.allowCoreThreadTimeOut(true);
+        this.timer = new ScheduledThreadPoolExecutor(1, threadFactory("interbank-delivery-timer-"));
+        this.timer.setRemoveOnCancelPolicy(true);
+
+        Gauge.builder("interbank.delivery.queue", this, InterbankDeliveryExecutor::queued).register(meterRegistry);
+        Gauge.builder("interbank.delivery.in_flight", workers, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+        this.rejected = Counter.builder("interbank.delivery.rejected").register(meterRegistry);
+    }
+
+    private static ThreadFactory threadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return task -> {
+            Thread thread = new Thread(task, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Predaje slanje radnim nitima.
+     *
+     * @throws RejectedExecutionException ako je red pun ili je servis zaustavljen
+     */
+    public void submit(Runnable delivery) {
+        try {
+            workers.execute(delivery);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw e;
+        }
+    }
+
+    /**
+     * Predaje slanje radnim nitima posle delay. Ako je red tada pun, slanje se odbacuje i belezi.
+     */
+    public void schedule(Runnable delivery, Duration delay) {
+        if (delay.isZero() || delay.isNegative()) {
+            submit(delivery);
+            return;
+        }
+        timer.schedule(() -> {
+            try {
+                submit(delivery);
+            } catch (RejectedExecutionException e) {
+                log.error("Odlozeno slanje drugoj banci je odbijeno, red je pun");
+            }
+        }, delay.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public int queued() {
+        return workers.getQueue().size() + timer.getQueue().size();
+    }
+
+    public int inFlight() {
+        return workers.getActiveCount();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        timer.shutdownNow();
+        workers.shutdown();
+        if (!workers.awaitTermination(5, TimeUnit.SECONDS)) {
+            workers.shutdownNow();
+        }
+    }
+}
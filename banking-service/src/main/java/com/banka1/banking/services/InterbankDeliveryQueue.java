@@ -0,0 +1,189 @@
+package com.banka1.banking.services;
+
+import com.banka1.banking.models.Event;
+import com.banka1.banking.models.helper.DeliveryStatus;
+import com.banka1.banking.models.interbank.EventDirection;
+import com.banka1.banking.repository.EventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Trajni red slanja poruka drugoj banci. Stanje je u tabeli event: status PENDING/RETRYING i
+ * next_attempt_at odredjuju koji event je na redu, pa restart ne gubi nijedan pokusaj (osim kada
+ * schema.sql pri pokretanju ponovo pravi tabele, spring.sql.init.mode=always).
+ * <p>
+ * Pre slanja se event preuzima jednim UPDATE-om koji pomera next_attempt_at za lease-ms i uvecava
+ * attempt_count, pa isti event ne salju dve niti ni dve instance, a pokusaj je zabelezen i ako
+ * instanca padne tokom slanja; tada se event ponovo salje kada lease istekne. Neuspela slanja se ponavljaju sa eksponencijalnim razmakom i
+ * slucajnim odstupanjem, da ponovni pokusaji ne bi stizali drugoj banci svi u istom trenutku.
+ * <p>
+ * Metrike: interbank.delivery.attempts{result} (protok) i interbank.delivery.backlog (eventi koji cekaju slanje).
+ */
+@Slf4j
+@Component
+public class InterbankDeliveryQueue {
+
+    static final Set<DeliveryStatus> ACTIVE = Set.of(DeliveryStatus.PENDING, DeliveryStatus.RETRYING);
+
+    private final EventRepository eventRepository;
+    private final EventExecutorService eventExecutorService;
+    private final InterbankDeliveryExecutor deliveryExecutor;
+
+    private final Duration lease;
+    private final Duration retryBase;
+    private final Duration retryMax;
+    private final Duration recoverySpread;
+    private final int pollBatchSize;
+
+    private final Map<DeliveryStatus, Counter> attempts = new EnumMap<>(DeliveryStatus.class);
+    private final AtomicLong backlog = new AtomicLong();
+
+    public InterbankDeliveryQueue(EventRepository eventRepository,
+                                  @Lazy EventExecutorService eventExecutorService,
+                                  InterbankDeliveryExecutor deliveryExecutor,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${interbank.delivery.lease-ms:60000}") long leaseMs,
+                                  @Value("${interbank.delivery.retry.base-ms:5000}") long retryBaseMs,
+                                  @Value("${interbank.delivery.retry.max-ms:300000}") long retryMaxMs,
+                                  @Value("${interbank.delivery.recovery-spread-ms:30000}") long recoverySpreadMs,
+                                  @Value("${interbank.delivery.poll-batch-size:100}") int pollBatchSize) {
+        this.eventRepository = eventRepository;
+        this.eventExecutorService = eventExecutorService;
+        this.deliveryExecutor = deliveryExecutor;
+        this.lease = Duration.ofMillis(leaseMs);
+        this.retryBase = Duration.ofMillis(retryBaseMs);
+        this.retryMax = Duration.ofMillis(Math.max(retryBaseMs, retryMaxMs));
+        this.recoverySpread = Duration.ofMillis(recoverySpreadMs);
+        this.pollBatchSize = pollBatchSize;
+
+        for (DeliveryStatus status : List.of(DeliveryStatus.SUCCESS, DeliveryStatus.RETRYING, DeliveryStatus.CANCELED)) {
+            attempts.put(status, Counter.builder("interbank.delivery.attempts")
+                    .tag("result", status.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+        Gauge.builder("interbank.delivery.backlog", backlog, AtomicLong::get).register(meterRegistry);
+    }
+
+    /**
+     * Zakazuje slanje u trenutku event.nextAttemptAt. Ovo je samo brzi put u memoriji; ako se
+     * izgubi (restart, pun red), event salje {@link #poll()}.
+     */
+    public void schedule(Event event) {
+        Instant at = event.getNextAttemptAt() != null ? event.getNextAttemptAt() : Instant.now();
+        Long eventId = event.getId();
+        try {
+            deliveryExecutor.schedule(() -> deliverIfDue(eventId), Duration.between(Instant.now(), at));
+        } catch (RejectedExecutionException e) {
+            log.warn("Red za slanje je pun, event {} ce poslati periodicna provera", eventId);
+        }
+    }
+
+    /**
+     * Razmak do sledeceg pokusaja posle attempt neuspelih: base * 2^(attempt-1), najvise max,
+     * od cega je druga polovina slucajna.
+     */
+    public Duration retryDelay(int attempt) {
+        long base = retryBase.toMillis();
+        long max = retryMax.toMillis();
+        int shift = Math.min(Math.max(attempt - 1, 0), 30);
+        long delay = base > max >> shift ? max : Math.min(max, base << shift);
+        long half = delay / 2;
+        return Duration.ofMillis(half + ThreadLocalRandom.current().nextLong(delay - half + 1));
+    }
+
+    public void recordAttempt(DeliveryStatus result) {
+        Counter counter = attempts.get(result);
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    /**
+     * Salje event ako je na redu i ako ga ova nit preuzme.
+     *
+     * @return da li je event poslat
+     */
+    boolean deliverIfDue(Long eventId) {
+        Instant now = Instant.now();
+        if (eventRepository.claim(eventId, ACTIVE, now, now.plus(lease)) != 1) {
+            return false;
+        }
+        Event event = eventRepository.findById(eventId).orElse(null);
+        if (event == null) {
+            return false;
+        }
+        eventExecutorService.attemptDelivery(event);
+        return true;
+    }
+
+    /**
+     * Predaje radnim nitima evente koji su na redu, koliko ih red za slanje moze da primi.
+     */
+    @Scheduled(fixedDelayString = "${interbank.delivery.poll-interval-ms:5000}")
+    public void poll() {
+        backlog.set(eventRepository.countByDirectionAndStatusIn(EventDirection.OUTGOING, ACTIVE));
+        List<Long> due = eventRepository.findDueIds(EventDirection.OUTGOING, ACTIVE, Instant.now(), Limit.of(pollBatchSize));
+        for (Long eventId : due) {
+            try {
+                deliveryExecutor.submit(() -> deliverIfDue(eventId));
+            } catch (RejectedExecutionException e) {
+                log.warn("Red za slanje je pun, {} eventa ceka sledecu proveru", due.size());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Posle pokretanja prolazi (po stranama) kroz evente koji nisu poslati. Eventima bez termina
+     * ili sa terminom u proslosti dodeljuje termin rasporedjen unutar recovery-spread-ms, da se
+     * posle restarta ne salju svi odjednom.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        long afterId = 0;
+        int recovered = 0;
+        while (true) {
+            List<Event> page = eventRepository.findUnfinishedAfter(EventDirection.OUTGOING, ACTIVE, afterId, Limit.of(pollBatchSize));
+            if (page.isEmpty()) {
+                break;
+            }
+            Instant now = Instant.now();
+            List<Event> overdue = new ArrayList<>();
+            for (Event event : page) {
+                if (event.getNextAttemptAt() == null || event.getNextAttemptAt().isBefore(now)) {
+                    long offset = recoverySpread.isZero() ? 0 : ThreadLocalRandom.current().nextLong(recoverySpread.toMillis());
+                    event.setNextAttemptAt(now.plusMillis(offset));
+                    overdue.add(event);
+                }
+            }
+            if (!overdue.isEmpty()) {
+                eventRepository.saveAll(overdue);
+                recovered += overdue.size();
+            }
+            afterId = page.get(page.size() - 1).getId();
+        }
+        if (recovered > 0) {
+            log.info("Posle pokretanja ponovo zakazano slanje {} eventa drugoj banci", recovered);
+        }
+    }
+}
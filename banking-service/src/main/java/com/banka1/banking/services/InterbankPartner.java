@@ -0,0 +1,153 @@
+package com.banka1.banking.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jedna partnerska banka: adresa, API kljuc, ogranicenje istovremenih slanja (bulkhead) i
+ * circuit breaker.
+ * <p>
+ * Posle failureThreshold uzastopnih neuspeha breaker se otvara i slanja toj banci se odbijaju
+ * bez poziva tokom openDuration. Zatim se pusta jedan probni poziv: uspeh zatvara breaker,
+ * neuspeh ga ponovo otvara. Tako spora ili nedostupna banka zauzima najvise maxConcurrent
+ * niti za slanje, a ostale banke se salju normalno.
+ * <p>
+ * Metrike sa tagom partner: interbank.partner.latency, interbank.partner.in_flight,
+ * interbank.partner.circuit (0 zatvoren, 1 otvoren, 2 probni poziv) i interbank.partner.rejected{reason}.
+ */
+public class InterbankPartner {
+
+    public enum CircuitState { CLOSED, OPEN, HALF_OPEN }
+
+    @Getter
+    private final String routingNumber;
+    @Getter
+    private final String url;
+    @Getter
+    private final String apiKey;
+
+    private final int maxConcurrent;
+    private final Semaphore bulkhead;
+    private final int failureThreshold;
+    private final Duration openDuration;
+    private final Clock clock;
+
+    private CircuitState state = CircuitState.CLOSED;
+    private int consecutiveFailures;
+    private Instant openUntil = Instant.MIN;
+
+    private final Timer latency;
+    private final Counter rejectedBulkhead;
+    private final Counter rejectedCircuit;
+
+    public InterbankPartner(String routingNumber, String url, String apiKey, int maxConcurrent,
+                            int failureThreshold, Duration openDuration, Clock clock, MeterRegistry meterRegistry) {
+        this.routingNumber = routingNumber;
+        this.url = url;
+        this.apiKey = apiKey;
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.bulkhead = new Semaphore(this.maxConcurrent);
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openDuration = openDuration;
+        this.clock = clock;
+
+        this.latency = Timer.builder("interbank.partner.latency").tag("partner", routingNumber).register(meterRegistry);
+        this.rejectedBulkhead = Counter.builder("interbank.partner.rejected")
+                .tag("partner", routingNumber).tag("reason", "bulkhead").register(meterRegistry);
+        this.rejectedCircuit = Counter.builder("interbank.partner.rejected")
+                .tag("partner", routingNumber).tag("reason", "circuit").register(meterRegistry);
+        Gauge.builder("interbank.partner.in_flight", this, InterbankPartner::inFlight)
+                .tag("partner", routingNumber).register(meterRegistry);
+        Gauge.builder("interbank.partner.circuit", this, partner -> partner.getState().ordinal())
+                .tag("partner", routingNumber).register(meterRegistry);
+    }
+
+    /**
+     * Zauzima mesto za jedno slanje. Ako vrati true, pozivalac mora da pozove {@link #release}.
+     */
+    public boolean tryAcquire() {
+        if (!bulkhead.tryAcquire()) {
+            rejectedBulkhead.increment();
+            return false;
+        }
+        if (!allowRequest()) {
+            bulkhead.release();
+            rejectedCircuit.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Oslobadja mesto i belezi ishod slanja i njegovo trajanje.
+     */
+    public void release(boolean success, Duration duration) {
+        try {
+            latency.record(duration.toNanos(), TimeUnit.NANOSECONDS);
+            if (success) {
+                onSuccess();
+            } else {
+                onFailure();
+            }
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    /**
+     * Koliko da se saceka pre sledeceg pokusaja posle odbijenog slanja; nula ako breaker nije otvoren.
+     */
+    public synchronized Duration retryAfter() {
+        if (state != CircuitState.OPEN) {
+            return Duration.ZERO;
+        }
+        Duration remaining = Duration.between(clock.instant(), openUntil);
+        return remaining.isNegative() ? Duration.ZERO : remaining;
+    }
+
+    public synchronized CircuitState getState() {
+        return state;
+    }
+
+    public int inFlight() {
+        return maxConcurrent - bulkhead.availablePermits();
+    }
+
+    private synchronized boolean allowRequest() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (clock.instant().isBefore(openUntil)) {
+                    return false;
+                }
+                // Isteklo je vreme otvorenog breaker-a, pusta se jedan probni poziv
+                state = CircuitState.HALF_OPEN;
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        state = CircuitState.CLOSED;
+    }
+
+    private synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == CircuitState.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = CircuitState.OPEN;
+            openUntil = clock.instant().plus(openDuration);
+        }
+    }
+}
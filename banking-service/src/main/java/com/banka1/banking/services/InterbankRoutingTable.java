@@ -0,0 +1,112 @@
+package com.banka1.banking.services;
+
+import com.banka1.banking.config.InterbankConfig;
+import com.banka1.banking.config.InterbankPartnersConfig;
+import com.banka1.banking.models.Event;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tabela partnerskih banaka po routing broju, odnosno prefiksu broja racuna. Racun pripada banci
+ * ciji je routing broj najduzi prefiks broja racuna. Tabela se pravi jednom pri pokretanju.
+ */
+@Slf4j
+@Component
+public class InterbankRoutingTable {
+
+    private final Map<String, InterbankPartner> partners;
+    // Duzine routing brojeva, od najduze, za trazenje najduzeg prefiksa
+    private final int[] prefixLengths;
+    private final InterbankPartner defaultPartner;
+
+    public InterbankRoutingTable(InterbankConfig config,
+                                 InterbankPartnersConfig partnersConfig,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${interbank.circuit.failure-threshold:5}") int failureThreshold,
+                                 @Value("${interbank.circuit.open-ms:30000}") long openMs) {
+        this(config, partnersConfig, meterRegistry, failureThreshold, Duration.ofMillis(openMs), Clock.systemUTC());
+    }
+
+    InterbankRoutingTable(InterbankConfig config, InterbankPartnersConfig partnersConfig, MeterRegistry meterRegistry,
+                          int failureThreshold, Duration openDuration, Clock clock) {
+        Collection<InterbankPartnersConfig.Partner> configured = partnersConfig.getPartners();
+        if (configured.isEmpty() && config.getForeignBankRoutingNumber() != null) {
+            InterbankPartnersConfig.Partner legacy = new InterbankPartnersConfig.Partner();
+            legacy.setRoutingNumber(config.getForeignBankRoutingNumber());
+            legacy.setUrl(config.getInterbankTargetUrl());
+            legacy.setApiKey(config.getForeignBankApiKey());
+            configured = List.of(legacy);
+        }
+
+        Map<String, InterbankPartner> byRouting = new LinkedHashMap<>();
+        for (InterbankPartnersConfig.Partner partner : configured) {
+            if (partner.getRoutingNumber() == null || partner.getRoutingNumber().isBlank() || partner.getUrl() == null) {
+                throw new IllegalStateException("Partnerska banka mora imati routing broj i adresu");
+            }
+            if (partner.getRoutingNumber().equals(config.getRoutingNumber())) {
+                throw new IllegalStateException("Routing broj partnerske banke je isti kao nas: " + partner.getRoutingNumber());
+            }
+            if (byRouting.put(partner.getRoutingNumber(), new InterbankPartner(partner.getRoutingNumber(), partner.getUrl(),
+                    partner.getApiKey(), partner.getMaxConcurrent(), failureThreshold, openDuration, clock, meterRegistry)) != null) {
+                throw new IllegalStateException("Partnerska banka je navedena dva puta: " + partner.getRoutingNumber());
+            }
+        }
+
+        this.partners = Collections.unmodifiableMap(byRouting);
+        this.prefixLengths = byRouting.keySet().stream()
+                .map(String::length)
+                .distinct()
+                .sorted(Comparator.reverseOrder())
+                .mapToInt(Integer::intValue)
+                .toArray();
+        InterbankPartner legacyPartner = forRoutingNumber(config.getForeignBankRoutingNumber());
+        this.defaultPartner = legacyPartner != null ? legacyPartner : byRouting.values().stream().findFirst().orElse(null);
+        log.info("Partnerske banke: {}", byRouting.keySet());
+    }
+
+    /**
+     * Partnerska banka kojoj pripada racun, ili null ako racun nije racun neke partnerske banke.
+     */
+    public InterbankPartner resolveAccount(String accountNumber) {
+        if (accountNumber == null) {
+            return null;
+        }
+        for (int length : prefixLengths) {
+            if (accountNumber.length() >= length) {
+                InterbankPartner partner = partners.get(accountNumber.substring(0, length));
+                if (partner != null) {
+                    return partner;
+                }
+            }
+        }
+        return null;
+    }
+
+    public InterbankPartner forRoutingNumber(String routingNumber) {
+        return routingNumber == null ? null : partners.get(routingNumber);
+    }
+
+    /**
+     * Banka kojoj se salje event. Eventi sacuvani pre uvodjenja vise banaka nemaju routing broj,
+     * pa idu banci iz FOREIGN_BANK_ROUTING_NUMBER.
+     */
+    public InterbankPartner forEvent(Event event) {
+        InterbankPartner partner = forRoutingNumber(event.getPartnerRoutingNumber());
+        return partner != null ? partner : defaultPartner;
+    }
+
+    public Collection<InterbankPartner> partners() {
+        return partners.values();
+    }
+}
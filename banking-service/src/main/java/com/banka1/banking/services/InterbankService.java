@@ -24,15 +24,15 @@ import com.banka1.banking.repository.AccountRepository;
 import com.banka1.banking.repository.CurrencyRepository;
 import com.banka1.banking.services.requests.RequestBuilder;
 import com.banka1.banking.services.requests.RequestService;
+import com.banka1.banking.utils.AfterCommit;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.http.ResponseEntity;
 import org.springframework.scheduling.TaskScheduler;
 import org.springframework.scheduling.concurrent.ConcurrentTaskScheduler;
 import org.springframework.stereotype.Service;
-
-import java.net.http.HttpResponse;
 import java.time.Instant;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
@@ -51,8 +51,9 @@ public class InterbankService implements InterbankOperationService {
     private final CurrencyRepository currencyRepository;
     private final InterbankConfig config;
     private final RequestService requestService;
+    private final InterbankRoutingTable routingTable;
 
-    public InterbankService(EventService eventService, EventExecutorService eventExecutorService, ObjectMapper objectMapper, @Lazy TransferService transferService, AccountRepository accountRepository, CurrencyRepository currencyRepository, InterbankConfig config, RequestService requestService) {
+    public InterbankService(EventService eventService, EventExecutorService eventExecutorService, ObjectMapper objectMapper, @Lazy TransferService transferService, AccountRepository accountRepository, CurrencyRepository currencyRepository, InterbankConfig config, RequestService requestService, InterbankRoutingTable routingTable) {
         this.eventService = eventService;
         this.eventExecutorService = eventExecutorService;
         this.objectMapper = objectMapper;
@@ -61,9 +62,17 @@ public class InterbankService implements InterbankOperationService {
         this.currencyRepository = currencyRepository;
         this.config = config;
         this.requestService = requestService;
+        this.routingTable = routingTable;
+    }
+
+    public boolean isPartnerAccount(String accountNumber) {
+        return routingTable.resolveAccount(accountNumber) != null;
     }
 
-    public void sendInterbankMessage(InterbankMessageDTO<?> messageDto, String targetUrl) {
+    public void sendInterbankMessage(InterbankMessageDTO<?> messageDto, InterbankPartner partner) {
+        if (partner == null) {
+            throw new IllegalStateException("Partnerska banka nije podesena");
+        }
 
         System.out.println("####################");
         System.out.println("Sending interbank message: " + messageDto.getMessageType() + " " + messageDto.getIdempotenceKey().getLocallyGeneratedKey());
@@ -78,7 +87,8 @@ public class InterbankService implements InterbankOperationService {
             event = eventService.createEvent(new CreateEventDTO(
                     messageDto,
                     payloadJson,
-                    targetUrl
+                    partner.getUrl(),
+                    partner.getRoutingNumber()
             ));
 
             System.out.println("Attempting to send event: " + event.getId());
@@ -87,14 +97,17 @@ public class InterbankService implements InterbankOperationService {
             throw new RuntimeException("Failed to send interbank message", ex);
         }
 
-        try {
-            eventExecutorService.attemptEventAsync(event);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to send interbank message", e);
-        }
+        // Druga banka ne sme da dobije poruku pre commit-a lokalne transakcije (npr. rezervacije sredstava).
+        // Ako se transakcija ponisti, ponistava se i event, pa se nista ne salje.
+        AfterCommit.run(() -> eventExecutorService.attemptEventAsync(event));
     }
 
     public void sendNewTXMessage(Transfer transfer) {
+        InterbankPartner partner = routingTable.resolveAccount(transfer.getNote());
+        if (partner == null) {
+            throw new IllegalArgumentException("Racun primaoca ne pripada nijednoj partnerskoj banci: " + transfer.getNote());
+        }
+
         InterbankMessageDTO<InterbankTransactionDTO> transaction = new InterbankMessageDTO<>();
         transaction.setMessageType(InterbankMessageType.NEW_TX);
 
@@ -130,7 +143,7 @@ public class InterbankService implements InterbankOperationService {
                 ),
                 new PostingDTO(
                         new TxAccountDTO("PERSON", new ForeignBankIdDTO(
-                                config.getForeignBankRoutingNumber(),
+                                partner.getRoutingNumber(),
                                 transfer.getNote()
                         ), ""),
                         transfer.getAmount(),
@@ -146,15 +159,9 @@ public class InterbankService implements InterbankOperationService {
 
 
         // Send the message
-        // execute after five seconds for testing purposes
         System.out.println("Sending interbank message: " + transaction);
 
-        try {
-            Thread.sleep(1000);
-            sendInterbankMessage(transaction, config.getInterbankTargetUrl());
-        } catch (InterruptedException e) {
-            throw new RuntimeException(e);
-        }
+        sendInterbankMessage(transaction, partner);
     }
 
     private IdempotenceKey generateIdempotenceKey(InterbankMessageDTO<?> messageDto) {
@@ -429,14 +436,9 @@ public class InterbankService implements InterbankOperationService {
 
 
 
-        try {
-            Thread.sleep(1000);
-            sendInterbankMessage(message, config.getInterbankTargetUrl());
+        sendInterbankMessage(message, routingTable.forEvent(event));
 
-            transferService.commitForeignBankTransfer(event.getIdempotenceKey());
-        } catch (InterruptedException e) {
-            throw new RuntimeException(e);
-        }
+        transferService.commitForeignBankTransfer(event.getIdempotenceKey());
     }
 
     @Override
@@ -453,14 +455,9 @@ public class InterbankService implements InterbankOperationService {
 
         message.setMessage(rollbackTransactionDTO);
 
-        try {
-            Thread.sleep(1000);
-            sendInterbankMessage(message, config.getInterbankTargetUrl());
+        sendInterbankMessage(message, routingTable.forEvent(event));
 
-            transferService.rollbackForeignBankTransfer(event.getIdempotenceKey());
-        } catch (InterruptedException e) {
-            throw new RuntimeException(e);
-        }
+        transferService.rollbackForeignBankTransfer(event.getIdempotenceKey());
     }
 
     private VoteDTO forwardNewTX(InterbankMessageDTO<InterbankTransactionDTO> messageDto) {
@@ -472,7 +469,7 @@ public class InterbankService implements InterbankOperationService {
         }
 
         try {
-            HttpResponse<String> response = requestService.send(
+            ResponseEntity<String> response = requestService.send(
                     new RequestBuilder()
                             .method("POST")
                             .url(config.getTradingServiceUrl())
@@ -480,7 +477,7 @@ public class InterbankService implements InterbankOperationService {
                             .addHeader("Content-Type", "application/json")
             );
 
-            VoteDTO voteDTO = objectMapper.readValue(response.body(), VoteDTO.class);
+            VoteDTO voteDTO = objectMapper.readValue(response.getBody(), VoteDTO.class);
             if (voteDTO == null) {
                 throw new RuntimeException("Failed to parse response from trading service");
             }
@@ -505,7 +502,7 @@ public class InterbankService implements InterbankOperationService {
         }
 
         try {
-            HttpResponse<String> response = requestService.send(
+            ResponseEntity<String> response = requestService.send(
                     new RequestBuilder()
                             .method("POST")
                             .url(config.getTradingServiceUrl())
@@ -513,7 +510,7 @@ public class InterbankService implements InterbankOperationService {
                             .addHeader("Content-Type", "application/json")
             );
 
-            VoteDTO voteDTO = objectMapper.readValue(response.body(), VoteDTO.class);
+            VoteDTO voteDTO = objectMapper.readValue(response.getBody(), VoteDTO.class);
             if (voteDTO == null) {
                 throw new RuntimeException("Failed to parse response from trading service");
             }
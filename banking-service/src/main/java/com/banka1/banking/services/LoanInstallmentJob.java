@@ -0,0 +1,295 @@
+package com.banka1.banking.services;
+
+import com.banka1.banking.dto.DueInstallmentRef;
+import com.banka1.banking.repository.InstallmentsRepository;
+import com.banka1.banking.services.LoanService.InstallmentOutcome;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Nocna naplata dospelih rata kredita. Dospele rate se citaju po id-u u stranama (keyset) i
+ * dele u delove od chunk-size rata; svaki deo se naplacuje u svojoj transakciji.
+ * <p>
+ * Delovi se izvrsavaju paralelno na workers niti, a rate istog racuna uvek idu na istu nit,
+ * pa dve niti nikad ne menjaju stanje istog racuna klijenta. Racun banke koji prima rate se ne
+ * zakljucava: uplata ide kroz {@link HouseAccountLedger} (vidi TransferService#lockTransferAccounts),
+ * pa niti ne cekaju jedna na drugu na istom redu. Ako rata iz dela ne uspe, deo se ponistava
+ * i rate se naplacuju pojedinacno, tako da greska jedne rate ne utice na ostale. Obavestenja
+ * klijentu i pravnoj sluzbi se salju tek posle commit-a, pa ponovljena rata ne salje isti mejl dva puta.
+ * <p>
+ * Svaki commit je checkpoint: naplacena rata vise nije dospela, a nenaplacena ceka retryDate,
+ * pa prekinuto pokretanje moze ponovo da se pokrene istog dana i nastavlja od neobradjenih rata.
+ */
+@Slf4j
+@Component
+public class LoanInstallmentJob {
+
+    private static final int MAX_REPORTED_FAILURES = 100;
+
+    /**
+     * Izvestaj o jednom pokretanju naplate.
+     */
+    public record RunReport(LocalDate date, Instant startedAt, Instant finishedAt, int chunks,
+                            long paid, long late, long failed, List<Long> failedInstallmentIds) {
+        public long processed() {
+            return paid + late + failed;
+        }
+    }
+
+    private final LoanService loanService;
+    private final InstallmentsRepository installmentsRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final int pageSize;
+    private final int workers;
+
+    private final Map<InstallmentOutcome, Counter> outcomes = new EnumMap<>(InstallmentOutcome.class);
+    private final Timer chunkTimer;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile Progress progress;
+    private volatile RunReport lastReport;
+
+    public LoanInstallmentJob(LoanService loanService,
+                              InstallmentsRepository installmentsRepository,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry,
+                              @Value("${loan.installments.chunk-size:50}") int chunkSize,
+                              @Value("${loan.installments.page-size:1000}") int pageSize,
+                              @Value("${loan.installments.workers:4}") int workers) {
+        this.loanService = loanService;
+        this.installmentsRepository = installmentsRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = Math.max(1, chunkSize);
+        this.pageSize = Math.max(this.chunkSize, pageSize);
+        this.workers = Math.max(1, workers);
+
+        for (InstallmentOutcome outcome : InstallmentOutcome.values()) {
+            outcomes.put(outcome, Counter.builder("loan.installments")
+                    .tag("outcome", outcome.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+        this.chunkTimer = Timer.builder("loan.installments.chunk").register(meterRegistry);
+    }
+
+    @Scheduled(cron = "0 0 0 * * *")  // Pokreće se svakog dana u ponoć
+    public void runNightly() {
+        run(LocalDate.now());
+    }
+
+    /**
+     * Naplacuje sve rate dospele do datuma today. Ako naplata vec traje, ne pokrece se ponovo.
+     */
+    public RunReport run(LocalDate today) {
+        if (!running.compareAndSet(false, true)) {
+            log.warn("Naplata rata kredita je vec u toku, preskace se pokretanje za {}", today);
+            return null;
+        }
+        try {
+            Progress current = new Progress(today);
+            progress = current;
+            RunReport report = execute(current);
+            lastReport = report;
+            log.info("Naplata rata kredita za {}: {} rata u {} delova, naplaceno {}, kasni {}, neuspesno {}",
+                    today, report.processed(), report.chunks(), report.paid(), report.late(), report.failed());
+            return report;
+        } finally {
+            progress = null;
+            running.set(false);
+        }
+    }
+
+    /**
+     * Izvestaj o naplati koja je u toku, ili poslednji zavrseni izvestaj.
+     */
+    public RunReport getReport() {
+        Progress current = progress;
+        return current != null ? current.report(null) : lastReport;
+    }
+
+    private RunReport execute(Progress current) {
+        List<ExecutorService> lanes = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            int lane = i;
+            lanes.add(Executors.newSingleThreadExecutor(task -> {
+                Thread thread = new Thread(task, "loan-installments-" + lane);
+                thread.setDaemon(true);
+                return thread;
+            }));
+        }
+        // Citanje staje dok nit ne zavrsi neki deo, pa u memoriji nije vise od 2 dela po niti
+        Semaphore inFlight = new Semaphore(workers * 2);
+        List<CompletableFuture<Void>> submitted = new ArrayList<>();
+        try {
+            // Rate dodate tokom naplate (sledece rate kredita) cekaju sledece pokretanje
+            long maxId = installmentsRepository.findMaxId();
+            List<List<Long>> buffers = new ArrayList<>(workers);
+            for (int i = 0; i < workers; i++) {
+                buffers.add(new ArrayList<>(chunkSize));
+            }
+
+            long afterId = 0;
+            while (true) {
+                List<DueInstallmentRef> page = installmentsRepository.findDueInstallmentRefs(current.date, afterId, maxId, Limit.of(pageSize));
+                for (DueInstallmentRef ref : page) {
+                    int lane = Math.floorMod(Long.hashCode(ref.accountId()), workers);
+                    List<Long> buffer = buffers.get(lane);
+                    buffer.add(ref.installmentId());
+                    if (buffer.size() >= chunkSize) {
+                        submitted.add(submit(lanes.get(lane), buffer, inFlight, current));
+                        buffers.set(lane, new ArrayList<>(chunkSize));
+                    }
+                }
+                if (page.size() < pageSize) {
+                    break;
+                }
+                afterId = page.get(page.size() - 1).installmentId();
+            }
+            for (int lane = 0; lane < workers; lane++) {
+                if (!buffers.get(lane).isEmpty()) {
+                    submitted.add(submit(lanes.get(lane), buffers.get(lane), inFlight, current));
+                }
+            }
+            CompletableFuture.allOf(submitted.toArray(CompletableFuture[]::new)).join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Naplata rata kredita je prekinuta posle {} rata", current.processed());
+        } finally {
+            lanes.forEach(ExecutorService::shutdownNow);
+        }
+        return current.report(Instant.now());
+    }
+
+    private CompletableFuture<Void> submit(ExecutorService lane, List<Long> chunk, Semaphore inFlight, Progress current) throws InterruptedException {
+        inFlight.acquire();
+        try {
+            return CompletableFuture.runAsync(() -> {
+                try {
+                    chunkTimer.record(() -> processChunk(chunk, current));
+                } finally {
+                    inFlight.release();
+                }
+            }, lane);
+        } catch (RuntimeException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    private void processChunk(List<Long> chunk, Progress current) {
+        List<InstallmentOutcome> results = null;
+        try {
+            results = transactionTemplate.execute(status -> {
+                List<InstallmentOutcome> chunkResults = new ArrayList<>(chunk.size());
+                for (Long installmentId : chunk) {
+                    InstallmentOutcome outcome = processInstallment(installmentId);
+                    if (outcome == InstallmentOutcome.FAILED) {
+                        status.setRollbackOnly();
+                        return null;
+                    }
+                    chunkResults.add(outcome);
+                }
+                return chunkResults;
+            });
+        } catch (RuntimeException e) {
+            log.warn("Deo od {} rata kredita nije uspeo: {}", chunk.size(), e.getMessage());
+        }
+
+        if (results != null) {
+            for (int i = 0; i < chunk.size(); i++) {
+                current.record(chunk.get(i), results.get(i));
+            }
+        } else {
+            // Deo je ponisten, svaka rata se naplacuje u svojoj transakciji
+            for (Long installmentId : chunk) {
+                current.record(installmentId, processAlone(installmentId));
+            }
+        }
+        current.chunks.incrementAndGet();
+        log.debug("Naplata rata kredita: {} rata obradjeno u {} delova", current.processed(), current.chunks.get());
+    }
+
+    private InstallmentOutcome processAlone(Long installmentId) {
+        try {
+            InstallmentOutcome outcome = transactionTemplate.execute(status -> {
+                InstallmentOutcome result = processInstallment(installmentId);
+                if (result == InstallmentOutcome.FAILED) {
+                    status.setRollbackOnly();
+                }
+                return result;
+            });
+            return outcome == null ? InstallmentOutcome.FAILED : outcome;
+        } catch (RuntimeException e) {
+            log.error("Greska tokom isplate rate kredita {}: {}", installmentId, e.getMessage());
+            return InstallmentOutcome.FAILED;
+        }
+    }
+
+    private InstallmentOutcome processInstallment(Long installmentId) {
+        return installmentsRepository.findById(installmentId)
+                .map(loanService::processDueInstallment)
+                .orElse(InstallmentOutcome.FAILED);
+    }
+
+    final class Progress {
+        private final LocalDate date;
+        private final Instant startedAt = Instant.now();
+        private final AtomicInteger chunks = new AtomicInteger();
+        private final Map<InstallmentOutcome, AtomicLong> counts = new EnumMap<>(InstallmentOutcome.class);
+        private final List<Long> failedIds = Collections.synchronizedList(new ArrayList<>());
+
+        Progress(LocalDate date) {
+            this.date = date;
+            for (InstallmentOutcome outcome : InstallmentOutcome.values()) {
+                counts.put(outcome, new AtomicLong());
+            }
+        }
+
+        void record(Long installmentId, InstallmentOutcome outcome) {
+            counts.get(outcome).incrementAndGet();
+            outcomes.get(outcome).increment();
+            if (outcome == InstallmentOutcome.FAILED && failedIds.size() < MAX_REPORTED_FAILURES) {
+                failedIds.add(installmentId);
+            }
+        }
+
+        long processed() {
+            return counts.values().stream().mapToLong(AtomicLong::get).sum();
+        }
+
+        RunReport report(Instant finishedAt) {
+            List<Long> failed;
+            synchronized (failedIds) {
+                failed = List.copyOf(failedIds);
+            }
+            return new RunReport(date, startedAt, finishedAt, chunks.get(),
+                    counts.get(InstallmentOutcome.PAID).get(),
+                    counts.get(InstallmentOutcome.LATE).get(),
+                    counts.get(InstallmentOutcome.FAILED).get(),
+                    failed);
+        }
+    }
+}
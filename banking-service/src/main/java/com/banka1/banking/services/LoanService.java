@@ -16,6 +16,7 @@ import com.banka1.banking.repository.AccountRepository;
 import com.banka1.banking.repository.InstallmentsRepository;
 import com.banka1.banking.repository.LoanRepository;
 import com.banka1.banking.repository.RateChangeRepository;
+import com.banka1.banking.utils.AfterCommit;
 import com.banka1.common.listener.MessageHelper;
 import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
@@ -24,7 +25,6 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jms.core.JmsTemplate;
 import org.springframework.scheduling.annotation.EnableScheduling;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
@@ -255,7 +255,7 @@ public class LoanService {
             if(loanUpdateDTO.getApproved()) {
                 updateLoanRate(loan, false);
 
-                var bankAccount = bankAccountUtils.getBankAccountForCurrency(loan.getCurrencyType());
+                var bankAccount = bankAccountUtils.getBankAccountRef(loan.getCurrencyType());
                 var transferDTO = new MoneyTransferDTO(
                         bankAccount.getAccountNumber(),
                         acc.getAccountNumber(),
@@ -294,26 +294,44 @@ public class LoanService {
         }
     }
 
+    // Obavestenje se salje tek posle commit-a, da ponistena (pa ponovljena) obrada ne posalje isti mejl dva puta
     private void sendLoanNotification(Account acc, String emailMessage, Long loanId) {
-        try {
-            NotificationDTO emailDTO = new NotificationDTO();
-            emailDTO.setSubject("Obaveštenje o statusu kredita");
-            emailDTO.setMessage(emailMessage);
-            emailDTO.setType("email");
-
+        Long ownerId = acc.getOwnerID();
+        AfterCommit.run(() -> {
             try {
-                CustomerDTO customer = userServiceCustomer.getCustomerById(acc.getOwnerID());
-                emailDTO.setEmail(customer.getEmail());
+                NotificationDTO emailDTO = new NotificationDTO();
+                emailDTO.setSubject("Obaveštenje o statusu kredita");
+                emailDTO.setMessage(emailMessage);
+                emailDTO.setType("email");
+
+                try {
+                    CustomerDTO customer = userServiceCustomer.getCustomerById(ownerId);
+                    emailDTO.setEmail(customer.getEmail());
 
-                log.info("Sending loan notification for loan {} to user ID {}", loanId, customer.getEmail());
-                jmsTemplate.convertAndSend(destinationEmail, messageHelper.createTextMessage(emailDTO));
+                    log.info("Sending loan notification for loan {} to user ID {}", loanId, customer.getEmail());
+                    jmsTemplate.send(destinationEmail, messageHelper.messageCreator(emailDTO));
 
+                } catch (Exception e) {
+                    log.warn("Failed to send notification: {}", e.getMessage());
+                }
             } catch (Exception e) {
-	            log.warn("Failed to send notification: {}", e.getMessage());
+                log.warn("Error in notification process: {}", e.getMessage());
             }
-        } catch (Exception e) {
-	        log.warn("Error in notification process: {}", e.getMessage());
-        }
+        });
+    }
+
+    private void sendLawsuitNotification(Long loanId) {
+        AfterCommit.run(() -> {
+            NotificationDTO emailDTO = new NotificationDTO();
+            emailDTO.setSubject("Obaveštenje neplacenom kreditu");
+            emailDTO.setMessage("Kredit ID-a " + loanId + " ima zakasnelu ratu koja je veca od 100000.");
+            emailDTO.setType("email");
+            var employee = userServiceEmployee.getEmployeeInLegal();
+            emailDTO.setEmail(employee.getEmail());
+
+            log.info("Sending lawsuit notification for loan {} to user email {}", loanId, employee.getEmail());
+            jmsTemplate.send(destinationEmail, messageHelper.messageCreator(emailDTO));
+        });
     }
 
     public List<Loan> getAllLoans() {
@@ -350,7 +368,10 @@ public class LoanService {
 	    return loan.getNumberOfInstallments()-loan.getNumberOfPaidInstallments();
     }
 
-    @Scheduled(cron = "0 0 0 * * *")  // Pokreće se svakog dana u ponoć
+    /**
+     * Naplata svih dospelih rata u jednoj transakciji, jedna po jedna. Svake noci rate naplacuje
+     * {@link LoanInstallmentJob} u delovima i paralelno; ova metoda ostaje za rucno pokretanje.
+     */
     @Transactional
     public void processLoanPayments() {
         processDueInstallments();
@@ -367,7 +388,13 @@ public class LoanService {
         dueInstallments.forEach(this::processDueInstallment);
     }
 
-    private void processDueInstallment(Installment installment) {
+    public enum InstallmentOutcome {
+        PAID,
+        LATE,
+        FAILED
+    }
+
+    public InstallmentOutcome processDueInstallment(Installment installment) {
         Account customerAccount = installment.getLoan().getAccount();
         Account bankAccount = bankAccountUtils.getBankAccountForCurrency(installment.getCurrencyType());
 
@@ -402,16 +429,7 @@ public class LoanService {
                 if (installment.getAttemptCount() >= 2) {
                     if (installment.getAmount() >= 100000) {
                         installment.setLawsuit(true);
-
-                        NotificationDTO emailDTO = new NotificationDTO();
-                        emailDTO.setSubject("Obaveštenje neplacenom kreditu");
-                        emailDTO.setMessage("Kredit ID-a " + loan.getId() + " ima zakasnelu ratu koja je veca od 100000.");
-                        emailDTO.setType("email");
-                        var employee = userServiceEmployee.getEmployeeInLegal();
-                        emailDTO.setEmail(employee.getEmail());
-
-                        log.info("Sending lawsuit notification for loan {} to user email {}", loan.getId(), employee.getEmail());
-                        jmsTemplate.convertAndSend(destinationEmail, messageHelper.createTextMessage(emailDTO));
+                        sendLawsuitNotification(loan.getId());
 
                     } else {
                         loan.setPenalty(loan.getPenalty() + 0.05); // +0.05%
@@ -426,8 +444,10 @@ public class LoanService {
 
             loanRepository.save(loan);
             installmentsRepository.save(installment);
+            return successful ? InstallmentOutcome.PAID : InstallmentOutcome.LATE;
         } catch (Exception e) {
             log.error("Greska tokom isplate rate kredita {}: {}", installment.getId(), e.getMessage());
+            return InstallmentOutcome.FAILED;
         }
     }
 
@@ -19,17 +19,21 @@ import org.springframework.jms.JmsException;
 import org.springframework.jms.core.JmsTemplate;
 import org.springframework.scheduling.TaskScheduler;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
 
 @Service
-@Transactional(isolation = Isolation.SERIALIZABLE)
+@Transactional
 @Slf4j
 @RequiredArgsConstructor
 public class OTCService {
@@ -45,6 +49,7 @@ public class OTCService {
     private final TransferRepository transferRepository;
     private final UserServiceCustomer userServiceCustomer;
     private final CurrencyRepository currencyRepository;
+    private final PlatformTransactionManager transactionManager;
 
     private void sendFailureMessage(String uid, String message) throws JmsException {
         jmsTemplate.convertAndSend(destinationOtcAck, messageHelper.createTextMessage(new OTCTransactionACKDTO(
@@ -57,15 +62,23 @@ public class OTCService {
             sendFailureMessage(uid, message);
             if(rollback) rollback(uid);
         } catch(JmsException jms) {
-            taskScheduler.schedule(() -> retryableFailureMessage(uid, message, rollback), Instant.now().plusSeconds(5));
+            scheduleRetry(() -> retryableFailureMessage(uid, message, rollback));
         }
     }
 
+    // Ponovni pokusaj se izvrsava na niti scheduler-a mimo proxy-ja, pa mu treba sopstvena transakcija
+    // (findByUid i lockAllById zakljucavaju redove i bez nje bacaju TransactionRequiredException)
+    private void scheduleRetry(Runnable action) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        taskScheduler.schedule(() -> transactionTemplate.executeWithoutResult(status -> action.run()),
+                Instant.now().plusSeconds(5));
+    }
+
     private void nextStage(OTCTransaction transaction) {
         nextStage(transaction.getUid(), transaction.getAmountTaken() > 0, transaction.getAmountGiven() > 0, transaction.getFinished());
     }
 
-    private synchronized void nextStage(String uid, boolean assetsTaken, boolean assetsGiven, boolean finished) {
+    private void nextStage(String uid, boolean assetsTaken, boolean assetsGiven, boolean finished) {
         OTCTransaction transaction = otcTransactionRepository.findByUid(uid).orElse(null);
         if(transaction == null || (transaction.getAmountTaken() > 0 != assetsTaken) || (transaction.getAmountGiven() > 0 != assetsGiven) || (transaction.getFinished() != finished))
             return;
@@ -75,15 +88,24 @@ public class OTCService {
                     transaction.getUid(), false, ""
             )));
         } catch (JmsException jms) {
-            taskScheduler.schedule(() -> nextStage(uid, assetsTaken, assetsGiven, finished), Instant.now().plusSeconds(5));
+            scheduleRetry(() -> nextStage(uid, assetsTaken, assetsGiven, finished));
         }
     }
 
-    public synchronized void rollback(String uid) {
+    private void lockAccounts(OTCTransaction transaction) {
+        accountRepository.lockAllById(Stream.of(transaction.getSellerAccount(), transaction.getBuyerAccount())
+                .filter(Objects::nonNull)
+                .map(Account::getId)
+                .toList());
+    }
+
+    public void rollback(String uid) {
         OTCTransaction transaction = otcTransactionRepository.findByUid(uid).orElse(null);
         if(transaction == null)
             return;
 
+        lockAccounts(transaction);
+
         if(transaction.getAmountGiven() > 0)
             transaction.getSellerAccount().setBalance(transaction.getSellerAccount().getBalance() - transaction.getAmountGiven());
 
@@ -97,12 +119,14 @@ public class OTCService {
         otcTransactionRepository.flush();
     }
 
-    public synchronized void proceed(String uid) {
+    public void proceed(String uid) {
         OTCTransaction transaction = otcTransactionRepository.findByUid(uid).orElse(null);
         try {
             if(transaction == null)
                 throw new Exception("Invalid UID");
 
+            lockAccounts(transaction);
+
             if(transaction.getFailed())
                 return;
 
@@ -191,7 +215,7 @@ public class OTCService {
         }
     }
 
-    public synchronized void initiate(String uid, Long sellerAccountId, Long buyerAccountId, Double amount) {
+    public void initiate(String uid, Long sellerAccountId, Long buyerAccountId, Double amount) {
         try {
             OTCTransaction transaction = new OTCTransaction();
 
@@ -214,6 +238,7 @@ public class OTCService {
         try {
             Account fromAccount = accountRepository.findById(fromAccountId).orElseThrow();
             Account toAccount = accountRepository.findById(toAccountId).orElseThrow();
+            accountRepository.lockAllById(Arrays.asList(fromAccountId, toAccountId));
 
             if(fromAccount.getCurrencyType() != toAccount.getCurrencyType())
                 throw new Exception("Currency type mismatch");
@@ -1,5 +1,7 @@
 package com.banka1.banking.services;
 
+import com.banka1.banking.aspect.RetryOnLockFailure;
+import com.banka1.banking.dto.HouseAccountRef;
 import com.banka1.banking.dto.MoneyTransferDTO;
 import com.banka1.banking.dto.OrderTransactionInitiationDTO;
 import com.banka1.banking.models.Account;
@@ -13,7 +15,6 @@ import com.banka1.banking.services.implementation.AuthService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 import com.banka1.banking.repository.TransactionRepository;
 
@@ -21,6 +22,8 @@ import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Objects;
 
 @Service
@@ -33,31 +36,42 @@ public class OrderService {
     private final TransactionRepository transactionRepository;
     private final CurrencyService currencyService;
     private final CurrencyRepository currencyRepository;
+    private final HouseAccountLedger houseAccountLedger;
 
     @Transactional
+    @RetryOnLockFailure
     public Double executeOrder(String direction, Long userId, Long accountId, Double amount, Double fee) {
         Account account = accountService.findById(accountId);
-        Account bankAccount = bankAccountUtils.getBankAccountForCurrency(account.getCurrencyType());
+        HouseAccountRef bankAccount = bankAccountUtils.getBankAccountRef(account.getCurrencyType());
+        boolean sameAccount = Objects.equals(account.getId(), bankAccount.getId());
+
+        double balance;
+        if (sameAccount) {
+            // Racun banke se ne zakljucava, stanje ukljucuje i uplate koje jos nisu prebacene na racun
+            balance = houseAccountLedger.availableBalance(account.getId());
+        } else {
+            // Stanje se ovde menja samo na racunu korisnika, ostalo ide kroz transfere
+            accountRepository.lockAllById(Collections.singletonList(account.getId()));
+            balance = account.getBalance();
+        }
 
         if (!Objects.equals(account.getOwnerID(), userId)) {
             throw new RuntimeException("Korisnik nije vlasnik računa");
         }
 
-        if (direction.equalsIgnoreCase("buy") && account.getBalance() < amount + (fee != null ? fee : 0)) {
+        if (direction.equalsIgnoreCase("buy") && balance < amount + (fee != null ? fee : 0)) {
             throw new IllegalArgumentException("Nedovoljno sredstava na računu za iznos + proviziju");
         }
 
-        boolean sameAccount = Objects.equals(account.getId(), bankAccount.getId());
-
         if (sameAccount) {
+            // Racun banke se menja atomicnim UPDATE-om, bez zakljucavanja reda
             if (direction.equalsIgnoreCase("buy")) {
-                account.setBalance(account.getBalance() - amount - (fee != null ? fee : 0));
+                houseAccountLedger.debit(account.getId(), amount + (fee != null ? fee : 0));
             } else if (direction.equalsIgnoreCase("sell")) {
-                account.setBalance(account.getBalance() + amount);
+                houseAccountLedger.credit(account.getId(), amount);
             } else {
                 throw new IllegalArgumentException("Nepoznata direkcija");
             }
-            accountRepository.save(account);
 
         } else {
             if (direction.equalsIgnoreCase("buy")) {
@@ -109,7 +123,8 @@ public class OrderService {
         return amount;
     }
 
-    @Transactional(isolation = Isolation.SERIALIZABLE)
+    @Transactional
+    @RetryOnLockFailure
     public void processOrderTransaction(OrderTransactionInitiationDTO dto) {
         System.out.println("=== POČINJE processOrderTransaction ===");
         System.out.println("Buyer ID: " + dto.getBuyerAccountId());
@@ -118,6 +133,7 @@ public class OrderService {
 
         Account buyer = accountRepository.findById(dto.getBuyerAccountId()).orElseThrow();
         Account seller = accountRepository.findById(dto.getSellerAccountId()).orElseThrow();
+        accountRepository.lockAllById(Arrays.asList(buyer.getId(), seller.getId()));
 
         System.out.println("Buyer Account found: " + buyer.getAccountNumber());
         System.out.println("Seller Account found: " + seller.getAccountNumber());
@@ -12,9 +12,11 @@ public class OtpTokenService {
 
 
     private final OtpTokenRepository otpTokenRepository;
+    private final TransferExpiryScheduler transferExpiryScheduler;
 
-    public OtpTokenService(OtpTokenRepository otpTokenRepository) {
+    public OtpTokenService(OtpTokenRepository otpTokenRepository, TransferExpiryScheduler transferExpiryScheduler) {
         this.otpTokenRepository = otpTokenRepository;
+        this.transferExpiryScheduler = transferExpiryScheduler;
     }
 
     public String generateOtp(Long transferId) {
@@ -24,10 +26,11 @@ public class OtpTokenService {
         OtpToken otpToken = new OtpToken();
         otpToken.setOtpCode(otpCode);
         otpToken.setTransferId(transferId);
-        otpToken.setExpirationTime(System.currentTimeMillis() + (5*60*1000));
+        otpToken.setExpirationTime(System.currentTimeMillis() + TransferExpiryScheduler.TRANSFER_TTL_MILLIS);
         otpToken.setUsed(false);
         log.info("otpToken:{}",otpToken);
         otpTokenRepository.saveAndFlush(otpToken);
+        transferExpiryScheduler.schedule(transferId, otpToken.getExpirationTime());
         return otpCode;
     }
 
@@ -48,6 +51,7 @@ public class OtpTokenService {
         otpTokenOptional.ifPresent(otp -> {
             otp.setUsed(true);
             otpTokenRepository.save(otp);
+            transferExpiryScheduler.cancel(transactionId);
         });
     }
 
@@ -0,0 +1,129 @@
+package com.banka1.banking.services;
+
+import com.banka1.banking.models.helper.CurrencyType;
+import com.banka1.banking.utils.MoneyUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Glavna knjiga po principu dvojnog knjigovodstva. Svako kretanje novca se upisuje kao nalog
+ * sa uravnotezenim knjizenjima (isplata sa jednog, uplata na drugi racun) u najmanjim
+ * jedinicama valute. Knjizenja se samo dodaju i upisuju jednim batch insert-om po nalogu.
+ * <p>
+ * Knjiga je dnevnik kretanja, a ne izvor stanja: {@code Account.balance} ostaje vodeci podatak.
+ * Knjize se samo interni, eksterni i menjacki transferi iz {@link TransferService}, i za njih su
+ * promene stanja (na racunu klijenta i kroz {@link HouseAccountLedger}) jednake knjizenjima.
+ * Pocetna stanja se ne knjize, a medjubankarski transferi, krediti, porez, berza i kartice menjaju
+ * stanje mimo knjige, pa se stanje racuna ne izvodi niti uskladjuje sa zbirom knjizenja.
+ */
+@Component
+public class PostingLedger {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO ledger_posting (journal_id, account_id, currency_type, amount_minor, transfer_id, description, created_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PostingLedger(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public static Journal journal(Long transferId, String description) {
+        return new Journal(transferId, description);
+    }
+
+    record Leg(Long accountId, CurrencyType currencyType, long amountMinor) {
+    }
+
+    /**
+     * Nalog za knjizenje. Svaki {@link #move} dodaje isplatu i uplatu istog iznosa,
+     * pa je nalog uravnotezen po konstrukciji.
+     */
+    public static final class Journal {
+
+        private final Long transferId;
+        private final String description;
+        private final List<Leg> legs = new ArrayList<>();
+
+        private Journal(Long transferId, String description) {
+            this.transferId = transferId;
+            this.description = description;
+        }
+
+        public Journal move(Long fromAccountId, Long toAccountId, CurrencyType currencyType, double amount) {
+            long amountMinor = MoneyUtils.toMinorExact(amount, currencyType);
+            if (amountMinor < 0) {
+                throw new IllegalArgumentException("Iznos knjizenja ne moze biti negativan.");
+            }
+            if (amountMinor == 0 || Objects.equals(fromAccountId, toAccountId)) {
+                return this;
+            }
+            legs.add(new Leg(fromAccountId, currencyType, -amountMinor));
+            legs.add(new Leg(toAccountId, currencyType, amountMinor));
+            return this;
+        }
+
+        public Long getTransferId() {
+            return transferId;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        List<Leg> getLegs() {
+            return Collections.unmodifiableList(legs);
+        }
+    }
+
+    /**
+     * Upisuje sva knjizenja naloga jednim batch insert-om i vraca id naloga,
+     * ili null ako nalog nema knjizenja.
+     */
+    @Transactional
+    public Long post(Journal journal) {
+        List<Leg> legs = journal.getLegs();
+        if (legs.isEmpty()) {
+            return null;
+        }
+
+        Map<CurrencyType, Long> totals = new EnumMap<>(CurrencyType.class);
+        for (Leg leg : legs) {
+            totals.merge(leg.currencyType(), leg.amountMinor(), Long::sum);
+        }
+        totals.forEach((currencyType, total) -> {
+            if (total != 0) {
+                throw new IllegalStateException("Nalog nije uravnotezen u valuti " + currencyType + ": " + total);
+            }
+        });
+
+        Long journalId = jdbcTemplate.queryForObject("SELECT nextval('ledger_journal_seq')", Long.class);
+        long createdAt = System.currentTimeMillis();
+
+        jdbcTemplate.batchUpdate(INSERT_SQL, legs, legs.size(), (ps, leg) -> {
+            ps.setLong(1, journalId);
+            ps.setLong(2, leg.accountId());
+            ps.setString(3, leg.currencyType().name());
+            ps.setLong(4, leg.amountMinor());
+            if (journal.getTransferId() != null) {
+                ps.setLong(5, journal.getTransferId());
+            } else {
+                ps.setNull(5, Types.BIGINT);
+            }
+            ps.setString(6, journal.getDescription());
+            ps.setLong(7, createdAt);
+        });
+        return journalId;
+    }
+}
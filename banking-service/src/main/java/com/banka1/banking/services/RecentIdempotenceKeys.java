@@ -0,0 +1,137 @@
+package com.banka1.banking.services;
+
+import com.banka1.common.utils.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Kljucevi idempotentnosti dolaznih poruka koje je ova instanca nedavno primila, sa id-em eventa.
+ * Sluzi da se ponovljena poruka odbije bez upita bazi; baza (unique_key) ostaje jedina sigurna
+ * provera, jer kljuc primljen na drugoj instanci ili pre restarta ovde nije poznat.
+ * <p>
+ * Ispred LRU mape od capacity kljuceva je Bloom filter, pa poruka koja nije ponovljena (skoro sve)
+ * ne zakljucava nista. Filter ima dve generacije od po capacity kljuceva: kada se tekuca napuni,
+ * postaje prethodna, a pravi se nova. Metrika interbank.incoming.duplicates{source=memory|database}.
+ */
+@Component
+public class RecentIdempotenceKeys {
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private final int capacity;
+    private final Map<String, Long> recent;
+    private final AtomicInteger insertedInGeneration = new AtomicInteger();
+    private volatile BloomFilter current;
+    private volatile BloomFilter previous;
+
+    private final Counter duplicatesInMemory;
+    private final Counter duplicatesInDatabase;
+
+    public RecentIdempotenceKeys(@Value("${interbank.incoming.recent-keys:10000}") int capacity, MeterRegistry meterRegistry) {
+        this.capacity = Math.max(capacity, 16);
+        this.recent = new LinkedHashMap<>(this.capacity * 4 / 3 + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > RecentIdempotenceKeys.this.capacity;
+            }
+        };
+        this.current = new BloomFilter(this.capacity, FALSE_POSITIVE_RATE);
+        this.previous = new BloomFilter(this.capacity, FALSE_POSITIVE_RATE);
+
+        this.duplicatesInMemory = Counter.builder("interbank.incoming.duplicates").tag("source", "memory").register(meterRegistry);
+        this.duplicatesInDatabase = Counter.builder("interbank.incoming.duplicates").tag("source", "database").register(meterRegistry);
+    }
+
+    /**
+     * Da li je poruka sa ovim kljucem sigurno vec primljena. false znaci samo da ovde nije poznata.
+     */
+    public boolean isKnownDuplicate(String key) {
+        if (!mightContain(key)) {
+            return false;
+        }
+        boolean known;
+        synchronized (recent) {
+            known = recent.containsKey(key);
+        }
+        if (known) {
+            duplicatesInMemory.increment();
+        }
+        return known;
+    }
+
+    /**
+     * Id eventa sa ovim kljucem, ako je kljuc jos u memoriji; inace null.
+     */
+    public Long eventId(String key) {
+        if (!mightContain(key)) {
+            return null;
+        }
+        synchronized (recent) {
+            return recent.get(key);
+        }
+    }
+
+    /**
+     * Pamti primljen kljuc i id eventa koji je za njega sacuvan.
+     */
+    public void remember(String key, Long eventId) {
+        synchronized (recent) {
+            recent.put(key, eventId);
+        }
+        current.put(high(key), low(key));
+        if (insertedInGeneration.incrementAndGet() >= capacity) {
+            rotate();
+        }
+    }
+
+    /**
+     * Belezi ponovljenu poruku koju je prepoznala baza (kljuc nije bio poznat u memoriji).
+     */
+    public void recordDatabaseDuplicate(String key, Long eventId) {
+        duplicatesInDatabase.increment();
+        remember(key, eventId);
+    }
+
+    private boolean mightContain(String key) {
+        long high = high(key);
+        long low = low(key);
+        return current.mightContain(high, low) || previous.mightContain(high, low);
+    }
+
+    private synchronized void rotate() {
+        if (insertedInGeneration.get() < capacity) {
+            return;
+        }
+        // Prethodna generacija je dovoljna: LRU ionako ne drzi vise od capacity kljuceva
+        previous = current;
+        current = new BloomFilter(capacity, FALSE_POSITIVE_RATE);
+        insertedInGeneration.set(0);
+    }
+
+    // Dva nezavisna 64-bitna hash-a kljuca (FNV-1a sa razlicitim pocetnim vrednostima, pa splitmix64)
+    static long high(String key) {
+        return hash(key, 0xcbf29ce484222325L);
+    }
+
+    static long low(String key) {
+        // Neparan korak, da h1 + i * h2 obidje razlicite bitove
+        return hash(key, 0x84222325cbf29ce4L) | 1;
+    }
+
+    private static long hash(String key, long seed) {
+        long h = seed;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+        h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+        return h ^ (h >>> 31);
+    }
+}
@@ -0,0 +1,251 @@
+package com.banka1.banking.services;
+
+import com.banka1.banking.dto.TransactionHistoryView;
+import com.banka1.banking.models.helper.StatementFormat;
+import com.banka1.banking.repository.AccountRepository;
+import com.banka1.banking.repository.TransactionRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Izvodi transakcija za jedan racun, sve racune korisnika ili sve racune kompanije, u CSV
+ * ili NDJSON formatu. Redovi se citaju kursorom iz baze i odmah upisuju u izlaz, pa zauzeta
+ * memorija ne zavisi od broja transakcija u izvodu.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StatementService {
+    static final String CSV_HEADER = "id,timestamp,time,fromAccountNumber,toAccountNumber,amount,finalAmount,fee,currency,description,transferId";
+    private static final int FLUSH_EVERY = 500;
+    // DateTimeFormatter je nepromenljiv i thread-safe, pa se pravi samo jednom
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ssXXX")
+            .withZone(ZoneId.systemDefault());
+
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final BankAccountUtils bankAccountUtils;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Racuni koji ulaze u izvod i da li se prikazuju transakcije vidljive samo banci.
+     */
+    public record StatementScope(List<Long> accountIds, boolean includeBankOnly) {
+    }
+
+    public StatementScope accountScope(Long accountId) {
+        Long ownerId = accountRepository.findOwnerIdById(accountId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Račun sa ID-jem " + accountId + " nije pronađen"));
+        return new StatementScope(List.of(accountId), Objects.equals(bankAccountUtils.getBankOwnerId(), ownerId));
+    }
+
+    public StatementScope customerScope(Long userId) {
+        return new StatementScope(accountRepository.findIdsByOwnerID(userId), Objects.equals(bankAccountUtils.getBankOwnerId(), userId));
+    }
+
+    public StatementScope companyScope(Long companyId) {
+        List<Long> accountIds = accountRepository.findIdsByCompanyId(companyId);
+        if (accountIds.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Nema racuna kompanije.");
+        }
+        boolean bankCompany = accountRepository.existsByCompanyIdAndOwnerID(companyId, bankAccountUtils.getBankOwnerId());
+        return new StatementScope(accountIds, bankCompany);
+    }
+
+    /**
+     * Upisuje izvod u out, od najstarije transakcije. Stream iz baze je otvoren samo dok traje
+     * ova transakcija; out se ne zatvara, samo se prazni.
+     *
+     * @param from pocetak perioda u ms (ukljucen), ili null
+     * @param to   kraj perioda u ms (iskljucen), ili null
+     * @return broj upisanih transakcija
+     */
+    @Transactional(readOnly = true)
+    public long writeStatement(StatementScope scope, Long from, Long to, StatementFormat format, OutputStream out) throws IOException {
+        RowWriter writer = format == StatementFormat.NDJSON ? new NdjsonWriter(out) : new CsvWriter(out);
+        long count = 0;
+        if (!scope.accountIds().isEmpty()) {
+            try (Stream<TransactionHistoryView> rows = transactionRepository.streamStatement(scope.accountIds(), scope.includeBankOnly(),
+                    from == null ? Long.MIN_VALUE : from, to == null ? Long.MAX_VALUE : to)) {
+                Iterator<TransactionHistoryView> iterator = rows.iterator();
+                while (iterator.hasNext()) {
+                    writer.write(iterator.next());
+                    if (++count % FLUSH_EVERY == 0) {
+                        writer.flush();
+                    }
+                }
+            }
+        }
+        writer.finish();
+        log.info("Izvod za {} racuna: {} transakcija ({})", scope.accountIds().size(), count, format);
+        return count;
+    }
+
+    private abstract static class RowWriter {
+        // Transakcije iz iste sekunde dele formatirano vreme
+        private long lastSecond = Long.MIN_VALUE;
+        private String lastTime;
+
+        abstract void write(TransactionHistoryView row) throws IOException;
+
+        abstract void flush() throws IOException;
+
+        abstract void finish() throws IOException;
+
+        String formatTime(long timestamp) {
+            long second = Math.floorDiv(timestamp, 1000L);
+            if (second != lastSecond) {
+                lastTime = TIME_FORMAT.format(Instant.ofEpochSecond(second));
+                lastSecond = second;
+            }
+            return lastTime;
+        }
+
+        static String fromAccount(TransactionHistoryView row) {
+            return row.getFromAccountNumber() != null ? row.getFromAccountNumber() : "foreign";
+        }
+
+        static String toAccount(TransactionHistoryView row) {
+            if (row.getToAccountNumber() != null)
+                return row.getToAccountNumber();
+            return row.getTransferNote() != null ? row.getTransferNote() : "foreign";
+        }
+    }
+
+    private static final class CsvWriter extends RowWriter {
+        private final Writer writer;
+
+        CsvWriter(OutputStream out) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        @Override
+        void write(TransactionHistoryView row) throws IOException {
+            writer.write(String.valueOf(row.getId()));
+            writer.write(',');
+            writer.write(String.valueOf(row.getTimestamp()));
+            writer.write(',');
+            writer.write(formatTime(row.getTimestamp()));
+            writer.write(',');
+            text(fromAccount(row));
+            writer.write(',');
+            text(toAccount(row));
+            writer.write(',');
+            number(row.getAmount());
+            writer.write(',');
+            number(row.getFinalAmount());
+            writer.write(',');
+            number(row.getFee());
+            writer.write(',');
+            text(row.getCurrencyCode());
+            writer.write(',');
+            text(row.getDescription());
+            writer.write(',');
+            if (row.getTransferId() != null)
+                writer.write(String.valueOf(row.getTransferId()));
+            writer.write('\n');
+        }
+
+        private void number(Double value) throws IOException {
+            if (value != null)
+                writer.write(BigDecimal.valueOf(value).stripTrailingZeros().toPlainString());
+        }
+
+        private void text(String value) throws IOException {
+            if (value == null || value.isEmpty())
+                return;
+            // Tabele bi vrednost koja pocinje sa =, +, - ili @ izvrsile kao formulu
+            char first = value.charAt(0);
+            if (first == '=' || first == '+' || first == '-' || first == '@')
+                value = "'" + value;
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+
+        @Override
+        void flush() throws IOException {
+            writer.flush();
+        }
+
+        @Override
+        void finish() throws IOException {
+            writer.flush();
+        }
+    }
+
+    private final class NdjsonWriter extends RowWriter {
+        private final JsonGenerator generator;
+
+        NdjsonWriter(OutputStream out) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(out);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Redovi se razdvajaju samo novim redom
+            generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        void write(TransactionHistoryView row) throws IOException {
+            generator.writeStartObject();
+            generator.writeNumberField("id", row.getId());
+            generator.writeNumberField("timestamp", row.getTimestamp());
+            generator.writeStringField("time", formatTime(row.getTimestamp()));
+            generator.writeStringField("fromAccountNumber", fromAccount(row));
+            generator.writeStringField("toAccountNumber", toAccount(row));
+            number("amount", row.getAmount());
+            number("finalAmount", row.getFinalAmount());
+            number("fee", row.getFee());
+            generator.writeStringField("currency", row.getCurrencyCode());
+            generator.writeStringField("description", row.getDescription());
+            if (row.getTransferId() != null)
+                generator.writeNumberField("transferId", row.getTransferId());
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        // Kao u CSV-u iznos moze da nedostaje, pa polje ostaje sa null vrednoscu
+        private void number(String field, Double value) throws IOException {
+            if (value != null)
+                generator.writeNumberField(field, value);
+            else
+                generator.writeNullField(field);
+        }
+
+        @Override
+        void flush() throws IOException {
+            generator.flush();
+        }
+
+        @Override
+        void finish() throws IOException {
+            generator.close();
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.banka1.banking.services;
 
+import com.banka1.banking.aspect.RetryOnLockFailure;
+import com.banka1.banking.dto.ExchangeQuote;
 import com.banka1.banking.dto.MoneyTransferDTO;
 import com.banka1.banking.dto.TaxCollectionDTO;
 import com.banka1.banking.models.Account;
@@ -17,7 +19,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
 import java.time.LocalDateTime;
-import java.util.Map;
+import java.util.Collections;
 
 @Service
 @Slf4j
@@ -29,18 +31,21 @@ public class TaxService {
     private final TransactionRepository transactionRepository;
     private final TransferRepository transferRepository;
     private final ExchangeService exchangeService;
+    private final HouseAccountLedger houseAccountLedger;
 
     @Transactional
+    @RetryOnLockFailure
     public void payTax(TaxCollectionDTO dto) {
         Account account = accountRepository.findById(dto.getAccountId()).orElseThrow();
+        Account bankAccount = bankAccountUtils.getBankAccountForCurrency(CurrencyType.RSD);
 
+        // Racun banke se ne zakljucava, uplata ide atomicno kroz HouseAccountLedger
+        accountRepository.lockAllById(Collections.singletonList(account.getId()));
         if(account.getBalance() < dto.getAmount())
             throw new RuntimeException("Nedovoljno sredstava");
 
-        Account bankAccount = bankAccountUtils.getBankAccountForCurrency(CurrencyType.RSD);
-
         account.setBalance(account.getBalance() - dto.getAmount());
-        Map<String, Object> exchangeMap = null;
+        ExchangeQuote exchangeQuote = null;
 
         MoneyTransferDTO moneyTransferDTO = new MoneyTransferDTO();
 
@@ -60,14 +65,13 @@ public class TaxService {
         );
 
         if(account.getCurrencyType() == CurrencyType.RSD)
-            bankAccount.setBalance(bankAccount.getBalance() + dto.getAmount());
+            houseAccountLedger.credit(bankAccount.getId(), dto.getAmount());
         else {
-            exchangeMap = exchangeService.calculatePreviewExchangeAutomatic(account.getCurrencyType().toString(), "RSD", dto.getAmount());
-            bankAccount.setBalance(bankAccount.getBalance() + (Double) exchangeMap.get("finalAmount") + (Double) exchangeMap.get("fee"));
+            exchangeQuote = exchangeService.quote(account.getCurrencyType(), CurrencyType.RSD, dto.getAmount());
+            houseAccountLedger.credit(bankAccount.getId(), exchangeQuote.getFinalAmount() + exchangeQuote.getFee());
         }
 
         accountRepository.save(account);
-        accountRepository.save(bankAccount);
 
         Transaction debitTransaction = new Transaction();
         debitTransaction.setFromAccountId(account);
@@ -77,9 +81,9 @@ public class TaxService {
         debitTransaction.setFee(0.0);
         debitTransaction.setBankOnly(true);
 
-        if(exchangeMap != null) {
-            log.info(exchangeMap.toString());
-            debitTransaction.setFinalAmount((Double) exchangeMap.get("finalAmount") + (Double) exchangeMap.get("fee"));
+        if(exchangeQuote != null) {
+            log.info("{}", exchangeQuote);
+            debitTransaction.setFinalAmount(exchangeQuote.getFinalAmount() + exchangeQuote.getFee());
         } else {
             debitTransaction.setFinalAmount(transfer.getAmount());
         }
@@ -1,36 +1,168 @@
 package com.banka1.banking.services;
 
+import com.banka1.banking.dto.CustomerDTO;
+import com.banka1.banking.dto.TransactionHistoryDTO;
+import com.banka1.banking.dto.TransactionHistoryPageDTO;
+import com.banka1.banking.dto.TransactionHistoryView;
 import com.banka1.banking.models.Account;
 import com.banka1.banking.models.Transaction;
 import com.banka1.banking.models.Transfer;
-import com.banka1.banking.models.helper.CurrencyType;
+import com.banka1.banking.models.helper.TransactionDirection;
 import com.banka1.banking.repository.AccountRepository;
 import com.banka1.banking.repository.TransactionRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 @Transactional
 public class TransactionService {
+    public static final int DEFAULT_HISTORY_PAGE_SIZE = 50;
+    public static final int MAX_HISTORY_PAGE_SIZE = 200;
+
     private final AccountRepository accountRepository;
     private final TransactionRepository transactionRepository;
     private final BankAccountUtils bankAccountUtils;
+    private final AccountOwnerCache accountOwnerCache;
+    private final UserServiceCustomer userServiceCustomer;
 
     @Transactional
     public List<Transaction> getTransactionsByUserId(Long userId) {
         List<Account> accounts = accountRepository.findByOwnerID(userId);
         List<Transaction> transactions = transactionRepository.findByFromAccountIdInOrToAccountIdIn(accounts, accounts);
-        if(!Objects.equals(bankAccountUtils.getBankAccountForCurrency(CurrencyType.RSD).getOwnerID(), userId))
+        if(!Objects.equals(bankAccountUtils.getBankOwnerId(), userId))
             transactions.removeIf(Transaction::getBankOnly);
         return transactions;
     }
 
 
+    /**
+     * Strana istorije transakcija racuna. Transakcije vidljive samo banci se vracaju samo
+     * za racune banke, kao u AccountService.getTransactionsForAccount.
+     *
+     * @param cursor    nextCursor sa prethodne strane, ili null za najnovije transakcije
+     * @param from      pocetak vremenskog opsega u ms (ukljucen), ili null
+     * @param to        kraj vremenskog opsega u ms (iskljucen), ili null
+     * @param direction dolazne, odlazne ili sve transakcije; null znaci sve
+     * @param limit     velicina strane, najvise {@link #MAX_HISTORY_PAGE_SIZE}
+     */
+    @Transactional(readOnly = true)
+    public TransactionHistoryPageDTO getAccountHistory(Long accountId, String cursor, Long from, Long to,
+                                                       TransactionDirection direction, Integer limit) {
+        Long ownerId = accountOwnerCache.getOwnerId(accountId);
+        if (ownerId == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Račun sa ID-jem " + accountId + " nije pronađen");
+        }
+        boolean includeBankOnly = Objects.equals(bankAccountUtils.getBankOwnerId(), ownerId);
+        return getHistory(List.of(accountId), includeBankOnly, cursor, from, to, direction, limit);
+    }
+
+    /**
+     * Kao {@link #getAccountHistory}, ali za sve racune korisnika zajedno.
+     */
+    @Transactional(readOnly = true)
+    public TransactionHistoryPageDTO getUserHistory(Long userId, String cursor, Long from, Long to,
+                                                    TransactionDirection direction, Integer limit) {
+        boolean includeBankOnly = Objects.equals(bankAccountUtils.getBankOwnerId(), userId);
+        return getHistory(accountRepository.findIdsByOwnerID(userId), includeBankOnly, cursor, from, to, direction, limit);
+    }
+
+    private TransactionHistoryPageDTO getHistory(Collection<Long> accountIds, boolean includeBankOnly, String cursor,
+                                                 Long from, Long to, TransactionDirection direction, Integer limit) {
+        if (accountIds.isEmpty()) {
+            return new TransactionHistoryPageDTO(List.of(), null);
+        }
+        int pageSize = limit == null ? DEFAULT_HISTORY_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_HISTORY_PAGE_SIZE));
+        long[] position = parseCursor(cursor);
+        TransactionDirection effectiveDirection = direction == null ? TransactionDirection.ALL : direction;
+
+        // Jedan red vise od strane govori da li postoji sledeca strana
+        List<TransactionHistoryView> rows = transactionRepository.findHistory(accountIds,
+                effectiveDirection != TransactionDirection.INCOMING,
+                effectiveDirection != TransactionDirection.OUTGOING,
+                includeBankOnly,
+                from == null ? Long.MIN_VALUE : from,
+                to == null ? Long.MAX_VALUE : to,
+                position[0], position[1],
+                pageSize + 1);
+        boolean hasMore = rows.size() > pageSize;
+        List<TransactionHistoryView> page = hasMore ? rows.subList(0, pageSize) : rows;
+
+        // Imena vlasnika za celu stranu se dohvataju jednim zahtevom ka user-service-u
+        Set<Long> ownerIds = new LinkedHashSet<>();
+        for (TransactionHistoryView row : page) {
+            if (row.getFromOwnerId() != null)
+                ownerIds.add(row.getFromOwnerId());
+            if (row.getToOwnerId() != null)
+                ownerIds.add(row.getToOwnerId());
+        }
+        Map<Long, CustomerDTO> owners = ownerIds.isEmpty() ? Map.of() : userServiceCustomer.getCustomersByIds(ownerIds);
+
+        List<TransactionHistoryDTO> transactions = new ArrayList<>(page.size());
+        for (TransactionHistoryView row : page) {
+            transactions.add(toHistoryDTO(row, owners));
+        }
+
+        TransactionHistoryView last = page.isEmpty() ? null : page.get(page.size() - 1);
+        String nextCursor = hasMore ? last.getTimestamp() + "_" + last.getId() : null;
+        return new TransactionHistoryPageDTO(transactions, nextCursor);
+    }
+
+    private static long[] parseCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return new long[]{Long.MAX_VALUE, Long.MAX_VALUE};
+        }
+        String[] parts = cursor.split("_");
+        try {
+            if (parts.length == 2) {
+                return new long[]{Long.parseLong(parts[0]), Long.parseLong(parts[1])};
+            }
+        } catch (NumberFormatException ignored) {
+            // isto kao i pogresan broj delova
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Neispravan kursor za istoriju transakcija.");
+    }
+
+    private static TransactionHistoryDTO toHistoryDTO(TransactionHistoryView row, Map<Long, CustomerDTO> owners) {
+        TransactionHistoryDTO dto = new TransactionHistoryDTO();
+        dto.setId(row.getId());
+        dto.setFromAccountId(row.getFromAccountId());
+        dto.setToAccountId(row.getToAccountId());
+        // Racuni u drugim bankama nisu kod nas, kao i ranije se prikazuje napomena transfera
+        dto.setFromAccountNumber(row.getFromAccountNumber() != null ? row.getFromAccountNumber() : "foreign");
+        dto.setToAccountNumber(row.getToAccountNumber() != null ? row.getToAccountNumber()
+                : row.getTransferNote() != null ? row.getTransferNote() : "foreign");
+        dto.setAmount(row.getAmount());
+        dto.setFinalAmount(row.getFinalAmount());
+        dto.setFee(row.getFee());
+        dto.setCurrencyCode(row.getCurrencyCode());
+        dto.setTimestamp(row.getTimestamp());
+        dto.setDescription(row.getDescription());
+        dto.setTransferId(row.getTransferId());
+        dto.setSenderName(ownerName(owners, row.getFromOwnerId()));
+        dto.setReceiverName(ownerName(owners, row.getToOwnerId()));
+        return dto;
+    }
+
+    private static String ownerName(Map<Long, CustomerDTO> owners, Long ownerId) {
+        if (ownerId == null) {
+            return "Strana banka";
+        }
+        CustomerDTO customer = owners.get(ownerId);
+        return customer == null ? null : customer.getFirstName() + " " + customer.getLastName();
+    }
+
     public boolean userExists(Long id){
         return transactionRepository.existsById(id);
     }
@@ -0,0 +1,51 @@
+package com.banka1.banking.services;
+
+import com.banka1.banking.models.helper.TransferStatus;
+import com.banka1.banking.repository.TransferRepository;
+import com.banka1.banking.utils.HierarchicalTimerWheel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Otkazuje transfere kojima je istekao OTP tacno u trenutku isticanja, bez skeniranja tabele.
+ * Rok se zakazuje u timer wheel-u po id-u transfera kada se generise OTP i uklanja kada se OTP iskoristi.
+ * Transfere koje wheel ne zna (kreirane pre restarta ili na drugoj instanci) pokupi
+ * {@link TransferService#cancelExpiredTransfers()}.
+ */
+@Slf4j
+@Component
+public class TransferExpiryScheduler {
+
+    public static final long TRANSFER_TTL_MILLIS = 5 * 60 * 1000;
+
+    private final TransferRepository transferRepository;
+    // Tick od jedne sekunde, 64 slota i 3 nivoa pokrivaju oko 72h unapred
+    private final HierarchicalTimerWheel wheel = new HierarchicalTimerWheel(1000, 64, 3, System.currentTimeMillis());
+
+    public TransferExpiryScheduler(TransferRepository transferRepository) {
+        this.transferRepository = transferRepository;
+    }
+
+    public void schedule(Long transferId, long deadlineMillis) {
+        wheel.schedule(transferId, deadlineMillis);
+    }
+
+    public void cancel(Long transferId) {
+        wheel.cancel(transferId);
+    }
+
+    @Scheduled(fixedRate = 1000)
+    @Transactional
+    public void expireDueTransfers() {
+        List<Long> expired = wheel.advance(System.currentTimeMillis());
+        if (expired.isEmpty()) {
+            return;
+        }
+        int cancelled = transferRepository.updateStatusByIdInAndStatus(expired, TransferStatus.PENDING, TransferStatus.CANCELLED);
+        log.debug("Isteklo {} transfera, otkazano {}", expired.size(), cancelled);
+    }
+}
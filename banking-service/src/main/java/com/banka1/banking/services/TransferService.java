@@ -1,25 +1,28 @@
 package com.banka1.banking.services;
 
+import com.banka1.banking.aspect.RetryOnLockFailure;
 import com.banka1.banking.config.InterbankConfig;
 import com.banka1.banking.dto.CustomerDTO;
+import com.banka1.banking.dto.ExchangeQuote;
 import com.banka1.banking.dto.InternalTransferDTO;
 import com.banka1.banking.dto.MoneyTransferDTO;
 import com.banka1.banking.dto.NotificationDTO;
 import com.banka1.banking.models.*;
 import com.banka1.banking.models.Currency;
 import com.banka1.banking.models.helper.AccountStatus;
+import com.banka1.banking.models.helper.AccountType;
 import com.banka1.banking.models.helper.CurrencyType;
 import com.banka1.banking.models.helper.IdempotenceKey;
 import com.banka1.banking.models.helper.TransferStatus;
 import com.banka1.banking.models.helper.TransferType;
 import com.banka1.banking.repository.*;
+import com.banka1.banking.utils.MoneyUtils;
 import com.banka1.common.listener.MessageHelper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jms.core.JmsTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
@@ -56,13 +59,15 @@ public class TransferService {
     private final OtpTokenService otpTokenService;
 
     private final BankAccountUtils bankAccountUtils;
+    private final HouseAccountLedger houseAccountLedger;
+    private final PostingLedger postingLedger;
     private final ReceiverService receiverService;
 
     private final InterbankService interbankService;
     private final InterbankConfig config;
 
 
-    public TransferService(AccountRepository accountRepository, TransferRepository transferRepository, TransactionRepository transactionRepository, CurrencyRepository currencyRepository, JmsTemplate jmsTemplate, MessageHelper messageHelper, @Value("${destination.email}") String destinationEmail, UserServiceCustomer userServiceCustomer, ExchangeService exchangeService, OtpTokenService otpTokenService, BankAccountUtils bankAccountUtils, ReceiverService receiverService, InterbankService interbankService, InterbankConfig config) {
+    public TransferService(AccountRepository accountRepository, TransferRepository transferRepository, TransactionRepository transactionRepository, CurrencyRepository currencyRepository, JmsTemplate jmsTemplate, MessageHelper messageHelper, @Value("${destination.email}") String destinationEmail, UserServiceCustomer userServiceCustomer, ExchangeService exchangeService, OtpTokenService otpTokenService, BankAccountUtils bankAccountUtils, HouseAccountLedger houseAccountLedger, PostingLedger postingLedger, ReceiverService receiverService, InterbankService interbankService, InterbankConfig config) {
         this.accountRepository = accountRepository;
         this.transferRepository = transferRepository;
         this.transactionRepository = transactionRepository;
@@ -74,12 +79,15 @@ public class TransferService {
         this.exchangeService = exchangeService;
         this.otpTokenService = otpTokenService;
         this.bankAccountUtils = bankAccountUtils;
+        this.houseAccountLedger = houseAccountLedger;
+        this.postingLedger = postingLedger;
         this.receiverService = receiverService;
         this.interbankService = interbankService;
         this.config = config;
     }
 
-    @Transactional(isolation = Isolation.SERIALIZABLE)
+    @Transactional
+    @RetryOnLockFailure
     public String processTransfer(Long transferId) {
         Transfer transfer = transferRepository.findById(transferId)
                 .orElseThrow(() -> new RuntimeException("Transfer not found"));
@@ -93,17 +101,66 @@ public class TransferService {
         };
     }
 
+    /**
+     * Locks the customer accounts whose balance the transfer changes, in ascending id order.
+     * Bank house accounts are not locked, their provisions go through {@link HouseAccountLedger}.
+     */
+    private void lockTransferAccounts(Transfer transfer) {
+        Account fromAccount = transfer.getFromAccountId();
+        Account toAccount = transfer.getToAccountId();
+
+        List<Long> accountIds = new ArrayList<>();
+        if (!isHouseAccount(fromAccount)) {
+            accountIds.add(fromAccount.getId());
+        }
+        if (toAccount != null && !isHouseAccount(toAccount)) {
+            accountIds.add(toAccount.getId());
+        }
+
+        accountRepository.lockAllById(accountIds);
+    }
+
+    private static boolean isHouseAccount(Account account) {
+        return account.getType() == AccountType.BANK;
+    }
+
+    /**
+     * Stanje raspolozivo za isplatu. Racun banke se ne zakljucava, pa se stanje cita iz baze
+     * zajedno sa uplatama koje {@link HouseAccountLedger} jos nije prebacio na racun.
+     */
+    private double availableBalance(Account account) {
+        return isHouseAccount(account) ? houseAccountLedger.availableBalance(account.getId()) : account.getBalance();
+    }
+
+    /**
+     * Menja stanje racuna za delta. Racun banke se menja atomicno kroz {@link HouseAccountLedger}
+     * (isplata ne moze da ode u minus), a racun klijenta, zakljucan u {@link #lockTransferAccounts}, u entitetu.
+     */
+    private void applyBalanceChange(Account account, double delta) {
+        if (!isHouseAccount(account)) {
+            account.setBalance(MoneyUtils.add(account.getBalance(), delta, account.getCurrencyType()));
+        } else if (delta >= 0) {
+            houseAccountLedger.credit(account.getId(), delta);
+        } else {
+            houseAccountLedger.debit(account.getId(), -delta);
+        }
+    }
+
     /**
      * Completes a currency exchange transfer between two accounts with different currencies.
-     * This method is called after the initial amount has been deducted from the source account.
+     * The source account is debited here, callers must not debit it before the exchange.
+     * In each currency the bank's house account is the counterparty, and the balance changes
+     * are exactly the posted journal: the bank receives the full amount in the source currency
+     * and pays out {@link #creditedAmount(ExchangeQuote)} in the target currency, so the
+     * provision stays with the bank as the difference.
      *
      * @param transfer    The transfer details
      * @param fromAccount The source account
      * @param toAccount   The destination account
-     * @return Map containing exchange details
+     * @return Quote containing exchange details
      */
     @Transactional
-    protected Map<String, Object> performCurrencyExchangeTransfer(
+    protected ExchangeQuote performCurrencyExchangeTransfer(
             Transfer transfer,
             Account fromAccount,
             Account toAccount
@@ -116,15 +173,42 @@ public class TransferService {
         CurrencyType fromCurrencyType = fromAccount.getCurrencyType();
         CurrencyType toCurrencyType = toAccount.getCurrencyType();
 
+        ExchangeQuote exchangeQuote;
         if (fromCurrencyType == CurrencyType.RSD) {
             log.debug("Performing RSD to Foreign exchange");
-            return performRsdToForeign(transfer.getAmount(), fromAccount, toAccount);
+            exchangeQuote = performRsdToForeign(transfer.getAmount(), fromAccount, toAccount);
         } else if (toCurrencyType == CurrencyType.RSD) {
             log.debug("Performing Foreign to RSD exchange");
-            return performForeignToRsd(transfer.getAmount(), fromAccount, toAccount);
+            exchangeQuote = performForeignToRsd(transfer.getAmount(), fromAccount, toAccount);
+        } else {
+            log.debug("Performing Foreign to Foreign exchange");
+            exchangeQuote = performForeignToForeignExchange(transfer, fromAccount, toAccount);
         }
-        log.debug("Performing Foreign to Foreign exchange");
-        return performForeignToForeignExchange(transfer, fromAccount, toAccount);
+
+        // U svakoj valuti racun banke je druga strana: prima iznos klijenta i isplacuje konvertovan iznos
+        postingLedger.post(PostingLedger.journal(transfer.getId(), "Menjacnica")
+                .move(fromAccount.getId(), bankAccountUtils.getBankAccountForCurrency(fromCurrencyType).getId(),
+                        fromCurrencyType, transfer.getAmount())
+                .move(bankAccountUtils.getBankAccountForCurrency(toCurrencyType).getId(), toAccount.getId(),
+                        toCurrencyType, creditedAmount(exchangeQuote)));
+        return exchangeQuote;
+    }
+
+    /**
+     * Iznos koji klijent dobija posle konverzije, zaokruzen nanize na najmanju jedinicu ciljne valute
+     * (npr. ceo jen). Ostatak ispod najmanje jedinice ostaje banci.
+     */
+    static double creditedAmount(ExchangeQuote exchangeQuote) {
+        return MoneyUtils.roundDown(exchangeQuote.getFinalAmount(), exchangeQuote.getToCurrency());
+    }
+
+    /**
+     * Noge banke u menjacnici: racun banke u polaznoj valuti prima iznos klijenta, a racun banke
+     * u ciljnoj valuti isplacuje iznos koji klijent dobija. Oba idu atomicno kroz {@link HouseAccountLedger}.
+     */
+    private void settleBankExchangeLegs(Account fromCurrencyBankAccount, double amount, Account toCurrencyBankAccount, double credited) {
+        houseAccountLedger.credit(fromCurrencyBankAccount.getId(), amount);
+        houseAccountLedger.debit(toCurrencyBankAccount.getId(), credited);
     }
 
     /**
@@ -134,9 +218,9 @@ public class TransferService {
      * 2) Convert EUR to RSD (applying exchange fee)
      * 3) Convert RSD to USD (applying exchange fee)
      * 4) Transfer resulting USD from bank's USD account to customer's account
-     * 5) "Spawn" exchange fees on bank's RSD account
+     * Both provisions stay with the bank: its USD account pays out the amount after both fees.
      */
-    private Map<String, Object> performForeignToForeignExchange(
+    private ExchangeQuote performForeignToForeignExchange(
             Transfer transfer,
             Account fromAccount,
             Account toAccount
@@ -150,34 +234,23 @@ public class TransferService {
         Account rsdBankAccount = bankAccountUtils.getBankAccountForCurrency(CurrencyType.RSD);
         Account toCurrencyBankAccount = bankAccountUtils.getBankAccountForCurrency(toAccount.getCurrencyType());
 
-        Map<String, Object> firstExchange = exchangeService.calculatePreviewExchangeAutomatic(
-                fromAccount.getCurrencyType().toString(),
-                "RSD",
+        // Obe noge (strana -> RSD -> strana) racunaju se u jednom obracunu
+        ExchangeQuote exchange = exchangeService.quote(
+                fromAccount.getCurrencyType(),
+                toAccount.getCurrencyType(),
                 transfer.getAmount()
         );
-        Double firstExchangedAmount = (Double) firstExchange.get("finalAmount");
-        Double firstExchangeProvision = (Double) firstExchange.get("provision");
-        Double firstExchangeRate = (Double) firstExchange.get("exchangeRate");
-
-        Map<String, Object> secondExchange = exchangeService.calculatePreviewExchangeAutomatic(
-                "RSD",
-                toAccount.getCurrencyType().toString(),
-                firstExchangedAmount
-        );
-        Double secondExchangedAmount = (Double) secondExchange.get("finalAmount");
-        Double secondExchangeProvision = (Double) secondExchange.get("provision");
-        Double secondExchangeTotalFee = (Double) secondExchange.get("totalFee");
+        double firstExchangedAmount = exchange.getIntermediateAmount();
+        double firstExchangeRate = exchange.getFirstRate();
+
+        double secondExchangedAmount = creditedAmount(exchange);
 
         //skidamo korisniku EUR
-        fromAccount.setBalance(fromAccount.getBalance() - transfer.getAmount());
-        // i stavljamo direktno na racun banke za tu valutu
-        fromCurrencyBankAccount.setBalance(fromCurrencyBankAccount.getBalance());
-        // dodajemo konvertovanu svotu iz evra na racun dinara
-        rsdBankAccount.setBalance(rsdBankAccount.getBalance() + firstExchangeProvision);
-        //balance  - total + provision (finalAmount)
-        toCurrencyBankAccount.setBalance(toCurrencyBankAccount.getBalance() + secondExchangeProvision);
+        applyBalanceChange(fromAccount, -transfer.getAmount());
+        // banka prima EUR i isplacuje USD, provizije obe noge ostaju banci
+        settleBankExchangeLegs(fromCurrencyBankAccount, transfer.getAmount(), toCurrencyBankAccount, secondExchangedAmount);
         //dodajemo pare na devizni racun korisnika
-        toAccount.setBalance(toAccount.getBalance() + secondExchangedAmount);
+        applyBalanceChange(toAccount, secondExchangedAmount);
 
         //from user -> bank (foreign currency)
         Transaction firstTransaction = createTransaction(
@@ -232,16 +305,13 @@ public class TransferService {
         transactionRepository.saveAll(transactions);
         transferRepository.save(transfer);
 
-
-        return exchangeService.calculatePreviewExchangeAutomatic(fromAccount.getCurrencyType().toString(),
-                toAccount.getCurrencyType().toString(),
-                transfer.getAmount());
+        return exchange;
     }
 
     /**
      * Performs an exchange from RSD to a foreign currency.
      */
-    public Map<String, Object> performRsdToForeign(Double amount, Account fromAccount, Account toAccount) {
+    public ExchangeQuote performRsdToForeign(Double amount, Account fromAccount, Account toAccount) {
         if (amount <= 0) {
             throw new IllegalArgumentException("Amount must be positive");
         }
@@ -255,20 +325,20 @@ public class TransferService {
         Account foreignBankAccount = bankAccountUtils.getBankAccountForCurrency(toAccount.getCurrencyType());
         CustomerDTO receiver = userServiceCustomer.getCustomerById(toAccount.getOwnerID());
 
-        Map<String, Object> exchange = exchangeService.calculatePreviewExchangeAutomatic(
-                "RSD",
-                toAccount.getCurrencyType().toString(),
+        ExchangeQuote exchange = exchangeService.quote(
+                CurrencyType.RSD,
+                toAccount.getCurrencyType(),
                 amount
         );
 
-        Double finalAmount = (Double) exchange.get("finalAmount");
-        Double provision = (Double) exchange.get("provision");
-        Double convertedAmount = (Double) exchange.get("convertedAmount");
+        double finalAmount = creditedAmount(exchange);
+        double convertedAmount = exchange.getConvertedAmount();
 
 
-        fromAccount.setBalance(fromAccount.getBalance() - amount);
-        foreignBankAccount.setBalance(foreignBankAccount.getBalance() + provision);
-        toAccount.setBalance(toAccount.getBalance() + finalAmount);
+        applyBalanceChange(fromAccount, -amount);
+        // banka prima dinare i isplacuje stranu valutu, provizija ostaje banci
+        settleBankExchangeLegs(rsdBankAccount, amount, foreignBankAccount, finalAmount);
+        applyBalanceChange(toAccount, finalAmount);
 
         Transfer transferToBank = createTransfer(
                 fromAccount,
@@ -338,7 +408,7 @@ public class TransferService {
     /**
      * Performs an exchange from a foreign currency to RSD.
      */
-    public Map<String, Object> performForeignToRsd(Double amount, Account fromAccount, Account toAccount) {
+    public ExchangeQuote performForeignToRsd(Double amount, Account fromAccount, Account toAccount) {
         if (amount <= 0) {
             throw new IllegalArgumentException("Amount must be positive");
         }
@@ -349,24 +419,24 @@ public class TransferService {
         Currency rsd = currencyRepository.getByCode(CurrencyType.RSD);
         Currency fromCurrency = currencyRepository.getByCode(fromAccount.getCurrencyType());
 
-        Map<String, Object> exchange = exchangeService.calculatePreviewExchangeAutomatic(
-                fromAccount.getCurrencyType().toString(),
-                "RSD",
+        ExchangeQuote exchange = exchangeService.quote(
+                fromAccount.getCurrencyType(),
+                CurrencyType.RSD,
                 amount
         );
 
-        Double finalAmount = (Double) exchange.get("finalAmount");
-        Double provision = (Double) exchange.get("provision");
-        Double convertedAmount = (Double) exchange.get("convertedAmount");
+        double finalAmount = creditedAmount(exchange);
+        double convertedAmount = exchange.getConvertedAmount();
 
         CustomerDTO receiver = userServiceCustomer.getCustomerById(toAccount.getOwnerID());
 
         Account rsdBankAccount = bankAccountUtils.getBankAccountForCurrency(rsd.getCode());
         Account foreignBankAccount = bankAccountUtils.getBankAccountForCurrency(fromAccount.getCurrencyType());
 
-        fromAccount.setBalance(fromAccount.getBalance() - amount);
-        rsdBankAccount.setBalance(rsdBankAccount.getBalance() + provision);
-        toAccount.setBalance(toAccount.getBalance() + finalAmount);
+        applyBalanceChange(fromAccount, -amount);
+        // banka prima stranu valutu i isplacuje dinare, provizija ostaje banci
+        settleBankExchangeLegs(foreignBankAccount, amount, rsdBankAccount, finalAmount);
+        applyBalanceChange(toAccount, finalAmount);
 
         Transfer transferToBank = createTransfer(
                 fromAccount,
@@ -550,7 +620,8 @@ public class TransferService {
         Account fromAccount = transfer.getFromAccountId();
         Double amount = transfer.getAmount();
 
-        if (fromAccount.getBalance() < amount) {
+        lockTransferAccounts(transfer);
+        if (availableBalance(fromAccount) < amount) {
             transfer.setStatus(TransferStatus.FAILED);
             transfer.setNote("Insufficient balance");
             transferRepository.save(transfer);
@@ -559,7 +630,7 @@ public class TransferService {
 
         try {
             System.out.println(fromAccount.getBalance() + " - " + amount);
-            fromAccount.setBalance(fromAccount.getBalance() - amount);
+            applyBalanceChange(fromAccount, -amount);
             fromAccount.setReservedBalance(fromAccount.getReservedBalance() + amount);
 
             accountRepository.save(fromAccount);
@@ -601,8 +672,10 @@ public class TransferService {
         Account fromAccount = transfer.getFromAccountId();
         Account toAccount = transfer.getToAccountId();
 
+        lockTransferAccounts(transfer);
+
         //Ukoliko na racunu ne postoji dovoljno sredstava za izvrsenje
-        if (fromAccount.getBalance() < transfer.getAmount()) {
+        if (availableBalance(fromAccount) < transfer.getAmount()) {
             transfer.setStatus(TransferStatus.FAILED);
             transferRepository.save(transfer);
             throw new RuntimeException("Insufficient funds");
@@ -610,14 +683,16 @@ public class TransferService {
 
         try{
             // Azuriranje balansa
-            Map<String, Object> exchangeMap = null;
+            ExchangeQuote exchangeQuote = null;
 
             if(transfer.getType().equals(TransferType.INTERNAL)) {
-                fromAccount.setBalance(fromAccount.getBalance() - transfer.getAmount());
-                toAccount.setBalance(toAccount.getBalance() + transfer.getAmount());
+                applyBalanceChange(fromAccount, -transfer.getAmount());
+                applyBalanceChange(toAccount, transfer.getAmount());
+                postingLedger.post(PostingLedger.journal(transfer.getId(), "Interni prenos")
+                        .move(fromAccount.getId(), toAccount.getId(), fromAccount.getCurrencyType(), transfer.getAmount()));
             }
             else {
-                exchangeMap = performCurrencyExchangeTransfer(transfer, fromAccount, toAccount);
+                exchangeQuote = performCurrencyExchangeTransfer(transfer, fromAccount, toAccount);
             }
 
             accountRepository.save(fromAccount);
@@ -629,9 +704,9 @@ public class TransferService {
             debitTransaction.setToAccountId(toAccount);
             debitTransaction.setAmount(transfer.getAmount());
             debitTransaction.setCurrency(transfer.getFromCurrency());
-            if(exchangeMap != null) {
-                debitTransaction.setFee((Double) exchangeMap.get("fee"));
-                debitTransaction.setFinalAmount((Double) exchangeMap.get("finalAmount"));
+            if(exchangeQuote != null) {
+                debitTransaction.setFee(exchangeQuote.getFee());
+                debitTransaction.setFinalAmount(creditedAmount(exchangeQuote));
             } else {
                 debitTransaction.setFee(0.0);
                 debitTransaction.setFinalAmount(transfer.getAmount());
@@ -682,7 +757,8 @@ public class TransferService {
         Account toAccount = transfer.getToAccountId();
         Double amount = transfer.getAmount();
 
-        if (fromAccount.getBalance() < amount) {
+        lockTransferAccounts(transfer);
+        if (availableBalance(fromAccount) < amount) {
             transfer.setStatus(TransferStatus.FAILED);
             transfer.setNote("Insufficient balance");
             transferRepository.save(transfer);
@@ -690,13 +766,15 @@ public class TransferService {
         }
 
         try {
-            fromAccount.setBalance(fromAccount.getBalance() - amount);
-            Map<String, Object> exchangeMap = null;
+            ExchangeQuote exchangeQuote = null;
 
-            if(transfer.getType().equals(TransferType.EXTERNAL))
-                toAccount.setBalance(toAccount.getBalance() + transfer.getAmount());
-            else {
-                exchangeMap = performCurrencyExchangeTransfer(transfer, fromAccount, toAccount);
+            if(transfer.getType().equals(TransferType.EXTERNAL)) {
+                applyBalanceChange(fromAccount, -amount);
+                applyBalanceChange(toAccount, transfer.getAmount());
+                postingLedger.post(PostingLedger.journal(transfer.getId(), "Prenos")
+                        .move(fromAccount.getId(), toAccount.getId(), fromAccount.getCurrencyType(), amount));
+            } else {
+                exchangeQuote = performCurrencyExchangeTransfer(transfer, fromAccount, toAccount);
             }
 
             accountRepository.save(fromAccount);
@@ -707,10 +785,10 @@ public class TransferService {
             debitTransaction.setToAccountId(toAccount);
             debitTransaction.setAmount(amount);
             debitTransaction.setCurrency(transfer.getFromCurrency());
-            if(exchangeMap != null) {
-                log.info(exchangeMap.toString());
-                debitTransaction.setFee((Double) exchangeMap.get("fee"));
-                debitTransaction.setFinalAmount((Double) exchangeMap.get("finalAmount"));
+            if(exchangeQuote != null) {
+                log.info("{}", exchangeQuote);
+                debitTransaction.setFee(exchangeQuote.getFee());
+                debitTransaction.setFinalAmount(creditedAmount(exchangeQuote));
             } else {
                 debitTransaction.setFee(0.0);
                 debitTransaction.setFinalAmount(transfer.getAmount());
@@ -867,8 +945,8 @@ public class TransferService {
             Map<String, String> data = Map.of("transferId", transfer.getId().toString(), "otp", otpCode);
             pushNotification.setAdditionalData(data);
 
-            jmsTemplate.convertAndSend(destinationEmail,messageHelper.createTextMessage(emailDto));
-            jmsTemplate.convertAndSend(destinationEmail,messageHelper.createTextMessage(pushNotification));
+            jmsTemplate.send(destinationEmail, messageHelper.messageCreator(emailDto));
+            jmsTemplate.send(destinationEmail, messageHelper.messageCreator(pushNotification));
 
             return transfer.getId();
         }
@@ -947,8 +1025,7 @@ public class TransferService {
         System.out.println("Creating money transfer");
         System.out.println("From account: " + moneyTransferDTO.getFromAccountNumber());
         System.out.println("To account: " + moneyTransferDTO.getRecipientAccount());
-        System.out.println(config.getForeignBankRoutingNumber());
-        if (moneyTransferDTO.getRecipientAccount().startsWith(config.getForeignBankRoutingNumber())) {
+        if (interbankService.isPartnerAccount(moneyTransferDTO.getRecipientAccount())) {
             System.out.println("Creating foreign bank transfer");
             return createForeignBankTransfer(moneyTransferDTO);
         }
@@ -996,8 +1073,8 @@ public class TransferService {
             Map<String, String> data = Map.of("transferId", transfer.getId().toString(), "otp", otpCode);
             pushNotification.setAdditionalData(data);
 
-            jmsTemplate.convertAndSend(destinationEmail,messageHelper.createTextMessage(emailDto));
-            jmsTemplate.convertAndSend(destinationEmail,messageHelper.createTextMessage(pushNotification));
+            jmsTemplate.send(destinationEmail, messageHelper.messageCreator(emailDto));
+            jmsTemplate.send(destinationEmail, messageHelper.messageCreator(pushNotification));
 
             return transfer.getId();
 
@@ -1051,25 +1128,27 @@ public class TransferService {
         Map<String, String> data = Map.of("transferId", transfer.getId().toString(), "otp", otpCode);
         pushNotification.setAdditionalData(data);
 
-        jmsTemplate.convertAndSend(destinationEmail,messageHelper.createTextMessage(emailDto));
-        jmsTemplate.convertAndSend(destinationEmail,messageHelper.createTextMessage(pushNotification));
+        jmsTemplate.send(destinationEmail, messageHelper.messageCreator(emailDto));
+        jmsTemplate.send(destinationEmail, messageHelper.messageCreator(pushNotification));
 
         return transfer.getId();
 
     }
 
-    @Scheduled(fixedRate = 10000)
+    /**
+     * Rezervni prolaz za transfere koje {@link TransferExpiryScheduler} ne zna, npr. kreirane pre restarta.
+     * Jedna UPDATE naredba preko indeksa (status, created_at), bez ucitavanja entiteta.
+     */
+    @Scheduled(fixedDelayString = "${transfer.expiry.sweep-interval-ms:60000}")
+    @Transactional
     public void cancelExpiredTransfers(){
 
-        long expirationTime = System.currentTimeMillis() - (5*60*1000);
-
-        List<Transfer> expiredTransfers = transferRepository.findAllByStatusAndCreatedAtBefore(TransferStatus.PENDING,expirationTime);
+        long expirationTime = System.currentTimeMillis() - TransferExpiryScheduler.TRANSFER_TTL_MILLIS;
 
-        for (Transfer transfer : expiredTransfers){
-            transfer.setStatus(TransferStatus.CANCELLED);
-            transferRepository.save(transfer);
+        int cancelled = transferRepository.updateStatusByStatusAndCreatedAtBefore(TransferStatus.PENDING, TransferStatus.CANCELLED, expirationTime);
+        if (cancelled > 0) {
+            log.debug("Otkazano {} isteklih transfera", cancelled);
         }
-
     }
 
     public Transfer findById(Long transferId) {
@@ -1081,10 +1160,12 @@ public class TransferService {
         return transferRepository.findAllByFromAccountId_OwnerID(userId);
     }
 
+    @Transactional
     public Transfer commitForeignBankTransfer(IdempotenceKey idempotenceKey) {
         Long transferID = Long.valueOf(idempotenceKey.getLocallyGeneratedKey());
         Transfer transfer = transferRepository.findById(transferID)
                 .orElseThrow(() -> new RuntimeException("Transfer not found"));
+        lockTransferAccounts(transfer);
 
         if (transfer.getStatus() != TransferStatus.RESERVED) {
             throw new RuntimeException("Transfer is not in reserved state");
@@ -1130,10 +1211,12 @@ public class TransferService {
         }
     }
 
+    @Transactional
     public Transfer rollbackForeignBankTransfer(IdempotenceKey idempotenceKey) {
         Long transferID = Long.valueOf(idempotenceKey.getLocallyGeneratedKey());
         Transfer transfer = transferRepository.findById(transferID)
                 .orElseThrow(() -> new RuntimeException("Transfer not found"));
+        lockTransferAccounts(transfer);
 
         if (transfer.getStatus() != TransferStatus.RESERVED) {
             throw new RuntimeException("Transfer is not in reserved state");
@@ -1146,7 +1229,7 @@ public class TransferService {
         try {
             Account fromAccount = transfer.getFromAccountId();
             fromAccount.setReservedBalance(fromAccount.getReservedBalance() - transfer.getAmount());
-            fromAccount.setBalance(fromAccount.getBalance() + transfer.getAmount());
+            fromAccount.setBalance(MoneyUtils.add(fromAccount.getBalance(), transfer.getAmount(), fromAccount.getCurrencyType()));
 
             transfer.setStatus(TransferStatus.CANCELLED);
             transferRepository.save(transfer);
@@ -1160,8 +1243,9 @@ public class TransferService {
     public Transfer receiveForeignBankTransfer(String accountNumber, double amount, String description, String senderName, Currency currency) {
         Account toAccount = accountRepository.findByAccountNumber(accountNumber)
                 .orElseThrow(() -> new RuntimeException("Destination account not found: " + accountNumber));
+        accountRepository.lockAllById(List.of(toAccount.getId()));
 
-        toAccount.setBalance(toAccount.getBalance() + amount);
+        toAccount.setBalance(MoneyUtils.add(toAccount.getBalance(), amount, toAccount.getCurrencyType()));
         accountRepository.save(toAccount);
 
         Transfer transfer = new Transfer();
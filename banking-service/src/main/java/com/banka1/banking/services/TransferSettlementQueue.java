@@ -0,0 +1,184 @@
+package com.banka1.banking.services;
+
+import com.banka1.banking.models.Transfer;
+import com.banka1.banking.repository.AccountRepository;
+import com.banka1.banking.repository.TransferRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Red za izvrsavanje transfera posle OTP verifikacije. Transferi se skupljaju u male grupe
+ * (do max-batch-size transfera ili max-delay-ms od prvog u grupi) i izvrsavaju u jednoj
+ * transakciji, pa se commit i JDBC batch insert-i dele na celu grupu.
+ * <p>
+ * Ako bilo koji transfer iz grupe ne uspe, cela grupa se ponistava i transferi se izvrsavaju
+ * pojedinacno, tako da greska jednog transfera ne utice na ostale. Isti transfer poslat vise puta
+ * dok je u redu dobija isti future, a {@link TransferService} obradjuje samo transfere u PENDING statusu.
+ */
+@Slf4j
+@Component
+public class TransferSettlementQueue {
+
+    record Settlement(Long transferId, CompletableFuture<String> result) {
+    }
+
+    private final TransferService transferService;
+    private final TransferRepository transferRepository;
+    private final AccountRepository accountRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+
+    private final BlockingQueue<Settlement> queue;
+    private final Map<Long, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public TransferSettlementQueue(TransferService transferService,
+                                   TransferRepository transferRepository,
+                                   AccountRepository accountRepository,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${transfer.settlement.max-batch-size:200}") int maxBatchSize,
+                                   @Value("${transfer.settlement.max-delay-ms:5}") long maxDelayMillis,
+                                   @Value("${transfer.settlement.queue-capacity:10000}") int queueCapacity) {
+        this.transferService = transferService;
+        this.transferRepository = transferRepository;
+        this.accountRepository = accountRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        worker = new Thread(this::run, "transfer-settlement");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        List<Settlement> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        remaining.forEach(settlement -> settlement.result().completeExceptionally(
+                new IllegalStateException("Obrada transfera je zaustavljena.")));
+    }
+
+    /**
+     * Dodaje transfer u red i vraca future koji se zavrsava porukom iz
+     * {@link TransferService#processTransfer(Long)} posle commit-a, ili greskom.
+     */
+    public CompletableFuture<String> submit(Long transferId) {
+        CompletableFuture<String> created = new CompletableFuture<>();
+        CompletableFuture<String> existing = inFlight.putIfAbsent(transferId, created);
+        if (existing != null) {
+            return existing;
+        }
+        created.whenComplete((result, error) -> inFlight.remove(transferId, created));
+        if (!queue.offer(new Settlement(transferId, created))) {
+            created.completeExceptionally(new IllegalStateException("Red za obradu transfera je pun."));
+        }
+        return created;
+    }
+
+    private void run() {
+        List<Settlement> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                Settlement first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < maxBatchSize) {
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= maxBatchSize || remaining <= 0) {
+                        break;
+                    }
+                    Settlement next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                settle(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                batch.forEach(settlement -> settlement.result().completeExceptionally(e));
+                return;
+            } catch (RuntimeException e) {
+                log.error("Greska u obradi grupe transfera", e);
+                batch.forEach(settlement -> settlement.result().completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    void settle(List<Settlement> batch) {
+        if (batch.size() > 1) {
+            try {
+                Map<Long, String> results = transactionTemplate.execute(status -> settleInTransaction(batch));
+                batch.forEach(settlement -> settlement.result().complete(results.get(settlement.transferId())));
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Grupa od {} transfera nije uspela, obrada pojedinacno: {}", batch.size(), e.getMessage());
+            }
+        }
+
+        for (Settlement settlement : batch) {
+            try {
+                settlement.result().complete(transferService.processTransfer(settlement.transferId()));
+            } catch (RuntimeException e) {
+                settlement.result().completeExceptionally(e);
+            }
+        }
+    }
+
+    private Map<Long, String> settleInTransaction(List<Settlement> batch) {
+        List<Long> transferIds = batch.stream().map(Settlement::transferId).toList();
+
+        // Racuni cele grupe se zakljucavaju unapred, rastuce po id-u, kao i kod pojedinacnog transfera
+        List<Long> accountIds = new ArrayList<>();
+        for (Transfer transfer : transferRepository.findAllById(transferIds)) {
+            if (transfer.getFromAccountId() != null) {
+                accountIds.add(transfer.getFromAccountId().getId());
+            }
+            if (transfer.getToAccountId() != null) {
+                accountIds.add(transfer.getToAccountId().getId());
+            }
+        }
+        accountRepository.lockAllById(accountIds);
+
+        Map<Long, String> results = new HashMap<>();
+        for (Long transferId : transferIds) {
+            results.put(transferId, transferService.processTransfer(transferId));
+        }
+        return results;
+    }
+}
@@ -1,33 +1,34 @@
 package com.banka1.banking.services;
 import com.banka1.banking.dto.CustomerDTO;
-import com.banka1.common.listener.MessageHelper;
-import jakarta.jms.JMSException;
+import com.banka1.common.listener.JmsRequestReplyClient;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.jms.core.JmsTemplate;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
 
 @Service
 @RequiredArgsConstructor
 public class UserServiceCustomer {
-    private final JmsTemplate jmsTemplate;
-    private final MessageHelper messageHelper;
+    private final JmsRequestReplyClient requestReplyClient;
+    private final CustomerCache customerCache;
 
     @Value("${destination.customer}")
     private String destination;
     @Value("${destination.customer.email}")
     private String destinationEmail;
+    @Value("${destination.customer.batch}")
+    private String destinationBatch;
 
     public CustomerDTO getCustomerById(Long customerId) {
-        var message = jmsTemplate.sendAndReceive(destination, session -> session.createTextMessage(messageHelper.createTextMessage(customerId)));
-        CustomerDTO response;
-        try {
-            response = messageHelper.getMessage(message, CustomerDTO.class);
-        } catch (JMSException e) {
-            throw new RuntimeException(e);
-        }
+        return customerCache.get(customerId, this::fetchCustomerById);
+    }
 
+    private CustomerDTO fetchCustomerById(Long customerId) {
+        CustomerDTO response = requestReplyClient.requestAndWait(destination, customerId, CustomerDTO.class);
         if (response == null) {
             throw new IllegalArgumentException("Korisnik nije pronađen ili API nije vratio očekivani format.");
         }
@@ -35,14 +36,32 @@ public class UserServiceCustomer {
         return response;
     }
 
-    public CustomerDTO getCustomerByEmail(String email){
-        var message = jmsTemplate.sendAndReceive(destinationEmail, session -> session.createTextMessage(messageHelper.createTextMessage(destinationEmail)));
-        CustomerDTO response;
-        try {
-            response = messageHelper.getMessage(message, CustomerDTO.class);
-        } catch (JMSException e) {
-            throw new RuntimeException(e);
+    /**
+     * Vraca korisnike po id-u, kljuc je id korisnika. Korisnici kojih nema u kesu se dohvataju
+     * jednom porukom umesto po jednom zahtevu za svaki id. Nepostojeci korisnici nisu u mapi.
+     */
+    public Map<Long, CustomerDTO> getCustomersByIds(Collection<Long> customerIds) {
+        if (customerIds.isEmpty()) {
+            return Map.of();
         }
+        return customerCache.getAll(customerIds, this::fetchCustomersByIds);
+    }
+
+    private Map<Long, CustomerDTO> fetchCustomersByIds(Collection<Long> customerIds) {
+        CustomerDTO[] response = requestReplyClient.requestAndWait(destinationBatch, customerIds, CustomerDTO[].class);
+        if (response == null) {
+            throw new IllegalArgumentException("API nije vratio očekivani format.");
+        }
+
+        Map<Long, CustomerDTO> customers = new HashMap<>();
+        for (CustomerDTO customer : response) {
+            customers.put(customer.getId(), customer);
+        }
+        return customers;
+    }
+
+    public CustomerDTO getCustomerByEmail(String email){
+        CustomerDTO response = requestReplyClient.requestAndWait(destinationEmail, destinationEmail, CustomerDTO.class);
         if (response == null) {
             throw new IllegalArgumentException("Korisnik nije pronađen ili API nije vratio očekivani format.");
         }
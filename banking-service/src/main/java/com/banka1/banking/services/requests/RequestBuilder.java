@@ -1,7 +1,9 @@
 package com.banka1.banking.services.requests;
 
+import org.springframework.http.HttpMethod;
+import org.springframework.http.RequestEntity;
+
 import java.net.URI;
-import java.net.http.HttpRequest;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -37,17 +39,17 @@ public class RequestBuilder {
         return this;
     }
 
-    public HttpRequest build() {
-        HttpRequest.Builder builder = HttpRequest.newBuilder()
-                .uri(URI.create(url));
+    public RequestEntity<String> build() {
+        HttpMethod httpMethod = switch (method.toUpperCase()) {
+            case "POST" -> HttpMethod.POST;
+            case "PUT" -> HttpMethod.PUT;
+            case "DELETE" -> HttpMethod.DELETE;
+            default -> HttpMethod.GET;
+        };
 
+        RequestEntity.BodyBuilder builder = RequestEntity.method(httpMethod, URI.create(url));
         headers.forEach(builder::header);
 
-        return switch (method.toUpperCase()) {
-            case "POST" -> builder.POST(HttpRequest.BodyPublishers.ofString(body)).build();
-            case "PUT" -> builder.PUT(HttpRequest.BodyPublishers.ofString(body)).build();
-            case "DELETE" -> builder.method("DELETE", HttpRequest.BodyPublishers.ofString(body)).build();
-            default -> builder.GET().build();
-        };
+        return httpMethod == HttpMethod.GET ? builder.build() : builder.body(body);
     }
 }
@@ -1,18 +1,103 @@
 package com.banka1.banking.services.requests;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import jakarta.annotation.PreDestroy;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.DefaultConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.ResponseErrorHandler;
+import org.springframework.web.client.RestTemplate;
 
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
+import java.io.IOException;
+import java.net.URI;
 
+/**
+ * Jedan HTTP klijent za sve odlazne pozive (druga banka i trading-service). Konekcije se cuvaju
+ * u pool-u i ponovo koriste (keep-alive), sa ogranicenim brojem konekcija ukupno i po hostu,
+ * pa spora druga banka ne moze da zauzme sve konekcije.
+ * <p>
+ * Odgovor sa greskom (4xx/5xx) se ne baca kao izuzetak, pozivalac sam proverava status.
+ * Metrike pool-a: httpcomponents.httpclient.pool.* sa tagom httpclient=interbank.
+ */
 @Service
 public class RequestService {
 
-    private final HttpClient client = HttpClient.newHttpClient();
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient httpClient;
+    private final RestTemplate restTemplate;
 
-    public HttpResponse<String> send(RequestBuilder builder) throws Exception {
-        HttpRequest request = builder.build();
-        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    public RequestService(MeterRegistry meterRegistry,
+                          @Value("${interbank.http.max-connections:50}") int maxConnections,
+                          @Value("${interbank.http.max-connections-per-host:20}") int maxConnectionsPerHost,
+                          @Value("${interbank.http.connect-timeout-ms:2000}") long connectTimeoutMs,
+                          @Value("${interbank.http.read-timeout-ms:10000}") long readTimeoutMs,
+                          @Value("${interbank.http.pool-timeout-ms:2000}") long poolTimeoutMs,
+                          @Value("${interbank.http.keep-alive-ms:30000}") long keepAliveMs) {
+        this.connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnectionsPerHost)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                        .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+
+        TimeValue maxKeepAlive = TimeValue.ofMilliseconds(keepAliveMs);
+        this.httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(poolTimeoutMs))
+                        .setResponseTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .build())
+                // Konekcija se cuva koliko druga strana dozvoli (Keep-Alive header), najvise keep-alive-ms
+                .setKeepAliveStrategy((response, context) -> {
+                    TimeValue offered = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                    return offered.compareTo(maxKeepAlive) < 0 ? offered : maxKeepAlive;
+                })
+                .evictExpiredConnections()
+                .evictIdleConnections(maxKeepAlive)
+                .build();
+
+        this.restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+        this.restTemplate.setErrorHandler(new ResponseErrorHandler() {
+            @Override
+            public boolean hasError(ClientHttpResponse response) throws IOException {
+                return false;
+            }
+
+            @Override
+            public void handleError(URI url, HttpMethod method, ClientHttpResponse response) throws IOException {
+
+            }
+        });
+
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "interbank").bindTo(meterRegistry);
+    }
+
+    public RestTemplate getRestTemplate() {
+        return restTemplate;
+    }
+
+    public ResponseEntity<String> send(RequestBuilder builder) {
+        return restTemplate.exchange(builder.build(), String.class);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        httpClient.close();
     }
 }
@@ -0,0 +1,42 @@
+package com.banka1.banking.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Odlaze sporedne efekte (slanje poruka, pozive drugih servisa) do commit-a tekuce transakcije.
+ * Ako se transakcija ponisti, akcija se ne izvrsava, pa ponovljena obrada (npr. rata po rata
+ * posle neuspelog dela) ne salje istu poruku dva puta. Bez aktivne transakcije akcija se
+ * izvrsava odmah.
+ * <p>
+ * Greska akcije se samo loguje: transakcija je vec commit-ovana, a izuzetak iz afterCommit bi
+ * pozivaocu izgledao kao neuspela transakcija i mogao bi da pokrene ponovnu obradu.
+ */
+@Slf4j
+public final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    public static void run(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            runSafely(action);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                runSafely(action);
+            }
+        });
+    }
+
+    private static void runSafely(Runnable action) {
+        try {
+            action.run();
+        } catch (RuntimeException e) {
+            log.warn("Akcija posle commit-a nije uspela: {}", e.getMessage());
+        }
+    }
+}
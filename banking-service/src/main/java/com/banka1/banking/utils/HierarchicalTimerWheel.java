@@ -0,0 +1,161 @@
+package com.banka1.banking.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hijerarhijski timer wheel za isticanje po kljucu (npr. id transfera).
+ * Nivo 0 ima {@code slots} slotova sirine jednog tick-a, a svaki sledeci nivo pokriva
+ * {@code slots} puta vise vremena. Rokovi koji su daleko cekaju na visem nivou i spustaju se
+ * u nizi nivo kada kazaljka dodje do njihovog intervala, pa zakazivanje, otkazivanje i
+ * isticanje rade u konstantnom vremenu po kljucu, bez skeniranja svih rokova.
+ * <p>
+ * Vreme se prosledjuje spolja (milisekunde), pa klasa ne zavisi od sata i lako se testira.
+ */
+public class HierarchicalTimerWheel {
+
+    private static final class Timer {
+        final long key;
+        final long deadlineTick;
+
+        Timer(long key, long deadlineTick) {
+            this.key = key;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+
+    private final long tickMillis;
+    private final int slots;
+    private final long[] spans;
+    private final List<List<Timer>[]> levels = new ArrayList<>();
+    // Rokovi dalji od najviseg nivoa
+    private List<Timer> overflow = new ArrayList<>();
+    // Rokovi koji su vec istekli u trenutku zakazivanja
+    private List<Timer> due = new ArrayList<>();
+    private final Map<Long, Timer> active = new HashMap<>();
+
+    private long currentTick;
+
+    public HierarchicalTimerWheel(long tickMillis, int slots, int levelCount, long startMillis) {
+        if (tickMillis <= 0 || slots < 2 || levelCount < 1) {
+            throw new IllegalArgumentException("Neispravna konfiguracija timer wheel-a.");
+        }
+        this.tickMillis = tickMillis;
+        this.slots = slots;
+        this.spans = new long[levelCount + 1];
+        spans[0] = 1;
+        for (int level = 1; level <= levelCount; level++) {
+            spans[level] = Math.multiplyExact(spans[level - 1], slots);
+        }
+        for (int level = 0; level < levelCount; level++) {
+            @SuppressWarnings("unchecked")
+            List<Timer>[] wheel = new List[slots];
+            for (int slot = 0; slot < slots; slot++) {
+                wheel[slot] = new ArrayList<>();
+            }
+            levels.add(wheel);
+        }
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * Zakazuje isticanje kljuca u trenutku deadlineMillis. Ako je kljuc vec zakazan, stari rok se zamenjuje.
+     */
+    public synchronized void schedule(long key, long deadlineMillis) {
+        // Zaokruzuje se navise, da kljuc nikad ne istekne pre roka
+        long deadlineTick = Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis);
+        Timer timer = new Timer(key, deadlineTick);
+        active.put(key, timer);
+        place(timer);
+    }
+
+    public synchronized boolean cancel(long key) {
+        return active.remove(key) != null;
+    }
+
+    public synchronized int size() {
+        return active.size();
+    }
+
+    /**
+     * Pomera kazaljku do nowMillis i vraca kljuceve ciji je rok istekao, hronoloski po tick-u.
+     */
+    public synchronized List<Long> advance(long nowMillis) {
+        List<Long> expired = new ArrayList<>();
+        drain(due, expired);
+
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick) {
+            currentTick++;
+            for (int level = levels.size() - 1; level >= 1; level--) {
+                if (currentTick % spans[level] == 0) {
+                    cascade(level);
+                }
+            }
+            if (currentTick % spans[levels.size()] == 0) {
+                List<Timer> waiting = overflow;
+                overflow = new ArrayList<>();
+                waiting.forEach(this::place);
+            }
+
+            List<Timer> slot = levels.get(0)[(int) (currentTick % slots)];
+            List<Timer> remaining = new ArrayList<>();
+            for (Timer timer : slot) {
+                if (timer.deadlineTick <= currentTick) {
+                    expire(timer, expired);
+                } else {
+                    remaining.add(timer);
+                }
+            }
+            slot.clear();
+            slot.addAll(remaining);
+            drain(due, expired);
+        }
+        return expired;
+    }
+
+    private void cascade(int level) {
+        List<Timer> slot = levels.get(level)[(int) ((currentTick / spans[level]) % slots)];
+        List<Timer> timers = new ArrayList<>(slot);
+        slot.clear();
+        timers.forEach(this::place);
+    }
+
+    private void place(Timer timer) {
+        if (active.get(timer.key) != timer) {
+            // Otkazan ili zamenjen novijim rokom
+            return;
+        }
+        if (timer.deadlineTick <= currentTick) {
+            due.add(timer);
+            return;
+        }
+        for (int level = 0; level < levels.size(); level++) {
+            // Nivo se bira tako da rok pada u tekuci interval sledeceg nivoa,
+            // pa ce kazaljka ovog nivoa sigurno naici na njegov slot
+            if (timer.deadlineTick / spans[level + 1] == currentTick / spans[level + 1]) {
+                levels.get(level)[(int) ((timer.deadlineTick / spans[level]) % slots)].add(timer);
+                return;
+            }
+        }
+        overflow.add(timer);
+    }
+
+    private void drain(List<Timer> timers, List<Long> expired) {
+        if (timers.isEmpty()) {
+            return;
+        }
+        List<Timer> copy = new ArrayList<>(timers);
+        timers.clear();
+        copy.forEach(timer -> expire(timer, expired));
+    }
+
+    private void expire(Timer timer, List<Long> expired) {
+        if (active.get(timer.key) == timer) {
+            active.remove(timer.key);
+            expired.add(timer.key);
+        }
+    }
+}
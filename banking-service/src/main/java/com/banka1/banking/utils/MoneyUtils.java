@@ -0,0 +1,77 @@
+package com.banka1.banking.utils;
+
+import com.banka1.banking.models.helper.CurrencyType;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Pretvaranje iznosa izmedju glavne jedinice (double) i najmanje jedinice valute (long).
+ * Racun se radi u najmanjim jedinicama, pa se greske zaokruzivanja double-a ne sabiraju
+ * iz transfera u transfer.
+ */
+public final class MoneyUtils {
+
+    // Decimale iznad skale valute koje se smatraju sumom double aritmetike
+    private static final int NOISE_DIGITS = 6;
+
+    private MoneyUtils() {
+    }
+
+    /**
+     * Broj decimala valute. JPY nema manju jedinicu, ostale valute imaju dve decimale.
+     */
+    public static int scale(CurrencyType currencyType) {
+        return currencyType == CurrencyType.JPY ? 0 : 2;
+    }
+
+    public static long toMinor(double amount, CurrencyType currencyType) {
+        return BigDecimal.valueOf(amount)
+                .setScale(scale(currencyType), RoundingMode.HALF_EVEN)
+                .unscaledValue()
+                .longValueExact();
+    }
+
+    /**
+     * Kao {@link #toMinor}, ali odbija iznos koji nema tacan zapis u najmanjim jedinicama valute
+     * (npr. 0.5 JPY ili 12.345 EUR), umesto da ga tiho zaokruzi. Sum double-a ispod
+     * {@link #NOISE_DIGITS} decimala iznad skale valute se zanemaruje.
+     *
+     * @throws IllegalArgumentException ako iznos ima vise decimala nego sto valuta dozvoljava
+     */
+    public static long toMinorExact(double amount, CurrencyType currencyType) {
+        try {
+            return normalize(amount, currencyType)
+                    .setScale(scale(currencyType), RoundingMode.UNNECESSARY)
+                    .unscaledValue()
+                    .longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Iznos " + amount + " nije zapisiv u valuti " + currencyType + ".", e);
+        }
+    }
+
+    public static double toMajor(long amountMinor, CurrencyType currencyType) {
+        return BigDecimal.valueOf(amountMinor, scale(currencyType)).doubleValue();
+    }
+
+    /**
+     * Zaokruzuje iznos nanize na najmanju jedinicu valute (npr. konvertovan iznos u ceo jen).
+     */
+    public static double roundDown(double amount, CurrencyType currencyType) {
+        return normalize(amount, currencyType)
+                .setScale(scale(currencyType), RoundingMode.DOWN)
+                .doubleValue();
+    }
+
+    /**
+     * Sabira stanje i promenu u najmanjim jedinicama valute. Promena mora biti tacno zapisiva
+     * u valuti, vidi {@link #toMinorExact}.
+     */
+    public static double add(double balance, double delta, CurrencyType currencyType) {
+        return toMajor(toMinor(balance, currencyType) + toMinorExact(delta, currencyType), currencyType);
+    }
+
+    private static BigDecimal normalize(double amount, CurrencyType currencyType) {
+        return BigDecimal.valueOf(amount).setScale(scale(currencyType) + NOISE_DIGITS, RoundingMode.HALF_EVEN);
+    }
+}
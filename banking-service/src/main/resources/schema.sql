@@ -64,6 +64,16 @@ create table account
                    ((ARRAY ['CURRENT'::character varying, 'FOREIGN_CURRENCY'::character varying, 'BANK'::character varying, 'COUNTRY'::character varying])::text[]))
 );
 
+drop table if exists house_account_credit cascade;
+create table house_account_credit
+(
+    account_id bigint           not null
+        references account,
+    stripe     integer          not null,
+    amount     double precision not null default 0,
+    primary key (account_id, stripe)
+);
+
 
 drop table if exists card cascade;
 create table card
@@ -113,6 +123,8 @@ create table currency
 
 
 drop table if exists exchange_pair cascade;
+drop sequence if exists exchange_pair_version_seq;
+create sequence exchange_pair_version_seq;
 create table exchange_pair
 (
     date               date             not null,
@@ -124,7 +136,23 @@ create table exchange_pair
         primary key,
     target_currency_id bigint           not null
         constraint fkef7bcvui45w4576jmvspq8u9h
-            references currency
+            references currency,
+    version            bigint           not null default 0
+);
+
+create unique index exchange_pair_version_base_idx on exchange_pair (version, base_currency_id, target_currency_id);
+
+drop table if exists exchange_rate_history cascade;
+create table exchange_rate_history
+(
+    id              bigint generated by default as identity
+        primary key,
+    base_currency   varchar(255)     not null,
+    target_currency varchar(255)     not null,
+    date            date             not null,
+    rate            double precision not null,
+    constraint exchange_rate_history_pair_date_key
+        unique (base_currency, target_currency, date)
 );
 
 
@@ -234,6 +262,29 @@ create table transfer
                    ((ARRAY ['INTERNAL'::character varying, 'EXTERNAL'::character varying, 'EXCHANGE'::character varying, 'FOREIGN'::character varying, 'FOREIGN_BANK'::character varying])::text[]))
 );
 
+create index transfer_status_created_at_idx on transfer (status, created_at);
+
+drop table if exists ledger_posting cascade;
+drop sequence if exists ledger_journal_seq;
+create sequence ledger_journal_seq;
+create table ledger_posting
+(
+    id            bigint generated by default as identity
+        primary key,
+    journal_id    bigint       not null,
+    account_id    bigint       not null
+        references account,
+    currency_type varchar(255) not null,
+    amount_minor  bigint       not null,
+    transfer_id   bigint
+        references transfer,
+    description   varchar(255),
+    created_at    bigint       not null
+);
+
+create index ledger_posting_account_idx on ledger_posting (account_id, id);
+create index ledger_posting_journal_idx on ledger_posting (journal_id);
+
 
 drop table if exists transaction cascade;
 create table transaction
@@ -262,6 +313,13 @@ create table transaction
     description     varchar(255)
 );
 
+-- Hibernate uzima id-jeve u blokovima od 50 (pooled optimizer), pa se insert-i transakcija mogu slati u JDBC batch-u
+alter table transaction alter column id set increment by 50;
+
+-- Istorija transakcija racuna se cita po strani (keyset), redom iz ovih indeksa
+create index transaction_from_account_ts_idx on transaction (from_account_id, timestamp, id);
+create index transaction_to_account_ts_idx on transaction (to_account_id, timestamp, id);
+
 
 drop table if exists installment cascade;
 create table installment
@@ -293,6 +351,8 @@ create table installment
 )
     );
 
+create index installment_unpaid_id_idx on installment (id) where is_paid = false and lawsuit = false;
+
 
 drop table if exists rate_change cascade;
 create table rate_change
@@ -326,6 +386,9 @@ create table otc_transaction
 
 
 -- Drop if exists (za sigurnost)
+-- Kao i ostale tabele, event se brise pri svakom pokretanju dok je spring.sql.init.mode=always
+-- (razvojno okruzenje, podaci se ponovo pune iz data.sql). Neposlati eventi prezivljavaju restart
+-- samo kada se sema pri pokretanju ne inicijalizuje (spring.sql.init.mode=never).
 drop table if exists event_delivery cascade;
 drop table if exists event cascade;
 
@@ -335,14 +398,19 @@ create table event (
                        message_type varchar(255),
                        payload text,
                        url varchar(255),
+                       partner_routing_number varchar(50),
                        created_at timestamp,
                        unique_key varchar(255) unique,
                        status varchar(50),
                        routing_number varchar(50),
                        direction varchar(50),
-                       locally_generated_key varchar(64)
+                       locally_generated_key varchar(64),
+                       next_attempt_at timestamp,
+                       attempt_count integer not null default 0
 );
 
+create index event_status_next_attempt_idx on event (status, next_attempt_at);
+
 -- Tabela: event_delivery
 create table event_delivery (
                                 id bigint generated by default as identity primary key,
@@ -3,16 +3,23 @@ package com.banka1.banking;
 import com.banka1.banking.dto.ExchangePairDTO;
 import com.banka1.banking.models.Currency;
 import com.banka1.banking.models.ExchangePair;
+import com.banka1.banking.models.ExchangeRateHistory;
 import com.banka1.banking.models.helper.CurrencyType;
 import com.banka1.banking.repository.CurrencyRepository;
 import com.banka1.banking.repository.ExchangePairRepository;
+import com.banka1.banking.repository.ExchangeRateHistoryRepository;
 import com.banka1.banking.services.CurrencyService;
+import com.banka1.banking.services.ExchangeRateHistoryStore;
+import com.banka1.banking.services.ExchangeRateMatrix;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.client.RestTemplate;
 
 import java.time.LocalDate;
@@ -22,8 +29,9 @@ import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
-import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -38,9 +46,24 @@ class CurrencyServiceTest {
     @Mock
     private RestTemplate restTemplate;
 
+    @Spy
+    private ExchangeRateMatrix exchangeRateMatrix = new ExchangeRateMatrix();
+
+    @Spy
+    private ExchangeRateHistoryStore exchangeRateHistoryStore = new ExchangeRateHistoryStore();
+
+    @Mock
+    private ExchangeRateHistoryRepository exchangeRateHistoryRepository;
+
     @InjectMocks
     private CurrencyService currencyService;
 
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(currencyService, "exchangeRatesUrl",
+                "https://cdn.jsdelivr.net/npm/@fawazahmed0/currency-api@latest/v1/currencies/");
+    }
+
     @Test
     @DisplayName("Test: fetchExchangeRates() - Uspešno generisanje kursne liste")
     void testFetchExchangeRates_Success() {
@@ -64,25 +87,33 @@ class CurrencyServiceTest {
         Currency usd = new Currency();
         usd.setCode(CurrencyType.USD);
 
-        when(currencyRepository.findByCode(CurrencyType.RSD)).thenReturn(Optional.of(rsd));
-        when(currencyRepository.findByCode(CurrencyType.EUR)).thenReturn(Optional.of(eur));
-        when(currencyRepository.findByCode(CurrencyType.USD)).thenReturn(Optional.of(usd));
+        when(currencyRepository.findAll()).thenReturn(List.of(rsd, eur, usd));
+        when(exchangePairRepository.nextVersion()).thenReturn(5L);
 
         // Poziv testirane metode
         currencyService.fetchExchangeRates();
 
-        // Provera da li su kursni parovi sačuvani u bazi
-        verify(exchangePairRepository, times(1)).save(argThat(pair ->
-                pair.getBaseCurrency().getCode() == CurrencyType.RSD &&
+        // Provera da je nova verzija kursne liste objavljena jednim batch upisom
+        verify(exchangePairRepository, never()).save(any(ExchangePair.class));
+        verify(exchangePairRepository, times(1)).publishVersion(eq(5L), argThat(pairs ->
+                pairs.size() == 2 &&
+                pairs.stream().allMatch(pair -> pair.getVersion() == 5L) &&
+                pairs.stream().anyMatch(pair ->
+                        pair.getBaseCurrency().getCode() == CurrencyType.RSD &&
                         pair.getTargetCurrency().getCode() == CurrencyType.EUR &&
-                        pair.getExchangeRate() == 117.3
-        ));
-
-        verify(exchangePairRepository, times(1)).save(argThat(pair ->
-                pair.getBaseCurrency().getCode() == CurrencyType.RSD &&
+                        pair.getExchangeRate() == 117.3) &&
+                pairs.stream().anyMatch(pair ->
+                        pair.getBaseCurrency().getCode() == CurrencyType.RSD &&
                         pair.getTargetCurrency().getCode() == CurrencyType.USD &&
-                        pair.getExchangeRate() == 108.5
+                        pair.getExchangeRate() == 108.5)
         ));
+
+        // Provera da je kursna lista objavljena u memoriji
+        assertEquals(117.3, exchangeRateMatrix.getRate(CurrencyType.RSD, CurrencyType.EUR));
+        assertEquals(1 / 108.5, exchangeRateMatrix.getRate(CurrencyType.USD, CurrencyType.RSD));
+
+        // Provera da je danasnji kurs dodat u istoriju
+        assertEquals(117.3, exchangeRateHistoryStore.getRateAsOf(CurrencyType.RSD, CurrencyType.EUR, LocalDate.now()));
     }
 
     @Test
@@ -101,7 +132,7 @@ class CurrencyServiceTest {
         eurToUsd.setExchangeRate(1.1);
         eurToUsd.setDate(LocalDate.now());
 
-        when(exchangePairRepository.findByBaseCurrencyCode(CurrencyType.EUR))
+        when(exchangePairRepository.findCurrentByBaseCurrencyCode(CurrencyType.EUR))
                 .thenReturn(List.of(eurToUsd));
 
         // Poziv metode
@@ -151,7 +182,7 @@ class CurrencyServiceTest {
         pair.setExchangeRate(117.3);
         pair.setDate(LocalDate.now());
 
-        when(exchangePairRepository.findAll()).thenReturn(List.of(pair));
+        when(exchangePairRepository.findCurrent()).thenReturn(List.of(pair));
 
         // Poziv metode
         List<ExchangePairDTO> result = currencyService.getAllExchangeRates();
@@ -174,6 +205,67 @@ class CurrencyServiceTest {
         currencyService.fetchExchangeRates();
 
         // Provera da se ništa ne čuva u bazi jer API nije vratio podatke
-        verify(exchangePairRepository, never()).save(any(ExchangePair.class));
+        verify(exchangePairRepository, never()).publishVersion(anyLong(), anyList());
+    }
+
+    @Test
+    @DisplayName("Test: fetchExchangeRates() - Neuspešan dohvat zadržava prethodnu kursnu listu")
+    void testFetchExchangeRates_FailureKeepsPreviousVersion() {
+        double[][] previous = ExchangeRateMatrix.newTable();
+        previous[CurrencyType.EUR.ordinal()][CurrencyType.RSD.ordinal()] = 117.0;
+        exchangeRateMatrix.publish(previous);
+
+        when(restTemplate.getForObject(anyString(), eq(String.class)))
+                .thenThrow(new RuntimeException("Upstream nedostupan"));
+
+        currencyService.fetchExchangeRates();
+
+        verify(exchangePairRepository, never()).publishVersion(anyLong(), anyList());
+        assertEquals(117.0, exchangeRateMatrix.getRate(CurrencyType.EUR, CurrencyType.RSD));
+    }
+
+    @Test
+    @DisplayName("Test: getExchangeRateHistory() - Vraća kurseve u zadatom opsegu")
+    void testGetExchangeRateHistory_Range() {
+        LocalDate day = LocalDate.of(2025, 3, 1);
+        exchangeRateHistoryStore.load(List.of(
+                history(CurrencyType.EUR, CurrencyType.RSD, day.minusDays(1), 116.9),
+                history(CurrencyType.EUR, CurrencyType.USD, day, 1.08),
+                history(CurrencyType.EUR, CurrencyType.RSD, day, 117.0),
+                history(CurrencyType.EUR, CurrencyType.RSD, day.plusDays(1), 117.2),
+                history(CurrencyType.EUR, CurrencyType.RSD, day.plusDays(5), 117.4)
+        ));
+
+        List<ExchangePairDTO> result = currencyService.getExchangeRateHistory(CurrencyType.EUR, day, day.plusDays(1));
+
+        assertEquals(3, result.size());
+        assertEquals("RSD", result.get(0).getTargetCurrency());
+        assertEquals(day, result.get(0).getDate());
+        assertEquals(117.0, result.get(0).getExchangeRate());
+        assertEquals(117.2, result.get(1).getExchangeRate());
+        assertEquals("USD", result.get(2).getTargetCurrency());
+
+        // Kurs "na dan" je poslednji poznat do tog dana
+        assertEquals(117.2, exchangeRateHistoryStore.getRateAsOf(CurrencyType.EUR, CurrencyType.RSD, day.plusDays(3)));
+        assertEquals(1 / 117.0, exchangeRateHistoryStore.getRateAsOf(CurrencyType.RSD, CurrencyType.EUR, day));
+        assertTrue(Double.isNaN(exchangeRateHistoryStore.getRateAsOf(CurrencyType.EUR, CurrencyType.RSD, day.minusDays(2))));
+    }
+
+    @Test
+    @DisplayName("Test: getExchangeRateHistory() - Neispravan opseg")
+    void testGetExchangeRateHistory_InvalidRange() {
+        LocalDate day = LocalDate.of(2025, 3, 1);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> currencyService.getExchangeRateHistory(CurrencyType.EUR, day, day.minusDays(1)));
+    }
+
+    private ExchangeRateHistory history(CurrencyType base, CurrencyType target, LocalDate date, double rate) {
+        ExchangeRateHistory history = new ExchangeRateHistory();
+        history.setBaseCurrency(base);
+        history.setTargetCurrency(target);
+        history.setDate(date);
+        history.setRate(rate);
+        return history;
     }
 }
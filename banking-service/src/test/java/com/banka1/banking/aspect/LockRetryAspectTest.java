@@ -0,0 +1,54 @@
+package com.banka1.banking.aspect;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class LockRetryAspectTest {
+
+    private final LockRetryAspect aspect = new LockRetryAspect();
+    private ProceedingJoinPoint joinPoint;
+    private RetryOnLockFailure retry;
+
+    @RetryOnLockFailure(maxAttempts = 3, backoffMillis = 1)
+    void annotated() {
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        joinPoint = mock(ProceedingJoinPoint.class);
+        when(joinPoint.getSignature()).thenReturn(mock(Signature.class));
+        retry = getClass().getDeclaredMethod("annotated").getAnnotation(RetryOnLockFailure.class);
+    }
+
+    @Test
+    void retriesTransientFailureWrappedByService() throws Throwable {
+        RuntimeException wrapped = new RuntimeException("Transaction failed, rollback initiated",
+                new CannotAcquireLockException("could not obtain lock"));
+        when(joinPoint.proceed()).thenThrow(wrapped).thenReturn("ok");
+
+        assertEquals("ok", aspect.retryOnLockFailure(joinPoint, retry));
+        verify(joinPoint, times(2)).proceed();
+    }
+
+    @Test
+    void givesUpAfterMaxAttempts() throws Throwable {
+        when(joinPoint.proceed()).thenThrow(new CannotAcquireLockException("could not obtain lock"));
+
+        assertThrows(CannotAcquireLockException.class, () -> aspect.retryOnLockFailure(joinPoint, retry));
+        verify(joinPoint, times(3)).proceed();
+    }
+
+    @Test
+    void doesNotRetryBusinessFailure() throws Throwable {
+        when(joinPoint.proceed()).thenThrow(new RuntimeException("Insufficient funds"));
+
+        assertThrows(RuntimeException.class, () -> aspect.retryOnLockFailure(joinPoint, retry));
+        verify(joinPoint, times(1)).proceed();
+    }
+}
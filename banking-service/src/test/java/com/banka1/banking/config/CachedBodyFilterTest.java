@@ -0,0 +1,52 @@
+package com.banka1.banking.config;
+
+import jakarta.servlet.ServletRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.StreamUtils;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachedBodyFilterTest {
+
+    private final CachedBodyFilter filter = new CachedBodyFilter();
+
+    private ServletRequest filter(MockHttpServletRequest request) throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        return chain.getRequest();
+    }
+
+    @Test
+    void interbankBodyIsCachedAsReceived() throws Exception {
+        byte[] payload = "{\"messageType\":\"NEW_TX\",\r\n\"message\":\"\u010d\u0107\u017e\"}".getBytes(StandardCharsets.UTF_8);
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/interbank");
+        request.setContent(payload);
+
+        ServletRequest passed = filter(request);
+
+        CachedBodyFilter.CachedBodyHttpServletRequest cached = assertInstanceOf(CachedBodyFilter.CachedBodyHttpServletRequest.class, passed);
+        assertSame(cached, CachedBodyFilter.cached(cached));
+        assertArrayEquals(payload, cached.getBody());
+        // Telo moze da se procita vise puta, uvek isti bajtovi
+        assertArrayEquals(payload, StreamUtils.copyToByteArray(passed.getInputStream()));
+        assertArrayEquals(payload, StreamUtils.copyToByteArray(passed.getInputStream()));
+        assertEquals(new String(payload, StandardCharsets.UTF_8), cached.getBodyAsString());
+        assertSame(cached.getBodyAsString(), cached.getBodyAsString());
+    }
+
+    @Test
+    void otherRoutesAreNotWrapped() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/accounts/1/transactions");
+        request.setContent("{}".getBytes(StandardCharsets.UTF_8));
+
+        assertSame(request, filter(request));
+
+        MockHttpServletRequest similar = new MockHttpServletRequest("POST", "/interbanking");
+        assertSame(similar, filter(similar));
+    }
+}
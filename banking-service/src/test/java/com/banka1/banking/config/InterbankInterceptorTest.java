@@ -0,0 +1,61 @@
+package com.banka1.banking.config;
+
+import com.banka1.banking.dto.interbank.InterbankMessageDTO;
+import com.banka1.banking.services.EventService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class InterbankInterceptorTest {
+
+    private final EventService eventService = mock(EventService.class);
+    private final InterbankConfig interbankConfig = mock(InterbankConfig.class);
+    private final InterbankInterceptor interceptor = new InterbankInterceptor(new ObjectMapper(), eventService, interbankConfig);
+
+    @BeforeEach
+    void setUp() {
+        when(interbankConfig.getApiKey()).thenReturn("kljuc");
+    }
+
+    private MockHttpServletRequest request() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/interbank");
+        request.addHeader("X-Api-Key", "kljuc");
+        request.setContent("{\"messageType\":\"NEW_TX\",\"idempotenceKey\":{\"routingNumber\":\"444\",\"locallyGeneratedKey\":\"a\"}}"
+                .getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    @Test
+    void duplicateGetsResponseOfFirstDelivery() throws Exception {
+        when(eventService.receiveEvent(any(InterbankMessageDTO.class), anyString(), any()))
+                .thenThrow(new EventService.DuplicateEventException(5L));
+        when(eventService.storedResponse(5L)).thenReturn(Optional.of("{\"vote\":\"YES\"}"));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertFalse(interceptor.preHandle(request(), response, null));
+
+        assertEquals(200, response.getStatus());
+        assertEquals("{\"vote\":\"YES\"}", response.getContentAsString());
+    }
+
+    @Test
+    void duplicateWithoutStoredResponseIsConflict() throws Exception {
+        when(eventService.receiveEvent(any(InterbankMessageDTO.class), anyString(), any()))
+                .thenThrow(new EventService.DuplicateEventException(5L));
+        when(eventService.storedResponse(5L)).thenReturn(Optional.empty());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertFalse(interceptor.preHandle(request(), response, null));
+
+        assertEquals(409, response.getStatus());
+    }
+}
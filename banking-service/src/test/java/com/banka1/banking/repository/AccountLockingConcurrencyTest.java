@@ -0,0 +1,156 @@
+package com.banka1.banking.repository;
+
+import com.banka1.banking.models.Account;
+import com.banka1.banking.models.helper.AccountStatus;
+import com.banka1.banking.models.helper.AccountSubtype;
+import com.banka1.banking.models.helper.AccountType;
+import com.banka1.banking.models.helper.CurrencyType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Vise niti istovremeno skida novac sa istog racuna. Bez zakljucavanja bi se izgubile izmene
+ * ili bi racun otisao u minus. Pola niti navodi racune obrnutim redom da bi se proverilo da nema deadlock-a.
+ */
+@DataJpaTest(properties = {
+        "spring.sql.init.mode=never",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.datasource.url=jdbc:h2:mem:account-locking;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "spring.datasource.username=sa",
+        "spring.datasource.password="
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AccountLockingConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int DEBITS = 200;
+    private static final double AMOUNT = 10.0;
+    private static final double INITIAL_BALANCE = 1000.0;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private Long fromId;
+    private Long toId;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        accountRepository.deleteAll();
+        fromId = accountRepository.save(account("111000100000000011", INITIAL_BALANCE)).getId();
+        toId = accountRepository.save(account("111000100000000012", 0.0)).getId();
+    }
+
+    @Test
+    void concurrentDebitsOnSameAccountNeverOverdraw() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < DEBITS; i++) {
+                List<Long> ids = i % 2 == 0 ? List.of(fromId, toId) : List.of(toId, fromId);
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    if (Boolean.TRUE.equals(transactionTemplate.execute(status -> debit(ids)))) {
+                        succeeded.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Account from = accountRepository.findById(fromId).orElseThrow();
+        Account to = accountRepository.findById(toId).orElseThrow();
+
+        assertEquals((int) (INITIAL_BALANCE / AMOUNT), succeeded.get());
+        assertEquals(0.0, from.getBalance());
+        assertEquals(INITIAL_BALANCE, to.getBalance());
+    }
+
+    @Test
+    void batchOfTransfersSharingAccountKeepsEarlierChanges() {
+        Long thirdId = accountRepository.save(account("111000100000000013", 0.0)).getId();
+
+        // Kao TransferSettlementQueue: cela grupa se zakljuca unapred, pa svaki transfer ponovo zakljucava svoje racune
+        transactionTemplate.executeWithoutResult(status -> {
+            accountRepository.lockAllById(List.of(fromId, toId, fromId, thirdId));
+            transfer(fromId, toId, 100.0);
+            transfer(fromId, thirdId, 250.0);
+            transfer(toId, thirdId, 40.0);
+        });
+
+        assertEquals(INITIAL_BALANCE - 350.0, accountRepository.findById(fromId).orElseThrow().getBalance());
+        assertEquals(60.0, accountRepository.findById(toId).orElseThrow().getBalance());
+        assertEquals(290.0, accountRepository.findById(thirdId).orElseThrow().getBalance());
+    }
+
+    private void transfer(Long fromAccountId, Long toAccountId, double amount) {
+        List<Account> locked = accountRepository.lockAllById(List.of(fromAccountId, toAccountId));
+        Account from = locked.stream().filter(account -> account.getId().equals(fromAccountId)).findFirst().orElseThrow();
+        Account to = locked.stream().filter(account -> account.getId().equals(toAccountId)).findFirst().orElseThrow();
+        from.setBalance(from.getBalance() - amount);
+        to.setBalance(to.getBalance() + amount);
+    }
+
+    private boolean debit(List<Long> ids) {
+        List<Account> locked = accountRepository.lockAllById(ids);
+        Account from = locked.stream().filter(account -> account.getId().equals(fromId)).findFirst().orElseThrow();
+        Account to = locked.stream().filter(account -> account.getId().equals(toId)).findFirst().orElseThrow();
+
+        if (from.getBalance() < AMOUNT) {
+            return false;
+        }
+        from.setBalance(from.getBalance() - AMOUNT);
+        to.setBalance(to.getBalance() + AMOUNT);
+        return true;
+    }
+
+    private Account account(String accountNumber, double balance) {
+        Account account = new Account();
+        account.setOwnerID(1L);
+        account.setAccountNumber(accountNumber);
+        account.setBalance(balance);
+        account.setReservedBalance(0.0);
+        account.setType(AccountType.CURRENT);
+        account.setCurrencyType(CurrencyType.RSD);
+        account.setSubtype(AccountSubtype.STANDARD);
+        account.setCreatedDate(0L);
+        account.setExpirationDate(0L);
+        account.setDailyLimit(0.0);
+        account.setMonthlyLimit(0.0);
+        account.setDailySpent(0.0);
+        account.setMonthlySpent(0.0);
+        account.setStatus(AccountStatus.ACTIVE);
+        account.setEmployeeID(1L);
+        account.setMonthlyMaintenanceFee(0.0);
+        return account;
+    }
+}
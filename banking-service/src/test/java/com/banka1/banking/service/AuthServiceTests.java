@@ -28,15 +28,13 @@ public class AuthServiceTests {
     @Mock
     private AuthService authService;
     @Mock
-    private AccountService accountService;
+    private AccountOwnerCache accountOwnerCache;
     @Mock
     private LoanService loanService;
     @Mock
     private CardService cardService;
     @Mock
     private ReceiverService receiverService;
-    @Mock
-    private TransferService transferService;
     @InjectMocks
     private AuthAspect authAspect;
     @Mock
@@ -45,8 +43,15 @@ public class AuthServiceTests {
     private ProceedingJoinPoint joinPoint;
     @Mock
     private MethodSignature methodSignature;
+    // Svaka advice metoda dobija svoju kontroler metodu, jer se podaci o metodi pamte
+    @Mock
+    private Method accountMethod;
+    @Mock
+    private Method cardMethod;
+    @Mock
+    private Method loanMethod;
     @Mock
-    private Method method;
+    private Method receiverMethod;
     @Mock
     private AccountAuthorization accountAuthorization;
     @Mock
@@ -64,8 +69,6 @@ public class AuthServiceTests {
     @Mock
     private Loan loan;
     @Mock
-    private Transfer transfer;
-    @Mock
     private CreateAccountDTO createAccountDTO;
     @Mock
     private ExchangeMoneyTransferDTO exchangeMoneyTransferDTO;
@@ -92,6 +95,7 @@ public class AuthServiceTests {
         when(joinPoint.getSignature()).thenReturn(methodSignature);
         when(methodSignature.getParameterNames()).thenReturn(new String[] { "authorization" });
         when(joinPoint.getArgs()).thenReturn(new Object[] { "Bearer NevalidanToken" });
+        when(methodSignature.getMethod()).thenReturn(accountMethod, cardMethod, loanMethod);
 
         authAspect.authorizeAccountAction(joinPoint);
         authAspect.authorizeCardAction(joinPoint);
@@ -104,6 +108,7 @@ public class AuthServiceTests {
         when(joinPoint.getSignature()).thenReturn(methodSignature);
         when(methodSignature.getParameterNames()).thenReturn(new String[] { "authorization" });
         when(joinPoint.getArgs()).thenReturn(new Object[] { null });
+        when(methodSignature.getMethod()).thenReturn(accountMethod, cardMethod, loanMethod);
 
         authAspect.authorizeAccountAction(joinPoint);
         authAspect.authorizeCardAction(joinPoint);
@@ -120,7 +125,7 @@ public class AuthServiceTests {
 
         when(authService.parseToken(notNull(String.class))).thenReturn(claims);
 
-        when(accountService.findById(1L)).thenReturn(account);
+        when(accountOwnerCache.getOwnerId(1L)).thenReturn(2L);
         //when(loanService.findById("1")).thenReturn(loan);
         when(cardService.findById(1L)).thenReturn(card);
         when(receiverService.findById(1L)).thenReturn(receiver);
@@ -139,14 +144,14 @@ public class AuthServiceTests {
         //when(loanAuthorization.disallowAdminFallback()).thenReturn(true);
         when(receiverAuthorization.disallowAdminFallback()).thenReturn(true);
 
-        when(method.getAnnotation(AccountAuthorization.class)).thenReturn(accountAuthorization);
-        when(method.getAnnotation(CardAuthorization.class)).thenReturn(cardAuthorization);
-        //when(method.getAnnotation(LoanAuthorization.class)).thenReturn(loanAuthorization);
-        when(method.getAnnotation(ReceiverAuthorization.class)).thenReturn(receiverAuthorization);
+        when(accountMethod.getAnnotation(AccountAuthorization.class)).thenReturn(accountAuthorization);
+        when(cardMethod.getAnnotation(CardAuthorization.class)).thenReturn(cardAuthorization);
+        //when(loanMethod.getAnnotation(LoanAuthorization.class)).thenReturn(loanAuthorization);
+        when(receiverMethod.getAnnotation(ReceiverAuthorization.class)).thenReturn(receiverAuthorization);
 
         when(methodSignature.getParameterTypes()).thenReturn(new Class[] { String.class, Long.class });
 
-        when(methodSignature.getMethod()).thenReturn(method);
+        when(methodSignature.getMethod()).thenReturn(accountMethod, cardMethod, receiverMethod);
         when(authService.getToken(notNull(String.class))).thenReturn("ValidanToken");
 
         when(methodSignature.getParameterNames()).thenReturn(new String[] { "authorization", "accountId" });
@@ -178,12 +183,12 @@ public class AuthServiceTests {
         //when(loanAuthorization.customerOnlyOperation()).thenReturn(false);
         when(receiverAuthorization.customerOnlyOperation()).thenReturn(false);
 
-        when(method.getAnnotation(AccountAuthorization.class)).thenReturn(accountAuthorization);
-        when(method.getAnnotation(CardAuthorization.class)).thenReturn(cardAuthorization);
-        //when(method.getAnnotation(LoanAuthorization.class)).thenReturn(loanAuthorization);
-        when(method.getAnnotation(ReceiverAuthorization.class)).thenReturn(receiverAuthorization);
+        when(accountMethod.getAnnotation(AccountAuthorization.class)).thenReturn(accountAuthorization);
+        when(cardMethod.getAnnotation(CardAuthorization.class)).thenReturn(cardAuthorization);
+        //when(loanMethod.getAnnotation(LoanAuthorization.class)).thenReturn(loanAuthorization);
+        when(receiverMethod.getAnnotation(ReceiverAuthorization.class)).thenReturn(receiverAuthorization);
 
-        when(methodSignature.getMethod()).thenReturn(method);
+        when(methodSignature.getMethod()).thenReturn(accountMethod, cardMethod, receiverMethod);
         when(authService.getToken(notNull(String.class))).thenReturn("ValidanToken");
 
         when(methodSignature.getParameterNames()).thenReturn(new String[] { "authorization", "accountId" });
@@ -211,7 +216,7 @@ public class AuthServiceTests {
 
         when(authService.parseToken(notNull(String.class))).thenReturn(claims);
 
-        when(accountService.findById(1L)).thenReturn(account);
+        when(accountOwnerCache.getOwnerId(1L)).thenReturn(2L);
         //when(loanService.findById("1")).thenReturn(loan);
         when(cardService.findById(1L)).thenReturn(card);
         when(receiverService.findById(1L)).thenReturn(receiver);
@@ -230,14 +235,14 @@ public class AuthServiceTests {
         //when(loanAuthorization.disallowAdminFallback()).thenReturn(false);
         when(receiverAuthorization.disallowAdminFallback()).thenReturn(false);
 
-        when(method.getAnnotation(AccountAuthorization.class)).thenReturn(accountAuthorization);
-        when(method.getAnnotation(CardAuthorization.class)).thenReturn(cardAuthorization);
-        //when(method.getAnnotation(LoanAuthorization.class)).thenReturn(loanAuthorization);
-        when(method.getAnnotation(ReceiverAuthorization.class)).thenReturn(receiverAuthorization);
+        when(accountMethod.getAnnotation(AccountAuthorization.class)).thenReturn(accountAuthorization);
+        when(cardMethod.getAnnotation(CardAuthorization.class)).thenReturn(cardAuthorization);
+        //when(loanMethod.getAnnotation(LoanAuthorization.class)).thenReturn(loanAuthorization);
+        when(receiverMethod.getAnnotation(ReceiverAuthorization.class)).thenReturn(receiverAuthorization);
 
         when(methodSignature.getParameterTypes()).thenReturn(new Class[] { String.class, Long.class });
 
-        when(methodSignature.getMethod()).thenReturn(method);
+        when(methodSignature.getMethod()).thenReturn(accountMethod, cardMethod, receiverMethod);
         when(authService.getToken(notNull(String.class))).thenReturn("ValidanToken");
 
         when(methodSignature.getParameterNames()).thenReturn(new String[] { "authorization", "accountId" });
@@ -264,7 +269,7 @@ public class AuthServiceTests {
 
         when(authService.parseToken(notNull(String.class))).thenReturn(claims);
 
-        when(accountService.findById(1L)).thenReturn(account);
+        when(accountOwnerCache.getOwnerId(1L)).thenReturn(1L);
         //when(loanService.findById("1")).thenReturn(loan);
         when(cardService.findById(1L)).thenReturn(card);
         when(receiverService.findById(1L)).thenReturn(receiver);
@@ -279,14 +284,14 @@ public class AuthServiceTests {
         //when(loanAuthorization.customerOnlyOperation()).thenReturn(true);
         when(receiverAuthorization.customerOnlyOperation()).thenReturn(true);
 
-        when(method.getAnnotation(AccountAuthorization.class)).thenReturn(accountAuthorization);
-        when(method.getAnnotation(CardAuthorization.class)).thenReturn(cardAuthorization);
-        //when(method.getAnnotation(LoanAuthorization.class)).thenReturn(loanAuthorization);
-        when(method.getAnnotation(ReceiverAuthorization.class)).thenReturn(receiverAuthorization);
+        when(accountMethod.getAnnotation(AccountAuthorization.class)).thenReturn(accountAuthorization);
+        when(cardMethod.getAnnotation(CardAuthorization.class)).thenReturn(cardAuthorization);
+        //when(loanMethod.getAnnotation(LoanAuthorization.class)).thenReturn(loanAuthorization);
+        when(receiverMethod.getAnnotation(ReceiverAuthorization.class)).thenReturn(receiverAuthorization);
 
         when(methodSignature.getParameterTypes()).thenReturn(new Class[] { String.class, Long.class });
 
-        when(methodSignature.getMethod()).thenReturn(method);
+        when(methodSignature.getMethod()).thenReturn(accountMethod, cardMethod, receiverMethod);
         when(authService.getToken(notNull(String.class))).thenReturn("ValidanToken");
 
         when(methodSignature.getParameterNames()).thenReturn(new String[] { "authorization", "accountId" });
@@ -316,9 +321,9 @@ public class AuthServiceTests {
 
         when(accountAuthorization.customerOnlyOperation()).thenReturn(true);
 
-        when(method.getAnnotation(AccountAuthorization.class)).thenReturn(accountAuthorization);
+        when(accountMethod.getAnnotation(AccountAuthorization.class)).thenReturn(accountAuthorization);
 
-        when(methodSignature.getMethod()).thenReturn(method);
+        when(methodSignature.getMethod()).thenReturn(accountMethod);
         when(authService.getToken(notNull(String.class))).thenReturn("ValidanToken");
 
         authAspect.authorizeAccountAction(joinPoint);
@@ -351,24 +356,20 @@ public class AuthServiceTests {
 
         when(authService.parseToken(notNull(String.class))).thenReturn(claims);
 
-        when(accountService.findById(1L)).thenReturn(account);
-        when(accountService.findByAccountNumber("1")).thenReturn(account);
+        when(accountOwnerCache.getOwnerId(1L)).thenReturn(1L);
+        when(accountOwnerCache.getOwnerIdByAccountNumber("1")).thenReturn(1L);
         //when(loanService.findById("1")).thenReturn(loan);
-        when(transferService.findById(1L)).thenReturn(transfer);
-
-        when(account.getOwnerID()).thenReturn(1L);
-        //when(loan.getAccount()).thenReturn(account);
-        when(transfer.getFromAccountId()).thenReturn(account);
+        when(accountOwnerCache.getOwnerIdByTransferId(1L)).thenReturn(1L);
 
         when(accountAuthorization.customerOnlyOperation()).thenReturn(true);
         when(cardAuthorization.customerOnlyOperation()).thenReturn(true);
         //when(loanAuthorization.customerOnlyOperation()).thenReturn(true);
         when(receiverAuthorization.customerOnlyOperation()).thenReturn(true);
 
-        when(method.getAnnotation(AccountAuthorization.class)).thenReturn(accountAuthorization);
-        when(method.getAnnotation(CardAuthorization.class)).thenReturn(cardAuthorization);
-        //when(method.getAnnotation(LoanAuthorization.class)).thenReturn(loanAuthorization);
-        when(method.getAnnotation(ReceiverAuthorization.class)).thenReturn(receiverAuthorization);
+        when(accountMethod.getAnnotation(AccountAuthorization.class)).thenReturn(accountAuthorization);
+        when(cardMethod.getAnnotation(CardAuthorization.class)).thenReturn(cardAuthorization);
+        //when(loanMethod.getAnnotation(LoanAuthorization.class)).thenReturn(loanAuthorization);
+        when(receiverMethod.getAnnotation(ReceiverAuthorization.class)).thenReturn(receiverAuthorization);
 
         when(methodSignature.getParameterTypes()).thenReturn(new Class[] {
                 String.class,
@@ -381,7 +382,7 @@ public class AuthServiceTests {
                 CreateCardDTO.class
         });
 
-        when(methodSignature.getMethod()).thenReturn(method);
+        when(methodSignature.getMethod()).thenReturn(accountMethod, cardMethod, receiverMethod);
         when(authService.getToken(notNull(String.class))).thenReturn("ValidanToken");
 
         when(methodSignature.getParameterNames()).thenReturn(new String[] {
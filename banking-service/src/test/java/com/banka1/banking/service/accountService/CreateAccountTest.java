@@ -24,6 +24,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.modelmapper.ModelMapper;
 import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.core.MessageCreator;
 import org.springframework.web.server.ResponseStatusException;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -107,9 +108,8 @@ public class CreateAccountTest {
 
         when(cardService.createCard(any())).thenReturn(new Card());
 
-        when(messageHelper.createTextMessage(any())).thenReturn("a");
-
-        doNothing().when(jmsTemplate).convertAndSend((String) any(), anyString());
+        MessageCreator notification = session -> null;
+        when(messageHelper.messageCreator(any())).thenReturn(notification);
 
         Account result = accountService.createAccount(createAccountDTO, 1L);
 
@@ -117,6 +117,7 @@ public class CreateAccountTest {
         assertEquals(acc.getAccountNumber().substring(0,7), result.getAccountNumber().substring(0,7));
         assertEquals(acc.getAccountNumber().substring(16,18), result.getAccountNumber().substring(16,18));
         verify(accountRepository, times(1)).save(acc);
+        verify(jmsTemplate, times(1)).send((String) any(), eq(notification));
     }
 
     @Test
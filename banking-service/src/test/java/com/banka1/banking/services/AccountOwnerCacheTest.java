@@ -0,0 +1,88 @@
+package com.banka1.banking.services;
+
+import com.banka1.banking.repository.AccountRepository;
+import com.banka1.banking.repository.TransferRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AccountOwnerCacheTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+    @Mock
+    private TransferRepository transferRepository;
+
+    private AccountOwnerCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new AccountOwnerCache(accountRepository, transferRepository, new SimpleMeterRegistry(), 2);
+    }
+
+    @Test
+    void ownerIsLoadedOnce() {
+        when(accountRepository.findOwnerIdById(1L)).thenReturn(Optional.of(10L));
+
+        assertEquals(10L, cache.getOwnerId(1L));
+        assertEquals(10L, cache.getOwnerId(1L));
+
+        verify(accountRepository, times(1)).findOwnerIdById(1L);
+    }
+
+    @Test
+    void missingAccountIsNotCached() {
+        when(accountRepository.findOwnerIdById(1L)).thenReturn(Optional.empty());
+
+        assertNull(cache.getOwnerId(1L));
+        assertNull(cache.getOwnerId(1L));
+
+        verify(accountRepository, times(2)).findOwnerIdById(1L);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void leastRecentlyUsedAccountIsEvicted() {
+        when(accountRepository.findOwnerIdById(anyLong())).thenAnswer(invocation -> Optional.of(invocation.<Long>getArgument(0) * 10));
+
+        cache.getOwnerId(1L);
+        cache.getOwnerId(2L);
+        cache.getOwnerId(1L);
+        cache.getOwnerId(3L);
+        cache.getOwnerId(1L);
+        cache.getOwnerId(2L);
+
+        verify(accountRepository, times(1)).findOwnerIdById(1L);
+        verify(accountRepository, times(2)).findOwnerIdById(2L);
+    }
+
+    @Test
+    void transferOwnerGoesThroughAccountCache() {
+        when(transferRepository.findFromAccountIdById(5L)).thenReturn(Optional.of(1L));
+        when(accountRepository.findOwnerIdById(1L)).thenReturn(Optional.of(10L));
+
+        assertEquals(10L, cache.getOwnerIdByTransferId(5L));
+        assertEquals(10L, cache.getOwnerId(1L));
+
+        verify(accountRepository, times(1)).findOwnerIdById(1L);
+    }
+
+    @Test
+    void ownerByAccountNumberIsCached() {
+        when(accountRepository.findOwnerIdByAccountNumber("111000100000000110")).thenReturn(Optional.of(10L));
+
+        cache.getOwnerIdByAccountNumber("111000100000000110");
+        assertEquals(10L, cache.getOwnerIdByAccountNumber("111000100000000110"));
+
+        verify(accountRepository, times(1)).findOwnerIdByAccountNumber("111000100000000110");
+    }
+}
@@ -22,10 +22,13 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.modelmapper.ModelMapper;
 import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.core.MessageCreator;
 
 import javax.jms.TextMessage;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.*;
@@ -82,9 +85,7 @@ public class AccountServiceTest {
         when(transactionRepository.findByFromAccountId(account)).thenReturn(List.of(txFrom));
         when(transactionRepository.findByToAccountId(account)).thenReturn(List.of(txTo));
 
-        Account rsdAccount = new Account();
-        rsdAccount.setOwnerID(100L);
-        when(bankAccountUtils.getBankAccountForCurrency(CurrencyType.RSD)).thenReturn(rsdAccount);
+        when(bankAccountUtils.getBankOwnerId()).thenReturn(100L);
 
         TransactionResponseDTO dto1 = new TransactionResponseDTO();
         dto1.setFromAccountId(account);
@@ -101,7 +102,7 @@ public class AccountServiceTest {
         customer.setFirstName("John");
         customer.setLastName("Doe");
 
-        when(userServiceCustomer.getCustomerById(any())).thenReturn(customer);
+        when(userServiceCustomer.getCustomersByIds(Set.of(100L))).thenReturn(Map.of(100L, customer));
 
 
         List<TransactionResponseDTO> result = accountService.getTransactionsForAccount(accountId);
@@ -113,6 +114,7 @@ public class AccountServiceTest {
         verify(accountRepository).findById(accountId);
         verify(transactionRepository).findByFromAccountId(account);
         verify(transactionRepository).findByToAccountId(account);
+        verify(userServiceCustomer, never()).getCustomerById(any());
     }
 
     @Test
@@ -155,8 +157,8 @@ public class AccountServiceTest {
         when(modelMapper.map(dto, Account.class)).thenReturn(mappedAccount);
         when(accountRepository.save(any(Account.class))).thenReturn(savedAccount);
         dto.setType(AccountType.CURRENT);
-        String notificationMessage = "Account created notification";
-        when(messageHelper.createTextMessage(any(NotificationDTO.class))).thenReturn(notificationMessage);
+        MessageCreator notificationMessage = session -> null;
+        when(messageHelper.messageCreator(any(NotificationDTO.class))).thenReturn(notificationMessage);
 
 
         Account result = accountService.createAccount(dto, employeeId);
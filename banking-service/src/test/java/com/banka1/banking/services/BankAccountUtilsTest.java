@@ -0,0 +1,99 @@
+package com.banka1.banking.services;
+
+import com.banka1.banking.dto.HouseAccountRef;
+import com.banka1.banking.models.Account;
+import com.banka1.banking.models.helper.AccountType;
+import com.banka1.banking.models.helper.CurrencyType;
+import com.banka1.banking.repository.AccountRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BankAccountUtilsTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @InjectMocks
+    private BankAccountUtils bankAccountUtils;
+
+    private Account bankAccount;
+
+    @BeforeEach
+    void setUp() {
+        bankAccount = new Account();
+        bankAccount.setId(1L);
+        bankAccount.setOwnerID(7L);
+        bankAccount.setAccountNumber("111000100000000199");
+        bankAccount.setType(AccountType.BANK);
+        bankAccount.setCurrencyType(CurrencyType.RSD);
+    }
+
+    @Test
+    void bankAccountRef_isLoadedOnce() {
+        when(accountRepository.findByTypeAndCurrencyType(AccountType.BANK, CurrencyType.RSD)).thenReturn(Optional.of(bankAccount));
+
+        HouseAccountRef first = bankAccountUtils.getBankAccountRef(CurrencyType.RSD);
+        HouseAccountRef second = bankAccountUtils.getBankAccountRef(CurrencyType.RSD);
+
+        assertSame(first, second);
+        assertEquals("111000100000000199", first.getAccountNumber());
+        assertEquals(7L, bankAccountUtils.getBankOwnerId());
+        verify(accountRepository, times(1)).findByTypeAndCurrencyType(AccountType.BANK, CurrencyType.RSD);
+    }
+
+    @Test
+    void getBankAccountForCurrency_loadsByCachedId() {
+        when(accountRepository.findByTypeAndCurrencyType(AccountType.BANK, CurrencyType.RSD)).thenReturn(Optional.of(bankAccount));
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(bankAccount));
+
+        bankAccountUtils.getBankAccountForCurrency(CurrencyType.RSD);
+        Account result = bankAccountUtils.getBankAccountForCurrency(CurrencyType.RSD);
+
+        assertSame(bankAccount, result);
+        verify(accountRepository, times(1)).findByTypeAndCurrencyType(AccountType.BANK, CurrencyType.RSD);
+        verify(accountRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    void invalidate_reloadsOnlyThatAccount() {
+        Account countryAccount = new Account();
+        countryAccount.setId(2L);
+        countryAccount.setOwnerID(8L);
+        countryAccount.setAccountNumber("111000100000000299");
+        countryAccount.setType(AccountType.COUNTRY);
+        countryAccount.setCurrencyType(CurrencyType.RSD);
+
+        when(accountRepository.findByTypeAndCurrencyType(AccountType.BANK, CurrencyType.RSD)).thenReturn(Optional.of(bankAccount));
+        when(accountRepository.findByTypeAndCurrencyType(AccountType.COUNTRY, CurrencyType.RSD)).thenReturn(Optional.of(countryAccount));
+
+        bankAccountUtils.getBankAccountRef(CurrencyType.RSD);
+        bankAccountUtils.getCountryAccountRef(CurrencyType.RSD);
+
+        bankAccountUtils.invalidate(bankAccount);
+
+        bankAccountUtils.getBankAccountRef(CurrencyType.RSD);
+        bankAccountUtils.getCountryAccountRef(CurrencyType.RSD);
+
+        verify(accountRepository, times(2)).findByTypeAndCurrencyType(AccountType.BANK, CurrencyType.RSD);
+        verify(accountRepository, times(1)).findByTypeAndCurrencyType(AccountType.COUNTRY, CurrencyType.RSD);
+    }
+
+    @Test
+    void missingAccountThrows() {
+        when(accountRepository.findByTypeAndCurrencyType(AccountType.BANK, CurrencyType.EUR)).thenReturn(Optional.empty());
+
+        RuntimeException ex = assertThrows(RuntimeException.class,
+                () -> bankAccountUtils.getBankAccountForCurrency(CurrencyType.EUR));
+        assertEquals("Račun banke za valutu EUR nije pronađen.", ex.getMessage());
+    }
+}
@@ -45,6 +45,8 @@ class CreateForeignBankTransferTest {
     @Mock private ExchangeService          exchangeSvc;
     @Mock private OtpTokenService          otpSvc;
     @Mock private BankAccountUtils         bankUtils;
+    @Mock private HouseAccountLedger       houseLedger;
+    @Mock private PostingLedger            postingLedger;
     @Mock private ReceiverService          receiverSvc;
     @Mock private InterbankService         interbankSvc;
     @Mock private InterbankConfig          cfg;
@@ -64,10 +66,10 @@ class CreateForeignBankTransferTest {
         service = new TransferService(
                 accountRepo, transferRepo, transactionRepo, currencyRepo,
                 jms, msgHelper, "email.queue", userSvc, exchangeSvc, otpSvc,
-                bankUtils, receiverSvc, interbankSvc, cfg);
+                bankUtils, houseLedger, postingLedger, receiverSvc, interbankSvc, cfg);
 
-        // message helper – return dummy JMS payload so convertAndSend() succeeds
-        when(msgHelper.createTextMessage(any(NotificationDTO.class))).thenReturn("msg");
+        // message helper – return dummy JMS payload so send() succeeds
+        when(msgHelper.messageCreator(any(NotificationDTO.class))).thenReturn(session -> null);
 
         /* ------- demo data -------- */
         usd = new Currency(); usd.setCode(CurrencyType.USD);
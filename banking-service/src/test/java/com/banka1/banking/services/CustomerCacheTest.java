@@ -0,0 +1,128 @@
+package com.banka1.banking.services;
+
+import com.banka1.banking.dto.CustomerDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomerCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private AtomicLong now;
+    private AtomicInteger loads;
+    private CustomerCache cache;
+
+    private final Function<Long, CustomerDTO> loader = id -> {
+        loads.incrementAndGet();
+        CustomerDTO customer = new CustomerDTO();
+        customer.setId(id);
+        return customer;
+    };
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        now = new AtomicLong();
+        loads = new AtomicInteger();
+        cache = new CustomerCache(meterRegistry, 2, 1000, now::get);
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("customer.cache").tag("result", result).counter().count();
+    }
+
+    @Test
+    void secondLookupIsServedFromCache() {
+        CustomerDTO first = cache.get(1L, loader);
+        CustomerDTO second = cache.get(1L, loader);
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertEquals(1, count("hit"));
+        assertEquals(1, count("miss"));
+    }
+
+    @Test
+    void entryExpiresAfterTtl() {
+        cache.get(1L, loader);
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1001));
+
+        cache.get(1L, loader);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvicted() {
+        cache.get(1L, loader);
+        cache.get(2L, loader);
+        cache.get(1L, loader);
+        cache.get(3L, loader);
+
+        assertEquals(2, cache.size());
+        assertEquals(1, meterRegistry.get("customer.cache.evictions").counter().count());
+
+        cache.get(1L, loader);
+        assertEquals(3, loads.get());
+        cache.get(2L, loader);
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void invalidateForcesReload() {
+        cache.get(1L, loader);
+        cache.invalidate(1L);
+        cache.get(1L, loader);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void loadRacingWithInvalidationIsNotCached() {
+        cache.get(1L, id -> {
+            // Izmena stize dok je odgovor user-service-a jos u letu
+            cache.invalidate(id);
+            return loader.apply(id);
+        });
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void failedLoadIsNotCached() {
+        assertThrows(IllegalArgumentException.class, () -> cache.get(1L, id -> {
+            throw new IllegalArgumentException("Korisnik nije pronađen");
+        }));
+
+        cache.get(1L, loader);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void getAllLoadsOnlyMissingCustomersInOneCall() {
+        cache.get(1L, loader);
+        List<Collection<Long>> batches = new ArrayList<>();
+
+        Map<Long, CustomerDTO> result = cache.getAll(List.of(1L, 2L, 2L, 3L), ids -> {
+            batches.add(List.copyOf(ids));
+            return Map.of(2L, loader.apply(2L));
+        });
+
+        assertEquals(List.of(List.of(2L, 3L)), batches);
+        assertEquals(Set.of(1L, 2L), result.keySet());
+        // Korisnik 3 ne postoji i ne ulazi u kes
+        assertEquals(2, cache.size());
+    }
+}
@@ -7,7 +7,9 @@ import com.banka1.banking.dto.interbank.VoteDTO;
 import com.banka1.banking.models.Event;
 import com.banka1.banking.models.EventDelivery;
 import com.banka1.banking.models.helper.DeliveryStatus;
+import com.banka1.banking.services.requests.RequestService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
@@ -21,6 +23,7 @@ import java.io.IOException;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.net.URI;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.concurrent.ScheduledFuture;
 
@@ -38,6 +41,15 @@ public class EventExecutorServiceTest {
     @Mock
     private InterbankConfig config;
 
+    @Mock
+    private InterbankDeliveryQueue deliveryQueue;
+
+    @Mock
+    private RequestService requestService;
+
+    @Mock
+    private InterbankRoutingTable routingTable;
+
     @InjectMocks
     private EventExecutorService eventExecutorService;
 
@@ -104,8 +116,43 @@ public class EventExecutorServiceTest {
         verify(interbankService).sendRollback(mockEvent);
     }
     
+    @Test
+    void attemptDelivery_usesAttemptCountedByClaim() {
+        // Peti pokusaj je vec zabelezen preuzimanjem, pa neuspeh odmah prekida slanje
+        mockEvent.setAttemptCount(5);
+        RestTemplate restTemplate = mock(RestTemplate.class);
+        when(requestService.getRestTemplate()).thenReturn(restTemplate);
+        when(restTemplate.postForEntity(anyString(), any(), eq(String.class))).thenThrow(new IllegalStateException("timeout"));
+
+        eventExecutorService.attemptDelivery(mockEvent);
+
+        assertEquals(5, mockEvent.getAttemptCount());
+        verify(eventService).changeEventStatus(mockEvent, DeliveryStatus.CANCELED);
+        verify(interbankService).sendRollback(mockEvent);
+        verify(deliveryQueue, never()).schedule(any());
+    }
+
+    @Test
+    void attemptDelivery_busyPartnerDoesNotCountAttempt() {
+        mockEvent.setAttemptCount(2);
+        InterbankPartner partner = mock(InterbankPartner.class);
+        when(routingTable.forEvent(mockEvent)).thenReturn(partner);
+        when(partner.tryAcquire()).thenReturn(false);
+        when(partner.retryAfter()).thenReturn(Duration.ZERO);
+        when(deliveryQueue.retryDelay(1)).thenReturn(Duration.ofSeconds(5));
+
+        eventExecutorService.attemptDelivery(mockEvent);
+
+        assertEquals(1, mockEvent.getAttemptCount());
+        verify(deliveryQueue).schedule(mockEvent);
+        verifyNoInteractions(requestService);
+    }
+
     @Test
     void testGetTemplate() throws Exception {
+        RequestService requestService = new RequestService(new SimpleMeterRegistry(), 4, 2, 1000, 1000, 1000, 1000);
+        setPrivateField(eventExecutorService, "requestService", requestService);
+
         // Use reflection to access private method
         Method getTemplateMethod = EventExecutorService.class.getDeclaredMethod("getTemplate");
         getTemplateMethod.setAccessible(true);
@@ -127,6 +174,7 @@ public class EventExecutorServiceTest {
         // Test that handleError doesn't throw exceptions
         URI mockUri = new URI("http://test.com");
         errorHandler.handleError(mockUri, HttpMethod.POST, mockResponse);
+        requestService.close();
     }
     
     // Utility method to set private fields
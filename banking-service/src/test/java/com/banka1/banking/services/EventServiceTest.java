@@ -12,9 +12,12 @@ import com.banka1.banking.models.helper.IdempotenceKey;
 import com.banka1.banking.models.interbank.EventDirection;
 import com.banka1.banking.repository.EventDeliveryRepository;
 import com.banka1.banking.repository.EventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
+import org.springframework.dao.DataIntegrityViolationException;
+
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -34,6 +37,9 @@ class EventServiceTest {
     @Mock
     private InterbankConfig interbankConfig;
 
+    @Spy
+    private RecentIdempotenceKeys recentKeys = new RecentIdempotenceKeys(1000, new SimpleMeterRegistry());
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
@@ -68,7 +74,6 @@ class EventServiceTest {
         dto.setIdempotenceKey(idKey);
         dto.setMessageType(InterbankMessageType.NEW_TX);
 
-        when(eventRepository.existsByIdempotenceKey(idKey)).thenReturn(false);
         when(eventRepository.save(any(Event.class))).thenAnswer(inv -> inv.getArgument(0));
 
         Event result = eventService.receiveEvent(dto, "raw-json", "http://source");
@@ -77,6 +82,7 @@ class EventServiceTest {
         assertEquals("raw-json", result.getPayload());
         assertEquals(EventDirection.INCOMING, result.getDirection());
         verify(eventRepository).save(result);
+        verify(eventRepository, never()).existsByIdempotenceKey(any());
     }
 
     @Test
@@ -86,9 +92,57 @@ class EventServiceTest {
         dto.setIdempotenceKey(key);
         dto.setMessageType(InterbankMessageType.NEW_TX);
 
-        when(eventRepository.existsByIdempotenceKey(key)).thenReturn(true);
+        Event existing = new Event();
+        existing.setId(7L);
+        when(eventRepository.save(any(Event.class))).thenThrow(new DataIntegrityViolationException("unique_key"));
+        when(eventRepository.findByUniqueKey("r-key")).thenReturn(Optional.of(existing));
+
+        EventService.DuplicateEventException e = assertThrows(EventService.DuplicateEventException.class,
+                () -> eventService.receiveEvent(dto, "payload", "url"));
+        assertEquals(7L, e.getEventId());
+    }
+
+    @Test
+    void receiveEvent_ShouldRejectRecentDuplicateWithoutDatabase() {
+        IdempotenceKey key = new IdempotenceKey("r", "key");
+        InterbankMessageDTO<String> dto = new InterbankMessageDTO<>();
+        dto.setIdempotenceKey(key);
+        dto.setMessageType(InterbankMessageType.NEW_TX);
+        when(eventRepository.save(any(Event.class))).thenAnswer(inv -> {
+            Event event = inv.getArgument(0);
+            event.setId(5L);
+            return event;
+        });
+
+        eventService.receiveEvent(dto, "payload", "url");
+
+        EventService.DuplicateEventException e = assertThrows(EventService.DuplicateEventException.class,
+                () -> eventService.receiveEvent(dto, "payload", "url"));
+        assertEquals(5L, e.getEventId());
+        verify(eventRepository, times(1)).save(any(Event.class));
+    }
+
+    @Test
+    void storedResponse_ShouldReturnResponseOfFirstDelivery() {
+        EventDelivery delivery = new EventDelivery();
+        delivery.setResponseBody("{\"vote\":\"YES\"}");
+        when(eventDeliveryRepository.findFirstByEventIdOrderByIdDesc(5L)).thenReturn(Optional.of(delivery));
+
+        assertEquals(Optional.of("{\"vote\":\"YES\"}"), eventService.storedResponse(5L));
+        assertEquals(Optional.empty(), eventService.storedResponse(6L));
+        assertEquals(Optional.empty(), eventService.storedResponse(null));
+    }
+
+    @Test
+    void receiveEvent_ShouldRethrowOtherConstraintViolations() {
+        IdempotenceKey key = new IdempotenceKey("r", "key");
+        InterbankMessageDTO<String> dto = new InterbankMessageDTO<>();
+        dto.setIdempotenceKey(key);
+        dto.setMessageType(InterbankMessageType.NEW_TX);
+        when(eventRepository.save(any(Event.class))).thenThrow(new DataIntegrityViolationException("not null"));
+        when(eventRepository.findByUniqueKey("r-key")).thenReturn(Optional.empty());
 
-        assertThrows(RuntimeException.class, () -> eventService.receiveEvent(dto, "payload", "url"));
+        assertThrows(DataIntegrityViolationException.class, () -> eventService.receiveEvent(dto, "payload", "url"));
     }
 
     @Test
@@ -143,16 +197,27 @@ class EventServiceTest {
     void findEventByIdempotenceKey_ShouldReturnEvent() {
         IdempotenceKey key = new IdempotenceKey("r", "k");
         Event event = new Event();
-        when(eventRepository.findByIdempotenceKey(key)).thenReturn(Optional.of(event));
+        when(eventRepository.findByUniqueKey("r-k")).thenReturn(Optional.of(event));
 
         Event result = eventService.findEventByIdempotenceKey(key);
         assertNotNull(result);
     }
 
+    @Test
+    void findEventByIdempotenceKey_ShouldUseIdOfRecentlyReceivedEvent() {
+        IdempotenceKey key = new IdempotenceKey("r", "k");
+        Event event = new Event();
+        recentKeys.remember("r-k", 9L);
+        when(eventRepository.findById(9L)).thenReturn(Optional.of(event));
+
+        assertSame(event, eventService.findEventByIdempotenceKey(key));
+        verify(eventRepository, never()).findByUniqueKey(any());
+    }
+
     @Test
     void findEventByIdempotenceKey_ShouldThrowIfNotFound() {
         IdempotenceKey key = new IdempotenceKey("r", "k");
-        when(eventRepository.findByIdempotenceKey(key)).thenReturn(Optional.empty());
+        when(eventRepository.findByUniqueKey("r-k")).thenReturn(Optional.empty());
 
         assertThrows(RuntimeException.class, () -> eventService.findEventByIdempotenceKey(key));
     }
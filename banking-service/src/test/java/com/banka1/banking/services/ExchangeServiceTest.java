@@ -2,16 +2,15 @@ package com.banka1.banking.services;
 
 import com.banka1.banking.dto.CustomerDTO;
 import com.banka1.banking.dto.ExchangeMoneyTransferDTO;
+import com.banka1.banking.dto.ExchangeQuote;
 import com.banka1.banking.dto.NotificationDTO;
 import com.banka1.banking.models.Account;
 import com.banka1.banking.models.Currency;
-import com.banka1.banking.models.ExchangePair;
 import com.banka1.banking.models.Transfer;
 import com.banka1.banking.models.helper.AccountStatus;
 import com.banka1.banking.models.helper.CurrencyType;
 import com.banka1.banking.repository.AccountRepository;
 import com.banka1.banking.repository.CurrencyRepository;
-import com.banka1.banking.repository.ExchangePairRepository;
 import com.banka1.banking.repository.TransferRepository;
 import com.banka1.common.listener.MessageHelper;
 import org.junit.jupiter.api.BeforeEach;
@@ -19,10 +18,14 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.core.MessageCreator;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.Map;
 import java.util.Optional;
 
@@ -54,8 +57,11 @@ public class ExchangeServiceTest {
     @Mock
     private OtpTokenService otpTokenService;
 
-    @Mock
-    private ExchangePairRepository exchangePairRepository;
+    @Spy
+    private ExchangeRateMatrix exchangeRateMatrix = new ExchangeRateMatrix();
+
+    @Spy
+    private ExchangeRateHistoryStore exchangeRateHistoryStore = new ExchangeRateHistoryStore();
 
     @InjectMocks
     private ExchangeService exchangeService;
@@ -148,53 +154,102 @@ public class ExchangeServiceTest {
 
         when(transferRepository.save(any(Transfer.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
-        doReturn("Simulirana poruka").when(messageHelper).createTextMessage(any(NotificationDTO.class));
+        MessageCreator notification = session -> null;
+        doReturn(notification).when(messageHelper).messageCreator(any(NotificationDTO.class));
 
         exchangeService.createExchangeTransfer(exchangeMoneyTransferDTO);
 
         verify(transferRepository, times(1)).saveAndFlush(any(Transfer.class));
         verify(transferRepository, times(1)).save(any(Transfer.class));
-        verify(jmsTemplate, times(2)).convertAndSend(eq("test-destination"), eq("Simulirana poruka"));
+        verify(jmsTemplate, times(2)).send("test-destination", notification);
     }
 
     @Test
-    void calculatePreviewExchange_withDirectPair() {
-        ExchangePair pair = new ExchangePair();
-        pair.setExchangeRate(117.2332942555686);
-        when(exchangePairRepository.findByBaseCurrencyCodeAndTargetCurrencyCode(CurrencyType.RSD, CurrencyType.EUR))
-                .thenReturn(Optional.of(pair));
-
-        Map<String, Object> result = exchangeService.calculatePreviewExchange("RSD", "EUR", 1000.0);
-
-        assertEquals(1 / 117.2332942555686, (Double) result.get("exchangeRate"), 0.001);
-        assertNotNull(result.get("convertedAmount"));
-        assertNotNull(result.get("fee"));
-        assertNotNull(result.get("provision"));
-        assertNotNull(result.get("finalAmount"));
+    void quote_rsdToForeign_withDirectPair() {
+        double[][] rates = ExchangeRateMatrix.newTable();
+        rates[CurrencyType.RSD.ordinal()][CurrencyType.EUR.ordinal()] = 1 / 117.2332942555686;
+        exchangeRateMatrix.publish(rates);
+
+        ExchangeQuote quote = exchangeService.quote("RSD", "EUR", 1000.0);
+
+        assertFalse(quote.isCross());
+        assertEquals(117.2332942555686, quote.getExchangeRate(), 0.001);
+        assertEquals(1000.0 / 117.2332942555686, quote.getConvertedAmount(), 0.0001);
+        assertEquals(quote.getConvertedAmount() * 0.01, quote.getFee(), 0.0001);
+        assertEquals(quote.getConvertedAmount() - quote.getFee(), quote.getFinalAmount(), 0.0001);
+
+        Map<String, Object> preview = quote.toPreview();
+        assertEquals(quote.getFee(), preview.get("provision"));
+        assertNotNull(preview.get("exchangeRate"));
+        assertNotNull(preview.get("convertedAmount"));
     }
 
     @Test
-    void calculatePreviewExchangeForeign_withBothDirectPairs() {
-        // FROM -> RSD
-        ExchangePair usdToRsd = new ExchangePair();
-        usdToRsd.setExchangeRate(108.0);
-        when(exchangePairRepository.findByBaseCurrencyCodeAndTargetCurrencyCode(CurrencyType.USD, CurrencyType.RSD))
-                .thenReturn(Optional.of(usdToRsd));
+    void quote_rsd_withReversePair() {
+        double[][] rates = ExchangeRateMatrix.newTable();
+        rates[CurrencyType.EUR.ordinal()][CurrencyType.RSD.ordinal()] = 117.0;
+        exchangeRateMatrix.publish(rates);
+
+        ExchangeQuote quote = exchangeService.quote(CurrencyType.RSD, CurrencyType.EUR, 117.0);
 
+        assertEquals(1.0 * 0.99, quote.getFinalAmount(), 0.0001);
+    }
+
+    @Test
+    void quote_foreignToForeign_withBothDirectPairs() {
+        double[][] rates = ExchangeRateMatrix.newTable();
+        // FROM -> RSD
+        rates[CurrencyType.USD.ordinal()][CurrencyType.RSD.ordinal()] = 108.0;
         // RSD -> EUR
-        ExchangePair rsdToEur = new ExchangePair();
-        rsdToEur.setExchangeRate(117.0);
-        when(exchangePairRepository.findByBaseCurrencyCodeAndTargetCurrencyCode(CurrencyType.RSD, CurrencyType.EUR))
-                .thenReturn(Optional.of(rsdToEur));
-
-        // Act
-        Map<String, Object> result = exchangeService.calculatePreviewExchangeForeign("USD", "EUR", 100.0);
-
-        // Assert
-        assertEquals(108.0, result.get("firstExchangeRate"));
-        assertEquals(1 / 117.0, (Double) result.get("secondExchangeRate"), 0.001);
-        assertNotNull(result.get("totalFee"));
-        assertNotNull(result.get("finalAmount"));
+        rates[CurrencyType.RSD.ordinal()][CurrencyType.EUR.ordinal()] = 1 / 117.0;
+        exchangeRateMatrix.publish(rates);
+
+        ExchangeQuote quote = exchangeService.quote(CurrencyType.USD, CurrencyType.EUR, 100.0);
+
+        assertTrue(quote.isCross());
+        assertEquals(108.0, quote.getFirstRate());
+        assertEquals(10800.0 * 0.01, quote.getFirstFee(), 0.0001);
+        assertEquals(10800.0 * 0.99, quote.getIntermediateAmount(), 0.0001);
+        double converted = 10800.0 * 0.99 / 117.0;
+        assertEquals(converted * 0.01, quote.getSecondFee(), 0.0001);
+        assertEquals(converted * 0.99, quote.getFinalAmount(), 0.0001);
+        assertEquals(quote.getFirstFee() / 117.0 + quote.getSecondFee(), quote.getFee(), 0.0001);
+
+        Map<String, Object> preview = quote.toPreview();
+        assertEquals(108.0, preview.get("firstExchangeRate"));
+        assertEquals(117.0, (Double) preview.get("secondExchangeRate"), 0.001);
+        assertNotNull(preview.get("totalFee"));
+    }
+
+    @Test
+    void quote_missingRateThrows() {
+        exchangeRateMatrix.publish(ExchangeRateMatrix.newTable());
+
+        RuntimeException ex = assertThrows(RuntimeException.class,
+                () -> exchangeService.quote(CurrencyType.RSD, CurrencyType.EUR, 100.0));
+        assertEquals("Kurs nije pronađen za traženu konverziju.", ex.getMessage());
     }
-}
 
+    @Test
+    void quoteAsOf_usesRateValidOnThatDay() {
+        LocalDate day = LocalDate.of(2025, 3, 1);
+        exchangeRateHistoryStore.append(CurrencyType.EUR, CurrencyType.RSD, day, 117.0);
+        exchangeRateHistoryStore.append(CurrencyType.EUR, CurrencyType.RSD, day.plusDays(1), 118.0);
+
+        // Danasnji kurs ne utice na obracun "na dan"
+        double[][] rates = ExchangeRateMatrix.newTable();
+        rates[CurrencyType.EUR.ordinal()][CurrencyType.RSD.ordinal()] = 120.0;
+        exchangeRateMatrix.publish(rates);
+
+        long timestamp = day.atTime(12, 0).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        ExchangeQuote quote = exchangeService.quoteAsOf(CurrencyType.EUR, CurrencyType.RSD, 100.0, timestamp);
+
+        assertEquals(117.0, quote.getFirstRate());
+        assertEquals(11700.0 * 0.99, quote.getFinalAmount(), 0.0001);
+
+        RuntimeException ex = assertThrows(RuntimeException.class,
+                () -> exchangeService.quoteAsOf(CurrencyType.EUR, CurrencyType.RSD, 100.0,
+                        day.minusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli()));
+        assertEquals("Kurs nije pronađen za traženu konverziju.", ex.getMessage());
+    }
+}
@@ -31,6 +31,9 @@ public class ExternalTransferServiceTest {
     @Mock
     private TransactionRepository transactionRepository;
 
+    @Mock
+    private PostingLedger postingLedger;
+
     @InjectMocks
     private TransferService transferService;
 
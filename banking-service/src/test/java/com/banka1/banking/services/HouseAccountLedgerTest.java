@@ -0,0 +1,99 @@
+package com.banka1.banking.services;
+
+import com.banka1.banking.repository.AccountRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class HouseAccountLedgerTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void creditWithoutStripesUpdatesAccountDirectly() {
+        HouseAccountLedger ledger = new HouseAccountLedger(accountRepository, jdbcTemplate, 1);
+        when(accountRepository.addToBalance(100L, 25.0)).thenReturn(1);
+
+        ledger.credit(100L, 25.0);
+
+        verify(accountRepository).addToBalance(100L, 25.0);
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void creditWithStripesWritesIntoStripeRow() {
+        HouseAccountLedger ledger = new HouseAccountLedger(accountRepository, jdbcTemplate, 8);
+
+        ledger.credit(100L, 25.0);
+
+        verify(jdbcTemplate).update(contains("house_account_credit"), eq(100L), intThat(stripe -> stripe >= 0 && stripe < 8), eq(25.0));
+        verify(accountRepository, never()).addToBalance(anyLong(), anyDouble());
+    }
+
+    @Test
+    void creditOfZeroIsIgnored() {
+        HouseAccountLedger ledger = new HouseAccountLedger(accountRepository, jdbcTemplate, 8);
+
+        ledger.credit(100L, 0.0);
+
+        verifyNoInteractions(accountRepository, jdbcTemplate);
+    }
+
+    @Test
+    void creditOfUnknownAccountThrows() {
+        HouseAccountLedger ledger = new HouseAccountLedger(accountRepository, jdbcTemplate, 1);
+        when(accountRepository.addToBalance(999L, 25.0)).thenReturn(0);
+
+        assertThrows(RuntimeException.class, () -> ledger.credit(999L, 25.0));
+    }
+
+    @Test
+    void debitUsesConditionalUpdate() {
+        HouseAccountLedger ledger = new HouseAccountLedger(accountRepository, jdbcTemplate, 8);
+        when(accountRepository.addToBalanceIfAtLeast(100L, -50.0, 50.0)).thenReturn(1);
+
+        ledger.debit(100L, 50.0);
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void debitConsolidatesStripesBeforeRetrying() {
+        HouseAccountLedger ledger = new HouseAccountLedger(accountRepository, jdbcTemplate, 8);
+        when(accountRepository.addToBalanceIfAtLeast(100L, -50.0, 50.0)).thenReturn(0, 1);
+
+        ledger.debit(100L, 50.0);
+
+        verify(jdbcTemplate).update(contains("DELETE FROM house_account_credit WHERE account_id = ?"), eq(100L), eq(100L));
+        verify(accountRepository, times(2)).addToBalanceIfAtLeast(100L, -50.0, 50.0);
+    }
+
+    @Test
+    void debitThrowsWhenBalanceIsStillInsufficient() {
+        HouseAccountLedger ledger = new HouseAccountLedger(accountRepository, jdbcTemplate, 8);
+        when(accountRepository.addToBalanceIfAtLeast(100L, -50.0, 50.0)).thenReturn(0);
+
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> ledger.debit(100L, 50.0));
+
+        assertEquals("Nedovoljno sredstava na racunu banke.", exception.getMessage());
+    }
+
+    @Test
+    void availableBalanceIncludesPendingStripes() {
+        HouseAccountLedger ledger = new HouseAccountLedger(accountRepository, jdbcTemplate, 8);
+        when(jdbcTemplate.queryForObject(contains("house_account_credit"), eq(Double.class), eq(100L))).thenReturn(175.0);
+
+        assertEquals(175.0, ledger.availableBalance(100L));
+    }
+}
@@ -0,0 +1,61 @@
+package com.banka1.banking.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InterbankDeliveryExecutorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final InterbankDeliveryExecutor executor = new InterbankDeliveryExecutor(meterRegistry, 1, 1);
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        executor.shutdown();
+    }
+
+    @Test
+    void delayedDeliveryRunsOnDeliveryThread() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        String[] threadName = new String[1];
+        long start = System.nanoTime();
+
+        executor.schedule(() -> {
+            threadName[0] = Thread.currentThread().getName();
+            done.countDown();
+        }, Duration.ofMillis(50));
+
+        assertTrue(done.await(2, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertTrue(threadName[0].startsWith("interbank-delivery-"));
+    }
+
+    @Test
+    void fullQueueRejectsDelivery() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        executor.submit(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(started.await(2, TimeUnit.SECONDS));
+        executor.submit(() -> { });
+
+        assertThrows(RejectedExecutionException.class, () -> executor.submit(() -> { }));
+        assertEquals(1, executor.inFlight());
+        assertEquals(1, executor.queued());
+        assertEquals(1.0, meterRegistry.get("interbank.delivery.rejected").counter().count());
+        release.countDown();
+    }
+}
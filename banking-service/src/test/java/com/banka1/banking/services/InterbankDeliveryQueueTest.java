@@ -0,0 +1,127 @@
+package com.banka1.banking.services;
+
+import com.banka1.banking.models.Event;
+import com.banka1.banking.models.helper.DeliveryStatus;
+import com.banka1.banking.models.interbank.EventDirection;
+import com.banka1.banking.repository.EventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InterbankDeliveryQueueTest {
+
+    @Mock
+    private EventRepository eventRepository;
+    @Mock
+    private EventExecutorService eventExecutorService;
+    @Mock
+    private InterbankDeliveryExecutor deliveryExecutor;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private InterbankDeliveryQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        queue = new InterbankDeliveryQueue(eventRepository, eventExecutorService, deliveryExecutor, meterRegistry,
+                60_000, 1_000, 16_000, 10_000, 2);
+    }
+
+    private Event event(long id, Instant nextAttemptAt) {
+        Event event = new Event();
+        event.setId(id);
+        event.setNextAttemptAt(nextAttemptAt);
+        return event;
+    }
+
+    @Test
+    void retryDelayGrowsExponentiallyWithJitterAndIsCapped() {
+        for (int i = 0; i < 50; i++) {
+            long first = queue.retryDelay(1).toMillis();
+            long third = queue.retryDelay(3).toMillis();
+            long capped = queue.retryDelay(40).toMillis();
+            assertTrue(first >= 500 && first <= 1_000);
+            assertTrue(third >= 2_000 && third <= 4_000);
+            assertTrue(capped >= 8_000 && capped <= 16_000);
+        }
+    }
+
+    @Test
+    void deliversOnlyClaimedEvent() {
+        Event event = event(1L, Instant.now());
+        when(eventRepository.claim(eq(1L), any(), any(), any())).thenReturn(1);
+        when(eventRepository.findById(1L)).thenReturn(Optional.of(event));
+        when(eventRepository.claim(eq(2L), any(), any(), any())).thenReturn(0);
+
+        assertTrue(queue.deliverIfDue(1L));
+        assertFalse(queue.deliverIfDue(2L));
+
+        verify(eventExecutorService).attemptDelivery(event);
+        verify(eventRepository, never()).findById(2L);
+    }
+
+    @Test
+    void pollStopsWhenExecutorIsFull() {
+        when(eventRepository.countByDirectionAndStatusIn(EventDirection.OUTGOING, InterbankDeliveryQueue.ACTIVE)).thenReturn(7L);
+        when(eventRepository.findDueIds(eq(EventDirection.OUTGOING), any(), any(), any(Limit.class))).thenReturn(List.of(1L, 2L, 3L));
+        doNothing().doThrow(new RejectedExecutionException()).when(deliveryExecutor).submit(any());
+
+        queue.poll();
+
+        verify(deliveryExecutor, times(2)).submit(any());
+        assertEquals(7.0, meterRegistry.get("interbank.delivery.backlog").gauge().value());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void recoverySpreadsOverdueEventsAndKeepsFutureOnes() {
+        Instant future = Instant.now().plus(Duration.ofHours(1));
+        Event overdue = event(1L, Instant.now().minus(Duration.ofMinutes(5)));
+        Event unscheduled = event(2L, null);
+        Event scheduled = event(3L, future);
+        when(eventRepository.findUnfinishedAfter(eq(EventDirection.OUTGOING), any(), eq(0L), any(Limit.class)))
+                .thenReturn(List.of(overdue, unscheduled));
+        when(eventRepository.findUnfinishedAfter(eq(EventDirection.OUTGOING), any(), eq(2L), any(Limit.class)))
+                .thenReturn(List.of(scheduled));
+        when(eventRepository.findUnfinishedAfter(eq(EventDirection.OUTGOING), any(), eq(3L), any(Limit.class)))
+                .thenReturn(List.of());
+
+        Instant before = Instant.now();
+        queue.recover();
+
+        for (Event event : List.of(overdue, unscheduled)) {
+            assertFalse(event.getNextAttemptAt().isBefore(before));
+            assertTrue(event.getNextAttemptAt().isBefore(before.plus(Duration.ofSeconds(11))));
+        }
+        assertEquals(future, scheduled.getNextAttemptAt());
+        ArgumentCaptor<List<Event>> saved = ArgumentCaptor.forClass(List.class);
+        verify(eventRepository).saveAll(saved.capture());
+        assertEquals(List.of(overdue, unscheduled), saved.getValue());
+    }
+
+    @Test
+    void attemptsAreCountedPerResult() {
+        queue.recordAttempt(DeliveryStatus.SUCCESS);
+        queue.recordAttempt(DeliveryStatus.RETRYING);
+        queue.recordAttempt(DeliveryStatus.RETRYING);
+
+        assertEquals(1.0, meterRegistry.get("interbank.delivery.attempts").tag("result", "success").counter().count());
+        assertEquals(2.0, meterRegistry.get("interbank.delivery.attempts").tag("result", "retrying").counter().count());
+    }
+}
@@ -0,0 +1,99 @@
+package com.banka1.banking.services;
+
+import com.banka1.banking.services.InterbankPartner.CircuitState;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InterbankPartnerTest {
+
+    private static final Duration OPEN = Duration.ofSeconds(30);
+
+    private final MutableClock clock = new MutableClock();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final InterbankPartner partner = new InterbankPartner("444", "http://banka4/interbank", "key", 2, 3, OPEN, clock, meterRegistry);
+
+    private void failedDelivery() {
+        assertTrue(partner.tryAcquire());
+        partner.release(false, Duration.ofMillis(10));
+    }
+
+    @Test
+    void bulkheadLimitsConcurrentDeliveries() {
+        assertTrue(partner.tryAcquire());
+        assertTrue(partner.tryAcquire());
+        assertFalse(partner.tryAcquire());
+        assertEquals(2, partner.inFlight());
+
+        partner.release(true, Duration.ofMillis(5));
+        assertTrue(partner.tryAcquire());
+        assertEquals(1.0, meterRegistry.get("interbank.partner.rejected").tag("reason", "bulkhead").counter().count());
+    }
+
+    @Test
+    void circuitOpensAfterConsecutiveFailuresAndClosesAfterSuccessfulProbe() {
+        failedDelivery();
+        failedDelivery();
+        assertEquals(CircuitState.CLOSED, partner.getState());
+        failedDelivery();
+
+        assertEquals(CircuitState.OPEN, partner.getState());
+        assertFalse(partner.tryAcquire());
+        assertEquals(OPEN, partner.retryAfter());
+        assertEquals(0, partner.inFlight());
+
+        clock.advance(OPEN);
+        assertTrue(partner.tryAcquire());
+        assertEquals(CircuitState.HALF_OPEN, partner.getState());
+        // Dok probni poziv traje, ostali se odbijaju
+        assertFalse(partner.tryAcquire());
+
+        partner.release(true, Duration.ofMillis(20));
+        assertEquals(CircuitState.CLOSED, partner.getState());
+        assertEquals(Duration.ZERO, partner.retryAfter());
+        assertEquals(2.0, meterRegistry.get("interbank.partner.rejected").tag("reason", "circuit").counter().count());
+        assertEquals(4, meterRegistry.get("interbank.partner.latency").timer().count());
+    }
+
+    @Test
+    void failedProbeReopensCircuit() {
+        failedDelivery();
+        failedDelivery();
+        failedDelivery();
+        clock.advance(OPEN);
+
+        failedDelivery();
+
+        assertEquals(CircuitState.OPEN, partner.getState());
+        assertEquals(OPEN, partner.retryAfter());
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2025-03-01T10:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneId.of("UTC");
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.banka1.banking.services;
+
+import com.banka1.banking.config.InterbankConfig;
+import com.banka1.banking.config.InterbankPartnersConfig;
+import com.banka1.banking.models.Event;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class InterbankRoutingTableTest {
+
+    @Mock
+    private InterbankConfig config;
+
+    private static InterbankPartnersConfig.Partner partner(String routingNumber, String url) {
+        InterbankPartnersConfig.Partner partner = new InterbankPartnersConfig.Partner();
+        partner.setRoutingNumber(routingNumber);
+        partner.setUrl(url);
+        partner.setApiKey("key-" + routingNumber);
+        return partner;
+    }
+
+    private InterbankRoutingTable table(InterbankPartnersConfig.Partner... partners) {
+        InterbankPartnersConfig partnersConfig = new InterbankPartnersConfig();
+        partnersConfig.setPartners(List.of(partners));
+        return new InterbankRoutingTable(config, partnersConfig, new SimpleMeterRegistry(), 5, Duration.ofSeconds(30), Clock.systemUTC());
+    }
+
+    @Test
+    void accountIsRoutedByLongestRoutingPrefix() {
+        when(config.getRoutingNumber()).thenReturn("111");
+        InterbankRoutingTable table = table(partner("444", "http://banka4/interbank"), partner("4441", "http://banka41/interbank"),
+                partner("222", "http://banka2/interbank"));
+
+        assertEquals("4441", table.resolveAccount("444100000000000011").getRoutingNumber());
+        assertEquals("444", table.resolveAccount("444200000000000011").getRoutingNumber());
+        assertEquals("http://banka2/interbank", table.resolveAccount("222000000000000011").getUrl());
+        assertNull(table.resolveAccount("111000000000000011"));
+        assertNull(table.resolveAccount(null));
+    }
+
+    @Test
+    void eventWithoutPartnerGoesToLegacyForeignBank() {
+        when(config.getRoutingNumber()).thenReturn("111");
+        when(config.getForeignBankRoutingNumber()).thenReturn("444");
+        InterbankRoutingTable table = table(partner("222", "http://banka2/interbank"), partner("444", "http://banka4/interbank"));
+
+        Event legacy = new Event();
+        Event routed = new Event();
+        routed.setPartnerRoutingNumber("222");
+
+        assertEquals("444", table.forEvent(legacy).getRoutingNumber());
+        assertEquals("222", table.forEvent(routed).getRoutingNumber());
+    }
+
+    @Test
+    void singleForeignBankIsUsedWhenNoPartnersAreConfigured() {
+        when(config.getForeignBankRoutingNumber()).thenReturn("444");
+        when(config.getInterbankTargetUrl()).thenReturn("http://banka4/interbank");
+        when(config.getForeignBankApiKey()).thenReturn("sundjerbob");
+
+        InterbankPartner partner = table().resolveAccount("444000000000000011");
+
+        assertEquals("http://banka4/interbank", partner.getUrl());
+        assertEquals("sundjerbob", partner.getApiKey());
+    }
+
+    @Test
+    void duplicateOrOwnRoutingNumberIsRejected() {
+        when(config.getRoutingNumber()).thenReturn("111");
+
+        assertThrows(IllegalStateException.class, () -> table(partner("444", "a"), partner("444", "b")));
+        assertThrows(IllegalStateException.class, () -> table(partner("111", "a")));
+    }
+}
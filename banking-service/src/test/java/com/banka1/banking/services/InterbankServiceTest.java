@@ -1,12 +1,14 @@
 package com.banka1.banking.services;
 
 import com.banka1.banking.config.InterbankConfig;
+import com.banka1.banking.dto.CreateEventDTO;
 import com.banka1.banking.dto.interbank.InterbankMessageDTO;
 import com.banka1.banking.dto.interbank.InterbankMessageType;
 import com.banka1.banking.dto.interbank.VoteDTO;
 import com.banka1.banking.dto.interbank.newtx.InterbankTransactionDTO;
 import com.banka1.banking.models.Account;
 import com.banka1.banking.models.Currency;
+import com.banka1.banking.models.Event;
 import com.banka1.banking.models.Transfer;
 import com.banka1.banking.models.helper.CurrencyType;
 import com.banka1.banking.models.helper.IdempotenceKey;
@@ -17,6 +19,8 @@ import org.aspectj.weaver.TypeFactory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.Optional;
 
@@ -39,6 +43,8 @@ class InterbankServiceTest {
     private CurrencyRepository currencyRepository;
     @Mock
     private InterbankConfig config;
+    @Mock
+    private InterbankRoutingTable routingTable;
 
     @InjectMocks
     private InterbankService interbankService;
@@ -69,17 +75,42 @@ class InterbankServiceTest {
         when(mockCurrency.getCode()).thenReturn(CurrencyType.USD);
 
         when(config.getRoutingNumber()).thenReturn("123456");
-        when(config.getForeignBankRoutingNumber()).thenReturn("654321");
-        when(config.getInterbankTargetUrl()).thenReturn("http://localhost:8080/interbank");
+        InterbankPartner partner = mock(InterbankPartner.class);
+        when(partner.getRoutingNumber()).thenReturn("654");
+        when(mockTransfer.getNote()).thenReturn("654000000000000011");
+        when(routingTable.resolveAccount("654000000000000011")).thenReturn(partner);
 
-        doNothing().when(spyService).sendInterbankMessage(any(InterbankMessageDTO.class), anyString());
+        doNothing().when(spyService).sendInterbankMessage(any(InterbankMessageDTO.class), any(InterbankPartner.class));
 
         spyService.sendNewTXMessage(mockTransfer);
 
 
-//        verify(spyService).sendInterbankMessage(any());
+        verify(spyService).sendInterbankMessage(any(InterbankMessageDTO.class), eq(partner));
     }
 
+    @Test
+    void sendInterbankMessage_deliversOnlyAfterCommit() throws Exception {
+        InterbankMessageDTO<InterbankTransactionDTO> message = new InterbankMessageDTO<>();
+        message.setMessageType(InterbankMessageType.NEW_TX);
+        message.setIdempotenceKey(new IdempotenceKey("111", "5"));
+        message.setMessage(new InterbankTransactionDTO());
+        InterbankPartner partner = mock(InterbankPartner.class);
+        Event event = new Event();
+        event.setId(7L);
+        when(objectMapper.writeValueAsString(message)).thenReturn("{}");
+        when(eventService.createEvent(any(CreateEventDTO.class))).thenReturn(event);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            interbankService.sendInterbankMessage(message, partner);
+            verify(eventExecutorService, never()).attemptEventAsync(any());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(eventExecutorService).attemptEventAsync(event);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
 
     // Add more tests for COMMIT_TX, ROLLBACK_TX, handleCommitTXRequest, etc.
 }
@@ -31,6 +31,9 @@ class InternalTransferServiceTest {
     @Mock
     private AccountRepository accountRepository;
 
+    @Mock
+    private PostingLedger postingLedger;
+
     @InjectMocks
     private TransferService transferService;
 
@@ -73,6 +76,7 @@ class InternalTransferServiceTest {
         verify(accountRepository, times(2)).save(any(Account.class));
         verify(transactionRepository, times(1)).save(any(Transaction.class));
         verify(transferRepository, times(1)).save(transfer);
+        verify(postingLedger, times(1)).post(any(PostingLedger.Journal.class));
     }
 
     @Test
@@ -0,0 +1,126 @@
+package com.banka1.banking.services;
+
+import com.banka1.banking.dto.DueInstallmentRef;
+import com.banka1.banking.models.Installment;
+import com.banka1.banking.repository.InstallmentsRepository;
+import com.banka1.banking.services.LoanService.InstallmentOutcome;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LoanInstallmentJobTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 3, 1);
+
+    @Mock
+    private LoanService loanService;
+    @Mock
+    private InstallmentsRepository installmentsRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private LoanInstallmentJob job;
+    private final List<SimpleTransactionStatus> transactions = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionManager.getTransaction(any())).thenAnswer(invocation -> {
+            SimpleTransactionStatus status = new SimpleTransactionStatus();
+            transactions.add(status);
+            return status;
+        });
+        job = new LoanInstallmentJob(loanService, installmentsRepository, transactionManager, new SimpleMeterRegistry(), 2, 4, 3);
+    }
+
+    private void stubInstallments(long... ids) {
+        for (long id : ids) {
+            Installment installment = new Installment();
+            installment.setId(id);
+            when(installmentsRepository.findById(id)).thenReturn(Optional.of(installment));
+        }
+    }
+
+    @Test
+    void installmentsOfOneAccountAreProcessedInOrderOnOneThread() {
+        when(installmentsRepository.findMaxId()).thenReturn(100L);
+        when(installmentsRepository.findDueInstallmentRefs(eq(TODAY), eq(0L), eq(100L), any(Limit.class))).thenReturn(List.of(
+                new DueInstallmentRef(1L, 10L), new DueInstallmentRef(2L, 20L),
+                new DueInstallmentRef(3L, 10L), new DueInstallmentRef(4L, 20L)));
+        when(installmentsRepository.findDueInstallmentRefs(eq(TODAY), eq(4L), eq(100L), any(Limit.class))).thenReturn(List.of(
+                new DueInstallmentRef(5L, 10L)));
+        stubInstallments(1, 2, 3, 4, 5);
+
+        Map<Long, String> threads = new ConcurrentHashMap<>();
+        List<Long> order = new CopyOnWriteArrayList<>();
+        when(loanService.processDueInstallment(any())).thenAnswer(invocation -> {
+            Installment installment = invocation.getArgument(0);
+            threads.put(installment.getId(), Thread.currentThread().getName());
+            order.add(installment.getId());
+            return InstallmentOutcome.PAID;
+        });
+
+        LoanInstallmentJob.RunReport report = job.run(TODAY);
+
+        assertEquals(5, report.paid());
+        assertEquals(0, report.failed());
+        assertEquals(threads.get(1L), threads.get(3L));
+        assertEquals(threads.get(1L), threads.get(5L));
+        assertEquals(threads.get(2L), threads.get(4L));
+        assertTrue(order.indexOf(1L) < order.indexOf(3L) && order.indexOf(3L) < order.indexOf(5L));
+        assertSame(report, job.getReport());
+    }
+
+    @Test
+    void failedInstallmentRollsBackOnlyItself() {
+        when(installmentsRepository.findMaxId()).thenReturn(100L);
+        when(installmentsRepository.findDueInstallmentRefs(eq(TODAY), eq(0L), eq(100L), any(Limit.class))).thenReturn(List.of(
+                new DueInstallmentRef(1L, 10L), new DueInstallmentRef(2L, 10L)));
+        stubInstallments(1, 2);
+        when(loanService.processDueInstallment(any())).thenAnswer(invocation -> {
+            Installment installment = invocation.getArgument(0);
+            return installment.getId() == 2L ? InstallmentOutcome.FAILED : InstallmentOutcome.LATE;
+        });
+
+        LoanInstallmentJob.RunReport report = job.run(TODAY);
+
+        assertEquals(1, report.late());
+        assertEquals(1, report.failed());
+        assertEquals(List.of(2L), report.failedInstallmentIds());
+        // Ponisteni su ceo deo i transakcija neuspele rate, uspela rata je sacuvana posebno
+        assertEquals(3, transactions.size());
+        assertEquals(2, transactions.stream().filter(TransactionStatus::isRollbackOnly).count());
+    }
+
+    @Test
+    void nothingDueProducesEmptyReport() {
+        when(installmentsRepository.findMaxId()).thenReturn(0L);
+        when(installmentsRepository.findDueInstallmentRefs(eq(TODAY), anyLong(), anyLong(), any(Limit.class))).thenReturn(List.of());
+
+        LoanInstallmentJob.RunReport report = job.run(TODAY);
+
+        assertEquals(0, report.processed());
+        assertEquals(0, report.chunks());
+        verifyNoInteractions(loanService);
+    }
+}
@@ -1,5 +1,6 @@
 package com.banka1.banking.services;
 
+import com.banka1.banking.dto.CustomerDTO;
 import com.banka1.banking.dto.request.CreateLoanDTO;
 import com.banka1.banking.models.Account;
 import com.banka1.banking.models.Installment;
@@ -11,12 +12,18 @@ import com.banka1.banking.models.helper.PaymentStatus;
 import com.banka1.banking.repository.AccountRepository;
 import com.banka1.banking.repository.InstallmentsRepository;
 import com.banka1.banking.repository.LoanRepository;
+import com.banka1.common.listener.MessageHelper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.core.MessageCreator;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.Instant;
 import java.time.LocalDate;
@@ -42,6 +49,18 @@ public class LoanServiceTest {
     @Mock
     private InstallmentsRepository installmentsRepository;
 
+    @Mock
+    private BankAccountUtils bankAccountUtils;
+
+    @Mock
+    private UserServiceCustomer userServiceCustomer;
+
+    @Mock
+    private JmsTemplate jmsTemplate;
+
+    @Mock
+    private MessageHelper messageHelper;
+
     @InjectMocks
     private LoanService loanService;
 
@@ -297,6 +316,33 @@ public class LoanServiceTest {
         verify(loanRepository).save(any(Loan.class));
     }
 
+    @Test
+    public void testProcessDueInstallment_LateNotificationIsSentAfterCommit() {
+        testAccount.setBalance(0.0);
+        installment.setAttemptCount(0);
+        installment.setCurrencyType(CurrencyType.USD);
+        savedLoan.setPenalty(0.0);
+        CustomerDTO customer = new CustomerDTO();
+        customer.setEmail("klijent@banka1.rs");
+        MessageCreator messageCreator = mock(MessageCreator.class);
+        when(bankAccountUtils.getBankAccountForCurrency(CurrencyType.USD)).thenReturn(new Account());
+        when(userServiceCustomer.getCustomerById(1L)).thenReturn(customer);
+        when(messageHelper.messageCreator(any())).thenReturn(messageCreator);
+        ReflectionTestUtils.setField(loanService, "destinationEmail", "email.queue");
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertEquals(LoanService.InstallmentOutcome.LATE, loanService.processDueInstallment(installment));
+            // Deo se jos moze ponistiti i ponoviti rata po rata, pa mejl jos nije poslat
+            verifyNoInteractions(jmsTemplate, userServiceCustomer);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(jmsTemplate).send("email.queue", messageCreator);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
     @Test
     public void testHasApprovedLoan_ReturnsTrue_WhenApprovedLoanExists() {
 
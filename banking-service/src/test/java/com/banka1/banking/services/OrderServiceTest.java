@@ -1,5 +1,6 @@
 package com.banka1.banking.services;
 
+import com.banka1.banking.dto.HouseAccountRef;
 import com.banka1.banking.dto.MoneyTransferDTO;
 import com.banka1.banking.dto.OrderTransactionInitiationDTO;
 import com.banka1.banking.models.Account;
@@ -40,6 +41,8 @@ public class OrderServiceTest {
     private TransactionRepository transactionRepository;
     @Mock
     private TransferService transferService;
+    @Mock
+    private HouseAccountLedger houseAccountLedger;
 
     @InjectMocks
     private OrderService orderService;
@@ -67,11 +70,12 @@ public class OrderServiceTest {
     @Test
     void testExecuteOrder_TransferHappens_BankIsNotSameAccount() {
         when(accountService.findById(1L)).thenReturn(userAccount);
-        when(bankAccountUtils.getBankAccountForCurrency(CurrencyType.RSD)).thenReturn(bankAccount);
+        when(bankAccountUtils.getBankAccountRef(CurrencyType.RSD)).thenReturn(ref(bankAccount));
 
         double result = orderService.executeOrder("buy", 10L, 1L, 50000.0, 100.0);
 
         assertEquals(50000.0, result);
+        verify(accountRepository).lockAllById(List.of(1L));
 
         ArgumentCaptor<MoneyTransferDTO> captor = ArgumentCaptor.forClass(MoneyTransferDTO.class);
         verify(transferService, times(2)).createMoneyTransfer(captor.capture());
@@ -93,7 +97,7 @@ public class OrderServiceTest {
     @Test
     void testExecuteOrder_FeeTransfer_TriggeredSeparately() {
         when(accountService.findById(1L)).thenReturn(userAccount);
-        when(bankAccountUtils.getBankAccountForCurrency(CurrencyType.RSD)).thenReturn(bankAccount);
+        when(bankAccountUtils.getBankAccountRef(CurrencyType.RSD)).thenReturn(ref(bankAccount));
 
         orderService.executeOrder("buy", 10L, 1L, 1000.0, 200.0);
 
@@ -113,11 +117,12 @@ public class OrderServiceTest {
         bankAccount.setCurrencyType(CurrencyType.EUR);
 
         when(accountService.findById(1L)).thenReturn(userAccount);
-        when(bankAccountUtils.getBankAccountForCurrency(CurrencyType.USD)).thenReturn(bankAccount);
+        when(bankAccountUtils.getBankAccountRef(CurrencyType.USD)).thenReturn(ref(bankAccount));
 
         double result = orderService.executeOrder("buy", 10L, 1L, 50000.0, 100.0);
 
         assertEquals(50000.0, result);
+        verify(accountRepository).lockAllById(List.of(1L));
         verify(transferService, times(2)).createMoneyTransfer(any());
     }
 
@@ -126,7 +131,7 @@ public class OrderServiceTest {
         userAccount.setOwnerID(99L);
 
         when(accountService.findById(1L)).thenReturn(userAccount);
-        when(bankAccountUtils.getBankAccountForCurrency(CurrencyType.RSD)).thenReturn(bankAccount);
+        when(bankAccountUtils.getBankAccountRef(CurrencyType.RSD)).thenReturn(ref(bankAccount));
 
         assertThrows(RuntimeException.class, () ->
                 orderService.executeOrder("buy", 10L, 1L, 1000.0, 0.0)
@@ -138,7 +143,7 @@ public class OrderServiceTest {
         userAccount.setBalance(100.0);
 
         when(accountService.findById(1L)).thenReturn(userAccount);
-        when(bankAccountUtils.getBankAccountForCurrency(CurrencyType.RSD)).thenReturn(bankAccount);
+        when(bankAccountUtils.getBankAccountRef(CurrencyType.RSD)).thenReturn(ref(bankAccount));
 
         assertThrows(IllegalArgumentException.class, () ->
                 orderService.executeOrder("buy", 10L, 1L, 500.0, 100.0)
@@ -147,20 +152,24 @@ public class OrderServiceTest {
 
     @Test
     void testExecuteOrder_SameAccount_UpdatesBalanceDirectly() {
+        // Ucitano stanje ne ukljucuje uplate iz traka, raspolozivo stanje ih ukljucuje
+        userAccount.setBalance(500.0);
         when(accountService.findById(1L)).thenReturn(userAccount);
-        when(bankAccountUtils.getBankAccountForCurrency(CurrencyType.RSD)).thenReturn(userAccount);
+        when(bankAccountUtils.getBankAccountRef(CurrencyType.RSD)).thenReturn(ref(userAccount));
+        when(houseAccountLedger.availableBalance(1L)).thenReturn(5000.0);
 
         double result = orderService.executeOrder("buy", 10L, 1L, 1000.0, 100.0);
 
         assertEquals(1000.0, result);
-        assertEquals(98900.0, userAccount.getBalance());
-        verify(accountRepository).save(userAccount);
+        verify(houseAccountLedger).debit(userAccount.getId(), 1100.0);
+        verify(accountRepository, never()).save(userAccount);
+        verify(accountRepository, never()).lockAllById(any());
         verifyNoInteractions(transferService);
     }
     @Test
     void testExecuteOrder_RollbackIfTransferFails() {
         when(accountService.findById(1L)).thenReturn(userAccount);
-        when(bankAccountUtils.getBankAccountForCurrency(CurrencyType.RSD)).thenReturn(bankAccount);
+        when(bankAccountUtils.getBankAccountRef(CurrencyType.RSD)).thenReturn(ref(bankAccount));
 
         doThrow(new RuntimeException("Greška u transferu"))
                 .when(transferService).createMoneyTransfer(any());
@@ -248,7 +257,7 @@ public class OrderServiceTest {
         bankAccount.setAccountNumber("BANK_ACC");
 
         when(accountService.findById(accountId)).thenReturn(userAccount);
-        when(bankAccountUtils.getBankAccountForCurrency(CurrencyType.USD)).thenReturn(bankAccount);
+        when(bankAccountUtils.getBankAccountRef(CurrencyType.USD)).thenReturn(ref(bankAccount));
 
         // Act
         orderService.executeOrder("sell", userId, accountId, amount, fee);
@@ -268,4 +277,7 @@ public class OrderServiceTest {
         assertEquals("Realizacija prodaje hartije", dto.getPayementDescription());
     }
 
+    private static HouseAccountRef ref(Account account) {
+        return new HouseAccountRef(account.getId(), account.getOwnerID(), account.getAccountNumber());
+    }
 }
@@ -17,12 +17,17 @@ import com.banka1.common.listener.MessageHelper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jms.UncategorizedJmsException;
 import org.springframework.jms.core.JmsTemplate;
 import org.springframework.scheduling.TaskScheduler;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -58,6 +63,9 @@ public class OtcServiceTest {
     @Mock
     private TaskScheduler taskScheduler;
 
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     private final String uid = "uid";
 
     private OTCTransaction transaction;
@@ -301,12 +309,41 @@ public class OtcServiceTest {
 
     }
 
+    @Test
+    public void testRollback_RetriedAfterJmsFailure() {
+        Account seller = new Account();
+        seller.setId(1L);
+        seller.setBalance(200.0);
 
+        Account buyer = new Account();
+        buyer.setId(2L);
+        buyer.setBalance(200.0);
 
+        transaction.setSellerAccount(seller);
+        transaction.setBuyerAccount(buyer);
+        transaction.setAmount(100.0);
+        transaction.setAmountTaken(100.0);
 
+        when(otcTransactionRepository.findAll()).thenReturn(List.of(transaction));
+        when(otcTransactionRepository.findByUid(uid)).thenReturn(Optional.of(transaction));
+        when(messageHelper.createTextMessage(any(OTCTransactionACKDTO.class))).thenReturn("NACK");
+        doThrow(new UncategorizedJmsException("Broker nije dostupan"))
+                .doNothing()
+                .when(jmsTemplate).convertAndSend(nullable(String.class), any(Object.class));
 
+        otcService.rollbackUnfinishedTransactions();
 
+        assertEquals(200.0, buyer.getBalance());
+        verify(otcTransactionRepository, never()).delete(any());
 
+        ArgumentCaptor<Runnable> retry = ArgumentCaptor.forClass(Runnable.class);
+        verify(taskScheduler).schedule(retry.capture(), any(Instant.class));
+        retry.getValue().run();
 
-
+        assertEquals(300.0, buyer.getBalance());
+        assertEquals(200.0, seller.getBalance());
+        verify(otcTransactionRepository).delete(transaction);
+        verify(transactionManager).getTransaction(any());
+        verify(transactionManager).commit(any());
+    }
 }
@@ -20,6 +20,9 @@ public class OtpTokenServiceTest {
     @Mock
     private OtpTokenRepository otpTokenRepository;
 
+    @Mock
+    private TransferExpiryScheduler transferExpiryScheduler;
+
     @InjectMocks
     private OtpTokenService otpTokenService;
 
@@ -47,6 +50,7 @@ public class OtpTokenServiceTest {
         assertNotNull(generatedOtp);
         assertEquals(6, generatedOtp.length());
         verify(otpTokenRepository, times(1)).saveAndFlush(any(OtpToken.class));
+        verify(transferExpiryScheduler).schedule(eq(1L), anyLong());
     }
 
     @Test
@@ -86,6 +90,7 @@ public class OtpTokenServiceTest {
 
         assertTrue(otpToken.isUsed());
         verify(otpTokenRepository, times(1)).save(otpToken);
+        verify(transferExpiryScheduler).cancel(1L);
     }
 }
 
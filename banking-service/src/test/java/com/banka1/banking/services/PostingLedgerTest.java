@@ -0,0 +1,87 @@
+package com.banka1.banking.services;
+
+import com.banka1.banking.models.helper.CurrencyType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PostingLedgerTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private PostingLedger postingLedger;
+
+    @Test
+    void moveCreatesBalancedLegsInMinorUnits() {
+        PostingLedger.Journal journal = PostingLedger.journal(5L, "Menjacnica")
+                .move(1L, 100L, CurrencyType.EUR, 12.34)
+                .move(101L, 2L, CurrencyType.JPY, 1500.0);
+
+        List<PostingLedger.Leg> legs = journal.getLegs();
+
+        assertEquals(List.of(
+                new PostingLedger.Leg(1L, CurrencyType.EUR, -1234),
+                new PostingLedger.Leg(100L, CurrencyType.EUR, 1234),
+                new PostingLedger.Leg(101L, CurrencyType.JPY, -1500),
+                new PostingLedger.Leg(2L, CurrencyType.JPY, 1500)
+        ), legs);
+    }
+
+    @Test
+    void moveSkipsZeroAmountAndSameAccount() {
+        PostingLedger.Journal journal = PostingLedger.journal(5L, "Prenos")
+                .move(1L, 2L, CurrencyType.RSD, 0.0)
+                .move(1L, 1L, CurrencyType.RSD, 100.0);
+
+        assertTrue(journal.getLegs().isEmpty());
+        assertNull(postingLedger.post(journal));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void moveRejectsNegativeAmount() {
+        PostingLedger.Journal journal = PostingLedger.journal(5L, "Prenos");
+
+        assertThrows(IllegalArgumentException.class, () -> journal.move(1L, 2L, CurrencyType.RSD, -10.0));
+    }
+
+    @Test
+    void moveRejectsAmountBelowMinorUnit() {
+        PostingLedger.Journal journal = PostingLedger.journal(5L, "Menjacnica");
+
+        assertThrows(IllegalArgumentException.class, () -> journal.move(101L, 2L, CurrencyType.JPY, 1500.4));
+        assertThrows(IllegalArgumentException.class, () -> journal.move(1L, 100L, CurrencyType.EUR, 12.345));
+        assertTrue(journal.getLegs().isEmpty());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void postWritesAllLegsInOneBatch() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(42L);
+
+        Long journalId = postingLedger.post(PostingLedger.journal(5L, "Menjacnica")
+                .move(1L, 100L, CurrencyType.EUR, 10.0)
+                .move(101L, 2L, CurrencyType.RSD, 1160.0));
+
+        assertEquals(42L, journalId);
+        ArgumentCaptor<Collection<Object>> legs = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(contains("ledger_posting"), legs.capture(), eq(4),
+                any(ParameterizedPreparedStatementSetter.class));
+        assertEquals(4, legs.getValue().size());
+    }
+}
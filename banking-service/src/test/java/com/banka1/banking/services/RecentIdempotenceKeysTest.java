@@ -0,0 +1,59 @@
+package com.banka1.banking.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecentIdempotenceKeysTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RecentIdempotenceKeys keys = new RecentIdempotenceKeys(100, meterRegistry);
+
+    @Test
+    void rememberedKeyIsKnownDuplicateWithEventId() {
+        assertFalse(keys.isKnownDuplicate("444-a"));
+        assertNull(keys.eventId("444-a"));
+
+        keys.remember("444-a", 1L);
+
+        assertTrue(keys.isKnownDuplicate("444-a"));
+        assertEquals(1L, keys.eventId("444-a"));
+        assertFalse(keys.isKnownDuplicate("444-b"));
+        assertEquals(1.0, meterRegistry.get("interbank.incoming.duplicates").tag("source", "memory").counter().count());
+    }
+
+    @Test
+    void leastRecentlyUsedKeysAreForgotten() {
+        keys.remember("444-0", 0L);
+        for (long i = 1; i <= 100; i++) {
+            keys.remember("444-" + i, i);
+            // Prvi kljuc se koristi, pa ostaje
+            assertTrue(keys.isKnownDuplicate("444-0"));
+        }
+
+        assertTrue(keys.isKnownDuplicate("444-0"));
+        assertFalse(keys.isKnownDuplicate("444-1"));
+        assertEquals(100L, keys.eventId("444-100"));
+    }
+
+    @Test
+    void keysSurviveOneFilterRotation() {
+        for (long i = 0; i < 150; i++) {
+            keys.remember("444-" + i, i);
+        }
+
+        // Poslednjih 100 kljuceva je i u LRU i u jednoj od dve generacije filtera
+        for (long i = 50; i < 150; i++) {
+            assertEquals(i, keys.eventId("444-" + i));
+        }
+    }
+
+    @Test
+    void databaseDuplicateIsCountedAndRemembered() {
+        keys.recordDatabaseDuplicate("444-a", 3L);
+
+        assertEquals(1.0, meterRegistry.get("interbank.incoming.duplicates").tag("source", "database").counter().count());
+        assertEquals(3L, keys.eventId("444-a"));
+    }
+}
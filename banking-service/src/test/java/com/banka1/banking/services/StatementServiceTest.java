@@ -0,0 +1,147 @@
+package com.banka1.banking.services;
+
+import com.banka1.banking.dto.TransactionHistoryView;
+import com.banka1.banking.models.helper.StatementFormat;
+import com.banka1.banking.repository.AccountRepository;
+import com.banka1.banking.repository.TransactionRepository;
+import com.banka1.banking.services.StatementService.StatementScope;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StatementServiceTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+    @Mock
+    private TransactionRepository transactionRepository;
+    @Mock
+    private BankAccountUtils bankAccountUtils;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private StatementService statementService;
+
+    @BeforeEach
+    void setUp() {
+        statementService = new StatementService(accountRepository, transactionRepository, bankAccountUtils, objectMapper);
+    }
+
+    @Test
+    void csvStatementIsWrittenRowByRow() throws Exception {
+        StatementScope scope = new StatementScope(List.of(1L), false);
+        when(transactionRepository.streamStatement(List.of(1L), false, 100L, Long.MAX_VALUE)).thenReturn(Stream.of(
+                new StatementRow(1L, 1_000L, "111", "222", 10000000.0, "Kirija, mart"),
+                new StatementRow(2L, 1_500L, null, "111", 5.5, "=HYPERLINK(\"x\")")));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = statementService.writeStatement(scope, 100L, null, StatementFormat.CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, count);
+        assertEquals(3, lines.length);
+        assertEquals(StatementService.CSV_HEADER, lines[0]);
+        assertTrue(lines[1].startsWith("1,1000,"));
+        assertTrue(lines[1].endsWith(",111,222,10000000,10000000,0,RSD,\"Kirija, mart\","));
+        assertTrue(lines[2].contains(",foreign,111,5.5,"));
+        assertTrue(lines[2].endsWith(",\"'=HYPERLINK(\"\"x\"\")\","));
+    }
+
+    @Test
+    void ndjsonStatementHasOneObjectPerLine() throws Exception {
+        StatementScope scope = new StatementScope(List.of(1L, 2L), true);
+        when(transactionRepository.streamStatement(List.of(1L, 2L), true, Long.MIN_VALUE, Long.MAX_VALUE)).thenReturn(Stream.of(
+                new StatementRow(1L, 1_000L, "111", "222", 100.0, null),
+                new StatementRow(2L, 1_200L, "222", "111", 50.0, "Povracaj")));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        statementService.writeStatement(scope, null, null, StatementFormat.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        JsonNode second = objectMapper.readTree(lines[1]);
+        assertEquals(1, first.get("id").asLong());
+        assertEquals(first.get("time").asText(), second.get("time").asText());
+        assertEquals("Povracaj", second.get("description").asText());
+    }
+
+    @Test
+    void ndjsonWritesMissingAmountsAsNull() throws Exception {
+        StatementScope scope = new StatementScope(List.of(1L), false);
+        when(transactionRepository.streamStatement(List.of(1L), false, Long.MIN_VALUE, Long.MAX_VALUE)).thenReturn(Stream.of(
+                new StatementRow(1L, 1_000L, "111", "222", null, null)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = statementService.writeStatement(scope, null, null, StatementFormat.NDJSON, out);
+
+        JsonNode row = objectMapper.readTree(out.toString(StandardCharsets.UTF_8).trim());
+        assertEquals(1, count);
+        assertTrue(row.get("amount").isNull());
+        assertTrue(row.get("finalAmount").isNull());
+        assertEquals(0.0, row.get("fee").asDouble());
+    }
+
+    @Test
+    void emptyScopeDoesNotQueryTransactions() throws Exception {
+        when(accountRepository.findIdsByOwnerID(5L)).thenReturn(List.of());
+        when(bankAccountUtils.getBankOwnerId()).thenReturn(7L);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = statementService.writeStatement(statementService.customerScope(5L), null, null, StatementFormat.CSV, out);
+
+        assertEquals(0, count);
+        assertEquals(StatementService.CSV_HEADER + "\n", out.toString(StandardCharsets.UTF_8));
+        verifyNoInteractions(transactionRepository);
+    }
+
+    @Test
+    void bankAccountStatementIncludesBankOnlyTransactions() {
+        when(accountRepository.findOwnerIdById(3L)).thenReturn(Optional.of(7L));
+        when(bankAccountUtils.getBankOwnerId()).thenReturn(7L);
+
+        assertTrue(statementService.accountScope(3L).includeBankOnly());
+    }
+
+    @Test
+    void unknownAccountOrCompanyIsNotFound() {
+        when(accountRepository.findOwnerIdById(3L)).thenReturn(Optional.empty());
+        when(accountRepository.findIdsByCompanyId(4L)).thenReturn(List.of());
+
+        assertThrows(ResponseStatusException.class, () -> statementService.accountScope(3L));
+        assertThrows(ResponseStatusException.class, () -> statementService.companyScope(4L));
+    }
+
+    private record StatementRow(Long id, Long timestamp, String fromAccountNumber, String toAccountNumber,
+                                Double amount, String description) implements TransactionHistoryView {
+        public Long getId() { return id; }
+        public Long getFromAccountId() { return null; }
+        public String getFromAccountNumber() { return fromAccountNumber; }
+        public Long getFromOwnerId() { return null; }
+        public Long getToAccountId() { return null; }
+        public String getToAccountNumber() { return toAccountNumber; }
+        public Long getToOwnerId() { return null; }
+        public Double getAmount() { return amount; }
+        public Double getFinalAmount() { return amount; }
+        public Double getFee() { return 0.0; }
+        public String getCurrencyCode() { return "RSD"; }
+        public Long getTimestamp() { return timestamp; }
+        public String getDescription() { return description; }
+        public Long getTransferId() { return null; }
+        public String getTransferNote() { return null; }
+    }
+}
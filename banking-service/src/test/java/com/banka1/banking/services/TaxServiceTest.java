@@ -1,5 +1,6 @@
 package com.banka1.banking.services;
 
+import com.banka1.banking.dto.ExchangeQuote;
 import com.banka1.banking.dto.TaxCollectionDTO;
 import com.banka1.banking.models.Account;
 import com.banka1.banking.models.Currency;
@@ -14,11 +15,11 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -44,6 +45,9 @@ public class TaxServiceTest {
     @Mock
     private ExchangeService exchangeService;
 
+    @Mock
+    private HouseAccountLedger houseAccountLedger;
+
     @Test
     void testPayTax_Success() {
         TaxCollectionDTO dto = new TaxCollectionDTO();
@@ -66,16 +70,18 @@ public class TaxServiceTest {
 
         when(accountRepository.findById(dto.getAccountId())).thenReturn(Optional.of(userAccount));
         when(bankAccountUtils.getBankAccountForCurrency(CurrencyType.RSD)).thenReturn(bankAccount);
-        when(exchangeService.calculatePreviewExchangeAutomatic(any(), any(), any())).thenReturn(Map.of(
-                "fee", 0.0,
-                "finalAmount", 100.0
-        ));
+        when(exchangeService.quote(any(CurrencyType.class), any(CurrencyType.class), anyDouble())).thenReturn(
+                new ExchangeQuote(CurrencyType.USD, CurrencyType.RSD, 100.0,
+                        1.0, Double.NaN, Double.NaN, 100.0,
+                        0.0, 0.0, 0.0, 100.0));
         when(transferService.createMoneyTransferEntity(any(), any(), any())).thenReturn(transfer);
 
         taxService.payTax(dto);
 
         verify(transferRepository, times(1)).save(transfer);
         assertEquals(100.0, userAccount.getBalance());
-        assertEquals(200.0, bankAccount.getBalance());
+        // Uplata na racun banke ide atomicno kroz ledger, entitet se ne menja
+        assertEquals(100.0, bankAccount.getBalance());
+        verify(houseAccountLedger).credit(bankAccount.getId(), 100.0);
     }
 }
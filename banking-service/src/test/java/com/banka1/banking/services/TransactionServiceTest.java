@@ -1,5 +1,8 @@
 package com.banka1.banking.services;
 
+import com.banka1.banking.dto.CustomerDTO;
+import com.banka1.banking.dto.TransactionHistoryPageDTO;
+import com.banka1.banking.dto.TransactionHistoryView;
 import com.banka1.banking.models.Account;
 import com.banka1.banking.models.Currency;
 import com.banka1.banking.models.Installment;
@@ -7,6 +10,7 @@ import com.banka1.banking.models.Loan;
 import com.banka1.banking.models.Transaction;
 import com.banka1.banking.models.Transfer;
 import com.banka1.banking.models.helper.CurrencyType;
+import com.banka1.banking.models.helper.TransactionDirection;
 import com.banka1.banking.models.helper.TransferStatus;
 import com.banka1.banking.models.helper.TransferType;
 import com.banka1.banking.repository.AccountRepository;
@@ -19,10 +23,12 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.time.Instant;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -47,6 +53,12 @@ public class TransactionServiceTest {
     @Mock
     private BankAccountUtils bankAccountUtils;
 
+    @Mock
+    private AccountOwnerCache accountOwnerCache;
+
+    @Mock
+    private UserServiceCustomer userServiceCustomer;
+
     @InjectMocks
     private TransactionService transactionService;
 
@@ -103,7 +115,7 @@ public class TransactionServiceTest {
         List<Account> accounts = Arrays.asList(fromAccount);
         List<Transaction> expectedTransactions = Arrays.asList(new Transaction(), new Transaction());
 
-        when(bankAccountUtils.getBankAccountForCurrency(any())).thenReturn(new Account());
+        when(bankAccountUtils.getBankOwnerId()).thenReturn(7L);
 
         when(accountRepository.findByOwnerID(userId)).thenReturn(accounts);
         when(transactionRepository.findByFromAccountIdInOrToAccountIdIn(accounts, accounts)).thenReturn(expectedTransactions);
@@ -112,4 +124,103 @@ public class TransactionServiceTest {
 
         assertEquals(expectedTransactions, actualTransactions);
     }
-}
\ No newline at end of file
+
+    @Test
+    void accountHistoryReturnsCursorWhenMoreRowsExist() {
+        when(accountOwnerCache.getOwnerId(1L)).thenReturn(10L);
+        when(bankAccountUtils.getBankOwnerId()).thenReturn(7L);
+        when(transactionRepository.findHistory(List.of(1L), true, true, false,
+                Long.MIN_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, 3))
+                .thenReturn(List.of(
+                        new HistoryRow(30L, 3_000L, 10L, 20L, "111", "222", null),
+                        new HistoryRow(20L, 2_000L, null, 10L, null, "111", null),
+                        new HistoryRow(10L, 1_000L, 10L, null, "111", null, "333000")));
+        when(userServiceCustomer.getCustomersByIds(anyCollection())).thenReturn(Map.of(
+                10L, customer(10L, "Marko", "Markovic"),
+                20L, customer(20L, "Jovan", "Jovanovic")));
+
+        TransactionHistoryPageDTO page = transactionService.getAccountHistory(1L, null, null, null, null, 2);
+
+        assertEquals(2, page.getTransactions().size());
+        assertEquals("2000_20", page.getNextCursor());
+        assertEquals("Marko Markovic", page.getTransactions().get(0).getSenderName());
+        assertEquals("Jovan Jovanovic", page.getTransactions().get(0).getReceiverName());
+        assertEquals("Strana banka", page.getTransactions().get(1).getSenderName());
+        assertEquals("foreign", page.getTransactions().get(1).getFromAccountNumber());
+        verify(userServiceCustomer, times(1)).getCustomersByIds(anyCollection());
+    }
+
+    @Test
+    void accountHistoryAppliesCursorAndDirection() {
+        when(accountOwnerCache.getOwnerId(1L)).thenReturn(7L);
+        when(bankAccountUtils.getBankOwnerId()).thenReturn(7L);
+        when(transactionRepository.findHistory(List.of(1L), false, true, true,
+                100L, 5_000L, 2_000L, 20L, 51))
+                .thenReturn(List.of(new HistoryRow(10L, 1_000L, null, 7L, null, "111", null)));
+        when(userServiceCustomer.getCustomersByIds(anyCollection())).thenReturn(Map.of());
+
+        TransactionHistoryPageDTO page = transactionService.getAccountHistory(1L, "2000_20", 100L, 5_000L,
+                TransactionDirection.INCOMING, null);
+
+        assertEquals(1, page.getTransactions().size());
+        assertNull(page.getNextCursor());
+        assertNull(page.getTransactions().get(0).getReceiverName());
+    }
+
+    @Test
+    void historyRejectsMalformedCursor() {
+        when(accountOwnerCache.getOwnerId(1L)).thenReturn(10L);
+
+        assertThrows(ResponseStatusException.class,
+                () -> transactionService.getAccountHistory(1L, "nije-kursor", null, null, null, null));
+        verifyNoInteractions(transactionRepository);
+    }
+
+    @Test
+    void historyOfUnknownAccountIsNotFound() {
+        when(accountOwnerCache.getOwnerId(1L)).thenReturn(null);
+
+        assertThrows(ResponseStatusException.class,
+                () -> transactionService.getAccountHistory(1L, null, null, null, null, null));
+    }
+
+    @Test
+    void userHistoryWithoutAccountsIsEmpty() {
+        when(bankAccountUtils.getBankOwnerId()).thenReturn(7L);
+        when(accountRepository.findIdsByOwnerID(1L)).thenReturn(List.of());
+
+        TransactionHistoryPageDTO page = transactionService.getUserHistory(1L, null, null, null, null, 500);
+
+        assertTrue(page.getTransactions().isEmpty());
+        assertNull(page.getNextCursor());
+        verifyNoInteractions(transactionRepository, userServiceCustomer);
+    }
+
+    private static CustomerDTO customer(Long id, String firstName, String lastName) {
+        CustomerDTO customer = new CustomerDTO();
+        customer.setId(id);
+        customer.setFirstName(firstName);
+        customer.setLastName(lastName);
+        return customer;
+    }
+
+    private record HistoryRow(Long id, Long timestamp, Long fromOwnerId, Long toOwnerId,
+                              String fromAccountNumber, String toAccountNumber, String transferNote)
+            implements TransactionHistoryView {
+        public Long getId() { return id; }
+        public Long getFromAccountId() { return fromOwnerId == null ? null : 1L; }
+        public String getFromAccountNumber() { return fromAccountNumber; }
+        public Long getFromOwnerId() { return fromOwnerId; }
+        public Long getToAccountId() { return toOwnerId == null ? null : 2L; }
+        public String getToAccountNumber() { return toAccountNumber; }
+        public Long getToOwnerId() { return toOwnerId; }
+        public Double getAmount() { return 100.0; }
+        public Double getFinalAmount() { return 100.0; }
+        public Double getFee() { return 0.0; }
+        public String getCurrencyCode() { return "RSD"; }
+        public Long getTimestamp() { return timestamp; }
+        public String getDescription() { return null; }
+        public Long getTransferId() { return null; }
+        public String getTransferNote() { return transferNote; }
+    }
+}
@@ -2,6 +2,7 @@ package com.banka1.banking.services;
 
 import com.banka1.banking.config.InterbankConfig;
 import com.banka1.banking.dto.CustomerDTO;
+import com.banka1.banking.dto.ExchangeQuote;
 import com.banka1.banking.dto.InternalTransferDTO;
 import com.banka1.banking.dto.MoneyTransferDTO;
 import com.banka1.banking.dto.NotificationDTO;
@@ -12,6 +13,7 @@ import com.banka1.banking.repository.AccountRepository;
 import com.banka1.banking.repository.CurrencyRepository;
 import com.banka1.banking.repository.TransactionRepository;
 import com.banka1.banking.repository.TransferRepository;
+import com.banka1.banking.utils.MoneyUtils;
 import com.banka1.common.listener.MessageHelper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -62,6 +64,12 @@ public class TransferServiceTest {
     @Mock
     private BankAccountUtils bankAccountUtils;
 
+    @Mock
+    private HouseAccountLedger houseAccountLedger;
+
+    @Mock
+    private PostingLedger postingLedger;
+
     @Mock
     private ExchangeService exchangeService;
 
@@ -280,7 +288,7 @@ public class TransferServiceTest {
 
         // Verify notification was sent
         ArgumentCaptor<NotificationDTO> notificationCaptor = ArgumentCaptor.forClass(NotificationDTO.class);
-        verify(messageHelper, times(2)).createTextMessage(notificationCaptor.capture());
+        verify(messageHelper, times(2)).messageCreator(notificationCaptor.capture());
 
         NotificationDTO sentNotification = notificationCaptor.getValue();
         assertEquals("Verifikacija", sentNotification.getSubject());
@@ -341,7 +349,7 @@ public class TransferServiceTest {
 
         // Verify notification was sent
         ArgumentCaptor<NotificationDTO> notificationCaptor = ArgumentCaptor.forClass(NotificationDTO.class);
-        verify(messageHelper, times(2)).createTextMessage(notificationCaptor.capture());
+        verify(messageHelper, times(2)).messageCreator(notificationCaptor.capture());
 
         NotificationDTO sentNotification = notificationCaptor.getValue();
         assertEquals("Verifikacija", sentNotification.getSubject());
@@ -461,21 +469,17 @@ public class TransferServiceTest {
 
     @Test
     void testCancelExpiredTransfers() {
-        // Create a list of expired transfers
-        List<Transfer> expiredTransfers = Arrays.asList(pendingTransfer);
-
-        // Setup mock to return expired transfers
-        when(transferRepository.findAllByStatusAndCreatedAtBefore(
-                eq(TransferStatus.PENDING), anyLong())).thenReturn(expiredTransfers);
+        long before = System.currentTimeMillis() - TransferExpiryScheduler.TRANSFER_TTL_MILLIS;
 
-        // Execute
         transferService.cancelExpiredTransfers();
 
-        // Verify
-        ArgumentCaptor<Transfer> transferCaptor = ArgumentCaptor.forClass(Transfer.class);
-        verify(transferRepository).save(transferCaptor.capture());
+        // Jedna set-based naredba umesto ucitavanja i cuvanja transfera jedan po jedan
+        ArgumentCaptor<Long> createdBefore = ArgumentCaptor.forClass(Long.class);
+        verify(transferRepository).updateStatusByStatusAndCreatedAtBefore(
+                eq(TransferStatus.PENDING), eq(TransferStatus.CANCELLED), createdBefore.capture());
+        verify(transferRepository, never()).save(any(Transfer.class));
 
-        assertEquals(TransferStatus.CANCELLED, transferCaptor.getValue().getStatus());
+        assertTrue(createdBefore.getValue() >= before);
     }
 
     @Test
@@ -517,19 +521,10 @@ public class TransferServiceTest {
         when(transactionRepository.save(any(Transaction.class))).thenReturn(null);
         when(userServiceCustomer.getCustomerById(100L)).thenReturn(customerDTO);
 
-        when(exchangeService.calculatePreviewExchangeAutomatic(eq("EUR"), eq("RSD"), any())).thenReturn(
-                Map.of(
-                        "finalAmount", 11600.0,
-                        "provision", 150.0,
-                        "exchangeRate", 100.0
-                )
-        );
-        when(exchangeService.calculatePreviewExchangeAutomatic(eq("RSD"), eq("USD"), any())).thenReturn(
-                Map.of(
-                        "finalAmount", 105.6,
-                        "provision", 116.0,
-                        "exchangeRate", 100.0
-                )
+        when(exchangeService.quote(eq(CurrencyType.EUR), eq(CurrencyType.USD), anyDouble())).thenReturn(
+                new ExchangeQuote(CurrencyType.EUR, CurrencyType.USD, 100.0,
+                        100.0, 0.0092, 11600.0, 106.72,
+                        150.0, 1.12, 2.5, 105.6)
         );
 
         when(currencyRepository.getByCode(CurrencyType.RSD)).thenReturn(rsdCurrency);
@@ -573,12 +568,10 @@ public class TransferServiceTest {
         when(transactionRepository.save(any(Transaction.class))).thenReturn(null);
         when(userServiceCustomer.getCustomerById(200L)).thenReturn(customerDTO2);
 
-        when(exchangeService.calculatePreviewExchangeAutomatic(anyString(), anyString(), any())).thenReturn(
-                Map.of(
-                        "finalAmount", 90.0,
-                        "provision", 100.0,
-                        "exchangeRate", 100.0
-                )
+        when(exchangeService.quote(any(CurrencyType.class), any(CurrencyType.class), anyDouble())).thenReturn(
+                new ExchangeQuote(CurrencyType.USD, CurrencyType.EUR, 100.0,
+                        100.0, 0.01, 9900.0, 190.0,
+                        100.0, 100.0, 101.0, 90.0)
         );
 
         when(currencyRepository.getByCode(CurrencyType.RSD)).thenReturn(rsdCurrency);
@@ -594,10 +587,69 @@ public class TransferServiceTest {
 
         assertEquals("Transfer completed successfully", result);
         assertEquals(TransferStatus.COMPLETED, foreignTransfer.getStatus());
-        assertEquals(800.0, fromAccountUSD.getBalance());
+        // Iznos se skida samo jednom, u menjacnici
+        assertEquals(900.0, fromAccountUSD.getBalance());
         assertEquals(590.0, toAccountForeign.getBalance());
         assertEquals(1000000.0, bankAccountUSD.getBalance());
-        assertEquals(1000100.0, bankAccountEUR.getBalance());
+        assertEquals(1000000.0, bankAccountEUR.getBalance());
+        // Banka prima USD i isplacuje EUR kroz ledger (svi racuni banke u testu imaju id 100)
+        verify(houseAccountLedger).credit(100L, 100.0);
+        verify(houseAccountLedger).debit(100L, 90.0);
+        verify(postingLedger, times(1)).post(any(PostingLedger.Journal.class));
+    }
+
+    @Test
+    void testProcessTransfer_ExchangeBalancesMatchJournal() {
+        bankAccountUSD.setId(101L);
+        bankAccountEUR.setId(102L);
+        bankAccountRSD.setId(103L);
+        double fromBefore = fromAccountForeign.getBalance();
+        double toBefore = fromAccountUSD.getBalance();
+
+        when(transferRepository.findById(4L)).thenReturn(Optional.of(exchangeTransfer));
+        when(userServiceCustomer.getCustomerById(100L)).thenReturn(customerDTO);
+        // Konvertovan iznos ima vise decimala nego sto USD dozvoljava
+        when(exchangeService.quote(eq(CurrencyType.EUR), eq(CurrencyType.USD), anyDouble())).thenReturn(
+                new ExchangeQuote(CurrencyType.EUR, CurrencyType.USD, 100.0,
+                        117.0, 0.0092, 11583.0, 106.7436,
+                        117.0, 1.067436, 2.144, 105.676164)
+        );
+        when(currencyRepository.getByCode(CurrencyType.RSD)).thenReturn(rsdCurrency);
+        when(currencyRepository.getByCode(CurrencyType.EUR)).thenReturn(eurCurrency);
+        when(currencyRepository.getByCode(CurrencyType.USD)).thenReturn(usdCurrency);
+        when(bankAccountUtils.getBankAccountForCurrency(CurrencyType.EUR)).thenReturn(bankAccountEUR);
+        when(bankAccountUtils.getBankAccountForCurrency(CurrencyType.USD)).thenReturn(bankAccountUSD);
+        when(bankAccountUtils.getBankAccountForCurrency(CurrencyType.RSD)).thenReturn(bankAccountRSD);
+
+        transferService.processTransfer(4L);
+
+        ArgumentCaptor<PostingLedger.Journal> journalCaptor = ArgumentCaptor.forClass(PostingLedger.Journal.class);
+        verify(postingLedger).post(journalCaptor.capture());
+        Map<Long, Long> posted = new HashMap<>();
+        for (PostingLedger.Leg leg : journalCaptor.getValue().getLegs()) {
+            posted.merge(leg.accountId(), leg.amountMinor(), Long::sum);
+        }
+
+        // Promene stanja: racuni klijenta na entitetu, racuni banke kroz HouseAccountLedger
+        Map<Long, Long> applied = new HashMap<>();
+        applied.put(fromAccountForeign.getId(), MoneyUtils.toMinor(fromAccountForeign.getBalance() - fromBefore, CurrencyType.EUR));
+        applied.put(fromAccountUSD.getId(), MoneyUtils.toMinor(fromAccountUSD.getBalance() - toBefore, CurrencyType.USD));
+        ArgumentCaptor<Long> creditAccount = ArgumentCaptor.forClass(Long.class);
+        ArgumentCaptor<Double> creditAmount = ArgumentCaptor.forClass(Double.class);
+        verify(houseAccountLedger, atLeastOnce()).credit(creditAccount.capture(), creditAmount.capture());
+        for (int i = 0; i < creditAccount.getAllValues().size(); i++) {
+            applied.merge(creditAccount.getAllValues().get(i), MoneyUtils.toMinor(creditAmount.getAllValues().get(i), CurrencyType.EUR), Long::sum);
+        }
+        ArgumentCaptor<Long> debitAccount = ArgumentCaptor.forClass(Long.class);
+        ArgumentCaptor<Double> debitAmount = ArgumentCaptor.forClass(Double.class);
+        verify(houseAccountLedger, atLeastOnce()).debit(debitAccount.capture(), debitAmount.capture());
+        for (int i = 0; i < debitAccount.getAllValues().size(); i++) {
+            applied.merge(debitAccount.getAllValues().get(i), -MoneyUtils.toMinor(debitAmount.getAllValues().get(i), CurrencyType.USD), Long::sum);
+        }
+
+        assertEquals(posted, applied);
+        assertEquals(Map.of(2L, -10000L, 102L, 10000L, 101L, -10567L, 1L, 10567L), posted);
+        assertEquals(1105.67, fromAccountUSD.getBalance());
     }
 
     @Test
@@ -622,6 +674,26 @@ public class TransferServiceTest {
         assertEquals(TransferStatus.FAILED, externalTransfer.getStatus());
     }
 
+    @Test
+    void testProcessExternalTransfer_BankSenderUsesPendingCredits() {
+        // Ucitano stanje racuna banke ne vidi uplate iz traka koje jos nisu prebacene
+        bankAccountUSD.setType(AccountType.BANK);
+        bankAccountUSD.setBalance(50.0);
+        externalTransfer.setFromAccountId(bankAccountUSD);
+        externalTransfer.setAmount(100.0);
+
+        when(transferRepository.findById(2L)).thenReturn(Optional.of(externalTransfer));
+        when(houseAccountLedger.availableBalance(100L)).thenReturn(150.0);
+
+        String result = transferService.processExternalTransfer(2L);
+
+        assertEquals("Transfer completed successfully", result);
+        verify(houseAccountLedger).debit(100L, 100.0);
+        verify(accountRepository).lockAllById(List.of(2L));
+        assertEquals(50.0, bankAccountUSD.getBalance());
+        assertEquals(600.0, toAccount.getBalance());
+    }
+
     @Test
     public void testPerformRsdToForeign_successfulExchange() {
 
@@ -655,31 +727,32 @@ public class TransferServiceTest {
         customer.setFirstName("John");
         customer.setLastName("Doe");
 
-        Map<String, Object> exchangeMock = new HashMap<>();
-        exchangeMock.put("finalAmount", 8.5);
-        exchangeMock.put("provision", 0.5);
-        exchangeMock.put("exchangeRate", 117);
-        exchangeMock.put("convertedAmount", 10000.0);
+        ExchangeQuote exchangeMock = new ExchangeQuote(CurrencyType.RSD, CurrencyType.EUR, amount,
+                1 / 117.0, Double.NaN, Double.NaN, 10000.0,
+                0.5, 0.0, 0.5, 8.5);
 
         when(currencyRepository.getByCode(CurrencyType.RSD)).thenReturn(rsdCurrency);
         when(currencyRepository.getByCode(CurrencyType.EUR)).thenReturn(eurCurrency);
         when(bankAccountUtils.getBankAccountForCurrency(CurrencyType.RSD)).thenReturn(rsdBankAccount);
         when(bankAccountUtils.getBankAccountForCurrency(CurrencyType.EUR)).thenReturn(eurBankAccount);
         when(userServiceCustomer.getCustomerById(1L)).thenReturn(customer);
-        when(exchangeService.calculatePreviewExchangeAutomatic("RSD", "EUR", amount)).thenReturn(exchangeMock);
+        when(exchangeService.quote(CurrencyType.RSD, CurrencyType.EUR, amount)).thenReturn(exchangeMock);
 
 
-        Map<String, Object> result = transferService.performRsdToForeign(amount, fromAccount, toAccount);
+        ExchangeQuote result = transferService.performRsdToForeign(amount, fromAccount, toAccount);
 
 
         assertNotNull(result);
-        assertEquals(8.5, result.get("finalAmount"));
-        assertEquals(0.5, result.get("provision"));
+        assertEquals(8.5, result.getFinalAmount());
+        assertEquals(0.5, result.getFee());
 
         assertEquals(4000.0, fromAccount.getBalance());
         assertEquals(208.5, toAccount.getBalance());
         assertEquals(100000.0, rsdBankAccount.getBalance());
-        assertEquals(100000.5, eurBankAccount.getBalance());
+        assertEquals(100000.0, eurBankAccount.getBalance());
+        // Banka prima dinare i isplacuje evre, provizija joj ostaje
+        verify(houseAccountLedger).credit(rsdBankAccount.getId(), 1000.0);
+        verify(houseAccountLedger).debit(eurBankAccount.getId(), 8.5);
     }
 
     @Test
@@ -715,31 +788,31 @@ public class TransferServiceTest {
         customer.setFirstName("Ana");
         customer.setLastName("Markovic");
 
-        Map<String, Object> exchangeMock = new HashMap<>();
-        exchangeMock.put("finalAmount", 11700.0);
-        exchangeMock.put("provision", 100.0);
-        exchangeMock.put("exchangeRate", 117);
-        exchangeMock.put("convertedAmount", 10000.0);
+        ExchangeQuote exchangeMock = new ExchangeQuote(CurrencyType.EUR, CurrencyType.RSD, amount,
+                117.0, Double.NaN, Double.NaN, 10000.0,
+                100.0, 0.0, 100.0, 11700.0);
 
         when(currencyRepository.getByCode(CurrencyType.RSD)).thenReturn(rsdCurrency);
         when(currencyRepository.getByCode(CurrencyType.EUR)).thenReturn(eurCurrency);
         when(userServiceCustomer.getCustomerById(1L)).thenReturn(customer);
         when(bankAccountUtils.getBankAccountForCurrency(CurrencyType.RSD)).thenReturn(rsdBankAccount);
         when(bankAccountUtils.getBankAccountForCurrency(CurrencyType.EUR)).thenReturn(eurBankAccount);
-        when(exchangeService.calculatePreviewExchangeAutomatic("EUR", "RSD", amount)).thenReturn(exchangeMock);
+        when(exchangeService.quote(CurrencyType.EUR, CurrencyType.RSD, amount)).thenReturn(exchangeMock);
 
         // Act
-        Map<String, Object> result = transferService.performForeignToRsd(amount, fromAccount, toAccount);
+        ExchangeQuote result = transferService.performForeignToRsd(amount, fromAccount, toAccount);
 
         // Assert
         assertNotNull(result);
-        assertEquals(11700.0, result.get("finalAmount"));
-        assertEquals(100.0, result.get("provision"));
+        assertEquals(11700.0, result.getFinalAmount());
+        assertEquals(100.0, result.getFee());
 
         assertEquals(900.0, fromAccount.getBalance());
         assertEquals(21700.0, toAccount.getBalance());
         assertEquals(100000.0, eurBankAccount.getBalance());
-        assertEquals(200100.0, rsdBankAccount.getBalance());
+        assertEquals(200000.0, rsdBankAccount.getBalance());
+        verify(houseAccountLedger).credit(eurBankAccount.getId(), 100.0);
+        verify(houseAccountLedger).debit(rsdBankAccount.getId(), 11700.0);
     }
 
     @Test
@@ -977,6 +1050,7 @@ public class TransferServiceTest {
         key.setLocallyGeneratedKey(String.valueOf(transferId));
 
         Account mockAccount = new Account();
+        mockAccount.setId(7L);
         mockAccount.setReservedBalance(1000.0);
 
         Currency currency = new Currency();
@@ -997,6 +1071,8 @@ public class TransferServiceTest {
         Transfer result = transferService.commitForeignBankTransfer(key);
 
         assertEquals(TransferStatus.COMPLETED, result.getStatus());
+        assertEquals(500.0, mockAccount.getReservedBalance());
+        verify(accountRepository).lockAllById(List.of(7L));
         verify(transactionRepository).save(any(Transaction.class));
     }
 
@@ -1007,6 +1083,7 @@ public class TransferServiceTest {
         key.setLocallyGeneratedKey(String.valueOf(transferId));
 
         Account mockAccount = new Account();
+        mockAccount.setId(7L);
         mockAccount.setReservedBalance(1000.0);
         mockAccount.setBalance(2000.0);
 
@@ -1022,6 +1099,8 @@ public class TransferServiceTest {
         Transfer result = transferService.rollbackForeignBankTransfer(key);
 
         assertEquals(TransferStatus.CANCELLED, result.getStatus());
+        assertEquals(2500.0, mockAccount.getBalance());
+        verify(accountRepository).lockAllById(List.of(7L));
         verify(transferRepository).save(mockTransfer);
     }
 
@@ -1036,6 +1115,7 @@ public class TransferServiceTest {
         currency.setName("USD");
 
         Account toAccount = new Account();
+        toAccount.setId(9L);
         toAccount.setAccountNumber(accountNumber);
         toAccount.setBalance(1000.0);
 
@@ -1053,6 +1133,8 @@ public class TransferServiceTest {
         assertEquals(amount, result.getAmount());
         assertEquals(TransferStatus.COMPLETED, result.getStatus());
         assertEquals(senderName, result.getReceiver());
+        assertEquals(1300.0, toAccount.getBalance());
+        verify(accountRepository).lockAllById(List.of(9L));
         verify(transactionRepository).save(any(Transaction.class));
     }
 
@@ -37,6 +37,8 @@ class TransferServiceValidationTest {
     @Mock ExchangeService exchangeService;
     @Mock OtpTokenService otp;
     @Mock BankAccountUtils bankUtils;
+    @Mock HouseAccountLedger houseLedger;
+    @Mock PostingLedger postingLedger;
     @Mock ReceiverService receiverService;
     @Mock InterbankService interbankService;
     @Mock InterbankConfig cfg;
@@ -50,7 +52,7 @@ class TransferServiceValidationTest {
         service = new TransferService(
                 accountRepo, transferRepo, txRepo, currencyRepo,
                 jms, msgHelper, "dummy-queue",
-                userService, exchangeService, otp, bankUtils,
+                userService, exchangeService, otp, bankUtils, houseLedger, postingLedger,
                 receiverService, interbankService, cfg
         );
     }
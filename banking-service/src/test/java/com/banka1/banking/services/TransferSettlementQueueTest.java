@@ -0,0 +1,131 @@
+package com.banka1.banking.services;
+
+import com.banka1.banking.models.Account;
+import com.banka1.banking.models.Transfer;
+import com.banka1.banking.repository.AccountRepository;
+import com.banka1.banking.repository.TransferRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransferSettlementQueueTest {
+
+    @Mock
+    private TransferService transferService;
+
+    @Mock
+    private TransferRepository transferRepository;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private TransferSettlementQueue settlementQueue;
+
+    @BeforeEach
+    void setUp() {
+        // Radna nit se ne pokrece, grupe se obradjuju direktno preko settle
+        settlementQueue = new TransferSettlementQueue(transferService, transferRepository, accountRepository,
+                transactionManager, 200, 5, 100);
+    }
+
+    private static Transfer transfer(Long id, Long fromAccountId, Long toAccountId) {
+        Account from = new Account();
+        from.setId(fromAccountId);
+        Account to = new Account();
+        to.setId(toAccountId);
+
+        Transfer transfer = new Transfer();
+        transfer.setId(id);
+        transfer.setFromAccountId(from);
+        transfer.setToAccountId(to);
+        return transfer;
+    }
+
+    private static TransferSettlementQueue.Settlement settlement(Long transferId) {
+        return new TransferSettlementQueue.Settlement(transferId, new CompletableFuture<>());
+    }
+
+    @Test
+    void batchIsSettledInOneTransaction() throws Exception {
+        TransferSettlementQueue.Settlement first = settlement(1L);
+        TransferSettlementQueue.Settlement second = settlement(2L);
+        when(transferRepository.findAllById(List.of(1L, 2L)))
+                .thenReturn(List.of(transfer(1L, 10L, 20L), transfer(2L, 30L, 10L)));
+        when(transferService.processTransfer(anyLong())).thenReturn("Transfer completed successfully");
+
+        settlementQueue.settle(List.of(first, second));
+
+        verify(transactionManager, times(1)).getTransaction(any());
+        verify(transactionManager, times(1)).commit(any());
+        verify(accountRepository).lockAllById(List.of(10L, 20L, 30L, 10L));
+        assertEquals("Transfer completed successfully", first.result().get());
+        assertEquals("Transfer completed successfully", second.result().get());
+    }
+
+    @Test
+    void failedTransferDoesNotFailTheRestOfTheBatch() throws Exception {
+        TransferSettlementQueue.Settlement first = settlement(1L);
+        TransferSettlementQueue.Settlement second = settlement(2L);
+        when(transferRepository.findAllById(List.of(1L, 2L)))
+                .thenReturn(List.of(transfer(1L, 10L, 20L), transfer(2L, 30L, 40L)));
+        when(transferService.processTransfer(1L)).thenReturn("Transfer completed successfully");
+        when(transferService.processTransfer(2L)).thenThrow(new RuntimeException("Insufficient funds"));
+
+        settlementQueue.settle(List.of(first, second));
+
+        // Grupa se ponistava, pa se svaki transfer izvrsava posebno
+        verify(transactionManager).rollback(any());
+        verify(transferService, times(2)).processTransfer(1L);
+        assertEquals("Transfer completed successfully", first.result().get());
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> second.result().get());
+        assertEquals("Insufficient funds", exception.getCause().getMessage());
+    }
+
+    @Test
+    void singleTransferIsProcessedWithoutBatchTransaction() throws Exception {
+        TransferSettlementQueue.Settlement only = settlement(1L);
+        when(transferService.processTransfer(1L)).thenReturn("Transfer completed successfully");
+
+        settlementQueue.settle(List.of(only));
+
+        verifyNoInteractions(transactionManager, transferRepository, accountRepository);
+        assertEquals("Transfer completed successfully", only.result().get());
+    }
+
+    @Test
+    void sameTransferSubmittedTwiceSharesOneFuture() {
+        CompletableFuture<String> first = settlementQueue.submit(5L);
+        CompletableFuture<String> second = settlementQueue.submit(5L);
+
+        assertSame(first, second);
+
+        first.complete("Transfer completed successfully");
+        assertNotSame(first, settlementQueue.submit(5L));
+    }
+
+    @Test
+    void fullQueueFailsFast() {
+        TransferSettlementQueue small = new TransferSettlementQueue(transferService, transferRepository,
+                accountRepository, transactionManager, 200, 5, 1);
+
+        small.submit(1L);
+        CompletableFuture<String> rejected = small.submit(2L);
+
+        assertTrue(rejected.isCompletedExceptionally());
+    }
+}
@@ -0,0 +1,97 @@
+package com.banka1.banking.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HierarchicalTimerWheelTest {
+
+    @Test
+    void expiresKeyExactlyAtDeadlineTick() {
+        HierarchicalTimerWheel wheel = new HierarchicalTimerWheel(1000, 64, 3, 0);
+        wheel.schedule(1L, 5_000);
+
+        assertTrue(wheel.advance(4_999).isEmpty());
+        assertEquals(List.of(1L), wheel.advance(5_000));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void deadlineIsRoundedUpToNextTick() {
+        HierarchicalTimerWheel wheel = new HierarchicalTimerWheel(1000, 64, 3, 0);
+        wheel.schedule(1L, 5_001);
+
+        assertTrue(wheel.advance(5_999).isEmpty());
+        assertEquals(List.of(1L), wheel.advance(6_000));
+    }
+
+    @Test
+    void cascadesFromHigherLevels() {
+        HierarchicalTimerWheel wheel = new HierarchicalTimerWheel(1000, 64, 3, 0);
+        // 5 minuta je izvan prvog nivoa (64s)
+        wheel.schedule(7L, 300_000);
+
+        assertTrue(wheel.advance(299_000).isEmpty());
+        assertEquals(List.of(7L), wheel.advance(300_000));
+    }
+
+    @Test
+    void cancelledAndRescheduledKeysFireOnlyOnce() {
+        HierarchicalTimerWheel wheel = new HierarchicalTimerWheel(1000, 64, 3, 0);
+        wheel.schedule(1L, 10_000);
+        wheel.schedule(2L, 10_000);
+        wheel.schedule(2L, 20_000);
+        assertTrue(wheel.cancel(1L));
+
+        assertTrue(wheel.advance(10_000).isEmpty());
+        assertEquals(List.of(2L), wheel.advance(20_000));
+        assertTrue(wheel.advance(100_000).isEmpty());
+    }
+
+    @Test
+    void pastDeadlineExpiresOnNextAdvance() {
+        HierarchicalTimerWheel wheel = new HierarchicalTimerWheel(1000, 64, 3, 50_000);
+        wheel.schedule(3L, 10_000);
+
+        assertEquals(List.of(3L), wheel.advance(50_000));
+    }
+
+    @Test
+    void deadlinesBeyondTopLevelWaitInOverflow() {
+        HierarchicalTimerWheel wheel = new HierarchicalTimerWheel(1000, 4, 2, 0);
+        // Dva nivoa sa 4 slota pokrivaju 16 tick-ova
+        wheel.schedule(9L, 40_000);
+
+        assertTrue(wheel.advance(39_000).isEmpty());
+        assertEquals(List.of(9L), wheel.advance(40_000));
+    }
+
+    @Test
+    void randomDeadlinesExpireAtTheirOwnTick() {
+        HierarchicalTimerWheel wheel = new HierarchicalTimerWheel(1000, 8, 3, 1_234);
+        Random random = new Random(42);
+        Map<Long, Long> deadlineTicks = new HashMap<>();
+        for (long key = 0; key < 500; key++) {
+            long deadline = 1_234 + random.nextInt(2_000_000);
+            wheel.schedule(key, deadline);
+            deadlineTicks.put(key, (deadline + 999) / 1000);
+        }
+
+        List<Long> expiredKeys = new ArrayList<>();
+        for (long now = 1_000; now <= 2_100_000; now += 1000) {
+            for (Long key : wheel.advance(now)) {
+                assertEquals(deadlineTicks.get(key), now / 1000, "kljuc " + key);
+                expiredKeys.add(key);
+            }
+        }
+
+        assertEquals(500, expiredKeys.size());
+        assertEquals(0, wheel.size());
+    }
+}
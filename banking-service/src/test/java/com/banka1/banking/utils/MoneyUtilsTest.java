@@ -0,0 +1,44 @@
+package com.banka1.banking.utils;
+
+import com.banka1.banking.models.helper.CurrencyType;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyUtilsTest {
+
+    @Test
+    void addDoesNotAccumulateFloatingPointDrift() {
+        double balance = 0.0;
+        for (int i = 0; i < 10; i++) {
+            balance = MoneyUtils.add(balance, 0.1, CurrencyType.EUR);
+        }
+
+        assertEquals(1.0, balance);
+        assertEquals(0.3, MoneyUtils.add(0.1, 0.2, CurrencyType.RSD));
+    }
+
+    @Test
+    void minorUnitsFollowCurrencyScale() {
+        assertEquals(1234L, MoneyUtils.toMinor(12.345, CurrencyType.USD));
+        assertEquals(1500L, MoneyUtils.toMinor(1500.4, CurrencyType.JPY));
+        assertEquals(12.35, MoneyUtils.toMajor(1235L, CurrencyType.USD));
+        assertEquals(1500.0, MoneyUtils.toMajor(1500L, CurrencyType.JPY));
+    }
+
+    @Test
+    void addRejectsDeltaBelowMinorUnit() {
+        assertEquals(1500.0, MoneyUtils.add(1000.0, 500.0, CurrencyType.JPY));
+        assertThrows(IllegalArgumentException.class, () -> MoneyUtils.add(1000.0, 0.5, CurrencyType.JPY));
+        assertThrows(IllegalArgumentException.class, () -> MoneyUtils.add(10.0, 12.345, CurrencyType.EUR));
+    }
+
+    @Test
+    void roundDownTruncatesToMinorUnit() {
+        assertEquals(1234.0, MoneyUtils.roundDown(1234.99, CurrencyType.JPY));
+        assertEquals(12.34, MoneyUtils.roundDown(12.349, CurrencyType.USD));
+        // Sum double-a ne sme da odnese celu jedinicu
+        assertEquals(0.3, MoneyUtils.roundDown(0.1 + 0.2, CurrencyType.EUR));
+        assertEquals(0.3, MoneyUtils.roundDown(0.3 - 1e-12, CurrencyType.EUR));
+    }
+}
@@ -0,0 +1,19 @@
+package com.banka1.common.dto;
+
+import com.banka1.common.listener.TrustedMessage;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Poruka o opozvanom tokenu. Salje se samo 128-bitni hash tokena (hex), nikad sam token,
+ * i trenutak isteka tokena u milisekundama, posle kog servisi mogu da zaborave unos.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@TrustedMessage
+public class TokenRevocationDTO {
+    private String tokenId;
+    private Long expiresAt;
+}
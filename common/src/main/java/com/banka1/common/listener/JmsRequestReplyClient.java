@@ -0,0 +1,199 @@
+package com.banka1.common.listener;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.jms.Connection;
+import jakarta.jms.ConnectionFactory;
+import jakarta.jms.Destination;
+import jakarta.jms.ExceptionListener;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.Session;
+import jakarta.jms.TemporaryQueue;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jms.JmsException;
+import org.springframework.jms.connection.SingleConnectionFactory;
+import org.springframework.jms.core.JmsTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Request/reply preko JMS-a bez blokiranja i bez privremenog reda po zahtevu.
+ * <p>
+ * Instanca drzi jednu konekciju i jedan privremeni red za odgovore sa jednim consumer-om.
+ * Svaki zahtev dobija JMSCorrelationID i JMSReplyTo na taj red, a odgovor se po correlation id-u
+ * prosledjuje odgovarajucem {@link CompletableFuture}. Listener koji odgovara mora da prepise
+ * correlation id, videti {@link MessageHelper#correlateWith(Message)}.
+ * <p>
+ * Konekcija se otvara pri prvom zahtevu. Ako pukne, zahtevi koji cekaju odgovor se zavrsavaju
+ * greskom, a sledeci zahtev otvara novu konekciju i novi red.
+ */
+@Slf4j
+public class JmsRequestReplyClient implements ExceptionListener {
+
+    private record PendingReply<T>(Class<T> responseType, CompletableFuture<T> future) {
+        void complete(Message reply, MessageHelper messageHelper) {
+            try {
+                future.complete(messageHelper.getMessage(reply, responseType));
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private final ConnectionFactory connectionFactory;
+    private final JmsTemplate jmsTemplate;
+    private final MessageHelper messageHelper;
+    private final Duration defaultTimeout;
+    private final Map<String, PendingReply<?>> pending = new ConcurrentHashMap<>();
+
+    private Connection connection;
+    private Destination replyQueue;
+
+    public JmsRequestReplyClient(ConnectionFactory connectionFactory, JmsTemplate jmsTemplate,
+                                 MessageHelper messageHelper, Duration defaultTimeout) {
+        // Consumer za odgovore mora da ima svoju konekciju, deljena konekcija iz
+        // CachingConnectionFactory ne dozvoljava postavljanje ExceptionListener-a
+        if (connectionFactory instanceof SingleConnectionFactory single && single.getTargetConnectionFactory() != null) {
+            connectionFactory = single.getTargetConnectionFactory();
+        }
+        this.connectionFactory = connectionFactory;
+        this.jmsTemplate = jmsTemplate;
+        this.messageHelper = messageHelper;
+        this.defaultTimeout = defaultTimeout;
+    }
+
+    public <T> CompletableFuture<T> request(String destination, Object payload, Class<T> responseType) {
+        return request(destination, payload, responseType, defaultTimeout);
+    }
+
+    /**
+     * Salje zahtev i vraca future koji se zavrsava odgovorom procitanim kao responseType,
+     * ili sa {@link TimeoutException} ako odgovor ne stigne na vreme.
+     */
+    public <T> CompletableFuture<T> request(String destination, Object payload, Class<T> responseType, Duration timeout) {
+        String correlationId = UUID.randomUUID().toString();
+        CompletableFuture<T> future = new CompletableFuture<>();
+        pending.put(correlationId, new PendingReply<>(responseType, future));
+        future.whenComplete((result, error) -> pending.remove(correlationId));
+
+        try {
+            Destination replyTo = replyQueue();
+            jmsTemplate.send(destination, session -> {
+                Message message = messageHelper.createMessage(session, payload);
+                message.setJMSCorrelationID(correlationId);
+                message.setJMSReplyTo(replyTo);
+                return message;
+            });
+        } catch (JMSException | JmsException e) {
+            future.completeExceptionally(e);
+            return future;
+        }
+        return future.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Za pozivaoce koji ne mogu da nastave bez odgovora. Nit ceka, ali zahtev i dalje deli
+     * red za odgovore sa ostalima, a greske dolaze kao RuntimeException.
+     */
+    public <T> T requestAndWait(String destination, Object payload, Class<T> responseType) {
+        try {
+            return request(destination, payload, responseType).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof TimeoutException) {
+                throw new RuntimeException("Odgovor sa " + destination + " nije stigao na vreme.", cause);
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
+    int pendingCount() {
+        return pending.size();
+    }
+
+    void onReply(Message reply) {
+        String correlationId;
+        try {
+            correlationId = reply.getJMSCorrelationID();
+        } catch (JMSException e) {
+            log.warn("Odgovor bez citljivog correlation id-a: {}", e.getMessage());
+            return;
+        }
+        PendingReply<?> pendingReply = correlationId == null ? null : pending.remove(correlationId);
+        if (pendingReply == null) {
+            // Zahtev je vec istekao ili odgovor nije nas
+            log.debug("Odgovor za nepoznat correlation id {}", correlationId);
+            return;
+        }
+        pendingReply.complete(reply, messageHelper);
+    }
+
+    private synchronized Destination replyQueue() throws JMSException {
+        if (replyQueue != null) {
+            return replyQueue;
+        }
+        Connection newConnection = connectionFactory.createConnection();
+        try {
+            newConnection.setExceptionListener(this);
+            Session session = newConnection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            TemporaryQueue queue = session.createTemporaryQueue();
+            session.createConsumer(queue).setMessageListener(this::onReply);
+            newConnection.start();
+            connection = newConnection;
+            replyQueue = queue;
+            return queue;
+        } catch (JMSException e) {
+            closeQuietly(newConnection);
+            throw e;
+        }
+    }
+
+    @Override
+    public void onException(JMSException exception) {
+        log.warn("Konekcija za JMS odgovore je prekinuta: {}", exception.getMessage());
+        reset(exception);
+    }
+
+    @PreDestroy
+    public void stop() {
+        reset(new IllegalStateException("JMS klijent je zaustavljen."));
+    }
+
+    private void reset(Exception cause) {
+        Connection oldConnection;
+        synchronized (this) {
+            oldConnection = connection;
+            connection = null;
+            replyQueue = null;
+        }
+        closeQuietly(oldConnection);
+
+        // Odgovori na stari privremeni red vise ne mogu da stignu
+        List<PendingReply<?>> failed = new ArrayList<>(pending.values());
+        pending.clear();
+        failed.forEach(pendingReply -> pendingReply.future().completeExceptionally(cause));
+    }
+
+    private static void closeQuietly(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (JMSException e) {
+            log.debug("Zatvaranje JMS konekcije nije uspelo: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.banka1.common.listener;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.jms.BytesMessage;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.Session;
+import jakarta.jms.TextMessage;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * JSON kao tekstualna poruka, bez content type property-ja da bi poruku mogli da procitaju
+ * i servisi van ove biblioteke. Cita i TextMessage i BytesMessage (STOMP klijenti salju bajtove).
+ */
+public class JsonMessageCodec implements MessageCodec {
+
+    public static final String CONTENT_TYPE = "application/json";
+
+    private final ObjectMapper objectMapper;
+    private final Map<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+    private final Map<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    public JsonMessageCodec(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public String contentType() {
+        return CONTENT_TYPE;
+    }
+
+    public String write(Object payload) throws JsonProcessingException {
+        if (payload == null) {
+            return "null";
+        }
+        return writers.computeIfAbsent(payload.getClass(), objectMapper::writerFor).writeValueAsString(payload);
+    }
+
+    @Override
+    public Message encode(Session session, Object payload) throws JMSException {
+        try {
+            return session.createTextMessage(write(payload));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Problem with creating text message", e);
+        }
+    }
+
+    @Override
+    public <T> T decode(Message message, Class<T> type) throws JMSException, IOException {
+        ObjectReader reader = readers.computeIfAbsent(type, objectMapper::readerFor);
+        if (message instanceof BytesMessage bytesMessage) {
+            return reader.readValue(bytesMessage.getBody(byte[].class));
+        }
+        return reader.readValue(((TextMessage) message).getText());
+    }
+}
@@ -0,0 +1,22 @@
+package com.banka1.common.listener;
+
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.Session;
+
+import java.io.IOException;
+
+/**
+ * Format tela JMS poruke. Format se prepoznaje po string property-ju {@value #CONTENT_TYPE_PROPERTY};
+ * poruke bez njega su JSON, kao sto salju svi servisi koji ne koriste ovu biblioteku (npr. trading-service).
+ */
+public interface MessageCodec {
+
+    String CONTENT_TYPE_PROPERTY = "contentType";
+
+    String contentType();
+
+    Message encode(Session session, Object payload) throws JMSException;
+
+    <T> T decode(Message message, Class<T> type) throws JMSException, IOException;
+}
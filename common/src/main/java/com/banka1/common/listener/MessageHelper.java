@@ -2,36 +2,69 @@ package com.banka1.common.listener;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import jakarta.jms.BytesMessage;
 import jakarta.jms.JMSException;
 import jakarta.jms.Message;
-import jakarta.jms.TextMessage;
+import jakarta.jms.Session;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Validator;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jms.core.MessageCreator;
+import org.springframework.jms.core.MessagePostProcessor;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+/**
+ * Citanje i pravljenje JMS poruka. Dolazne poruke se citaju formatom koji pise u njihovom
+ * content type property-ju (JSON ako ga nema), a {@link #createMessage} pise izlaznim formatom
+ * zadatim u konstruktoru. {@link #createTextMessage} uvek pravi JSON, za servise van ove biblioteke.
+ */
 @Component
-@RequiredArgsConstructor
 public class MessageHelper {
 
+    // DTO-ovi iz JDK-a i nizovi ne mogu da imaju ogranicenja, pa se ni oni ne validiraju
+    private static final ClassValue<Boolean> SKIP_VALIDATION = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            return type.isAnnotationPresent(TrustedMessage.class)
+                    || type.isArray()
+                    || type.getName().startsWith("java.");
+        }
+    };
+
     private final Validator validator;
-    private final ObjectMapper objectMapper;
+    private final JsonMessageCodec jsonCodec;
+    private final MessageCodec outgoingCodec;
+    private final Map<String, MessageCodec> codecs = new HashMap<>();
+
+    @Autowired
+    public MessageHelper(Validator validator, ObjectMapper objectMapper) {
+        this(validator, objectMapper, null);
+    }
+
+    /**
+     * @param outgoingCodec format za {@link #createMessage}; null znaci JSON
+     */
+    public MessageHelper(Validator validator, ObjectMapper objectMapper, MessageCodec outgoingCodec) {
+        this.validator = validator;
+        this.jsonCodec = new JsonMessageCodec(objectMapper);
+        this.outgoingCodec = outgoingCodec != null ? outgoingCodec : jsonCodec;
+
+        codecs.put(jsonCodec.contentType(), jsonCodec);
+        codecs.put(SmileMessageCodec.CONTENT_TYPE, new SmileMessageCodec(objectMapper));
+        codecs.put(this.outgoingCodec.contentType(), this.outgoingCodec);
+    }
 
     public <T> T getMessage(Message message, Class<T> clazz) throws RuntimeException, JMSException {
         try {
-            String json;
-            if (message instanceof BytesMessage msg)
-                json = new String(msg.getBody(byte[].class), StandardCharsets.UTF_8);
-            else
-                json = ((TextMessage) message).getText();
-
-            T data = objectMapper.readValue(json, clazz);
+            T data = codecFor(message).decode(message, clazz);
+            if (data == null || SKIP_VALIDATION.get(clazz)) {
+                return data;
+            }
 
             Set<ConstraintViolation<T>> violations = validator.validate(data);
             if (violations.isEmpty()) {
@@ -47,12 +80,59 @@ public class MessageHelper {
 
     public String createTextMessage(Object object) {
         try {
-            return objectMapper.writeValueAsString(object);
+            return jsonCodec.write(object);
         } catch (JsonProcessingException e) {
             throw new RuntimeException("Problem with creating text message");
         }
     }
 
+    /**
+     * Pravi poruku izlaznim formatom. Koristiti samo za poruke koje citaju nasi Java servisi.
+     */
+    public Message createMessage(Session session, Object object) throws JMSException {
+        return outgoingCodec.encode(session, object);
+    }
+
+    public MessageCreator messageCreator(Object object) {
+        return session -> createMessage(session, object);
+    }
+
+    /**
+     * Pravi odgovor u istom formatu u kome je stigao zahtev, sa correlation id-jem zahteva,
+     * pa JSON klijenti (npr. trading-service) i dalje dobijaju JSON.
+     */
+    public MessageCreator createReply(Message request, Object object) throws JMSException {
+        MessageCodec codec = codecFor(request);
+        MessagePostProcessor correlation = correlateWith(request);
+        return session -> correlation.postProcessMessage(codec.encode(session, object));
+    }
+
+    /**
+     * Prepisuje correlation id zahteva na odgovor (ili JMSMessageID ako ga zahtev nema),
+     * da bi {@link JmsRequestReplyClient} mogao da upari odgovor sa zahtevom.
+     */
+    public MessagePostProcessor correlateWith(Message request) throws JMSException {
+        String correlationId = request.getJMSCorrelationID() != null
+                ? request.getJMSCorrelationID()
+                : request.getJMSMessageID();
+        return reply -> {
+            reply.setJMSCorrelationID(correlationId);
+            return reply;
+        };
+    }
+
+    private MessageCodec codecFor(Message message) throws JMSException {
+        String contentType = message.getStringProperty(MessageCodec.CONTENT_TYPE_PROPERTY);
+        if (contentType == null) {
+            return jsonCodec;
+        }
+        MessageCodec codec = codecs.get(contentType);
+        if (codec == null) {
+            throw new RuntimeException("Nepoznat format poruke: " + contentType);
+        }
+        return codec;
+    }
+
     private <T> void printViolationsAndThrowException(Set<ConstraintViolation<T>> violations) {
         String concatenatedViolations = violations.stream()
                 .map(ConstraintViolation::getMessage)
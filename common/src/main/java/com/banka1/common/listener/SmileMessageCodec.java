@@ -0,0 +1,61 @@
+package com.banka1.common.listener;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import jakarta.jms.BytesMessage;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.Session;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Jackson Smile (binarni JSON) u BytesMessage. Poruka je manja i parsira se brze od teksta,
+ * a isti DTO-ovi i anotacije vaze kao za JSON. Koristi se samo izmedju Java servisa.
+ */
+public class SmileMessageCodec implements MessageCodec {
+
+    public static final String CONTENT_TYPE = "application/x-jackson-smile";
+
+    private final ObjectMapper smileMapper;
+    private final Map<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+    private final Map<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    /**
+     * Podesavanja (moduli, nepoznata polja, datumi) se preuzimaju iz JSON ObjectMapper-a.
+     */
+    public SmileMessageCodec(ObjectMapper objectMapper) {
+        this.smileMapper = objectMapper.copyWith(new SmileFactory());
+    }
+
+    @Override
+    public String contentType() {
+        return CONTENT_TYPE;
+    }
+
+    @Override
+    public Message encode(Session session, Object payload) throws JMSException {
+        byte[] body;
+        try {
+            body = payload == null
+                    ? smileMapper.writeValueAsBytes(null)
+                    : writers.computeIfAbsent(payload.getClass(), smileMapper::writerFor).writeValueAsBytes(payload);
+        } catch (IOException e) {
+            throw new RuntimeException("Problem with creating binary message", e);
+        }
+        BytesMessage message = session.createBytesMessage();
+        message.writeBytes(body);
+        message.setStringProperty(CONTENT_TYPE_PROPERTY, CONTENT_TYPE);
+        return message;
+    }
+
+    @Override
+    public <T> T decode(Message message, Class<T> type) throws JMSException, IOException {
+        byte[] body = message.getBody(byte[].class);
+        return readers.computeIfAbsent(type, smileMapper::readerFor).readValue(body);
+    }
+}
@@ -0,0 +1,17 @@
+package com.banka1.common.listener;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Oznacava DTO koji stize samo od nasih servisa, pa {@link MessageHelper#getMessage} preskace
+ * Bean Validation za njega. Ne stavljati na DTO-ove koje salju spoljni servisi ili klijenti.
+ */
+@Documented
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface TrustedMessage {
+}
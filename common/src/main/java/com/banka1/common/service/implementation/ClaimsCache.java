@@ -0,0 +1,97 @@
+package com.banka1.common.service.implementation;
+
+import io.jsonwebtoken.Claims;
+
+import java.nio.ByteBuffer;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Ograniceni kes procitanih claim-ova po SHA-256 hash-u tokena, da se token ne bi ponovo
+ * proveravao i parsirao na svakom zahtevu. Sam token se ne cuva u memoriji.
+ * <p>
+ * Unos vazi do isteka tokena ({@code exp}); tokeni bez {@code exp} se ne kesiraju.
+ * Kada se kes napuni, prvo se brisu istekli unosi, a ako to nije dovoljno i proizvoljni.
+ */
+class ClaimsCache {
+
+    private record Entry(Claims claims, long expiresAt) {
+    }
+
+    private final int maxSize;
+    private final LongSupplier clock;
+    private final Map<ByteBuffer, Entry> entries = new ConcurrentHashMap<>();
+
+    ClaimsCache(int maxSize) {
+        this(maxSize, System::currentTimeMillis);
+    }
+
+    ClaimsCache(int maxSize, LongSupplier clock) {
+        this.maxSize = maxSize;
+        this.clock = clock;
+    }
+
+    /**
+     * Vraca kesirane claim-ove za token, ili ih cita parserom i kesira ako ih parser vrati.
+     * Parser vraca null za neispravan token, pa se neuspesni pokusaji ne pamte.
+     */
+    Claims get(String token, Function<String, Claims> parser) {
+        return maxSize <= 0 ? parser.apply(token) : get(token, TokenDigest.sha256(token), parser);
+    }
+
+    /**
+     * Kao {@link #get(String, Function)}, sa vec izracunatim SHA-256 tokena.
+     */
+    Claims get(String token, byte[] digest, Function<String, Claims> parser) {
+        if (maxSize <= 0) {
+            return parser.apply(token);
+        }
+
+        ByteBuffer key = ByteBuffer.wrap(digest);
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            if (clock.getAsLong() < entry.expiresAt()) {
+                return entry.claims();
+            }
+            entries.remove(key, entry);
+        }
+
+        Claims claims = parser.apply(token);
+        if (claims != null) {
+            put(key, claims);
+        }
+        return claims;
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private void put(ByteBuffer key, Claims claims) {
+        Date expiration = claims.getExpiration();
+        if (expiration == null) {
+            return;
+        }
+        if (entries.size() >= maxSize) {
+            evict();
+        }
+        entries.put(key, new Entry(claims, expiration.getTime()));
+    }
+
+    private void evict() {
+        long now = clock.getAsLong();
+        entries.values().removeIf(entry -> now >= entry.expiresAt());
+
+        // Ostavlja mesta za vise novih tokena da se ciscenje ne bi radilo pri svakom upisu
+        int target = maxSize * 3 / 4;
+        Iterator<ByteBuffer> iterator = entries.keySet().iterator();
+        while (entries.size() > target && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+}
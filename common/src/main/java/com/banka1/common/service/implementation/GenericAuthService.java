@@ -5,9 +5,11 @@ import com.banka1.common.model.Permission;
 import com.banka1.common.model.Position;
 import com.banka1.common.service.IAuthService;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
@@ -27,9 +29,34 @@ public abstract class GenericAuthService implements IAuthService {
     protected String secret;
     @Value("${oauth.jwt.expiration}")
     protected long jwtExpiration;
+    @Value("${oauth.jwt.claims-cache-size:2048}")
+    protected int claimsCacheSize = 2048;
+    // Servisi koji ne slusaju opozive tokena nemaju crnu listu
+    @Autowired(required = false)
+    protected TokenBlacklist tokenBlacklist;
+
+    // Kljuc, parser i kes claim-ova vaze za jednu vrednost tajne
+    private record Verifier(String secret, SecretKey key, JwtParser parser, ClaimsCache claims) {
+    }
+
+    private volatile Verifier verifier;
+
+    /**
+     * Kljuc i parser se prave pri prvom koriscenju, a ponovo samo ako se tajna promeni.
+     * Istovremeno pravljenje na dve niti je bezopasno, obe dobijaju ispravan verifier.
+     */
+    private Verifier verifier() {
+        Verifier current = verifier;
+        if (current == null || !current.secret().equals(secret)) {
+            SecretKey key = Keys.hmacShaKeyFor(Base64.getDecoder().decode(secret));
+            current = new Verifier(secret, key, Jwts.parser().verifyWith(key).build(), new ClaimsCache(claimsCacheSize));
+            verifier = current;
+        }
+        return current;
+    }
 
     private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(Base64.getDecoder().decode(secret));
+        return verifier().key();
     }
 
     // Generiše token bez zahtevanja enum tipova
@@ -49,20 +76,42 @@ public abstract class GenericAuthService implements IAuthService {
 
     @Override
     public String getToken(String authHeader) {
-        log.info("Grabbing token from header " + authHeader);
         if(authHeader != null && authHeader.startsWith("Bearer"))
             return authHeader.split(" ")[1];
-        log.warn("Didn't grab token from header (make sure it starts with \"Bearer \" (" + authHeader + ")");
+        log.warn("Didn't grab token from header (make sure it starts with \"Bearer \")");
         return null;
     }
 
+    /**
+     * Proverava potpis i vraca claim-ove tokena, ili null ako token nije ispravan, je istekao
+     * ili je opozvan. Claim-ovi vec vidjenih tokena se uzimaju iz kesa dok token ne istekne,
+     * a crna lista se proverava pre kesa.
+     */
     @Override
     public Claims parseToken(String token) {
+        if (token == null) {
+            return null;
+        }
+        try {
+            Verifier current = verifier();
+            byte[] digest = TokenDigest.sha256(token);
+            if (tokenBlacklist != null && tokenBlacklist.isRevoked(digest)) {
+                log.debug("Token je opozvan");
+                return null;
+            }
+            return current.claims().get(token, digest, t -> parse(current.parser(), t));
+        } catch (Exception e) {
+            log.warn("Did not parse token: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static Claims parse(JwtParser parser, String token) {
         try {
-            log.info("Parsing token " + token);
-            return Jwts.parser().verifyWith(getSigningKey()).build().parseSignedClaims(token).getPayload();
+            return parser.parseSignedClaims(token).getPayload();
         } catch (Exception e) {
-            log.warn("Did not parse token " + token);
+            // Token se ne loguje, dovoljno je da se zna zasto nije prihvacen
+            log.warn("Did not parse token: {}", e.getMessage());
             return null;
         }
     }
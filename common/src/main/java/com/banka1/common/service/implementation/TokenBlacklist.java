@@ -0,0 +1,165 @@
+package com.banka1.common.service.implementation;
+
+import com.banka1.common.dto.TokenRevocationDTO;
+import com.banka1.common.utils.BloomFilter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+/**
+ * Lokalna kopija crne liste opozvanih tokena. user-service opoziva token (logout, refresh)
+ * i salje {@link TokenRevocationDTO} na topic, a svaki servis ga dodaje u svoju kopiju.
+ * <p>
+ * Cuva se samo 128-bitni hash tokena (prva polovina SHA-256) i trenutak isteka tokena.
+ * Unosi su poredjani po isteku, pa ciscenje obradjuje samo istekle unose. Ispred skupa je
+ * Bloom filter, pa provera tokena koji nije opozvan (skoro svi zahtevi) ne zakljucava nista.
+ * Filter se pravi iznova kada se iz skupa izbaci onoliko unosa koliko ih je ostalo, ili
+ * kada skup preraste kapacitet filtera.
+ */
+@Slf4j
+public class TokenBlacklist {
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private record TokenId(long high, long low) {
+        static TokenId of(byte[] digest) {
+            ByteBuffer buffer = ByteBuffer.wrap(digest);
+            return new TokenId(buffer.getLong(), buffer.getLong());
+        }
+
+        static TokenId parse(String hex) {
+            byte[] bytes = HexFormat.of().parseHex(hex);
+            if (bytes.length != 16) {
+                throw new IllegalArgumentException("Id tokena mora imati 128 bita.");
+            }
+            return of(bytes);
+        }
+
+        String toHex() {
+            return HexFormat.of().toHexDigits(high) + HexFormat.of().toHexDigits(low);
+        }
+    }
+
+    private record Revocation(TokenId id, long expiresAt) {
+    }
+
+    private final int initialCapacity;
+    private final LongSupplier clock;
+
+    private final Set<TokenId> revoked = new HashSet<>();
+    private final PriorityQueue<Revocation> byExpiry = new PriorityQueue<>(Comparator.comparingLong(Revocation::expiresAt));
+    private volatile BloomFilter bloomFilter;
+    private int removedSinceRebuild;
+
+    public TokenBlacklist(int initialCapacity) {
+        this(initialCapacity, System::currentTimeMillis);
+    }
+
+    TokenBlacklist(int initialCapacity, LongSupplier clock) {
+        this.initialCapacity = Math.max(initialCapacity, 16);
+        this.clock = clock;
+        this.bloomFilter = new BloomFilter(this.initialCapacity, FALSE_POSITIVE_RATE);
+    }
+
+    /**
+     * Id tokena koji se salje drugim servisima (hex zapis 128-bitnog hash-a).
+     */
+    public static String tokenId(String token) {
+        return TokenId.of(TokenDigest.sha256(token)).toHex();
+    }
+
+    public boolean isRevoked(String token) {
+        return token != null && isRevoked(TokenDigest.sha256(token));
+    }
+
+    boolean isRevoked(byte[] digest) {
+        TokenId id = TokenId.of(digest);
+        if (!bloomFilter.mightContain(id.high(), id.low())) {
+            return false;
+        }
+        synchronized (this) {
+            return revoked.contains(id);
+        }
+    }
+
+    /**
+     * Opoziva token do trenutka expiresAt (milisekunde), posle kog ga JWT parser ionako odbija.
+     */
+    public void revoke(String token, long expiresAt) {
+        revoke(TokenId.of(TokenDigest.sha256(token)), expiresAt);
+    }
+
+    /**
+     * Primenjuje opoziv koji je poslao drugi servis. Neispravne poruke se ignorisu.
+     */
+    public void revoke(TokenRevocationDTO revocation) {
+        if (revocation == null || revocation.getTokenId() == null || revocation.getExpiresAt() == null) {
+            log.warn("Opoziv tokena bez id-a ili isteka, ignorise se");
+            return;
+        }
+        try {
+            revoke(TokenId.parse(revocation.getTokenId()), revocation.getExpiresAt());
+        } catch (IllegalArgumentException e) {
+            log.warn("Neispravan id opozvanog tokena: {}", e.getMessage());
+        }
+    }
+
+    private synchronized void revoke(TokenId id, long expiresAt) {
+        purgeExpired();
+        if (expiresAt <= clock.getAsLong() || !revoked.add(id)) {
+            return;
+        }
+        byExpiry.add(new Revocation(id, expiresAt));
+        if (revoked.size() > bloomFilter.expectedInsertions()) {
+            rebuildBloomFilter();
+        } else {
+            bloomFilter.put(id.high(), id.low());
+        }
+    }
+
+    /**
+     * Izbacuje istekle unose; radi samo onoliko posla koliko je unosa isteklo.
+     *
+     * @return broj izbacenih unosa
+     */
+    public synchronized int purgeExpired() {
+        long now = clock.getAsLong();
+        int removed = 0;
+        while (!byExpiry.isEmpty() && byExpiry.peek().expiresAt() <= now) {
+            revoked.remove(byExpiry.poll().id());
+            removed++;
+        }
+        removedSinceRebuild += removed;
+        // Izbaceni unosi ostaju u filteru kao lazni pogoci dok se filter ne napravi iznova
+        if (removedSinceRebuild > 0 && removedSinceRebuild >= revoked.size()) {
+            rebuildBloomFilter();
+        }
+        return removed;
+    }
+
+    public synchronized int size() {
+        return revoked.size();
+    }
+
+    public synchronized void clear() {
+        revoked.clear();
+        byExpiry.clear();
+        rebuildBloomFilter();
+    }
+
+    private void rebuildBloomFilter() {
+        List<TokenId> ids = new ArrayList<>(revoked);
+        BloomFilter rebuilt = new BloomFilter(Math.max(initialCapacity, ids.size() * 2), FALSE_POSITIVE_RATE);
+        ids.forEach(id -> rebuilt.put(id.high(), id.low()));
+        bloomFilter = rebuilt;
+        removedSinceRebuild = 0;
+    }
+}
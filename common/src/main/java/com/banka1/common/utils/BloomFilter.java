@@ -0,0 +1,69 @@
+package com.banka1.common.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter nad 128-bitnim hash-evima (dva long-a). Odgovor "nije prisutno" je siguran, a
+ * "mozda je prisutno" treba proveriti u pravoj strukturi. Elementi se ne mogu brisati; kada
+ * se skup dovoljno promeni, pozivalac pravi novi filter.
+ * <p>
+ * Upis i citanje su bez zakljucavanja, pa se filter moze proveravati na svakom zahtevu.
+ * Pozicije bitova se racunaju dvostrukim hash-ovanjem (h1 + i * h2), sto za dobro
+ * rasporedjen ulaz (npr. deo SHA-256) daje ocekivanu verovatnocu laznih pogodaka.
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+    private final int expectedInsertions;
+
+    /**
+     * @param expectedInsertions broj elemenata za koji filter drzi zadatu gresku
+     * @param falsePositiveRate  zeljena verovatnoca laznog pogotka, npr. 0.01
+     */
+    public BloomFilter(int expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("Ocekivani broj elemenata mora biti pozitivan.");
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Verovatnoca laznog pogotka mora biti izmedju 0 i 1.");
+        }
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int wordCount = (int) Math.max(1, (bits + 63) / 64);
+        this.words = new AtomicLongArray(wordCount);
+        this.bitCount = (long) wordCount * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+        this.expectedInsertions = expectedInsertions;
+    }
+
+    public void put(long high, long low) {
+        long combined = high;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(combined, bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current = words.get(word);
+            while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask)) {
+                current = words.get(word);
+            }
+            combined += low;
+        }
+    }
+
+    public boolean mightContain(long high, long low) {
+        long combined = high;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(combined, bitCount);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+            combined += low;
+        }
+        return true;
+    }
+
+    public int expectedInsertions() {
+        return expectedInsertions;
+    }
+}
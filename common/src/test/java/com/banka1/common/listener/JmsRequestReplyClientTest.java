@@ -0,0 +1,133 @@
+package com.banka1.common.listener;
+
+import jakarta.jms.Connection;
+import jakarta.jms.ConnectionFactory;
+import jakarta.jms.JMSException;
+import jakarta.jms.MessageConsumer;
+import jakarta.jms.Session;
+import jakarta.jms.TemporaryQueue;
+import jakarta.jms.TextMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.core.MessageCreator;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JmsRequestReplyClientTest {
+
+    @Mock
+    private ConnectionFactory connectionFactory;
+    @Mock
+    private Connection connection;
+    @Mock
+    private Session session;
+    @Mock
+    private TemporaryQueue replyQueue;
+    @Mock
+    private MessageConsumer consumer;
+    @Mock
+    private JmsTemplate jmsTemplate;
+    @Mock
+    private MessageHelper messageHelper;
+
+    private JmsRequestReplyClient client;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(connectionFactory.createConnection()).thenReturn(connection);
+        when(connection.createSession(false, Session.AUTO_ACKNOWLEDGE)).thenReturn(session);
+        when(session.createTemporaryQueue()).thenReturn(replyQueue);
+        when(session.createConsumer(replyQueue)).thenReturn(consumer);
+
+        client = new JmsRequestReplyClient(connectionFactory, jmsTemplate, messageHelper, Duration.ofSeconds(5));
+    }
+
+    private TextMessage sentRequest() throws Exception {
+        ArgumentCaptor<MessageCreator> creator = ArgumentCaptor.forClass(MessageCreator.class);
+        verify(jmsTemplate, atLeastOnce()).send(eq("get-customer"), creator.capture());
+
+        Session sendSession = mock(Session.class);
+        TextMessage request = mock(TextMessage.class);
+        when(messageHelper.createMessage(sendSession, 42L)).thenReturn(request);
+        creator.getValue().createMessage(sendSession);
+        return request;
+    }
+
+    private static TextMessage reply(String correlationId) throws Exception {
+        TextMessage reply = mock(TextMessage.class);
+        when(reply.getJMSCorrelationID()).thenReturn(correlationId);
+        return reply;
+    }
+
+    @Test
+    void replyIsDispatchedByCorrelationId() throws Exception {
+        CompletableFuture<String> future = client.request("get-customer", 42L, String.class);
+
+        TextMessage request = sentRequest();
+        ArgumentCaptor<String> correlationId = ArgumentCaptor.forClass(String.class);
+        verify(request).setJMSCorrelationID(correlationId.capture());
+        verify(request).setJMSReplyTo(replyQueue);
+
+        TextMessage reply = reply(correlationId.getValue());
+        when(messageHelper.getMessage(reply, String.class)).thenReturn("Petar");
+        client.onReply(reply);
+
+        assertEquals("Petar", future.get());
+        assertEquals(0, client.pendingCount());
+    }
+
+    @Test
+    void requestsShareOneReplyQueue() throws Exception {
+        client.request("get-customer", 1L, String.class);
+        client.request("get-customer", 2L, String.class);
+        client.request("get-customer", 3L, String.class);
+
+        verify(connectionFactory, times(1)).createConnection();
+        verify(session, times(1)).createTemporaryQueue();
+        assertEquals(3, client.pendingCount());
+    }
+
+    @Test
+    void unknownReplyIsIgnored() throws Exception {
+        CompletableFuture<String> future = client.request("get-customer", 42L, String.class);
+
+        client.onReply(reply("nepoznat"));
+
+        assertFalse(future.isDone());
+        verify(messageHelper, never()).getMessage(any(), any());
+    }
+
+    @Test
+    void requestTimesOut() {
+        CompletableFuture<String> future = client.request("get-customer", 42L, String.class, Duration.ofMillis(10));
+
+        ExecutionException exception = assertThrows(ExecutionException.class, future::get);
+        assertInstanceOf(TimeoutException.class, exception.getCause());
+    }
+
+    @Test
+    void brokenConnectionFailsPendingRequestsAndReconnects() throws Exception {
+        CompletableFuture<String> future = client.request("get-customer", 42L, String.class);
+
+        client.onException(new JMSException("broker down"));
+
+        assertTrue(future.isCompletedExceptionally());
+        verify(connection).close();
+
+        client.request("get-customer", 43L, String.class);
+        verify(connectionFactory, times(2)).createConnection();
+    }
+}
@@ -0,0 +1,124 @@
+package com.banka1.common.listener;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.jms.BytesMessage;
+import jakarta.jms.Message;
+import jakarta.jms.Session;
+import jakarta.jms.TextMessage;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MessageHelperTest {
+
+    @Mock
+    private Validator validator;
+    @Mock
+    private Session session;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private MessageHelper messageHelper;
+
+    public static class Payload {
+        public Long id;
+        public String name;
+    }
+
+    @TrustedMessage
+    public static class TrustedPayload {
+        public Long id;
+    }
+
+    @BeforeEach
+    void setUp() {
+        messageHelper = new MessageHelper(validator, objectMapper, new SmileMessageCodec(objectMapper));
+    }
+
+    private static Payload payload() {
+        Payload payload = new Payload();
+        payload.id = 7L;
+        payload.name = "Petar";
+        return payload;
+    }
+
+    /** Vraca BytesMessage koji cita ono sto je upisano u poruku koju je napravio helper. */
+    private BytesMessage encodeAsBytes(Object payload) throws Exception {
+        BytesMessage written = mock(BytesMessage.class);
+        when(session.createBytesMessage()).thenReturn(written);
+        messageHelper.createMessage(session, payload);
+
+        ArgumentCaptor<byte[]> body = ArgumentCaptor.forClass(byte[].class);
+        verify(written).writeBytes(body.capture());
+        verify(written).setStringProperty(MessageCodec.CONTENT_TYPE_PROPERTY, SmileMessageCodec.CONTENT_TYPE);
+
+        BytesMessage received = mock(BytesMessage.class);
+        when(received.getStringProperty(MessageCodec.CONTENT_TYPE_PROPERTY)).thenReturn(SmileMessageCodec.CONTENT_TYPE);
+        when(received.getBody(byte[].class)).thenReturn(body.getValue());
+        return received;
+    }
+
+    @Test
+    void smileMessageRoundTrips() throws Exception {
+        when(validator.validate(any(Payload.class))).thenReturn(Collections.emptySet());
+
+        Payload result = messageHelper.getMessage(encodeAsBytes(payload()), Payload.class);
+
+        assertEquals(7L, result.id);
+        assertEquals("Petar", result.name);
+    }
+
+    @Test
+    void trustedMessageIsNotValidated() throws Exception {
+        TrustedPayload payload = new TrustedPayload();
+        payload.id = 3L;
+
+        TrustedPayload result = messageHelper.getMessage(encodeAsBytes(payload), TrustedPayload.class);
+
+        assertEquals(3L, result.id);
+        verifyNoInteractions(validator);
+    }
+
+    @Test
+    void messageWithoutContentTypeIsReadAsJson() throws Exception {
+        TextMessage message = mock(TextMessage.class);
+        when(message.getText()).thenReturn("[1,2,3]");
+
+        Long[] ids = messageHelper.getMessage(message, Long[].class);
+
+        assertArrayEquals(new Long[]{1L, 2L, 3L}, ids);
+        verifyNoInteractions(validator);
+    }
+
+    @Test
+    void replyUsesFormatOfTheRequest() throws Exception {
+        TextMessage request = mock(TextMessage.class);
+        when(request.getJMSCorrelationID()).thenReturn("abc");
+        TextMessage reply = mock(TextMessage.class);
+        when(session.createTextMessage("{\"id\":7,\"name\":\"Petar\"}")).thenReturn(reply);
+
+        Message created = messageHelper.createReply(request, payload()).createMessage(session);
+
+        assertSame(reply, created);
+        verify(reply).setJMSCorrelationID("abc");
+        verify(session, never()).createBytesMessage();
+    }
+
+    @Test
+    void unknownContentTypeIsRejected() throws Exception {
+        BytesMessage message = mock(BytesMessage.class);
+        when(message.getStringProperty(MessageCodec.CONTENT_TYPE_PROPERTY)).thenReturn("application/xml");
+
+        assertThrows(RuntimeException.class, () -> messageHelper.getMessage(message, Payload.class));
+    }
+}
@@ -0,0 +1,114 @@
+package com.banka1.common.service.implementation;
+
+import com.banka1.common.model.Department;
+import com.banka1.common.model.Permission;
+import com.banka1.common.model.Position;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GenericAuthServiceTest {
+
+    private static final String SECRET = Base64.getEncoder().encodeToString("TEST_SECRET_12345678_ABC!_00defgh".getBytes());
+    private static final String OTHER_SECRET = Base64.getEncoder().encodeToString("DRUGA_TAJNA_12345678_ABC!_00defg".getBytes());
+
+    private GenericAuthService authService;
+
+    @BeforeEach
+    void setUp() {
+        authService = new GenericAuthService() {
+        };
+        ReflectionTestUtils.setField(authService, "secret", SECRET);
+        ReflectionTestUtils.setField(authService, "jwtExpiration", 100000);
+    }
+
+    private String token() {
+        return authService.generateToken(1L, Position.WORKER, List.of(Permission.READ_EMPLOYEE), true, false, Department.IT);
+    }
+
+    @Test
+    void parsedClaimsAreCached() {
+        String token = token();
+
+        Claims first = authService.parseToken(token);
+        Claims second = authService.parseToken(token);
+
+        assertEquals(1L, first.get("id", Long.class));
+        assertSame(first, second);
+    }
+
+    @Test
+    void tamperedTokenIsRejected() {
+        String token = token();
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertNull(authService.parseToken(tampered));
+        assertNull(authService.parseToken(null));
+    }
+
+    @Test
+    void changedSecretDropsCachedClaims() {
+        String token = token();
+        assertNotNull(authService.parseToken(token));
+
+        ReflectionTestUtils.setField(authService, "secret", OTHER_SECRET);
+
+        assertNull(authService.parseToken(token));
+    }
+
+    @Test
+    void revokedTokenIsRejectedEvenIfCached() {
+        TokenBlacklist blacklist = new TokenBlacklist(16);
+        ReflectionTestUtils.setField(authService, "tokenBlacklist", blacklist);
+        String token = token();
+        assertNotNull(authService.parseToken(token));
+
+        blacklist.revoke(token, System.currentTimeMillis() + 100000);
+
+        assertNull(authService.parseToken(token));
+    }
+
+    @Test
+    void cacheEntryExpiresWithToken() {
+        AtomicLong now = new AtomicLong(1_000);
+        AtomicInteger parses = new AtomicInteger();
+        Claims claims = Jwts.claims().expiration(new Date(2_000)).build();
+        ClaimsCache cache = new ClaimsCache(10, now::get);
+
+        cache.get("token", t -> {
+            parses.incrementAndGet();
+            return claims;
+        });
+        cache.get("token", t -> {
+            parses.incrementAndGet();
+            return claims;
+        });
+        assertEquals(1, parses.get());
+
+        now.set(2_000);
+        assertNull(cache.get("token", t -> null));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void cacheStaysBounded() {
+        Claims claims = Jwts.claims().expiration(new Date(Long.MAX_VALUE)).build();
+        ClaimsCache cache = new ClaimsCache(8, () -> 0L);
+
+        for (int i = 0; i < 100; i++) {
+            cache.get("token-" + i, t -> claims);
+        }
+
+        assertTrue(cache.size() <= 8);
+    }
+}
@@ -0,0 +1,84 @@
+package com.banka1.common.service.implementation;
+
+import com.banka1.common.dto.TokenRevocationDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBlacklistTest {
+
+    private AtomicLong now;
+    private TokenBlacklist blacklist;
+
+    @BeforeEach
+    void setUp() {
+        now = new AtomicLong(1_000);
+        blacklist = new TokenBlacklist(16, now::get);
+    }
+
+    @Test
+    void revokedTokenIsRejectedUntilItExpires() {
+        blacklist.revoke("token-a", 2_000);
+
+        assertTrue(blacklist.isRevoked("token-a"));
+        assertFalse(blacklist.isRevoked("token-b"));
+
+        now.set(2_000);
+        assertEquals(1, blacklist.purgeExpired());
+        assertFalse(blacklist.isRevoked("token-a"));
+        assertEquals(0, blacklist.size());
+    }
+
+    @Test
+    void purgeRemovesOnlyExpiredEntries() {
+        blacklist.revoke("token-a", 1_500);
+        blacklist.revoke("token-b", 3_000);
+        blacklist.revoke("token-c", 2_000);
+
+        now.set(2_000);
+
+        assertEquals(2, blacklist.purgeExpired());
+        assertTrue(blacklist.isRevoked("token-b"));
+        assertEquals(1, blacklist.size());
+    }
+
+    @Test
+    void alreadyExpiredTokenIsNotStored() {
+        blacklist.revoke("token-a", 500);
+
+        assertEquals(0, blacklist.size());
+    }
+
+    @Test
+    void revocationFromAnotherServiceMatchesToken() {
+        TokenRevocationDTO revocation = new TokenRevocationDTO(TokenBlacklist.tokenId("token-a"), 2_000L);
+
+        blacklist.revoke(revocation);
+
+        assertEquals(32, revocation.getTokenId().length());
+        assertTrue(blacklist.isRevoked("token-a"));
+    }
+
+    @Test
+    void malformedRevocationIsIgnored() {
+        blacklist.revoke(new TokenRevocationDTO("nije-hex", 2_000L));
+        blacklist.revoke(new TokenRevocationDTO(null, 2_000L));
+
+        assertEquals(0, blacklist.size());
+    }
+
+    @Test
+    void blacklistGrowsPastInitialCapacity() {
+        for (int i = 0; i < 200; i++) {
+            blacklist.revoke("token-" + i, 2_000);
+        }
+
+        for (int i = 0; i < 200; i++) {
+            assertTrue(blacklist.isRevoked("token-" + i));
+        }
+        assertEquals(200, blacklist.size());
+    }
+}
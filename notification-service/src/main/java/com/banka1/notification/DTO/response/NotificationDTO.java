@@ -1,5 +1,6 @@
 package com.banka1.notification.DTO.response;
 
+import com.banka1.common.listener.TrustedMessage;
 import com.banka1.notification.model.helper.UserType;
 import lombok.Getter;
 import lombok.Setter;
@@ -9,6 +10,7 @@ import java.util.Map;
 @Component
 @Getter
 @Setter
+@TrustedMessage
 public class NotificationDTO {
     private String email;
     private String subject;
@@ -0,0 +1,22 @@
+package com.banka1.notification.listener;
+
+import com.banka1.common.dto.TokenRevocationDTO;
+import com.banka1.common.listener.MessageHelper;
+import com.banka1.common.service.implementation.TokenBlacklist;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jms.annotation.JmsListener;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class TokenRevocationListener {
+    private final TokenBlacklist tokenBlacklist;
+    private final MessageHelper messageHelper;
+
+    @JmsListener(destination = "${destination.token.revoked}", containerFactory = "topicListenerFactory")
+    public void onTokenRevoked(Message message) throws JMSException {
+        tokenBlacklist.revoke(messageHelper.getMessage(message, TokenRevocationDTO.class));
+    }
+}
@@ -3,6 +3,7 @@ package com.banka1.notification.listener;
 
 import com.banka1.common.listener.MessageHelper;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import jakarta.jms.TextMessage;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Validator;
@@ -29,6 +30,9 @@ class MessageHelperTest {
     @Mock
     private ObjectMapper objectMapper;
 
+    @Mock
+    private ObjectReader objectReader;
+
     @Mock
     private TextMessage message;
 
@@ -51,7 +55,8 @@ class MessageHelperTest {
         testMessage.field = "value";
 
         when(message.getText()).thenReturn(json);
-        when(objectMapper.readValue(json, TestMessage.class)).thenReturn(testMessage);
+        when(objectMapper.readerFor(TestMessage.class)).thenReturn(objectReader);
+        when(objectReader.readValue(json)).thenReturn(testMessage);
         when(validator.validate(testMessage)).thenReturn(Collections.emptySet());
 
         TestMessage result = messageHelper.getMessage(message, TestMessage.class);
@@ -72,7 +77,8 @@ class MessageHelperTest {
         Set<ConstraintViolation<TestMessage>> violations = Set.of(violation);
 
         when(message.getText()).thenReturn(json);
-        when(objectMapper.readValue(json, TestMessage.class)).thenReturn(testMessage);
+        when(objectMapper.readerFor(TestMessage.class)).thenReturn(objectReader);
+        when(objectReader.readValue(json)).thenReturn(testMessage);
         when(validator.validate(testMessage)).thenReturn(violations);
 
         RuntimeException exception = assertThrows(RuntimeException.class, () ->
@@ -85,7 +91,8 @@ class MessageHelperTest {
         String invalidJson = "invalid_json";
 
         when(message.getText()).thenReturn(invalidJson);
-        when(objectMapper.readValue(invalidJson, TestMessage.class)).thenThrow(new RuntimeException("Parsing error"));
+        when(objectMapper.readerFor(TestMessage.class)).thenReturn(objectReader);
+        when(objectReader.readValue(invalidJson)).thenThrow(new RuntimeException("Parsing error"));
 
         RuntimeException exception = assertThrows(RuntimeException.class, () ->
                 messageHelper.getMessage(message, TestMessage.class));
@@ -1,15 +1,32 @@
 package com.banka1.user.config;
 
+import com.banka1.common.listener.JmsRequestReplyClient;
+import com.banka1.common.listener.MessageCodec;
 import com.banka1.common.listener.MessageHelper;
+import com.banka1.common.listener.SmileMessageCodec;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.jms.ConnectionFactory;
 import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.jms.core.JmsTemplate;
+
+import java.time.Duration;
 
 @Configuration
 public class MessageHelperConfig {
     @Bean
-    public MessageHelper messageHelper(Validator validator, ObjectMapper objectMapper) {
-        return new MessageHelper(validator, objectMapper);
+    public MessageHelper messageHelper(Validator validator, ObjectMapper objectMapper,
+                                       @Value("${messaging.codec:json}") String codec) {
+        // Poruke za nase Java servise idu u Smile formatu, odgovori prate format zahteva
+        MessageCodec outgoingCodec = "smile".equals(codec) ? new SmileMessageCodec(objectMapper) : null;
+        return new MessageHelper(validator, objectMapper, outgoingCodec);
+    }
+
+    @Bean
+    public JmsRequestReplyClient jmsRequestReplyClient(ConnectionFactory connectionFactory, JmsTemplate jmsTemplate, MessageHelper messageHelper,
+                                                       @Value("${jms.request-reply.timeout-ms:10000}") long timeoutMillis) {
+        return new JmsRequestReplyClient(connectionFactory, jmsTemplate, messageHelper, Duration.ofMillis(timeoutMillis));
     }
 }
@@ -0,0 +1,17 @@
+package com.banka1.user.config;
+
+import com.banka1.common.service.implementation.TokenBlacklist;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class TokenBlacklistConfig {
+    /**
+     * Lokalna kopija crne liste tokena, puni je TokenRevocationListener, a proverava AuthService.
+     */
+    @Bean
+    public TokenBlacklist tokenBlacklist(@Value("${oauth.jwt.blacklist.capacity:10000}") int capacity) {
+        return new TokenBlacklist(capacity);
+    }
+}
@@ -11,6 +11,9 @@ import org.springframework.jms.annotation.JmsListener;
 import org.springframework.jms.core.JmsTemplate;
 import org.springframework.stereotype.Component;
 
+import java.util.Arrays;
+import java.util.List;
+
 @Slf4j
 @Component
 @RequiredArgsConstructor
@@ -29,7 +32,7 @@ public class CustomerListener {
         } catch (Exception e) {
             log.error("CustomerListener: ", e);
         }
-        jmsTemplate.convertAndSend(message.getJMSReplyTo(), messageHelper.createTextMessage(customer));
+        jmsTemplate.send(message.getJMSReplyTo(), messageHelper.createReply(message, customer));
     }
 
     @JmsListener(destination = "${destination.customer.email}", concurrency = "5-10")
@@ -42,7 +45,20 @@ public class CustomerListener {
         } catch (Exception e) {
             log.error("CustomerListener (by email): ", e);
         }
-        jmsTemplate.convertAndSend(message.getJMSReplyTo(), messageHelper.createTextMessage(customer));
+        jmsTemplate.send(message.getJMSReplyTo(), messageHelper.createReply(message, customer));
+    }
+
+    @JmsListener(destination = "${destination.customer.batch}", concurrency = "5-10")
+    public void onGetCustomersByIdsMessage(Message message) throws JMSException {
+        List<CustomerResponse> customers = null;
+        try {
+            var ids = messageHelper.getMessage(message, Long[].class);
+            if (ids != null)
+                customers = customerService.findAllById(Arrays.asList(ids));
+        } catch (Exception e) {
+            log.error("CustomerListener (by ids): ", e);
+        }
+        jmsTemplate.send(message.getJMSReplyTo(), messageHelper.createReply(message, customers));
     }
 
 }
@@ -1,36 +1,85 @@
 package com.banka1.user.service;
 
+import com.banka1.common.dto.TokenRevocationDTO;
+import com.banka1.common.listener.MessageHelper;
+import com.banka1.common.service.implementation.TokenBlacklist;
+import io.jsonwebtoken.Claims;
+import jakarta.jms.MessageProducer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jms.JmsException;
+import org.springframework.jms.core.JmsTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.time.Instant;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * Opoziv tokena pri odjavi i osvezavanju tokena. Token se dodaje u lokalnu crnu listu i
+ * objavljuje na topic destination.token.revoked, pa ga odbijaju i ostali servisi.
+ */
+@Slf4j
 @Service
 public class BlackListTokenService {
-    private final Map<String, Instant> blacklistedTokens = new ConcurrentHashMap<>();
+    private final TokenBlacklist tokenBlacklist;
+    private final AuthService authService;
+    private final JmsTemplate jmsTemplate;
+    private final MessageHelper messageHelper;
+    private final String destinationTokenRevoked;
+    private final long jwtExpiration;
 
-    // Dodaje token u blacklist sa trenutnim vremenom.
+    public BlackListTokenService(TokenBlacklist tokenBlacklist, AuthService authService, JmsTemplate jmsTemplate, MessageHelper messageHelper,
+                                 @Value("${destination.token.revoked}") String destinationTokenRevoked,
+                                 @Value("${oauth.jwt.expiration}") long jwtExpiration) {
+        this.tokenBlacklist = tokenBlacklist;
+        this.authService = authService;
+        this.jmsTemplate = jmsTemplate;
+        this.messageHelper = messageHelper;
+        this.destinationTokenRevoked = destinationTokenRevoked;
+        this.jwtExpiration = jwtExpiration;
+    }
+
+    // Dodaje token u blacklist do njegovog isteka i javlja ostalim servisima.
     public void blacklistToken(String token) {
-        blacklistedTokens.put(token, Instant.now());
+        if (token == null) {
+            return;
+        }
+        // Token se pamti samo dok ne istekne, posle toga ga ionako odbija svaki servis
+        Claims claims = authService.parseToken(token);
+        long expiresAt = claims != null && claims.getExpiration() != null
+                ? claims.getExpiration().getTime()
+                : System.currentTimeMillis() + jwtExpiration;
+
+        tokenBlacklist.revoke(token, expiresAt);
+        publishRevocation(new TokenRevocationDTO(TokenBlacklist.tokenId(token), expiresAt));
+    }
+
+    private void publishRevocation(TokenRevocationDTO revocation) {
+        try {
+            jmsTemplate.execute(session -> {
+                try (MessageProducer producer = session.createProducer(session.createTopic(destinationTokenRevoked))) {
+                    producer.send(messageHelper.createMessage(session, revocation));
+                }
+                return null;
+            }, true);
+        } catch (JmsException e) {
+            // Lokalno je token opozvan, ostali servisi ga prihvataju najduze do isteka
+            log.warn("Opoziv tokena nije poslat ostalim servisima: {}", e.getMessage());
+        }
     }
 
     // Proverava da li je token na blacklisti.
     public boolean isTokenBlacklisted(String token) {
-        return blacklistedTokens.containsKey(token);
+        return tokenBlacklist.isRevoked(token);
     }
 
-    // Brise sve tokene sa blacklist liste koji su stariji od 30 minuta
-    // Pokretanje ove metode na svakih 5 minuta
+    // Brise istekle tokene sa blacklist liste (prolazi samo kroz istekle)
     @Scheduled(fixedRate = 5, timeUnit = TimeUnit.MINUTES)
     public void cleanExpiredTokens() {
-        blacklistedTokens.entrySet().removeIf(e -> e.getValue().isBefore(Instant.now().minusSeconds(30*60)));
+        tokenBlacklist.purgeExpired();
     }
 
-
     public void clear() {
-        blacklistedTokens.clear();
+        tokenBlacklist.clear();
     }
 }
@@ -1,6 +1,7 @@
 package com.banka1.user.service;
 
 
+import com.banka1.common.listener.JmsRequestReplyClient;
 import com.banka1.common.listener.MessageHelper;
 import com.banka1.common.model.Permission;
 import com.banka1.user.DTO.banking.CreateAccountByEmployeeDTO;
@@ -15,11 +16,13 @@ import com.banka1.user.model.Customer;
 import com.banka1.user.model.helper.Gender;
 import com.banka1.user.repository.CustomerRepository;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.jms.MessageProducer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.*;
 import org.springframework.http.HttpStatus;
+import org.springframework.jms.JmsException;
 import org.springframework.jms.core.JmsTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
@@ -39,6 +42,7 @@ public class CustomerService {
     private final SetPasswordService setPasswordService;
     private final JmsTemplate jmsTemplate;
     private final MessageHelper messageHelper;
+    private final JmsRequestReplyClient requestReplyClient;
 
     @Value("${destination.email}")
     private String destinationEmail;
@@ -46,6 +50,8 @@ public class CustomerService {
     private String destinationAccount;
     @Value("${frontend.url}")
     private String frontendUrl;
+    @Value("${destination.customer.updated}")
+    private String destinationCustomerUpdated;
 
     public CustomerResponse findById(String id) {
         return findById(Long.parseLong(id));
@@ -59,6 +65,12 @@ public class CustomerService {
         return CustomerMapper.customerToDto(customer);
     }
 
+    public List<CustomerResponse> findAllById(List<Long> ids) {
+        return customerRepository.findAllById(ids).stream()
+                .map(CustomerMapper::customerToDto)
+                .toList();
+    }
+
     public CustomerResponse findByEmail(String email) {
         var customerOptional = customerRepository.findByEmail(email);
         if(customerOptional.isEmpty())
@@ -141,9 +153,7 @@ public class CustomerService {
             setPasswordService.saveSetPasswordRequest(verificationCode, customer.getId(), true);
 
             var dto = new CreateAccountByEmployeeDTO(new CreateAccountDTO(customerDTO.getAccountInfo(), customer.getId()), employeeId);
-            var message = jmsTemplate.sendAndReceive(destinationAccount, session -> session.createTextMessage(messageHelper.createTextMessage(dto)));
-
-            var error = messageHelper.getMessage(message, String.class);
+            var error = requestReplyClient.requestAndWait(destinationAccount, dto, String.class);
             if (error != null && !error.equals("null"))
                 throw new RuntimeException(error);
         } catch (Exception e) {
@@ -152,7 +162,7 @@ public class CustomerService {
             throw new RuntimeException(e);
         }
 
-        jmsTemplate.convertAndSend(destinationEmail, messageHelper.createTextMessage(emailDTO));
+        jmsTemplate.send(destinationEmail, messageHelper.messageCreator(emailDTO));
         return customer;
     }
 
@@ -191,7 +201,9 @@ public class CustomerService {
 
             System.out.println("Verification code: " + verificationCode);
 
-            return customerRepository.save(customer);
+            var saved = customerRepository.save(customer);
+            publishCustomerUpdated(id);
+            return saved;
         });
     }
 
@@ -208,9 +220,28 @@ public class CustomerService {
         }
 
         customerRepository.delete(customer.get());
+        publishCustomerUpdated(id);
         return true;
     }
 
+    /**
+     * Obavestava ostale servise (banking-service kesira profile korisnika) da je korisnik izmenjen.
+     * Salje se na topic, pa poruku dobija svaka instanca. Greska pri slanju ne ponistava izmenu,
+     * kes kod primaoca ionako istice posle podesenog TTL-a.
+     */
+    private void publishCustomerUpdated(Long id) {
+        try {
+            jmsTemplate.execute(session -> {
+                try (MessageProducer producer = session.createProducer(session.createTopic(destinationCustomerUpdated))) {
+                    producer.send(messageHelper.createMessage(session, id));
+                }
+                return null;
+            }, true);
+        } catch (JmsException e) {
+            log.warn("Obavestenje o izmeni korisnika {} nije poslato: {}", id, e.getMessage());
+        }
+    }
+
     /**
      * Updates the permissions of a customer.
      * @param id The customer ID.
@@ -93,7 +93,7 @@ public class EmployeeService {
 
         setPasswordService.saveSetPasswordRequest(verificationCode, employee.getId(), false);
 
-        jmsTemplate.convertAndSend(destinationEmail, messageHelper.createTextMessage(emailDTO));
+        jmsTemplate.send(destinationEmail, messageHelper.messageCreator(emailDTO));
 
         return employee;
     }
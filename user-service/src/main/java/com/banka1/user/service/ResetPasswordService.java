@@ -70,7 +70,7 @@ public class ResetPasswordService {
                 "/reset-password?token=" + resetPassword.getToken());
         emailDTO.setType("email");
 
-        jmsTemplate.convertAndSend(destinationEmail, messageHelper.createTextMessage(emailDTO));
+        jmsTemplate.send(destinationEmail, messageHelper.messageCreator(emailDTO));
         resetPasswordRepository.save(resetPassword);
     }
 
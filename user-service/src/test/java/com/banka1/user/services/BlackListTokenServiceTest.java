@@ -0,0 +1,65 @@
+package com.banka1.user.services;
+
+import com.banka1.common.listener.MessageHelper;
+import com.banka1.common.service.implementation.TokenBlacklist;
+import com.banka1.user.service.AuthService;
+import com.banka1.user.service.BlackListTokenService;
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jms.UncategorizedJmsException;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.core.SessionCallback;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BlackListTokenServiceTest {
+
+    @Mock
+    private AuthService authService;
+    @Mock
+    private JmsTemplate jmsTemplate;
+    @Mock
+    private MessageHelper messageHelper;
+    @Mock
+    private Claims claims;
+
+    private TokenBlacklist tokenBlacklist;
+    private BlackListTokenService blackListTokenService;
+
+    @BeforeEach
+    void setUp() {
+        tokenBlacklist = new TokenBlacklist(16);
+        blackListTokenService = new BlackListTokenService(tokenBlacklist, authService, jmsTemplate, messageHelper, "token-revoked", 1800000);
+    }
+
+    @Test
+    void blacklistedTokenIsRevokedAndPublished() {
+        when(authService.parseToken("token")).thenReturn(claims);
+        when(claims.getExpiration()).thenReturn(new Date(System.currentTimeMillis() + 60000));
+
+        blackListTokenService.blacklistToken("token");
+
+        assertTrue(blackListTokenService.isTokenBlacklisted("token"));
+        assertFalse(blackListTokenService.isTokenBlacklisted("drugi-token"));
+        verify(jmsTemplate).execute(any(SessionCallback.class), eq(true));
+    }
+
+    @Test
+    void tokenIsRevokedLocallyWhenBrokerIsDown() {
+        when(jmsTemplate.execute(any(SessionCallback.class), eq(true))).thenThrow(new UncategorizedJmsException("broker down"));
+
+        blackListTokenService.blacklistToken("token");
+
+        assertTrue(blackListTokenService.isTokenBlacklisted("token"));
+    }
+}
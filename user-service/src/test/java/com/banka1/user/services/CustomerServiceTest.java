@@ -1,5 +1,6 @@
 package com.banka1.user.services;
 
+import com.banka1.common.listener.JmsRequestReplyClient;
 import com.banka1.common.listener.MessageHelper;
 import com.banka1.common.model.Permission;
 import com.banka1.user.DTO.banking.CreateAccountWithoutOwnerIdDTO;
@@ -27,6 +28,7 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.core.SessionCallback;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.test.util.AssertionErrors;
 import org.springframework.web.server.ResponseStatusException;
@@ -36,6 +38,7 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -53,6 +56,9 @@ public class CustomerServiceTest {
     @Mock
     private JmsTemplate jmsTemplate;
 
+    @Mock
+    private JmsRequestReplyClient requestReplyClient;
+
     @Mock
     private BCryptPasswordEncoder passwordEncoder;
 
@@ -88,6 +94,8 @@ public class CustomerServiceTest {
                     return savedCustomer;
                 });
 
+        when(requestReplyClient.requestAndWait(any(), any(), eq(String.class))).thenReturn("null");
+
         Customer createdCustomer = customerService.createCustomer(customerDTO, 1L);
 
         assertNotNull(createdCustomer);
@@ -111,6 +119,7 @@ public class CustomerServiceTest {
         assertNotNull(updatedCustomer);
         assertEquals("Petar", updatedCustomer.get().getFirstName());
         verify(customerRepository, times(1)).save(any(Customer.class));
+        verify(jmsTemplate, times(1)).execute(any(SessionCallback.class), eq(true));
     }
 
     @Test
@@ -123,6 +132,29 @@ public class CustomerServiceTest {
 //      assertThrows(...)
     }
 
+    @Test
+    void testFindAllById() {
+        Customer customer = new Customer();
+        customer.setId(1L);
+        customer.setFirstName("Petar");
+        customer.setLastName("Petrovic");
+        customer.setUsername("ppetrovic");
+        customer.setBirthDate("2000-03-03");
+        customer.setGender(Gender.MALE);
+        customer.setEmail("ppetrovic@example.com");
+        customer.setPhoneNumber("555333");
+        customer.setAddress("Ulica");
+        customer.setPermissions(List.of());
+
+        when(customerRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(customer));
+
+        List<CustomerResponse> customers = customerService.findAllById(List.of(1L, 2L));
+
+        assertEquals(1, customers.size());
+        assertEquals("Petar", customers.get(0).getFirstName());
+        verify(customerRepository, times(1)).findAllById(List.of(1L, 2L));
+    }
+
     @Test
     void testDeleteCustomer(){
         Customer customer = new Customer();
@@ -132,6 +164,7 @@ public class CustomerServiceTest {
 
         assertTrue(customerService.deleteCustomer(1L));
         verify(customerRepository, times(1)).delete(customer);
+        verify(jmsTemplate, times(1)).execute(any(SessionCallback.class), eq(true));
     }
 
     @Test
@@ -140,6 +173,7 @@ public class CustomerServiceTest {
 
         assertFalse(customerService.deleteCustomer(1L));
         verify(customerRepository, times(0)).delete(any(Customer.class));
+        verifyNoInteractions(jmsTemplate);
     }
 
     @Test